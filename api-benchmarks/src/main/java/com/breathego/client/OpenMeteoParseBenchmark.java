@@ -0,0 +1,76 @@
+package com.breathego.client;
+
+import com.breathego.dto.AqiData;
+import com.breathego.dto.WeatherData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response parsing for 3-, 7- and 16-day payloads. The {@code parse*}
+ * benchmarks start from the JSON tree WebClient hands the client; the
+ * {@code decodeAndParse*} ones include reading the tree from the wire bytes.
+ * Payloads are generated, or with {@code -p recording=<file>} taken from an
+ * upstream recording.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenMeteoParseBenchmark {
+
+    @Param({"3", "7", "16"})
+    int days;
+
+    @Param({""})
+    String recording;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private OpenMeteoClient client;
+    private JsonNode forecast;
+    private JsonNode airQuality;
+    private byte[] forecastBytes;
+    private byte[] airQualityBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        client = new OpenMeteoClient(null, "", "", "");
+        if (recording.isEmpty()) {
+            LocalDate start = LocalDate.of(2026, 2, 10);
+            forecast = OpenMeteoPayloads.forecast(start, days, 1);
+            airQuality = OpenMeteoPayloads.airQuality(start, days, 2);
+        } else {
+            forecast = OpenMeteoPayloads.recorded(Path.of(recording), "forecast", days);
+            airQuality = OpenMeteoPayloads.recorded(Path.of(recording), "air-quality", days);
+        }
+        forecastBytes = OpenMeteoPayloads.toJson(forecast).getBytes();
+        airQualityBytes = OpenMeteoPayloads.toJson(airQuality).getBytes();
+    }
+
+    @Benchmark
+    public List<WeatherData> parseWeatherResponse() {
+        return client.parseWeatherResponse(forecast);
+    }
+
+    @Benchmark
+    public List<AqiData> parseHourlyAqiResponse() {
+        return client.parseHourlyAqiResponse(airQuality);
+    }
+
+    @Benchmark
+    public List<WeatherData> decodeAndParseWeatherResponse() throws Exception {
+        return client.parseWeatherResponse(mapper.readTree(forecastBytes));
+    }
+
+    @Benchmark
+    public List<AqiData> decodeAndParseHourlyAqiResponse() throws Exception {
+        return client.parseHourlyAqiResponse(mapper.readTree(airQualityBytes));
+    }
+}
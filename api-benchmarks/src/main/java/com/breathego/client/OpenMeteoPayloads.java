@@ -0,0 +1,194 @@
+package com.breathego.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Open-Meteo responses with the same shape, field names and value ranges as
+ * the real forecast, air-quality, archive and geocoding APIs. Values follow a
+ * daily cycle with seeded noise, so a given (start date, days, seed) always
+ * produces the same payload. Real payloads can be read from a recording
+ * instead.
+ */
+public final class OpenMeteoPayloads {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int HOURS = 24;
+
+    // Air quality forecasts only run five days out; later hours are null
+    private static final int AIR_QUALITY_FORECAST_DAYS = 5;
+
+    private OpenMeteoPayloads() {
+    }
+
+    public static JsonNode forecast(LocalDate start, int days, long seed) {
+        Random random = new Random(seed);
+        ObjectNode root = header();
+
+        ObjectNode daily = root.putObject("daily");
+        ArrayNode dates = daily.putArray("time");
+        ArrayNode tempMax = daily.putArray("temperature_2m_max");
+        ArrayNode tempMin = daily.putArray("temperature_2m_min");
+        ArrayNode precipSum = daily.putArray("precipitation_sum");
+        ArrayNode windMax = daily.putArray("wind_speed_10m_max");
+        ArrayNode windDir = daily.putArray("wind_direction_10m_dominant");
+        ArrayNode uvMax = daily.putArray("uv_index_max");
+
+        ObjectNode hourly = root.putObject("hourly");
+        ArrayNode times = hourly.putArray("time");
+        ArrayNode temperature = hourly.putArray("temperature_2m");
+        ArrayNode precipitation = hourly.putArray("precipitation");
+        ArrayNode windSpeed = hourly.putArray("wind_speed_10m");
+
+        for (int d = 0; d < days; d++) {
+            LocalDate date = start.plusDays(d);
+            double mean = 8 + random.nextGaussian() * 6;
+            double swing = 3 + random.nextDouble() * 5;
+            double windBase = 5 + random.nextDouble() * 25;
+            boolean wet = random.nextInt(3) == 0;
+
+            double max = Double.NEGATIVE_INFINITY;
+            double min = Double.POSITIVE_INFINITY;
+            double rain = 0;
+            double gust = 0;
+            for (int h = 0; h < HOURS; h++) {
+                double t = round1(mean + swing * Math.sin((h - 9) * Math.PI / 12) + random.nextGaussian() * 0.5);
+                double p = wet && random.nextInt(4) == 0 ? round1(random.nextDouble() * 3) : 0.0;
+                double w = round1(Math.max(0, windBase + random.nextGaussian() * 4));
+                times.add(String.format("%sT%02d:00", date, h));
+                temperature.add(t);
+                precipitation.add(p);
+                windSpeed.add(w);
+                max = Math.max(max, t);
+                min = Math.min(min, t);
+                rain += p;
+                gust = Math.max(gust, w);
+            }
+
+            dates.add(date.toString());
+            tempMax.add(max);
+            tempMin.add(min);
+            precipSum.add(round1(rain));
+            windMax.add(gust);
+            windDir.add(random.nextInt(360));
+            uvMax.add(round1(random.nextDouble() * 9));
+        }
+        return root;
+    }
+
+    public static JsonNode airQuality(LocalDate start, int days, long seed) {
+        Random random = new Random(seed);
+        ObjectNode root = header();
+
+        ObjectNode hourly = root.putObject("hourly");
+        ArrayNode times = hourly.putArray("time");
+        ArrayNode usAqi = hourly.putArray("us_aqi");
+        ArrayNode pm25 = hourly.putArray("pm2_5");
+        ArrayNode ozone = hourly.putArray("ozone");
+
+        for (int d = 0; d < days; d++) {
+            LocalDate date = start.plusDays(d);
+            double base = 20 + random.nextDouble() * 80;
+            for (int h = 0; h < HOURS; h++) {
+                times.add(String.format("%sT%02d:00", date, h));
+                if (d >= AIR_QUALITY_FORECAST_DAYS) {
+                    usAqi.addNull();
+                    pm25.addNull();
+                    ozone.addNull();
+                    continue;
+                }
+                // Rush-hour peaks on top of the day's background level
+                double rush = 25 * (Math.exp(-sq(h - 8) / 4.0) + Math.exp(-sq(h - 18) / 4.0));
+                double aqi = Math.max(0, base + rush + random.nextGaussian() * 5);
+                usAqi.add((int) Math.round(aqi));
+                pm25.add(round1(aqi * 0.35));
+                ozone.add(round1(40 + 30 * Math.sin((h - 9) * Math.PI / 12) + random.nextGaussian() * 5));
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Archive responses carry the forecast's daily block without UV or
+     * hourly data.
+     */
+    public static JsonNode archive(LocalDate start, LocalDate end, long seed) {
+        ObjectNode root = (ObjectNode) forecast(start, (int) (end.toEpochDay() - start.toEpochDay()) + 1, seed);
+        root.remove("hourly");
+        ((ObjectNode) root.get("daily")).remove("uv_index_max");
+        return root;
+    }
+
+    public static JsonNode geocoding(String query, int count) {
+        Random random = new Random(query.hashCode());
+        ObjectNode root = MAPPER.createObjectNode();
+        ArrayNode results = root.putArray("results");
+        for (int i = 0; i < count; i++) {
+            ObjectNode result = results.addObject();
+            result.put("id", 2_600_000 + random.nextInt(1_000_000));
+            result.put("name", i == 0 ? capitalize(query) : capitalize(query) + " " + (i + 1));
+            result.put("latitude", round1(-60 + random.nextDouble() * 120));
+            result.put("longitude", round1(-180 + random.nextDouble() * 360));
+            result.put("country", "United Kingdom");
+            result.put("country_code", "GB");
+            result.put("admin1", "England");
+            result.put("timezone", "Europe/London");
+        }
+        root.put("generationtime_ms", 0.8);
+        return root;
+    }
+
+    /**
+     * The first {@code endpoint} response for {@code days} days in a recording
+     * made with {@code openmeteo.recording.mode=record}.
+     */
+    public static JsonNode recorded(Path recording, String endpoint, int days) throws IOException {
+        for (String line : Files.readAllLines(recording)) {
+            JsonNode recorded = line.isBlank() ? null : MAPPER.readTree(line);
+            if (recorded != null && endpoint.equals(recorded.path("endpoint").asText())
+                    && recorded.path("key").asText().contains("forecast_days=" + days + "&")) {
+                return MAPPER.readTree(recorded.get("body").asText());
+            }
+        }
+        throw new IllegalArgumentException("No " + days + "-day " + endpoint + " response in " + recording);
+    }
+
+    /**
+     * Serialized form of a payload, as it would arrive over the wire.
+     */
+    public static String toJson(JsonNode payload) {
+        return payload.toString();
+    }
+
+    private static ObjectNode header() {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("latitude", 51.5);
+        root.put("longitude", -0.12);
+        root.put("generationtime_ms", 0.5);
+        root.put("utc_offset_seconds", 0);
+        root.put("timezone", "Europe/London");
+        root.put("timezone_abbreviation", "GMT");
+        root.put("elevation", 23.0);
+        return root;
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static String capitalize(String value) {
+        return value.isEmpty() ? value : Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    private static double sq(double value) {
+        return value * value;
+    }
+}
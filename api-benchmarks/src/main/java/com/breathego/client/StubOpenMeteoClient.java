@@ -0,0 +1,41 @@
+package com.breathego.client;
+
+import com.breathego.dto.AqiData;
+import com.breathego.dto.WeatherData;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OpenMeteoClient that answers from generated payloads instead of the network.
+ * Responses still go through the real parsers, so the service benchmarks pay
+ * the same per-request parsing cost as production.
+ */
+public class StubOpenMeteoClient extends OpenMeteoClient {
+
+    private final ZoneId zone;
+    private final Map<Integer, JsonNode> forecasts = new ConcurrentHashMap<>();
+    private final Map<Integer, JsonNode> airQuality = new ConcurrentHashMap<>();
+
+    public StubOpenMeteoClient(ZoneId zone) {
+        super(null, "", "", "");
+        this.zone = zone;
+    }
+
+    @Override
+    public List<WeatherData> getWeatherForecast(BigDecimal latitude, BigDecimal longitude, int days) {
+        return parseWeatherResponse(forecasts.computeIfAbsent(days,
+                d -> OpenMeteoPayloads.forecast(LocalDate.now(zone), d, 1)));
+    }
+
+    @Override
+    public List<AqiData> getAirQuality(BigDecimal latitude, BigDecimal longitude, int days) {
+        return parseHourlyAqiResponse(airQuality.computeIfAbsent(days,
+                d -> OpenMeteoPayloads.airQuality(LocalDate.now(zone), d, 2)));
+    }
+}
@@ -0,0 +1,104 @@
+package com.breathego.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding a trends response in each negotiable format. 7 and 30 days are the
+ * smallest and largest periods the endpoint serves; 365 days shows how the
+ * formats would scale to a year of history. Size rather than CPU is what the
+ * formats trade; {@link #main} prints each payload's raw and gzip size, so the
+ * measured runs don't write to stdout.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrendsSerializationBenchmark {
+
+    @Param({"7", "30", "365"})
+    public int days;
+
+    @Param({"json", "columnar", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private TrendsResponse trends;
+
+    @Setup
+    public void setUp() {
+        // Same derivation as ResponseFormatConfig: dates as ISO strings in every format
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        mapper = switch (format) {
+            case "cbor" -> json.copyWith(new CBORFactory());
+            case "smile" -> json.copyWith(new SmileFactory());
+            default -> json;
+        };
+        trends = trends(days);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        Object body = format.equals("columnar") ? ColumnarTrendsResponse.from(trends) : trends;
+        return mapper.writeValueAsBytes(body);
+    }
+
+    /**
+     * Prints the raw and gzip size of every payload the benchmark encodes.
+     */
+    public static void main(String[] args) throws Exception {
+        for (String days : params("days")) {
+            for (String format : params("format")) {
+                TrendsSerializationBenchmark benchmark = new TrendsSerializationBenchmark();
+                benchmark.days = Integer.parseInt(days);
+                benchmark.format = format;
+                benchmark.setUp();
+                byte[] raw = benchmark.serialize();
+                System.out.printf("%s, %s days: %d bytes, %d gzipped%n", format, days, raw.length, gzip(raw).length);
+            }
+        }
+    }
+
+    private static String[] params(String field) throws NoSuchFieldException {
+        return TrendsSerializationBenchmark.class.getField(field).getAnnotation(Param.class).value();
+    }
+
+    private static TrendsResponse trends(int days) {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        List<TrendsResponse.AqiTrend> aqi = new ArrayList<>(days);
+        List<TrendsResponse.TemperatureTrend> temperature = new ArrayList<>(days);
+        List<TrendsResponse.ScoreTrend> scores = new ArrayList<>(days);
+        String[] recommendations = {"Great", "Good", "Fair", "Poor"};
+        for (int i = 0; i < days; i++) {
+            LocalDate date = start.plusDays(i);
+            aqi.add(new TrendsResponse.AqiTrend(date, i % 11 == 0 ? null : 20 + (i * 37) % 140));
+            temperature.add(new TrendsResponse.TemperatureTrend(date,
+                    BigDecimal.valueOf(-50 + (i * 13) % 200, 1), BigDecimal.valueOf(80 + (i * 17) % 250, 1)));
+            scores.add(new TrendsResponse.ScoreTrend(date, 35 + (i * 7) % 65, recommendations[i % 4]));
+        }
+        return new TrendsResponse(1L, "Denver, Colorado, United States", "default", days, aqi, temperature, scores,
+                1_770_681_600_000L);
+    }
+
+    private static byte[] gzip(byte[] raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        }
+        return out.toByteArray();
+    }
+}
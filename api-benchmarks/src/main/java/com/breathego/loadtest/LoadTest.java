@@ -0,0 +1,396 @@
+package com.breathego.loadtest;
+
+import com.breathego.BreatheGoApplication;
+import com.breathego.loadtest.OpenMeteoSimulator.Endpoint;
+import com.breathego.loadtest.OpenMeteoSimulator.Latency;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test: boots the API in-process against
+ * {@link OpenMeteoSimulator} and drives the dashboard's request mix at a fixed
+ * arrival rate.
+ *
+ * Requests are issued on schedule whether or not earlier ones have finished
+ * (an open model), and latency is measured from the scheduled send time, so a
+ * stalled server shows up as latency instead of silently lowering the rate.
+ *
+ * Options (all {@code --name=value}): rps, duration, warmup (seconds),
+ * locations, mix (e.g. {@code locations:30,dashboard:10,forecast:25,trends:25,search:10}),
+ * latency (median:p99 ms for every endpoint) or forecast-latency,
+ * air-quality-latency, archive-latency, geocoding-latency, error-rate,
+ * max-in-flight, pool-size, jdbc-url / jdbc-user / jdbc-password (H2 when
+ * unset) and result (JSON report path).
+ *
+ * With {@code replay} (an {@code openmeteo.recording.file} made in record
+ * mode), upstream calls are answered from the recording instead of the
+ * simulator, with the recorded latency unless {@code replay-latency=false},
+ * and the locations are placed at the recorded forecast coordinates.
+ */
+public class LoadTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/London");
+    private static final String[] SEARCHES = {"london", "paris", "berlin", "madrid", "tokyo", "delhi", "lagos", "lima"};
+    // The web app loads a location it hasn't shown yet with one dashboard
+    // request, and refreshes one it has with forecast and trends
+    private static final String DEFAULT_MIX = "locations:30,dashboard:10,forecast:25,trends:25,search:10";
+
+    enum Operation {
+        LOCATIONS, DASHBOARD, FORECAST, TRENDS, SEARCH
+    }
+
+    private final Map<String, String> options;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(8))
+            .build();
+
+    private final Map<Operation, LatencyRecorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+        for (Operation op : Operation.values()) {
+            latencies.put(op, new LatencyRecorder());
+            failures.put(op, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadTest(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        int rps = intOption("rps", 50);
+        int duration = intOption("duration", 60);
+        int warmup = intOption("warmup", 10);
+        int maxInFlight = intOption("max-in-flight", 1000);
+        Map<Operation, Integer> mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+
+        Map<Endpoint, Latency> upstreamLatency = new EnumMap<>(Endpoint.class);
+        Latency all = parseLatency(options.getOrDefault("latency", "150:600"));
+        for (Endpoint endpoint : Endpoint.values()) {
+            String key = endpoint.name().toLowerCase().replace('_', '-') + "-latency";
+            upstreamLatency.put(endpoint, options.containsKey(key) ? parseLatency(options.get(key)) : all);
+        }
+        double errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+
+        try (OpenMeteoSimulator simulator = new OpenMeteoSimulator(ZONE, upstreamLatency, errorRate, 256)) {
+            simulator.start();
+            PoolWaitRecorder poolWaits = new PoolWaitRecorder();
+            try (ConfigurableApplicationContext context = startApi(simulator, poolWaits)) {
+                String baseUrl = "http://127.0.0.1:"
+                        + ((WebServerApplicationContext) context).getWebServer().getPort();
+                List<Long> locationIds = createLocations(baseUrl, intOption("locations", 20));
+
+                System.out.printf("Driving %d req/s for %ds after %ds warm-up against %d locations%n",
+                        rps, duration, warmup, locationIds.size());
+
+                long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+                long start = System.nanoTime();
+                long measureStart = start + TimeUnit.SECONDS.toNanos(warmup);
+                long end = measureStart + TimeUnit.SECONDS.toNanos(duration);
+                Map<Endpoint, Long> upstreamBefore = null;
+
+                for (long i = 0; ; i++) {
+                    long scheduled = start + i * intervalNanos;
+                    if (scheduled >= end) {
+                        break;
+                    }
+                    if (upstreamBefore == null && scheduled >= measureStart) {
+                        upstreamBefore = upstreamCalls(simulator, context);
+                        poolWaits.reset();
+                    }
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    if (inFlight.get() >= maxInFlight) {
+                        if (scheduled >= measureStart) {
+                            dropped.increment();
+                        }
+                        continue;
+                    }
+                    send(baseUrl, pick(mix), locationIds, scheduled, scheduled >= measureStart);
+                }
+
+                awaitInFlight(Duration.ofSeconds(30));
+                Map<Endpoint, Long> upstreamAfter = upstreamCalls(simulator, context);
+                report(rps, duration, upstreamBefore, upstreamAfter, simulator, poolWaits);
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startApi(OpenMeteoSimulator simulator, PoolWaitRecorder poolWaits) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--openmeteo.weather.url=" + simulator.url(Endpoint.FORECAST),
+                "--openmeteo.airquality.url=" + simulator.url(Endpoint.AIR_QUALITY),
+                "--openmeteo.archive.url=" + simulator.url(Endpoint.ARCHIVE),
+                "--openmeteo.geocoding.url=" + simulator.url(Endpoint.GEOCODING),
+                "--spring.datasource.hikari.maximum-pool-size=" + intOption("pool-size", 10),
+                // Every simulated user shares one address
+                "--rate-limit.enabled=false",
+                // Responses kept by an earlier run would hide upstream calls
+                "--upstream-store.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.breathego=WARN"));
+        if (options.containsKey("replay")) {
+            args.add("--openmeteo.recording.mode=replay");
+            args.add("--openmeteo.recording.file=" + options.get("replay"));
+            args.add("--openmeteo.recording.replay-latency=" + options.getOrDefault("replay-latency", "true"));
+        }
+        if (options.containsKey("jdbc-url")) {
+            args.add("--spring.datasource.url=" + options.get("jdbc-url"));
+            args.add("--spring.datasource.username=" + options.getOrDefault("jdbc-user", "breathego"));
+            args.add("--spring.datasource.password=" + options.getOrDefault("jdbc-password", ""));
+        } else {
+            args.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--spring.flyway.enabled=false"));
+        }
+
+        return new SpringApplicationBuilder(BreatheGoApplication.class)
+                .initializers(context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        if (bean instanceof HikariDataSource dataSource) {
+                            dataSource.setMetricsTrackerFactory(poolWaits);
+                        }
+                        return bean;
+                    }
+                }))
+                .run(args.toArray(new String[0]));
+    }
+
+    private List<Long> createLocations(String baseUrl, int count) throws Exception {
+        List<String[]> recorded = options.containsKey("replay") ? recordedCoordinates(count) : List.of();
+        if (options.containsKey("replay") && recorded.isEmpty()) {
+            throw new IllegalArgumentException("No forecast calls in " + options.get("replay"));
+        }
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Spread over distinct coordinates so each location has its own upstream data
+            String latitude = recorded.isEmpty()
+                    ? String.format(Locale.ROOT, "%.4f", 50 + i * 0.1) : recorded.get(i % recorded.size())[0];
+            String longitude = recorded.isEmpty()
+                    ? String.format(Locale.ROOT, "%.4f", -1 + i * 0.1) : recorded.get(i % recorded.size())[1];
+            String body = String.format(Locale.ROOT,
+                    "{\"name\":\"Load test %d\",\"latitude\":%s,\"longitude\":%s,\"timezone\":\"%s\"}",
+                    i, latitude, longitude, ZONE.getId());
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/locations"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            ids.add(mapper.readTree(response.body()).get("id").asLong());
+        }
+        return ids;
+    }
+
+    /**
+     * Up to {@code count} distinct (latitude, longitude) pairs the recording
+     * has forecasts for.
+     */
+    private List<String[]> recordedCoordinates(int count) throws Exception {
+        Set<List<String>> coordinates = new LinkedHashSet<>();
+        for (String line : Files.readAllLines(Path.of(options.get("replay")))) {
+            JsonNode recorded = line.isBlank() ? null : mapper.readTree(line);
+            if (recorded == null || !"forecast".equals(recorded.path("endpoint").asText())) {
+                continue;
+            }
+            Map<String, String> query = new HashMap<>();
+            for (String parameter : recorded.get("key").asText().substring("forecast ".length()).split("&")) {
+                String[] pair = parameter.split("=", 2);
+                query.put(pair[0], pair.length > 1 ? pair[1] : "");
+            }
+            coordinates.add(List.of(query.get("latitude"), query.get("longitude")));
+            if (coordinates.size() == count) {
+                break;
+            }
+        }
+        return coordinates.stream().map(pair -> pair.toArray(new String[0])).toList();
+    }
+
+    private void send(String baseUrl, Operation op, List<Long> locationIds, long scheduled, boolean measured) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long locationId = locationIds.get(random.nextInt(locationIds.size()));
+        String path = switch (op) {
+            case LOCATIONS -> "/api/locations";
+            case DASHBOARD -> "/api/locations/" + locationId + "/dashboard";
+            case FORECAST -> "/api/locations/" + locationId + "/forecast";
+            case TRENDS -> "/api/locations/" + locationId + "/trends?period=7";
+            case SEARCH -> "/api/geocoding/search?query=" + SEARCHES[random.nextInt(SEARCHES.length)] + "&limit=5";
+        };
+
+        inFlight.incrementAndGet();
+        http.sendAsync(HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).build(),
+                        HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (measured) {
+                        latencies.get(op).record(System.nanoTime() - scheduled);
+                        if (error != null || response.statusCode() >= 400) {
+                            failures.get(op).increment();
+                        }
+                    }
+                    inFlight.decrementAndGet();
+                });
+    }
+
+    private void awaitInFlight(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private void report(int rps, int duration, Map<Endpoint, Long> before, Map<Endpoint, Long> after,
+                        OpenMeteoSimulator simulator, PoolWaitRecorder poolWaits) throws Exception {
+        ObjectNode result = mapper.createObjectNode();
+        result.put("targetRps", rps);
+        result.put("durationSeconds", duration);
+
+        long completed = 0;
+        long failed = 0;
+        System.out.printf("%n%-10s %8s %7s %9s %9s %9s %9s%n", "operation", "requests", "errors",
+                "p50 ms", "p90 ms", "p99 ms", "max ms");
+        ObjectNode operations = result.putObject("operations");
+        for (Operation op : Operation.values()) {
+            LatencyRecorder.Snapshot snapshot = latencies.get(op).snapshot();
+            long errors = failures.get(op).sum();
+            completed += snapshot.count();
+            failed += errors;
+            System.out.printf("%-10s %8d %7d %9.1f %9.1f %9.1f %9.1f%n", op.name().toLowerCase(),
+                    snapshot.count(), errors, snapshot.percentileMillis(50), snapshot.percentileMillis(90),
+                    snapshot.percentileMillis(99), snapshot.maxMillis());
+            operations.set(op.name().toLowerCase(), latencyJson(snapshot).put("errors", errors));
+        }
+
+        double throughput = (double) (completed - failed) / duration;
+        System.out.printf("%nThroughput: %.1f successful req/s (%d requests, %d errors, %d dropped)%n",
+                throughput, completed, failed, dropped.sum());
+        result.put("throughput", throughput);
+        result.put("requests", completed);
+        result.put("errors", failed);
+        result.put("dropped", dropped.sum());
+
+        System.out.println("Upstream calls:");
+        ObjectNode upstream = result.putObject("upstreamCalls");
+        for (Endpoint endpoint : Endpoint.values()) {
+            long calls = after.get(endpoint) - before.get(endpoint);
+            System.out.printf("  %-12s %7d  (%.2f per API request, %d simulated errors in total)%n",
+                    endpoint.name().toLowerCase(), calls, completed > 0 ? (double) calls / completed : 0,
+                    simulator.errors(endpoint));
+            upstream.put(endpoint.name().toLowerCase(), calls);
+        }
+
+        LatencyRecorder.Snapshot acquire = poolWaits.acquireTimes();
+        System.out.printf("DB pool wait: p50 %.3f ms, p99 %.3f ms, max %.3f ms over %d checkouts; "
+                        + "max %d threads waiting, %d timeouts%n",
+                acquire.percentileMillis(50), acquire.percentileMillis(99), acquire.maxMillis(),
+                acquire.count(), poolWaits.maxPending(), poolWaits.timeouts());
+        result.set("dbPoolWait", latencyJson(acquire)
+                .put("maxPendingThreads", poolWaits.maxPending())
+                .put("timeouts", poolWaits.timeouts()));
+
+        File file = new File(options.getOrDefault("result", "target/loadtest-result.json"));
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file, result);
+        System.out.println("Result saved to " + file.getAbsolutePath());
+    }
+
+    private ObjectNode latencyJson(LatencyRecorder.Snapshot snapshot) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("count", snapshot.count());
+        node.put("p50Ms", snapshot.percentileMillis(50));
+        node.put("p90Ms", snapshot.percentileMillis(90));
+        node.put("p99Ms", snapshot.percentileMillis(99));
+        node.put("maxMs", snapshot.maxMillis());
+        return node;
+    }
+
+    /**
+     * Calls per endpoint so far: those the simulator served, or when
+     * replaying, those the API's upstream timer saw.
+     */
+    private Map<Endpoint, Long> upstreamCalls(OpenMeteoSimulator simulator, ConfigurableApplicationContext context) {
+        Map<Endpoint, Long> calls = new EnumMap<>(Endpoint.class);
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            calls.put(endpoint, !options.containsKey("replay") ? simulator.calls(endpoint)
+                    : registry.find("breathego.upstream.requests")
+                            .tag("endpoint", endpoint.name().toLowerCase().replace('_', '-'))
+                            .timers().stream().mapToLong(Timer::count).sum());
+        }
+        return calls;
+    }
+
+    private static Operation pick(Map<Operation, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty request mix");
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    private static Latency parseLatency(String value) {
+        String[] parts = value.split(":");
+        return new Latency(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]));
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+}
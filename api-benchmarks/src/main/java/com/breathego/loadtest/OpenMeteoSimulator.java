@@ -0,0 +1,195 @@
+package com.breathego.loadtest;
+
+import com.breathego.client.OpenMeteoPayloads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Local stand-in for the Open-Meteo forecast, air-quality, archive and
+ * geocoding APIs. Each response is delayed by a log-normal latency and fails
+ * with HTTP 503 at the configured error rate; calls are counted per endpoint.
+ */
+public class OpenMeteoSimulator implements AutoCloseable {
+
+    public enum Endpoint {
+        FORECAST("/v1/forecast"),
+        AIR_QUALITY("/v1/air-quality"),
+        ARCHIVE("/v1/archive"),
+        GEOCODING("/v1/search");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+
+        public String path() {
+            return path;
+        }
+    }
+
+    /**
+     * Log-normal latency defined by its median and 99th percentile, which is
+     * how upstream latency is usually observed and quoted.
+     */
+    public record Latency(double medianMillis, double p99Millis) {
+        private static final double Z_99 = 2.326;
+
+        public Latency {
+            if (medianMillis < 0 || p99Millis < medianMillis) {
+                throw new IllegalArgumentException("Latency needs 0 <= median <= p99");
+            }
+        }
+
+        long sampleMillis() {
+            if (medianMillis == 0) {
+                return 0;
+            }
+            double sigma = Math.log(p99Millis / medianMillis) / Z_99;
+            return Math.round(medianMillis * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ZoneId zone;
+    private final Map<Endpoint, Latency> latencies;
+    private final double errorRate;
+    private final Map<Endpoint, LongAdder> calls = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+
+    public OpenMeteoSimulator(ZoneId zone, Map<Endpoint, Latency> latencies, double errorRate, int threads)
+            throws IOException {
+        this.zone = zone;
+        this.latencies = new EnumMap<>(latencies);
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        // Latency is simulated by sleeping, so size the pool for the expected
+        // upstream concurrency rather than for CPU
+        this.executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            calls.put(endpoint, new LongAdder());
+            errors.put(endpoint, new LongAdder());
+        }
+        handle(Endpoint.FORECAST, query -> OpenMeteoPayloads.toJson(OpenMeteoPayloads.forecast(
+                today(), intParam(query, "forecast_days", 7), seed(query))));
+        handle(Endpoint.AIR_QUALITY, query -> OpenMeteoPayloads.toJson(query.containsKey("start_date")
+                ? OpenMeteoPayloads.airQuality(LocalDate.parse(query.get("start_date")),
+                        days(query), seed(query))
+                : OpenMeteoPayloads.airQuality(today(), intParam(query, "forecast_days", 5), seed(query))));
+        handle(Endpoint.ARCHIVE, query -> OpenMeteoPayloads.toJson(OpenMeteoPayloads.archive(
+                LocalDate.parse(query.get("start_date")), LocalDate.parse(query.get("end_date")), seed(query))));
+        handle(Endpoint.GEOCODING, query -> OpenMeteoPayloads.toJson(OpenMeteoPayloads.geocoding(
+                query.getOrDefault("name", ""), intParam(query, "count", 5))));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public String url(Endpoint endpoint) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + endpoint.path();
+    }
+
+    public long calls(Endpoint endpoint) {
+        return calls.get(endpoint).sum();
+    }
+
+    public long errors(Endpoint endpoint) {
+        return errors.get(endpoint).sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(Endpoint endpoint, Function<Map<String, String>, String> body) {
+        Latency latency = latencies.getOrDefault(endpoint, new Latency(0, 0));
+        server.createContext(endpoint.path(), exchange -> {
+            calls.get(endpoint).increment();
+            try {
+                Thread.sleep(latency.sampleMillis());
+                if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    errors.get(endpoint).increment();
+                    respond(exchange, 503, "{\"error\":true,\"reason\":\"Simulated upstream failure\"}");
+                } else {
+                    respond(exchange, 200, body.apply(parseQuery(exchange.getRequestURI().getRawQuery())));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.close();
+            } catch (RuntimeException e) {
+                errors.get(endpoint).increment();
+                respond(exchange, 400, "{\"error\":true,\"reason\":\"" + e.getMessage() + "\"}");
+            }
+        });
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    private static int days(Map<String, String> query) {
+        return (int) (LocalDate.parse(query.get("end_date")).toEpochDay()
+                - LocalDate.parse(query.get("start_date")).toEpochDay()) + 1;
+    }
+
+    // Same coordinates, same weather
+    private static long seed(Map<String, String> query) {
+        return (query.get("latitude") + "," + query.get("longitude")).hashCode();
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+}
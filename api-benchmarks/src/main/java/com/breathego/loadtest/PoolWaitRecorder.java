@@ -0,0 +1,56 @@
+package com.breathego.loadtest;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long requests wait for a Hikari connection, plus timeouts and
+ * the most threads seen queued for one.
+ */
+final class PoolWaitRecorder implements MetricsTrackerFactory {
+
+    private volatile LatencyRecorder acquire = new LatencyRecorder();
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicInteger maxPending = new AtomicInteger();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquire.record(elapsedAcquiredNanos);
+                maxPending.accumulateAndGet(poolStats.getPendingThreads(), Math::max);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    /**
+     * Drop everything recorded so far, e.g. at the end of warm-up.
+     */
+    void reset() {
+        acquire = new LatencyRecorder();
+        timeouts.reset();
+        maxPending.set(0);
+    }
+
+    LatencyRecorder.Snapshot acquireTimes() {
+        return acquire.snapshot();
+    }
+
+    long timeouts() {
+        return timeouts.sum();
+    }
+
+    int maxPending() {
+        return maxPending.get();
+    }
+}
@@ -0,0 +1,48 @@
+package com.breathego.ratelimit;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Taking a rate-limit token from 4 threads at once. With one client every
+ * thread compare-and-sets the same bucket; with more, threads mostly hit
+ * different buckets and only share the map. The limits are high enough that
+ * every call is allowed, so this is the cost a request pays before it is
+ * handled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class TokenBucketsBenchmark {
+
+    @Param({"1", "64", "4096"})
+    public int clients;
+
+    private TokenBuckets buckets;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        buckets = new TokenBuckets(Integer.MAX_VALUE, Integer.MAX_VALUE, 100_000);
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "10.0." + (i >> 8) + "." + (i & 255);
+            buckets.tryAcquire(keys[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        int next;
+    }
+
+    @Benchmark
+    public long tryAcquire(Client client) {
+        return buckets.tryAcquire(keys[client.next++ % clients]);
+    }
+}
@@ -0,0 +1,149 @@
+package com.breathego.service;
+
+import com.breathego.BreatheGoApplication;
+import com.breathego.client.OpenMeteoClient;
+import com.breathego.client.StubOpenMeteoClient;
+import com.breathego.controller.RenderedResponses;
+import com.breathego.dto.ForecastResponse;
+import com.breathego.dto.LocationRequest;
+import com.breathego.dto.TrendsResponse;
+import com.breathego.repository.DailyMetricsRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The forecast and trends pipelines inside a real application context, with
+ * Open-Meteo replaced by {@link StubOpenMeteoClient} and PostgreSQL by an
+ * in-memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForecastServiceBenchmark {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/London");
+
+    @Param({"default", "runner"})
+    String profileId;
+
+    private ConfigurableApplicationContext context;
+    private ForecastService forecastService;
+    private DailyMetricsRepository dailyMetricsRepository;
+    private ForecastCache forecastCache;
+    private ScoringProfile profile;
+    private ResponseEncoder<ForecastResponse> jsonEncoder;
+    private Long locationId;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        // Command-line arguments outrank application.properties
+        context = new SpringApplicationBuilder(BreatheGoApplication.class, StubClientConfig.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.flyway.enabled=false",
+                        "--forecast.cache.warmup.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.breathego=WARN");
+        forecastService = context.getBean(ForecastService.class);
+        dailyMetricsRepository = context.getBean(DailyMetricsRepository.class);
+        forecastCache = context.getBean(ForecastCache.class);
+        profile = context.getBean(ScoringService.class).getProfile(profileId);
+        jsonEncoder = context.getBean(RenderedResponses.class).json(MediaType.APPLICATION_JSON, Function.identity());
+        locationId = context.getBean(LocationService.class).createLocation(new LocationRequest(
+                "London", new BigDecimal("51.5074"), new BigDecimal("-0.1278"), ZONE.getId())).id();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public ForecastResponse getForecast(EmptyMemoryCache emptyMemoryCache) {
+        return forecastService.getForecast(locationId, profile, BestWindowService.DEFAULT_WINDOW_HOURS);
+    }
+
+    @Benchmark
+    public ForecastResponse getForecastCached() {
+        return forecastService.getForecast(locationId, profile, BestWindowService.DEFAULT_WINDOW_HOURS);
+    }
+
+    /**
+     * A cached forecast encoded on every call (JSON, then gzip), as each
+     * request was before rendered bytes were kept with the cache entry.
+     */
+    @Benchmark
+    public RenderedBody encodeForecastCached() {
+        return jsonEncoder.encode(
+                forecastService.getForecast(locationId, profile, BestWindowService.DEFAULT_WINDOW_HOURS));
+    }
+
+    @Benchmark
+    public RenderedBody renderForecastCached() {
+        return forecastService.renderForecast(locationId, profile, BestWindowService.DEFAULT_WINDOW_HOURS, jsonEncoder);
+    }
+
+    @Benchmark
+    public TrendsResponse getTrendsCached() {
+        return forecastService.getTrends(locationId, 7, profile);
+    }
+
+    @Benchmark
+    public TrendsResponse getTrendsUncached(EmptyCache emptyCache) {
+        return forecastService.getTrends(locationId, 7, profile);
+    }
+
+    /**
+     * Clears the in-memory cache before every call so getForecast goes
+     * upstream.
+     */
+    @State(Scope.Thread)
+    public static class EmptyMemoryCache {
+        @Setup(Level.Invocation)
+        public void clear(ForecastServiceBenchmark benchmark) {
+            benchmark.forecastCache.clear();
+        }
+    }
+
+    /**
+     * Clears stored daily metrics and the in-memory cache before every call
+     * so getTrends takes the fetch, score and persist path.
+     */
+    @State(Scope.Thread)
+    public static class EmptyCache {
+        @Setup(Level.Invocation)
+        public void clear(ForecastServiceBenchmark benchmark) {
+            benchmark.dailyMetricsRepository.deleteAll();
+            benchmark.forecastCache.clear();
+        }
+    }
+
+    // Deliberately not @Configuration: it is registered only as a source of
+    // this benchmark's context, and component scanning must not pick it up
+    static class StubClientConfig {
+        @Bean
+        @Primary
+        OpenMeteoClient stubOpenMeteoClient() {
+            return new StubOpenMeteoClient(ZONE);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.breathego.service;
+
+import com.breathego.client.StubOpenMeteoClient;
+import com.breathego.dto.AqiData;
+import com.breathego.dto.Score;
+import com.breathego.dto.WeatherData;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring a single day. Inputs cycle through 16 parsed days so branch
+ * prediction sees a realistic mix of bands rather than one fixed day; days
+ * past the air-quality horizon exercise the unknown-AQI path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+
+    private static final int DAYS = 16;
+
+    private final ScoringService scoringService = new ScoringService();
+    private WeatherData[] weather;
+    private AqiData[] aqi;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        StubOpenMeteoClient client = new StubOpenMeteoClient(ZoneOffset.UTC);
+        List<WeatherData> weatherList = client.getWeatherForecast(null, null, DAYS);
+        List<AqiData> aqiList = client.getAirQuality(null, null, DAYS);
+        weather = weatherList.toArray(new WeatherData[0]);
+        aqi = aqiList.toArray(new AqiData[0]);
+    }
+
+    @Benchmark
+    public Score calculate() {
+        int i = next++ & (DAYS - 1);
+        return scoringService.calculate(weather[i], aqi[i]);
+    }
+
+    @Benchmark
+    public Score calculateWithProfile() {
+        int i = next++ & (DAYS - 1);
+        return scoringService.calculate(weather[i], aqi[i], ScoringProfile.CYCLIST);
+    }
+
+    @Benchmark
+    public ProfileScores calculateAll() {
+        int i = next++ & (DAYS - 1);
+        return scoringService.calculateAll(weather[i], aqi[i]);
+    }
+}
@@ -0,0 +1,298 @@
+package com.breathego.startup;
+
+import com.breathego.loadtest.OpenMeteoSimulator;
+import com.breathego.loadtest.OpenMeteoSimulator.Endpoint;
+import com.breathego.loadtest.OpenMeteoSimulator.Latency;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cold-start benchmark: launches the API built with {@code mvn package -Paot}
+ * as a fresh JVM per run and measures the time from process launch until the
+ * first forecast request succeeds, against {@link OpenMeteoSimulator}.
+ *
+ * Variants, run round-robin so disk-cache effects are shared evenly:
+ * {@code jar} (plain JVM, JDK default CDS), {@code aot} (Spring AOT
+ * initialization) and {@code cds} (AOT plus the application CDS archive).
+ *
+ * Options (all {@code --name=value}): runs, variants (comma separated),
+ * startup-dir (the api's {@code target/startup}), timeout (seconds per run),
+ * jdbc-url / jdbc-user / jdbc-password (H2 when unset), flyway (the app's
+ * {@code flyway.on-startup}, with jdbc-url only) and result (JSON report
+ * path).
+ */
+public class StartupBenchmark {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/London");
+    private static final Pattern STARTED = Pattern.compile(
+            "Started \\S+ in ([0-9.]+) seconds \\(process running for ([0-9.]+)\\)");
+
+    enum Variant {
+        JAR(List.of("-Xshare:auto")),
+        AOT(List.of("-Dspring.aot.enabled=true")),
+        CDS(List.of("-XX:SharedArchiveFile=breathego-api.jsa", "-Xshare:on", "-Dspring.aot.enabled=true"));
+
+        private final List<String> jvmArgs;
+
+        Variant(List<String> jvmArgs) {
+            this.jvmArgs = jvmArgs;
+        }
+    }
+
+    record Run(long firstResponseMillis, long firstForecastMillis, double springStartedSeconds,
+               double processRunningSeconds) {
+    }
+
+    private final Map<String, String> options;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private StartupBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new StartupBenchmark(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+        List<Variant> variants = new ArrayList<>();
+        for (String name : options.getOrDefault("variants", "jar,aot,cds").split(",")) {
+            variants.add(Variant.valueOf(name.trim().toUpperCase()));
+        }
+        Path startupDir = Path.of(options.getOrDefault("startup-dir", "../api/target/startup")).toAbsolutePath();
+        Path jar = findStartupJar(startupDir);
+        Path logs = Files.createDirectories(Path.of("target", "startup-logs"));
+
+        Map<Variant, List<Run>> results = new EnumMap<>(Variant.class);
+        Map<Endpoint, Latency> latencies = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new Latency(0, 0));
+        }
+        try (OpenMeteoSimulator simulator = new OpenMeteoSimulator(ZONE, latencies, 0, 4)) {
+            simulator.start();
+            for (int i = 1; i <= runs; i++) {
+                for (Variant variant : variants) {
+                    Path log = logs.resolve(variant.name().toLowerCase() + "-" + i + ".log");
+                    Run run = launch(variant, startupDir, jar, simulator, log);
+                    System.out.printf("%-4s run %d: first forecast after %,d ms (Spring started in %.2f s)%n",
+                            variant.name().toLowerCase(), i, run.firstForecastMillis(), run.springStartedSeconds());
+                    results.computeIfAbsent(variant, v -> new ArrayList<>()).add(run);
+                }
+            }
+        }
+        report(results);
+    }
+
+    private Run launch(Variant variant, Path startupDir, Path jar, OpenMeteoSimulator simulator, Path log)
+            throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(variant.jvmArgs);
+        command.add("-cp");
+        command.add(classpath(jar));
+        command.add("com.breathego.BreatheGoApplication");
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--openmeteo.weather.url=" + simulator.url(Endpoint.FORECAST),
+                "--openmeteo.airquality.url=" + simulator.url(Endpoint.AIR_QUALITY),
+                "--openmeteo.archive.url=" + simulator.url(Endpoint.ARCHIVE),
+                "--openmeteo.geocoding.url=" + simulator.url(Endpoint.GEOCODING),
+                // Otherwise later runs serve the first forecast from an earlier run's store
+                "--upstream-store.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.breathego=INFO"));
+        command.addAll(databaseArgs());
+
+        String baseUrl = "http://127.0.0.1:" + port;
+        long timeout = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("timeout", "180")));
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(startupDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            // The first response proves the server is up; the forecast then
+            // exercises the database, the upstream client and scoring
+            long locationId = -1;
+            long firstResponse = 0;
+            while (locationId < 0) {
+                checkAlive(process, start, timeout, log);
+                String body = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/locations"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"name\":\"Startup\",\"latitude\":51.5,\"longitude\":-0.12,\"timezone\":\""
+                                        + ZONE.getId() + "\"}"))
+                        .build(), 201);
+                if (body != null) {
+                    firstResponse = System.nanoTime() - start;
+                    locationId = mapper.readTree(body).get("id").asLong();
+                }
+            }
+            HttpRequest forecast = HttpRequest.newBuilder(
+                    URI.create(baseUrl + "/api/locations/" + locationId + "/forecast")).GET().build();
+            while (send(forecast, 200) == null) {
+                checkAlive(process, start, timeout, log);
+            }
+            long firstForecast = System.nanoTime() - start;
+
+            Matcher started = STARTED.matcher(Files.readString(log));
+            boolean found = started.find();
+            return new Run(
+                    TimeUnit.NANOSECONDS.toMillis(firstResponse),
+                    TimeUnit.NANOSECONDS.toMillis(firstForecast),
+                    found ? Double.parseDouble(started.group(1)) : Double.NaN,
+                    found ? Double.parseDouble(started.group(2)) : Double.NaN);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    /** Response body when the status matches, or null to retry. */
+    private String send(HttpRequest request, int expectedStatus) throws Exception {
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == expectedStatus) {
+                return response.body();
+            }
+        } catch (ConnectException e) {
+            // Not listening yet
+        }
+        Thread.sleep(10);
+        return null;
+    }
+
+    private static void checkAlive(Process process, long start, long timeout, Path log) {
+        if (!process.isAlive()) {
+            throw new IllegalStateException("API exited with " + process.exitValue() + "; see " + log);
+        }
+        if (System.nanoTime() - start > timeout) {
+            throw new IllegalStateException("No successful forecast before the timeout; see " + log);
+        }
+    }
+
+    private List<String> databaseArgs() throws Exception {
+        if (options.containsKey("jdbc-url")) {
+            return List.of(
+                    "--spring.datasource.url=" + options.get("jdbc-url"),
+                    "--spring.datasource.username=" + options.getOrDefault("jdbc-user", "breathego"),
+                    "--spring.datasource.password=" + options.getOrDefault("jdbc-password", ""),
+                    "--flyway.on-startup=" + options.getOrDefault("flyway", "migrate"));
+        }
+        return List.of(
+                "--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--flyway.on-startup=none");
+    }
+
+    /**
+     * The thin jar, plus the H2 driver from this module's class path when no
+     * JDBC URL is given. Appending keeps the archived class path a prefix, so
+     * the CDS archive still applies.
+     */
+    private String classpath(Path jar) throws Exception {
+        if (options.containsKey("jdbc-url")) {
+            return jar.toString();
+        }
+        Path h2 = Path.of(Class.forName("org.h2.Driver").getProtectionDomain().getCodeSource().getLocation().toURI());
+        return jar + File.pathSeparator + h2;
+    }
+
+    private static Path findStartupJar(Path startupDir) throws IOException {
+        if (!Files.isDirectory(startupDir)) {
+            throw new IllegalStateException(startupDir + " not found; build it with: cd api && mvn package -Paot");
+        }
+        try (var files = Files.list(startupDir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith("-startup.jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No *-startup.jar in " + startupDir));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double median(double[] sorted) {
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private void report(Map<Variant, List<Run>> results) throws IOException {
+        ObjectNode result = mapper.createObjectNode();
+        result.put("cpus", Runtime.getRuntime().availableProcessors());
+        result.put("database", options.containsKey("jdbc-url") ? "jdbc" : "h2");
+        ObjectNode variants = result.putObject("variants");
+
+        Double baseline = null;
+        System.out.printf("%n%-6s %12s %12s %14s%n", "", "first fcst", "min", "Spring start");
+        for (Map.Entry<Variant, List<Run>> entry : results.entrySet()) {
+            List<Run> runs = entry.getValue();
+            double[] forecast = runs.stream().mapToDouble(Run::firstForecastMillis).sorted().toArray();
+            double median = median(forecast);
+            double springMedian = median(runs.stream().mapToDouble(Run::springStartedSeconds).sorted().toArray());
+            if (baseline == null) {
+                baseline = median;
+            }
+            System.out.printf("%-6s %,10.0f ms %,10.0f ms %12.2f s  %+.0f%%%n",
+                    entry.getKey().name().toLowerCase(), median, forecast[0], springMedian,
+                    (median / baseline - 1) * 100);
+
+            ObjectNode node = variants.putObject(entry.getKey().name().toLowerCase());
+            node.put("firstForecastMedianMs", median);
+            node.put("springStartedMedianSeconds", springMedian);
+            ArrayNode samples = node.putArray("runs");
+            for (Run run : runs) {
+                samples.addObject()
+                        .put("firstResponseMs", run.firstResponseMillis())
+                        .put("firstForecastMs", run.firstForecastMillis())
+                        .put("springStartedSeconds", run.springStartedSeconds())
+                        .put("processRunningSeconds", run.processRunningSeconds());
+            }
+        }
+
+        File file = new File(options.getOrDefault("result", "target/startup-result.json"));
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file, result);
+        System.out.println("Result saved to " + file.getAbsolutePath());
+    }
+}
@@ -1,9 +1,12 @@
 package com.breathego;
 
+import com.breathego.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class BreatheGoApplication {
 
     public static void main(String[] args) {
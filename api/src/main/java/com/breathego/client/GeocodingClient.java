@@ -1,9 +1,11 @@
 package com.breathego.client;
 
 import com.breathego.dto.GeocodingResult;
+import com.breathego.timing.RequestTimings;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
@@ -17,12 +19,16 @@ import java.util.List;
 public class GeocodingClient {
 
     private static final Logger log = LoggerFactory.getLogger(GeocodingClient.class);
-    private static final String GEOCODING_URL = "https://geocoding-api.open-meteo.com/v1/search";
 
     private final WebClient webClient;
+    private final String geocodingUrl;
 
-    public GeocodingClient(WebClient webClient) {
+    public GeocodingClient(
+            WebClient webClient,
+            @Value("${openmeteo.geocoding.url}") String geocodingUrl
+    ) {
         this.webClient = webClient;
+        this.geocodingUrl = geocodingUrl;
     }
 
     public List<GeocodingResult> search(String query, int limit) {
@@ -30,13 +36,14 @@ public class GeocodingClient {
 
         String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
         String url = String.format("%s?name=%s&count=%d&language=en&format=json",
-                GEOCODING_URL, encodedQuery, limit);
+                geocodingUrl, encodedQuery, limit);
 
-        JsonNode response = webClient.get()
+        JsonNode response = RequestTimings.time(RequestTimings.UPSTREAM, () -> webClient.get()
                 .uri(url)
+                .attribute(UpstreamMetricsFilter.ENDPOINT_ATTRIBUTE, "geocoding")
                 .retrieve()
                 .bodyToMono(JsonNode.class)
-                .block();
+                .block());
 
         return parseResponse(response);
     }
@@ -2,70 +2,256 @@ package com.breathego.client;
 
 import com.breathego.dto.AqiData;
 import com.breathego.dto.WeatherData;
+import com.breathego.timing.RequestTimings;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 public class OpenMeteoClient {
 
     private static final Logger log = LoggerFactory.getLogger(OpenMeteoClient.class);
 
+    private static final String FORECAST_WEATHER_PARAMS = "daily=temperature_2m_max,temperature_2m_min,precipitation_sum,wind_speed_10m_max,wind_direction_10m_dominant,uv_index_max&hourly=temperature_2m,precipitation,wind_speed_10m&forecast_days=%d&timezone=auto";
+    // Air Quality API uses hourly data, not daily
+    private static final String FORECAST_AQI_PARAMS = "hourly=us_aqi,pm2_5,ozone&forecast_days=%d&timezone=auto";
+
+    static final int DEFAULT_BATCH_SIZE = 50;
+    static final int DEFAULT_BATCH_CONCURRENCY = 4;
+
     private final WebClient webClient;
     private final String weatherUrl;
     private final String airQualityUrl;
+    private final String archiveUrl;
+    private final UpstreamResponseStore localStore;
+    private final SharedUpstreamCache sharedCache;
+    private final int batchSize;
+    private final int batchConcurrency;
 
+    @Autowired
     public OpenMeteoClient(
             WebClient webClient,
             @Value("${openmeteo.weather.url}") String weatherUrl,
-            @Value("${openmeteo.airquality.url}") String airQualityUrl
+            @Value("${openmeteo.airquality.url}") String airQualityUrl,
+            @Value("${openmeteo.archive.url}") String archiveUrl,
+            UpstreamResponseStore localStore,
+            SharedUpstreamCache sharedCache,
+            @Value("${openmeteo.batch.max-coordinates:" + DEFAULT_BATCH_SIZE + "}") int batchSize,
+            @Value("${openmeteo.batch.concurrency:" + DEFAULT_BATCH_CONCURRENCY + "}") int batchConcurrency
     ) {
         this.webClient = webClient;
         this.weatherUrl = weatherUrl;
         this.airQualityUrl = airQualityUrl;
+        this.archiveUrl = archiveUrl;
+        this.localStore = localStore;
+        this.sharedCache = sharedCache;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchConcurrency = Math.max(1, batchConcurrency);
+    }
+
+    public OpenMeteoClient(WebClient webClient, String weatherUrl, String airQualityUrl, String archiveUrl) {
+        this(webClient, weatherUrl, airQualityUrl, archiveUrl, UpstreamResponseStore.disabled(),
+                SharedUpstreamCache.disabled(), DEFAULT_BATCH_SIZE, DEFAULT_BATCH_CONCURRENCY);
     }
 
     public List<WeatherData> getWeatherForecast(BigDecimal latitude, BigDecimal longitude, int days) {
         log.debug("Fetching weather forecast for lat={}, lon={}, days={}", latitude, longitude, days);
 
-        String url = String.format(
-                "%s?latitude=%s&longitude=%s&daily=temperature_2m_max,temperature_2m_min,precipitation_sum,wind_speed_10m_max,wind_direction_10m_dominant,uv_index_max&forecast_days=%d&timezone=auto",
-                weatherUrl, latitude, longitude, days
-        );
+        String url = String.format("%s?latitude=%s&longitude=%s&" + FORECAST_WEATHER_PARAMS,
+                weatherUrl, latitude, longitude, days);
 
-        JsonNode response = webClient.get()
-                .uri(url)
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .block();
+        JsonNode response = fetchForecast("forecast", url, latitude, longitude, days);
 
-        return parseWeatherResponse(response);
+        return firstDays(parseWeatherResponse(response), days);
     }
 
     public List<AqiData> getAirQuality(BigDecimal latitude, BigDecimal longitude, int days) {
         log.debug("Fetching air quality for lat={}, lon={}, days={}", latitude, longitude, days);
 
-        // Air Quality API uses hourly data, not daily
-        String url = String.format(
-                "%s?latitude=%s&longitude=%s&hourly=us_aqi,pm2_5,ozone&forecast_days=%d&timezone=auto",
-                airQualityUrl, latitude, longitude, days
-        );
+        String url = String.format("%s?latitude=%s&longitude=%s&" + FORECAST_AQI_PARAMS,
+                airQualityUrl, latitude, longitude, days);
+
+        JsonNode response = fetchForecast("air-quality", url, latitude, longitude, days);
+
+        return firstDays(parseHourlyAqiResponse(response), days);
+    }
+
+    /**
+     * {@link #getWeatherForecast} for many coordinates at once, in the same
+     * order; an element is null when its coordinates' request failed.
+     */
+    public List<List<WeatherData>> getWeatherForecasts(List<Coordinates> coordinates, int days) {
+        return fetchForecasts("forecast", weatherUrl, FORECAST_WEATHER_PARAMS, coordinates, days,
+                response -> firstDays(parseWeatherResponse(response), days));
+    }
+
+    /**
+     * {@link #getAirQuality} for many coordinates at once, in the same order;
+     * an element is null when its coordinates' request failed.
+     */
+    public List<List<AqiData>> getAirQualities(List<Coordinates> coordinates, int days) {
+        return fetchForecasts("air-quality", airQualityUrl, FORECAST_AQI_PARAMS, coordinates, days,
+                response -> firstDays(parseHourlyAqiResponse(response), days));
+    }
+
+    /**
+     * Like {@link #fetchForecast} for each coordinate, except that the ones
+     * neither store has go upstream together: Open-Meteo takes comma-separated
+     * coordinates and answers with an array. Up to
+     * {@code openmeteo.batch.max-coordinates} go in one request, and up to
+     * {@code openmeteo.batch.concurrency} requests run at once. A failed
+     * request only fails its own coordinates.
+     */
+    private <T> List<T> fetchForecasts(String endpoint, String baseUrl, String params, List<Coordinates> coordinates,
+                                       int days, Function<JsonNode, T> parse) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate lastDay = today.plusDays(days - 1);
+        JsonNode[] responses = new JsonNode[coordinates.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < coordinates.size(); i++) {
+            Coordinates c = coordinates.get(i);
+            responses[i] = localStore.get(endpoint, c.latitude(), c.longitude(), today, lastDay);
+            if (responses[i] == null) {
+                responses[i] = sharedCache.get(endpoint, c.latitude(), c.longitude(), days);
+                if (responses[i] != null) {
+                    localStore.put(endpoint, c.latitude(), c.longitude(), today, lastDay, responses[i]);
+                } else {
+                    missing.add(i);
+                }
+            }
+        }
+
+        List<List<Integer>> requests = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            requests.add(missing.subList(from, Math.min(from + batchSize, missing.size())));
+        }
+        if (!requests.isEmpty()) {
+            RequestTimings.time(RequestTimings.UPSTREAM, () -> Flux.fromIterable(requests)
+                    .flatMap(request -> fetchBatch(endpoint, baseUrl, params, coordinates, request, days)
+                            .doOnNext(body -> {
+                                for (int k = 0; k < request.size(); k++) {
+                                    // One coordinate gets an object rather than an array
+                                    responses[request.get(k)] = body.isArray() ? body.get(k) : body;
+                                }
+                            }), batchConcurrency)
+                    .then()
+                    .block());
+        }
+
+        List<T> result = new ArrayList<>(coordinates.size());
+        for (int i = 0; i < coordinates.size(); i++) {
+            result.add(responses[i] != null ? parse.apply(responses[i]) : null);
+        }
+        for (int i : missing) {
+            if (responses[i] != null) {
+                Coordinates c = coordinates.get(i);
+                sharedCache.put(endpoint, c.latitude(), c.longitude(), days, responses[i]);
+                localStore.put(endpoint, c.latitude(), c.longitude(), today, lastDay, responses[i]);
+            }
+        }
+        return result;
+    }
 
-        JsonNode response = webClient.get()
+    private Mono<JsonNode> fetchBatch(String endpoint, String baseUrl, String params, List<Coordinates> coordinates,
+                                      List<Integer> request, int days) {
+        String url = String.format("%s?latitude=%s&longitude=%s&" + params, baseUrl,
+                request.stream().map(i -> coordinates.get(i).latitude().toPlainString())
+                        .collect(Collectors.joining(",")),
+                request.stream().map(i -> coordinates.get(i).longitude().toPlainString())
+                        .collect(Collectors.joining(",")),
+                days);
+        return webClient.get()
                 .uri(url)
+                .attribute(UpstreamMetricsFilter.ENDPOINT_ATTRIBUTE, endpoint)
                 .retrieve()
                 .bodyToMono(JsonNode.class)
+                .onErrorResume(e -> {
+                    log.warn("Batch {} request for {} locations failed: {}", endpoint, request.size(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * A forecast response from the local store or the shared cache when
+     * either has one for the location's cell, otherwise from upstream, stored
+     * in both. Forecast days count from today, and the store keys them by
+     * today's UTC date.
+     */
+    private JsonNode fetchForecast(String endpoint, String url, BigDecimal latitude, BigDecimal longitude, int days) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate lastDay = today.plusDays(days - 1);
+        JsonNode stored = localStore.get(endpoint, latitude, longitude, today, lastDay);
+        if (stored != null) {
+            return stored;
+        }
+        JsonNode shared = sharedCache.get(endpoint, latitude, longitude, days);
+        if (shared != null) {
+            localStore.put(endpoint, latitude, longitude, today, lastDay, shared);
+            return shared;
+        }
+        JsonNode response = fetch(endpoint, url);
+        sharedCache.put(endpoint, latitude, longitude, days, response);
+        localStore.put(endpoint, latitude, longitude, today, lastDay, response);
+        return response;
+    }
+
+    /**
+     * An archive response from the local store, otherwise from upstream,
+     * stored there.
+     */
+    private JsonNode fetchRange(String endpoint, String url, BigDecimal latitude, BigDecimal longitude,
+                                LocalDate startDate, LocalDate endDate) {
+        JsonNode stored = localStore.get(endpoint, latitude, longitude, startDate, endDate);
+        if (stored != null) {
+            return stored;
+        }
+        JsonNode response = fetch(endpoint, url);
+        localStore.put(endpoint, latitude, longitude, startDate, endDate, response);
+        return response;
+    }
+
+    /**
+     * The smallest forecast request, current temperature at 0,0, for
+     * {@link OpenMeteoHealthIndicator} to check that upstream is back.
+     */
+    public void probe() {
+        webClient.get()
+                .uri(weatherUrl + "?latitude=0&longitude=0&current=temperature_2m")
+                .attribute(UpstreamMetricsFilter.ENDPOINT_ATTRIBUTE, "probe")
+                .retrieve()
+                .toBodilessEntity()
                 .block();
+    }
 
-        return parseHourlyAqiResponse(response);
+    private JsonNode fetch(String endpoint, String url) {
+        return RequestTimings.time(RequestTimings.UPSTREAM, () -> webClient.get()
+                .uri(url)
+                .attribute(UpstreamMetricsFilter.ENDPOINT_ATTRIBUTE, endpoint)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .block());
+    }
+
+    /**
+     * Stored and shared responses may cover more days than were asked for.
+     */
+    private static <T> List<T> firstDays(List<T> days, int count) {
+        return days.size() > count ? new ArrayList<>(days.subList(0, count)) : days;
     }
 
     public List<AqiData> getHistoricalAirQuality(BigDecimal latitude, BigDecimal longitude, LocalDate startDate, LocalDate endDate) {
@@ -76,39 +262,33 @@ public class OpenMeteoClient {
                 airQualityUrl, latitude, longitude, startDate, endDate
         );
 
-        JsonNode response = webClient.get()
-                .uri(url)
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .block();
+        JsonNode response = fetchRange("air-quality", url, latitude, longitude, startDate, endDate);
 
-        return parseHourlyAqiResponse(response);
+        return firstDays(parseHourlyAqiResponse(response), (int) ChronoUnit.DAYS.between(startDate, endDate) + 1);
     }
 
     public List<WeatherData> getHistoricalWeather(BigDecimal latitude, BigDecimal longitude, LocalDate startDate, LocalDate endDate) {
         log.debug("Fetching historical weather for lat={}, lon={}, start={}, end={}", latitude, longitude, startDate, endDate);
 
         String url = String.format(
-                "https://archive-api.open-meteo.com/v1/archive?latitude=%s&longitude=%s&daily=temperature_2m_max,temperature_2m_min,precipitation_sum,wind_speed_10m_max,wind_direction_10m_dominant&start_date=%s&end_date=%s&timezone=auto",
-                latitude, longitude, startDate, endDate
+                "%s?latitude=%s&longitude=%s&daily=temperature_2m_max,temperature_2m_min,precipitation_sum,wind_speed_10m_max,wind_direction_10m_dominant&start_date=%s&end_date=%s&timezone=auto",
+                archiveUrl, latitude, longitude, startDate, endDate
         );
 
-        JsonNode response = webClient.get()
-                .uri(url)
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .block();
+        JsonNode response = fetchRange("archive", url, latitude, longitude, startDate, endDate);
 
-        return parseWeatherResponse(response);
+        return firstDays(parseWeatherResponse(response), (int) ChronoUnit.DAYS.between(startDate, endDate) + 1);
     }
 
-    private List<WeatherData> parseWeatherResponse(JsonNode response) {
+    List<WeatherData> parseWeatherResponse(JsonNode response) {
         List<WeatherData> result = new ArrayList<>();
 
         if (response == null || !response.has("daily")) {
             return result;
         }
 
+        Map<LocalDate, WeatherData.Hourly> hourlyByDate = parseHourlyWeather(response.get("hourly"));
+
         JsonNode daily = response.get("daily");
         JsonNode dates = daily.get("time");
         JsonNode tempMax = daily.get("temperature_2m_max");
@@ -119,25 +299,60 @@ public class OpenMeteoClient {
         JsonNode uv = daily.has("uv_index_max") ? daily.get("uv_index_max") : null;
 
         for (int i = 0; i < dates.size(); i++) {
+            LocalDate date = LocalDate.parse(dates.get(i).asText());
             result.add(new WeatherData(
-                    LocalDate.parse(dates.get(i).asText()),
+                    date,
                     getBigDecimal(tempMax, i),
                     getBigDecimal(tempMin, i),
                     getBigDecimal(precip, i),
                     getBigDecimal(wind, i),
                     windDir != null ? getInteger(windDir, i) : null,
-                    uv != null ? getBigDecimal(uv, i) : null
+                    uv != null ? getBigDecimal(uv, i) : null,
+                    hourlyByDate.get(date)
             ));
         }
 
         return result;
     }
 
+    /**
+     * Split the optional hourly block of a weather response into per-day
+     * arrays indexed by local hour.
+     */
+    private Map<LocalDate, WeatherData.Hourly> parseHourlyWeather(JsonNode hourly) {
+        Map<LocalDate, WeatherData.Hourly> result = new HashMap<>();
+        if (hourly == null || !hourly.has("time")) {
+            return result;
+        }
+
+        JsonNode times = hourly.get("time");
+        JsonNode temperature = hourly.get("temperature_2m");
+        JsonNode precipitation = hourly.get("precipitation");
+        JsonNode windSpeed = hourly.get("wind_speed_10m");
+
+        Map<LocalDate, DailyWeather> byDate = new HashMap<>();
+        for (int i = 0; i < times.size(); i++) {
+            String timeStr = times.get(i).asText();
+            DailyWeather day = byDate.computeIfAbsent(
+                    LocalDate.parse(timeStr.substring(0, 10)), k -> new DailyWeather());
+            int hour = parseHour(timeStr);
+
+            day.temperature[hour] = getDouble(temperature, i);
+            day.precipitation[hour] = getDouble(precipitation, i);
+            day.windSpeed[hour] = getDouble(windSpeed, i);
+        }
+
+        byDate.forEach((date, day) -> result.put(date,
+                new WeatherData.Hourly(day.temperature, day.precipitation, day.windSpeed)));
+        return result;
+    }
+
     /**
      * Parse hourly AQI data and aggregate to daily values.
-     * Uses max AQI for each day (worst case for the day).
+     * Uses max AQI for each day (worst case for the day); the hourly AQI
+     * series is kept on each day for the best-window engine.
      */
-    private List<AqiData> parseHourlyAqiResponse(JsonNode response) {
+    List<AqiData> parseHourlyAqiResponse(JsonNode response) {
         List<AqiData> result = new ArrayList<>();
 
         if (response == null || !response.has("hourly")) {
@@ -151,47 +366,76 @@ public class OpenMeteoClient {
         JsonNode ozone = hourly.get("ozone");
 
         // Group hourly data by date and aggregate
-        Map<LocalDate, List<Integer>> aqiByDate = new LinkedHashMap<>();
-        Map<LocalDate, List<Double>> pm25ByDate = new LinkedHashMap<>();
-        Map<LocalDate, List<Double>> ozoneByDate = new LinkedHashMap<>();
+        Map<LocalDate, DailyAqi> byDate = new LinkedHashMap<>();
 
         for (int i = 0; i < times.size(); i++) {
             String timeStr = times.get(i).asText();
-            LocalDate date = LocalDate.parse(timeStr.substring(0, 10));
-
-            aqiByDate.computeIfAbsent(date, k -> new ArrayList<>());
-            pm25ByDate.computeIfAbsent(date, k -> new ArrayList<>());
-            ozoneByDate.computeIfAbsent(date, k -> new ArrayList<>());
+            DailyAqi day = byDate.computeIfAbsent(LocalDate.parse(timeStr.substring(0, 10)), k -> new DailyAqi());
 
             if (usAqi != null && !usAqi.get(i).isNull()) {
-                aqiByDate.get(date).add(usAqi.get(i).asInt());
+                int value = usAqi.get(i).asInt();
+                day.maxAqi = day.maxAqi == null ? value : Math.max(day.maxAqi, value);
+                day.hourlyAqi[parseHour(timeStr)] = value;
             }
             if (pm25 != null && !pm25.get(i).isNull()) {
-                pm25ByDate.get(date).add(pm25.get(i).asDouble());
+                day.pm25.accept(pm25.get(i).asDouble());
             }
             if (ozone != null && !ozone.get(i).isNull()) {
-                ozoneByDate.get(date).add(ozone.get(i).asDouble());
+                day.ozone.accept(ozone.get(i).asDouble());
             }
         }
 
         // Create daily aggregates (using max for AQI, average for pm25/ozone)
-        for (LocalDate date : aqiByDate.keySet()) {
-            List<Integer> aqiValues = aqiByDate.get(date);
-            List<Double> pm25Values = pm25ByDate.get(date);
-            List<Double> ozoneValues = ozoneByDate.get(date);
+        for (Map.Entry<LocalDate, DailyAqi> entry : byDate.entrySet()) {
+            DailyAqi day = entry.getValue();
+            result.add(new AqiData(
+                    entry.getKey(),
+                    day.maxAqi,
+                    average(day.pm25),
+                    average(day.ozone),
+                    day.hourlyAqi
+            ));
+        }
 
-            Integer maxAqi = aqiValues.isEmpty() ? null : Collections.max(aqiValues);
-            BigDecimal avgPm25 = pm25Values.isEmpty() ? null :
-                    BigDecimal.valueOf(pm25Values.stream().mapToDouble(d -> d).average().orElse(0))
-                            .setScale(2, RoundingMode.HALF_UP);
-            BigDecimal avgOzone = ozoneValues.isEmpty() ? null :
-                    BigDecimal.valueOf(ozoneValues.stream().mapToDouble(d -> d).average().orElse(0))
-                            .setScale(2, RoundingMode.HALF_UP);
+        return result;
+    }
 
-            result.add(new AqiData(date, maxAqi, avgPm25, avgOzone));
+    private static BigDecimal average(DoubleSummaryStatistics stats) {
+        if (stats.getCount() == 0) {
+            return null;
         }
+        return BigDecimal.valueOf(stats.getAverage()).setScale(2, RoundingMode.HALF_UP);
+    }
 
-        return result;
+    // Open-Meteo local times look like "2026-02-10T13:00"
+    private static int parseHour(String time) {
+        return (time.charAt(11) - '0') * 10 + (time.charAt(12) - '0');
+    }
+
+    public record Coordinates(BigDecimal latitude, BigDecimal longitude) {
+    }
+
+    private static final class DailyWeather {
+        private final double[] temperature = new double[WeatherData.Hourly.HOURS];
+        private final double[] precipitation = new double[WeatherData.Hourly.HOURS];
+        private final double[] windSpeed = new double[WeatherData.Hourly.HOURS];
+
+        private DailyWeather() {
+            Arrays.fill(temperature, Double.NaN);
+            Arrays.fill(precipitation, Double.NaN);
+            Arrays.fill(windSpeed, Double.NaN);
+        }
+    }
+
+    private static final class DailyAqi {
+        private Integer maxAqi;
+        private final int[] hourlyAqi = new int[WeatherData.Hourly.HOURS];
+        private final DoubleSummaryStatistics pm25 = new DoubleSummaryStatistics();
+        private final DoubleSummaryStatistics ozone = new DoubleSummaryStatistics();
+
+        private DailyAqi() {
+            Arrays.fill(hourlyAqi, AqiData.MISSING_HOUR);
+        }
     }
 
     private BigDecimal getBigDecimal(JsonNode node, int index) {
@@ -201,6 +445,13 @@ public class OpenMeteoClient {
         return BigDecimal.valueOf(node.get(index).asDouble());
     }
 
+    private double getDouble(JsonNode node, int index) {
+        if (node == null || node.get(index) == null || node.get(index).isNull()) {
+            return Double.NaN;
+        }
+        return node.get(index).asDouble();
+    }
+
     private Integer getInteger(JsonNode node, int index) {
         if (node == null || node.get(index) == null || node.get(index).isNull()) {
             return null;
@@ -0,0 +1,92 @@
+package com.breathego.client;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upstream reachability for the readiness group, judged from real traffic
+ * rather than by probing, so health checks don't spend the Open-Meteo daily
+ * quota. Reports DOWN once several calls in a row have failed; any success
+ * brings it back up.
+ *
+ * An instance taken out of rotation while DOWN gets no traffic to succeed
+ * with, so only then it probes Open-Meteo itself, once every
+ * {@code openmeteo.health.probe-interval}, until a call succeeds.
+ */
+@Component
+public class OpenMeteoHealthIndicator implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenMeteoHealthIndicator.class);
+
+    static final int FAILURE_THRESHOLD = 5;
+
+    private final UpstreamMetricsFilter upstream;
+    private final Runnable probe;
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    public OpenMeteoHealthIndicator(
+            UpstreamMetricsFilter upstream,
+            OpenMeteoClient openMeteoClient,
+            @Value("${openmeteo.health.probe-interval:1m}") Duration probeInterval
+    ) {
+        this(upstream, openMeteoClient::probe, probeInterval);
+    }
+
+    OpenMeteoHealthIndicator(UpstreamMetricsFilter upstream, Runnable probe, Duration probeInterval) {
+        this.upstream = upstream;
+        this.probe = probe;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "openmeteo-health-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::probeWhileDown,
+                probeInterval.toMillis(), probeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Health health() {
+        int failures = upstream.getConsecutiveFailures();
+        Health.Builder builder = failures >= FAILURE_THRESHOLD ? Health.down() : Health.up();
+        builder.withDetail("consecutiveFailures", failures);
+        if (upstream.getLastSuccess() != null) {
+            builder.withDetail("lastSuccess", upstream.getLastSuccess().toString());
+        }
+        if (upstream.getLastFailure() != null) {
+            builder.withDetail("lastFailure", upstream.getLastFailure().toString());
+        }
+        return builder.build();
+    }
+
+    /**
+     * One probe when DOWN; its outcome reaches the failure count through
+     * {@link UpstreamMetricsFilter} like any other call.
+     */
+    void probeWhileDown() {
+        if (upstream.getConsecutiveFailures() < FAILURE_THRESHOLD) {
+            return;
+        }
+        try {
+            probe.run();
+        } catch (RuntimeException e) {
+            log.debug("Open-Meteo probe failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,324 @@
+package com.breathego.client;
+
+import com.breathego.cluster.ClusterCoordinator;
+import com.breathego.timing.RequestTimings;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Open-Meteo responses shared by every API instance, in the unlogged
+ * {@code upstream_cache} table, behind each instance's in-memory cache. A
+ * fetch by any instance then serves the others until
+ * {@code forecast.cache.ttl} passes, so N instances spend the upstream quota
+ * once rather than N times. Off unless {@code forecast.shared-cache.enabled}.
+ *
+ * Rows are keyed by endpoint and grid cell: coordinates rounded to
+ * {@code forecast.shared-cache.cell-degrees}, finer than Open-Meteo's model
+ * grids, so nearby locations share a row. A row keeps the longest fresh
+ * response and serves requests for as many days or fewer.
+ *
+ * Each write is announced with {@code NOTIFY upstream_cache}. Every instance
+ * listens on a connection of its own and tells its update listeners which
+ * cell changed, so they can drop what they hold for it and pick up the new
+ * row. Expired rows are deleted by the cluster leader (see
+ * {@link ClusterCoordinator}). On databases other than PostgreSQL the table
+ * still works, without notifications.
+ *
+ * Writes run on the caller's connection, often inside a request transaction,
+ * so each is a single upsert that never raises a unique violation: on
+ * PostgreSQL one would abort the rest of that transaction.
+ */
+@Component
+public class SharedUpstreamCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedUpstreamCache.class);
+
+    static final String CHANNEL = "upstream_cache";
+    private static final long LISTEN_TIMEOUT_MILLIS = 10_000;
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final boolean enabled;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final double cellDegrees;
+    private final Duration ttl;
+    // Notifications from this instance are ignored by its own listener
+    private final String node = UUID.randomUUID().toString();
+    private final List<Consumer<Cell>> updateListeners = new CopyOnWriteArrayList<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final boolean postgres;
+    private volatile boolean running;
+    private Thread listener;
+
+    public SharedUpstreamCache(
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            @Value("${forecast.shared-cache.enabled:false}") boolean enabled,
+            @Value("${forecast.shared-cache.cell-degrees:0.01}") double cellDegrees,
+            @Value("${forecast.cache.ttl:30m}") Duration ttl,
+            ClusterCoordinator clusterCoordinator,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = enabled ? new JdbcTemplate(dataSource) : null;
+        this.objectMapper = objectMapper;
+        this.cellDegrees = cellDegrees;
+        this.ttl = ttl;
+        this.hits = enabled ? lookupCounter(meterRegistry, "hit") : null;
+        this.misses = enabled ? lookupCounter(meterRegistry, "miss") : null;
+        this.postgres = enabled && isPostgres(dataSource);
+        if (enabled) {
+            startListener();
+            // Expired rows are never read again; one instance clears them
+            clusterCoordinator.scheduleOnLeader("upstream-cache-purge", ttl, this::purgeExpired);
+        }
+    }
+
+    /**
+     * A cache that is always empty, for clients built outside the
+     * application context.
+     */
+    public static SharedUpstreamCache disabled() {
+        return new SharedUpstreamCache(null, null, false, 0.01, Duration.ZERO, null, null);
+    }
+
+    /**
+     * The fresh response stored for the cell around the coordinates, or null
+     * when there is none covering {@code days} days.
+     */
+    public JsonNode get(String endpoint, BigDecimal latitude, BigDecimal longitude, int days) {
+        if (!enabled) {
+            return null;
+        }
+        String cell = cellOf(latitude, longitude).key();
+        List<byte[]> rows = RequestTimings.time(RequestTimings.SHARED_CACHE, () -> jdbcTemplate.query(
+                "SELECT body FROM upstream_cache WHERE cell = ? AND endpoint = ? AND days >= ? AND fetched_at > ?",
+                (rs, i) -> rs.getBytes(1),
+                cell, endpoint, days, Timestamp.from(Instant.now().minus(ttl))));
+        if (rows.isEmpty()) {
+            misses.increment();
+            return null;
+        }
+        try {
+            JsonNode response = objectMapper.readTree(rows.get(0));
+            hits.increment();
+            return response;
+        } catch (IOException e) {
+            log.warn("Unreadable {} response in the shared cache for cell {}: {}", endpoint, cell, e.getMessage());
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Stores a response just fetched from upstream, unless the cell already
+     * has a fresh one covering more days, and announces it to the other
+     * instances.
+     */
+    public void put(String endpoint, BigDecimal latitude, BigDecimal longitude, int days, JsonNode response) {
+        if (!enabled || response == null) {
+            return;
+        }
+        String cell = cellOf(latitude, longitude).key();
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            Timestamp now = Timestamp.from(Instant.now());
+            Timestamp stale = Timestamp.from(now.toInstant().minus(ttl));
+            // Replaces a row with fewer days or a stale one; a fresh row with
+            // more days, or another instance's concurrent insert, is kept
+            int written = RequestTimings.time(RequestTimings.SHARED_CACHE, () -> postgres
+                    ? jdbcTemplate.update("INSERT INTO upstream_cache (cell, endpoint, days, body, fetched_at) "
+                            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (cell, endpoint) DO UPDATE "
+                            + "SET days = EXCLUDED.days, body = EXCLUDED.body, fetched_at = EXCLUDED.fetched_at "
+                            + "WHERE upstream_cache.days <= EXCLUDED.days OR upstream_cache.fetched_at <= ?",
+                            cell, endpoint, days, body, now, stale)
+                    : jdbcTemplate.update("MERGE INTO upstream_cache USING (VALUES (?, ?, ?, ?, ?)) "
+                            + "AS fetched (cell, endpoint, days, body, fetched_at) "
+                            + "ON upstream_cache.cell = fetched.cell AND upstream_cache.endpoint = fetched.endpoint "
+                            + "WHEN MATCHED AND (upstream_cache.days <= fetched.days OR upstream_cache.fetched_at <= ?) "
+                            + "THEN UPDATE SET days = fetched.days, body = fetched.body, fetched_at = fetched.fetched_at "
+                            + "WHEN NOT MATCHED THEN INSERT (cell, endpoint, days, body, fetched_at) "
+                            + "VALUES (fetched.cell, fetched.endpoint, fetched.days, fetched.body, fetched.fetched_at)",
+                            cell, endpoint, days, body, now, stale));
+            if (written > 0 && postgres) {
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, node + " " + cell + " " + endpoint);
+            }
+        } catch (IOException | RuntimeException e) {
+            // The response is still served; only sharing it failed
+            log.warn("Unable to store {} response in the shared cache for cell {}: {}", endpoint, cell, e.getMessage());
+        }
+    }
+
+    int purgeExpired() {
+        int purged = jdbcTemplate.update("DELETE FROM upstream_cache WHERE fetched_at <= ?",
+                Timestamp.from(Instant.now().minus(ttl)));
+        log.debug("Purged {} expired rows from the shared upstream cache", purged);
+        return purged;
+    }
+
+    /**
+     * Calls {@code listener} with each cell another instance stores a new
+     * response for, on the listening thread.
+     */
+    public void addUpdateListener(Consumer<Cell> listener) {
+        updateListeners.add(listener);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    Cell cellOf(BigDecimal latitude, BigDecimal longitude) {
+        return Cell.of(latitude, longitude, cellDegrees);
+    }
+
+    void onNotification(String payload) {
+        String[] parts = payload.split(" ");
+        if (parts.length != 3 || parts[0].equals(node)) {
+            return;
+        }
+        String[] indexes = parts[1].split(":");
+        Cell cell = new Cell(Long.parseLong(indexes[0]), Long.parseLong(indexes[1]), cellDegrees);
+        for (Consumer<Cell> listener : updateListeners) {
+            try {
+                listener.accept(cell);
+            } catch (RuntimeException e) {
+                log.warn("Shared cache update listener failed for cell {}: {}", cell.key(), e.getMessage());
+            }
+        }
+    }
+
+    /** False when the database can't be reached to tell. */
+    private static boolean isPostgres(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            // Assuming PostgreSQL would send pg_notify to a database that may
+            // not have it; MERGE works on both, only notifications are lost
+            log.warn("Unable to tell whether the database is PostgreSQL, so the shared upstream cache "
+                    + "runs without cross-instance notifications: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void startListener() {
+        if (!postgres) {
+            log.info("Shared upstream cache enabled without cross-instance notifications (database isn't PostgreSQL)");
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "shared-cache-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Holds one pooled connection for as long as the application runs;
+     * reconnects after a failure.
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) LISTEN_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            onNotification(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Shared cache listener lost its connection, reconnecting: {}", e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String result) {
+        return Counter.builder("breathego.shared.cache")
+                .description("Upstream responses looked up in the shared Postgres cache")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * A grid cell, as row indexes of {@code size} degrees.
+     */
+    public record Cell(long latitudeIndex, long longitudeIndex, double size) {
+
+        /**
+         * The cell of {@code size} degrees the coordinates round to.
+         */
+        public static Cell of(BigDecimal latitude, BigDecimal longitude, double size) {
+            return new Cell(Math.round(latitude.doubleValue() / size), Math.round(longitude.doubleValue() / size), size);
+        }
+
+        public String key() {
+            return latitudeIndex + ":" + longitudeIndex;
+        }
+
+        public BigDecimal minLatitude() {
+            return BigDecimal.valueOf((latitudeIndex - 0.5) * size);
+        }
+
+        public BigDecimal maxLatitude() {
+            return BigDecimal.valueOf((latitudeIndex + 0.5) * size);
+        }
+
+        public BigDecimal minLongitude() {
+            return BigDecimal.valueOf((longitudeIndex - 0.5) * size);
+        }
+
+        public BigDecimal maxLongitude() {
+            return BigDecimal.valueOf((longitudeIndex + 0.5) * size);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.breathego.client;
+
+import com.breathego.diagnostics.UpstreamRequestEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times every upstream call, tagged by the logical endpoint the client sets in
+ * {@link #ENDPOINT_ATTRIBUTE} rather than by URL, which would carry the
+ * coordinates. A call is timed until its body has been read, so the timer and
+ * the payload size cover the whole transfer.
+ *
+ * Each call is also a JFR {@link UpstreamRequestEvent}, and consecutive
+ * failures are tracked for {@link OpenMeteoHealthIndicator}.
+ */
+@Component
+public class UpstreamMetricsFilter implements ExchangeFilterFunction {
+
+    public static final String ENDPOINT_ATTRIBUTE = UpstreamMetricsFilter.class.getName() + ".endpoint";
+
+    private final MeterRegistry registry;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile Instant lastSuccess;
+    private volatile Instant lastFailure;
+
+    public UpstreamMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String endpoint = request.attribute(ENDPOINT_ATTRIBUTE).map(Object::toString).orElse("unknown");
+        long start = System.nanoTime();
+        UpstreamRequestEvent event = new UpstreamRequestEvent();
+        event.begin();
+
+        return next.exchange(request)
+                .doOnError(e -> record(endpoint, -1, "UNKNOWN", start, -1, event, request.url()))
+                .map(response -> {
+                    AtomicLong bytes = new AtomicLong();
+                    AtomicBoolean recorded = new AtomicBoolean();
+                    HttpStatusCode status = response.statusCode();
+                    // Record before the terminal signal reaches the caller
+                    // (unlike doFinally), so a blocking caller sees the metric
+                    Runnable done = () -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            record(endpoint, status.value(), outcome(status), start, bytes.get(),
+                                    event, request.url());
+                        }
+                    };
+                    return response.mutate()
+                            .body(body -> body
+                                    .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                                    .doOnTerminate(done)
+                                    .doOnCancel(done))
+                            .build();
+                });
+    }
+
+    int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    Instant getLastSuccess() {
+        return lastSuccess;
+    }
+
+    Instant getLastFailure() {
+        return lastFailure;
+    }
+
+    private void record(String endpoint, int status, String outcome, long start, long bytes,
+                        UpstreamRequestEvent event, URI url) {
+        Timer.builder("breathego.upstream.requests")
+                .description("Open-Meteo calls, including reading the response body")
+                .tag("endpoint", endpoint)
+                .tag("status", status < 0 ? "IO_ERROR" : String.valueOf(status))
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (bytes >= 0) {
+            DistributionSummary.builder("breathego.upstream.response.size")
+                    .description("Open-Meteo response body size")
+                    .baseUnit("bytes")
+                    .tag("endpoint", endpoint)
+                    .register(registry)
+                    .record(bytes);
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            MultiValueMap<String, String> query = UriComponentsBuilder.fromUri(url).build().getQueryParams();
+            event.endpoint = endpoint;
+            event.latitude = parseCoordinate(query.getFirst("latitude"));
+            event.longitude = parseCoordinate(query.getFirst("longitude"));
+            event.status = status;
+            event.outcome = outcome;
+            event.bytes = bytes;
+            event.commit();
+        }
+
+        if ("SUCCESS".equals(outcome)) {
+            consecutiveFailures.set(0);
+            lastSuccess = Instant.now();
+        } else {
+            consecutiveFailures.incrementAndGet();
+            lastFailure = Instant.now();
+        }
+    }
+
+    private static double parseCoordinate(String value) {
+        try {
+            return value != null ? Double.parseDouble(value) : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static String outcome(HttpStatusCode status) {
+        if (status.is2xxSuccessful()) return "SUCCESS";
+        if (status.is4xxClientError()) return "CLIENT_ERROR";
+        if (status.is5xxServerError()) return "SERVER_ERROR";
+        return "UNKNOWN";
+    }
+}
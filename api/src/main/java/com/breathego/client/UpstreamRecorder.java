@@ -0,0 +1,259 @@
+package com.breathego.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records every upstream exchange to a local archive, or serves upstream
+ * calls from one, so a production traffic pattern can be replayed offline:
+ * same payloads, and optionally the same latencies. Sits in the shared
+ * {@link org.springframework.web.reactive.function.client.WebClient}, inside
+ * {@link UpstreamMetricsFilter}, so it covers {@link OpenMeteoClient} and
+ * {@link GeocodingClient} alike and replayed calls still show up in the
+ * upstream metrics.
+ *
+ * The archive ({@code openmeteo.recording.file}) is JSON lines, one exchange
+ * each. A request is keyed by its logical endpoint and query string, with
+ * coordinates normalized, so recordings replay against any base URL. A key
+ * recorded several times replays its responses in turn. Forecast dates are
+ * moved forward by the days since recording, so a replayed forecast starts
+ * today. Requests missing from the archive get a 404 rather than going out.
+ */
+@Component
+public class UpstreamRecorder implements ExchangeFilterFunction {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamRecorder.class);
+
+    public enum Mode {
+        /** Pass every call through untouched. */
+        OFF,
+        /** Pass calls through and append each exchange to the archive. */
+        RECORD,
+        /** Answer calls from the archive without going upstream. */
+        REPLAY
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Mode mode;
+    private final boolean replayLatency;
+    private final Map<String, List<Recorded>> recordings = new HashMap<>();
+    private final Map<String, AtomicInteger> turns = new HashMap<>();
+    private BufferedWriter writer;
+
+    public UpstreamRecorder(
+            ObjectMapper objectMapper,
+            @Value("${openmeteo.recording.mode:off}") Mode mode,
+            @Value("${openmeteo.recording.file:upstream-recording.jsonl}") Path file,
+            @Value("${openmeteo.recording.replay-latency:false}") boolean replayLatency
+    ) {
+        this.objectMapper = objectMapper;
+        this.mode = mode;
+        this.replayLatency = replayLatency;
+        try {
+            if (mode == Mode.RECORD) {
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                log.info("Recording upstream calls to {}", file.toAbsolutePath());
+            } else if (mode == Mode.REPLAY) {
+                load(file);
+                log.info("Replaying {} upstream requests from {}{}", recordings.size(), file.toAbsolutePath(),
+                        replayLatency ? " with their recorded latency" : "");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the upstream recording " + file, e);
+        }
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return switch (mode) {
+            case OFF -> next.exchange(request);
+            case RECORD -> record(request, next);
+            case REPLAY -> replay(request);
+        };
+    }
+
+    private Mono<ClientResponse> record(ClientRequest request, ExchangeFunction next) {
+        String endpoint = endpoint(request);
+        String key = key(endpoint, request.url().getRawQuery());
+        long start = System.nanoTime();
+        return next.exchange(request).flatMap(response -> response.bodyToMono(byte[].class)
+                .defaultIfEmpty(new byte[0])
+                .map(body -> {
+                    write(endpoint, key, response, body, System.nanoTime() - start);
+                    return response.mutate()
+                            .body(Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body))))
+                            .build();
+                }));
+    }
+
+    private Mono<ClientResponse> replay(ClientRequest request) {
+        String key = key(endpoint(request), request.url().getRawQuery());
+        List<Recorded> recorded = recordings.get(key);
+        if (recorded == null) {
+            log.warn("No recorded response for {}", key);
+            return Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build());
+        }
+        Recorded next = recorded.get(Math.floorMod(turns.get(key).getAndIncrement(), recorded.size()));
+        Mono<ClientResponse> response = Mono.fromSupplier(() -> ClientResponse.create(next.status())
+                .header(HttpHeaders.CONTENT_TYPE, next.contentType())
+                .body(Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(next.body()))))
+                .build());
+        return replayLatency ? response.delaySubscription(next.latency()) : response;
+    }
+
+    private synchronized void write(String endpoint, String key, ClientResponse response, byte[] body,
+                                    long latencyNanos) {
+        try {
+            ObjectNode line = objectMapper.createObjectNode()
+                    .put("endpoint", endpoint)
+                    .put("key", key)
+                    .put("recordedAt", LocalDate.now(ZoneOffset.UTC).toString())
+                    .put("status", response.statusCode().value())
+                    .put("contentType", response.headers().contentType()
+                            .map(MediaType::toString).orElse(MediaType.APPLICATION_JSON_VALUE))
+                    .put("latencyMillis", latencyNanos / 1e6)
+                    .put("body", new String(body, StandardCharsets.UTF_8));
+            writer.write(objectMapper.writeValueAsString(line));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            // The call itself succeeded; only the recording is incomplete
+            log.warn("Unable to record the {} response for {}: {}", endpoint, key, e.getMessage());
+        }
+    }
+
+    private void load(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode recorded = objectMapper.readTree(line);
+                String key = recorded.get("key").asText();
+                byte[] body = shiftDates(recorded.get("body").asText(),
+                        LocalDate.parse(recorded.get("recordedAt").asText()));
+                recordings.computeIfAbsent(key, k -> new ArrayList<>()).add(new Recorded(
+                        HttpStatusCode.valueOf(recorded.get("status").asInt()),
+                        recorded.get("contentType").asText(),
+                        Duration.ofNanos(Math.round(recorded.get("latencyMillis").asDouble() * 1e6)),
+                        body));
+                turns.putIfAbsent(key, new AtomicInteger());
+            }
+        }
+    }
+
+    /**
+     * Moves the daily and hourly times of a forecast payload, or of each
+     * location in a multi-coordinate one (a JSON array), forward by the days
+     * between {@code recordedAt} and today. Other bodies are returned as they
+     * are.
+     */
+    private byte[] shiftDates(String body, LocalDate recordedAt) throws IOException {
+        long days = ChronoUnit.DAYS.between(recordedAt, LocalDate.now(ZoneOffset.UTC));
+        if (days == 0 || !(body.startsWith("{") || body.startsWith("["))) {
+            return body.getBytes(StandardCharsets.UTF_8);
+        }
+        JsonNode payload = objectMapper.readTree(body);
+        for (JsonNode location : payload.isArray() ? payload : List.of(payload)) {
+            for (String section : List.of("daily", "hourly")) {
+                if (location.path(section).path("time") instanceof ArrayNode times) {
+                    for (int i = 0; i < times.size(); i++) {
+                        String value = times.get(i).asText();
+                        times.set(i, value.length() == 10
+                                ? LocalDate.parse(value).plusDays(days).toString()
+                                : LocalDateTime.parse(value).plusDays(days).toString());
+                    }
+                }
+            }
+        }
+        return objectMapper.writeValueAsBytes(payload);
+    }
+
+    private static String endpoint(ClientRequest request) {
+        return request.attribute(UpstreamMetricsFilter.ENDPOINT_ATTRIBUTE).map(Object::toString).orElse("unknown");
+    }
+
+    /**
+     * The endpoint and query, with coordinates stripped of trailing zeros,
+     * which depend on the column scale of the database they were read from.
+     * Multi-coordinate requests list them comma-separated, each normalized.
+     */
+    static String key(String endpoint, String query) {
+        StringJoiner parameters = new StringJoiner("&", endpoint + " ", "");
+        if (query == null) {
+            return parameters.toString();
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            if (equals > 0 && (name.equals("latitude") || name.equals("longitude"))) {
+                try {
+                    StringJoiner values = new StringJoiner(",", name + "=", "");
+                    for (String value : parameter.substring(equals + 1).split(",|%2C|%2c")) {
+                        values.add(new BigDecimal(value).stripTrailingZeros().toPlainString());
+                    }
+                    parameter = values.toString();
+                } catch (NumberFormatException e) {
+                    // Kept as it is
+                }
+            }
+            parameters.add(parameter);
+        }
+        return parameters.toString();
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.debug("Closing the upstream recording failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private record Recorded(HttpStatusCode status, String contentType, Duration latency, byte[] body) {
+    }
+}
@@ -0,0 +1,488 @@
+package com.breathego.client;
+
+import com.breathego.timing.RequestTimings;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Raw Open-Meteo responses kept on local disk, so a restarted instance
+ * serves what it fetched before the restart instead of spending quota on it
+ * again. {@link OpenMeteoClient} reads it below the in-memory forecast cache
+ * and above the shared Postgres tier.
+ *
+ * Responses are gzip-compressed and appended to fixed-size segment files in
+ * {@code upstream-store.dir}. Every segment is memory-mapped, so a hit is a
+ * copy out of the page cache. An in-memory index maps (endpoint, grid cell,
+ * first day) to the latest record. At startup it is rebuilt by scanning the
+ * segments, each up to its first torn or corrupt record.
+ *
+ * Ranges that reach today expire after {@code forecast.cache.ttl}; archive
+ * ranges, entirely in the past, after {@code upstream-store.history-ttl}.
+ * Every {@code upstream-store.compact-interval}, expired records leave the
+ * index, segments left with nothing live are deleted, and segments less than
+ * half live are copied forward first. Past {@code upstream-store.max-size},
+ * the least recently read segment is deleted with whatever it holds.
+ */
+@Component
+public class UpstreamResponseStore {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamResponseStore.class);
+
+    // length, CRC32 of what follows
+    private static final int HEADER = 8;
+    // stored at, expires at, first day, last day, key length
+    private static final int FIXED = 8 + 8 + 4 + 4 + 2;
+
+    private final ObjectMapper objectMapper;
+    private final Path dir;
+    private final int segmentSize;
+    private final long maxSize;
+    private final Duration forecastTtl;
+    private final Duration historyTtl;
+    private final double cellDegrees;
+    private final LongSupplier clock;
+
+    private final Map<Key, Entry> index = new ConcurrentHashMap<>();
+    // Oldest first; changed under the lock
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final boolean enabled;
+    private Segment active;
+    private long nextSegmentId;
+    private FileChannel lockChannel;
+    private ScheduledExecutorService compactor;
+    private Counter hits;
+    private Counter misses;
+
+    @Autowired
+    public UpstreamResponseStore(
+            ObjectMapper objectMapper,
+            @Value("${upstream-store.enabled:false}") boolean enabled,
+            @Value("${upstream-store.dir:${java.io.tmpdir}/breathego-upstream-store}") Path dir,
+            @Value("${upstream-store.segment-size:8MB}") DataSize segmentSize,
+            @Value("${upstream-store.max-size:512MB}") DataSize maxSize,
+            @Value("${upstream-store.history-ttl:7d}") Duration historyTtl,
+            @Value("${upstream-store.compact-interval:5m}") Duration compactInterval,
+            @Value("${forecast.cache.ttl:30m}") Duration forecastTtl,
+            @Value("${forecast.shared-cache.cell-degrees:0.01}") double cellDegrees,
+            MeterRegistry meterRegistry
+    ) {
+        this(objectMapper, enabled, dir, segmentSize.toBytes(), maxSize.toBytes(), forecastTtl, historyTtl,
+                cellDegrees, System::currentTimeMillis, meterRegistry);
+        if (this.enabled) {
+            compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "upstream-store-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactQuietly,
+                    compactInterval.toMillis(), compactInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    UpstreamResponseStore(ObjectMapper objectMapper, boolean enabled, Path dir, long segmentSize, long maxSize,
+                          Duration forecastTtl, Duration historyTtl, double cellDegrees, LongSupplier clock,
+                          MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.dir = dir;
+        this.segmentSize = Math.toIntExact(segmentSize);
+        this.maxSize = maxSize;
+        this.forecastTtl = forecastTtl;
+        this.historyTtl = historyTtl;
+        this.cellDegrees = cellDegrees;
+        this.clock = clock;
+        this.enabled = enabled && open();
+        if (this.enabled) {
+            registerMeters(meterRegistry);
+        }
+    }
+
+    /**
+     * A store that is always empty, for clients built outside the
+     * application context.
+     */
+    public static UpstreamResponseStore disabled() {
+        return new UpstreamResponseStore(null, false, null, 0, 0, Duration.ZERO, Duration.ZERO, 0.01,
+                System::currentTimeMillis, null);
+    }
+
+    /**
+     * The live response stored for the cell around the coordinates starting
+     * on {@code firstDay} and covering at least up to {@code lastDay}, or null.
+     */
+    public JsonNode get(String endpoint, BigDecimal latitude, BigDecimal longitude,
+                        LocalDate firstDay, LocalDate lastDay) {
+        if (!enabled) {
+            return null;
+        }
+        Key key = new Key(endpoint, cellKey(latitude, longitude), firstDay.toEpochDay());
+        return RequestTimings.time(RequestTimings.LOCAL_STORE, () -> {
+            long now = clock.getAsLong();
+            Entry entry = index.get(key);
+            if (entry == null || entry.expiresAt() <= now || entry.lastDay() < lastDay.toEpochDay()) {
+                misses.increment();
+                return null;
+            }
+            try {
+                JsonNode response = read(entry);
+                entry.segment().lastRead = now;
+                hits.increment();
+                return response;
+            } catch (IOException e) {
+                log.warn("Unreadable {} response in segment {}: {}", endpoint, entry.segment().path, e.getMessage());
+                index.remove(key, entry);
+                misses.increment();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Stores a response just fetched, unless a live one starting the same
+     * day already covers more days.
+     */
+    public void put(String endpoint, BigDecimal latitude, BigDecimal longitude,
+                    LocalDate firstDay, LocalDate lastDay, JsonNode response) {
+        if (!enabled || response == null) {
+            return;
+        }
+        Key key = new Key(endpoint, cellKey(latitude, longitude), firstDay.toEpochDay());
+        long now = clock.getAsLong();
+        Entry existing = index.get(key);
+        if (existing != null && existing.expiresAt() > now && existing.lastDay() > lastDay.toEpochDay()) {
+            return;
+        }
+        Duration ttl = lastDay.toEpochDay() < today(now) ? historyTtl : forecastTtl;
+        try {
+            byte[] record = encode(key, lastDay.toEpochDay(), now, now + ttl.toMillis(), gzip(response));
+            Entry entry = append(record, lastDay.toEpochDay(), now + ttl.toMillis());
+            if (entry != null) {
+                index.put(key, entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            // The response is still served; only keeping it failed
+            log.warn("Unable to store {} response for cell {}: {}", endpoint, key.cell(), e.getMessage());
+        }
+    }
+
+    /**
+     * Forgets every response for {@code cell}, after another instance has
+     * fetched it again.
+     */
+    public void evict(SharedUpstreamCache.Cell cell) {
+        if (enabled) {
+            String cellKey = cell.key();
+            index.keySet().removeIf(key -> key.cell().equals(cellKey));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Drops expired records from the index and deletes or rewrites segments
+     * that are mostly dead.
+     *
+     * @return the number of segments deleted
+     */
+    synchronized int compact() throws IOException {
+        long now = clock.getAsLong();
+        index.values().removeIf(entry -> entry.expiresAt() <= now);
+        Map<Segment, List<Map.Entry<Key, Entry>>> live = new HashMap<>();
+        for (Map.Entry<Key, Entry> entry : index.entrySet()) {
+            live.computeIfAbsent(entry.getValue().segment(), s -> new ArrayList<>()).add(entry);
+        }
+        int deleted = 0;
+        for (Segment segment : segments) {
+            if (segment == active) {
+                continue;
+            }
+            List<Map.Entry<Key, Entry>> entries = live.getOrDefault(segment, List.of());
+            long liveBytes = entries.stream().mapToLong(entry -> entry.getValue().length()).sum();
+            if (liveBytes * 2 >= segment.position) {
+                continue;
+            }
+            for (Map.Entry<Key, Entry> entry : entries) {
+                Entry old = entry.getValue();
+                byte[] record = new byte[old.length()];
+                segment.buffer.get(old.offset(), record);
+                Entry moved = append(record, old.lastDay(), old.expiresAt());
+                if (moved != null) {
+                    // Unless a newer response came in meanwhile
+                    index.replace(entry.getKey(), old, moved);
+                }
+            }
+            delete(segment);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    private void compactQuietly() {
+        try {
+            int deleted = compact();
+            if (deleted > 0) {
+                log.debug("Compacted the upstream store: {} segments deleted, {} remain", deleted, segments.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Compacting the upstream store failed: {}", e.getMessage());
+        }
+    }
+
+    private String cellKey(BigDecimal latitude, BigDecimal longitude) {
+        return SharedUpstreamCache.Cell.of(latitude, longitude, cellDegrees).key();
+    }
+
+    private static long today(long nowMillis) {
+        return Math.floorDiv(nowMillis, Duration.ofDays(1).toMillis());
+    }
+
+    private JsonNode read(Entry entry) throws IOException {
+        MappedByteBuffer buffer = entry.segment().buffer;
+        int keyLength = buffer.getShort(entry.offset() + HEADER + FIXED - 2);
+        int bodyOffset = entry.offset() + HEADER + FIXED + keyLength;
+        byte[] body = new byte[entry.length() - HEADER - FIXED - keyLength];
+        buffer.get(bodyOffset, body);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return objectMapper.readTree(in);
+        }
+    }
+
+    private byte[] gzip(JsonNode response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            objectMapper.writeValue(gzip, response);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encode(Key key, long lastDay, long storedAt, long expiresAt, byte[] body) {
+        byte[] keyBytes = (key.endpoint() + " " + key.cell()).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(HEADER + FIXED + keyBytes.length + body.length);
+        record.putInt(record.capacity() - HEADER).putInt(0)
+                .putLong(storedAt).putLong(expiresAt)
+                .putInt((int) key.firstDay()).putInt((int) lastDay)
+                .putShort((short) keyBytes.length).put(keyBytes).put(body);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER, record.capacity() - HEADER);
+        record.putInt(4, (int) crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * Copies {@code record} to the end of the active segment, starting a new
+     * one when it doesn't fit.
+     */
+    private synchronized Entry append(byte[] record, long lastDay, long expiresAt) throws IOException {
+        if (record.length > segmentSize) {
+            return null;
+        }
+        if (active == null || active.position + record.length > active.buffer.capacity()) {
+            roll();
+        }
+        int offset = active.position;
+        active.buffer.put(offset, record);
+        active.position = offset + record.length;
+        return new Entry(active, offset, record.length, lastDay, expiresAt);
+    }
+
+    private void roll() throws IOException {
+        Path path = dir.resolve(String.format("segment-%010d.dat", nextSegmentId++));
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(segmentSize);
+            active = new Segment(path, file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize),
+                    clock.getAsLong());
+        }
+        segments.add(active);
+        evictOverSize();
+    }
+
+    private void evictOverSize() throws IOException {
+        while (segments.size() > 1 && (long) segments.size() * segmentSize > maxSize) {
+            Segment leastRecent = null;
+            for (Segment segment : segments) {
+                if (segment != active && (leastRecent == null || segment.lastRead < leastRecent.lastRead)) {
+                    leastRecent = segment;
+                }
+            }
+            delete(leastRecent);
+        }
+    }
+
+    private void delete(Segment segment) throws IOException {
+        segments.remove(segment);
+        index.values().removeIf(entry -> entry.segment() == segment);
+        // Readers still holding the mapping keep working; the pages go when
+        // it is collected
+        Files.deleteIfExists(segment.path);
+    }
+
+    private boolean open() {
+        try {
+            Files.createDirectories(dir);
+            lockChannel = FileChannel.open(dir.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = lockChannel.tryLock();
+            if (lock == null) {
+                log.warn("Upstream store {} is in use by another process; running without it", dir);
+                lockChannel.close();
+                return false;
+            }
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(dir)) {
+                files = listing.filter(path -> path.getFileName().toString().matches("segment-\\d+\\.dat"))
+                        .sorted()
+                        .toList();
+            }
+            for (Path path : files) {
+                load(path);
+                String name = path.getFileName().toString();
+                nextSegmentId = Long.parseLong(name.substring(8, name.length() - 4)) + 1;
+            }
+            if (!segments.isEmpty()) {
+                active = segments.get(segments.size() - 1);
+            }
+            evictOverSize();
+            log.info("Upstream store {} opened with {} segments and {} live responses", dir, segments.size(),
+                    index.size());
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to open the upstream store in {}; running without it: {}", dir, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Maps a segment and indexes its live records, up to the first one that
+     * was torn by a crash or fails its checksum.
+     */
+    private void load(Path path) throws IOException {
+        Segment segment;
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            segment = new Segment(path, file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length()),
+                    clock.getAsLong());
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        long now = clock.getAsLong();
+        int position = 0;
+        while (position + HEADER + FIXED <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length < FIXED || position + HEADER + length > buffer.capacity()) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(position + HEADER, length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                log.warn("Corrupt record at {} in {}; ignoring the rest of the segment", position, path);
+                break;
+            }
+            int fields = position + HEADER;
+            long expiresAt = buffer.getLong(fields + 8);
+            if (expiresAt > now) {
+                byte[] keyBytes = new byte[buffer.getShort(fields + FIXED - 2)];
+                buffer.get(fields + FIXED, keyBytes);
+                String[] key = new String(keyBytes, StandardCharsets.UTF_8).split(" ");
+                index.put(new Key(key[0], key[1], buffer.getInt(fields + 16)),
+                        new Entry(segment, position, HEADER + length, buffer.getInt(fields + 20), expiresAt));
+            }
+            position += HEADER + length;
+        }
+        segment.position = position;
+        segments.add(segment);
+    }
+
+    private void registerMeters(MeterRegistry registry) {
+        hits = lookupCounter(registry, "hit");
+        misses = lookupCounter(registry, "miss");
+        Gauge.builder("breathego.upstream.store.bytes", segments,
+                        list -> list.stream().mapToLong(segment -> segment.position).sum())
+                .description("Bytes written to the upstream store's segments, live or not")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String result) {
+        return Counter.builder("breathego.upstream.store")
+                .description("Upstream responses looked up in the on-disk store")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        if (!enabled) {
+            return;
+        }
+        if (active != null) {
+            active.buffer.force();
+        }
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            log.debug("Closing the upstream store lock failed: {}", e.getMessage());
+        }
+    }
+
+    private record Key(String endpoint, String cell, long firstDay) {
+    }
+
+    private record Entry(Segment segment, int offset, int length, long lastDay, long expiresAt) {
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        // Written under the store's lock
+        private volatile int position;
+        private volatile long lastRead;
+
+        private Segment(Path path, MappedByteBuffer buffer, long lastRead) {
+            this.path = path;
+            this.buffer = buffer;
+            this.lastRead = lastRead;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.breathego.cluster;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Which instance leads and which locations each instance owns, so
+ * background jobs run once across replicas instead of once per replica.
+ *
+ * Each instance claims a numbered slot by taking a PostgreSQL session-level
+ * advisory lock on a connection it keeps open. The live members are the
+ * granted slot locks in {@code pg_locks}, read every
+ * {@code cluster.heartbeat}. The member with the lowest slot is the leader.
+ * When an instance dies, its session ends and its lock goes with it, so the
+ * others see it gone at their next heartbeat. The next-lowest slot takes
+ * over, and the partitions are redrawn over the remaining members.
+ *
+ * Locations are partitioned by ranges of a hash of their id, one contiguous
+ * range per member in slot order. Ranges only move when membership changes.
+ *
+ * With {@code cluster.enabled=false}, or on a database without advisory
+ * locks, the instance leads and owns everything. While it has lost its
+ * database session it leads and owns nothing, so no work is done twice.
+ */
+@Component
+public class ClusterCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    // First key of the two-key advisory locks; the second is the slot
+    static final int LOCK_CLASS = 0x42474f;
+
+    private final DataSource dataSource;
+    private final int maxNodes;
+    private final ScheduledExecutorService heartbeat;
+    private final ScheduledExecutorService jobs;
+
+    private volatile Membership membership;
+    private final CountDownLatch firstHeartbeat;
+    // Only touched by the heartbeat thread
+    private Connection connection;
+    private int slot = -1;
+
+    public ClusterCoordinator(
+            DataSource dataSource,
+            @Value("${cluster.enabled:false}") boolean enabled,
+            @Value("${cluster.heartbeat:10s}") Duration heartbeatInterval,
+            @Value("${cluster.max-nodes:64}") int maxNodes,
+            MeterRegistry meterRegistry
+    ) {
+        this.dataSource = dataSource;
+        this.maxNodes = maxNodes;
+        this.membership = enabled ? Membership.NONE : Membership.SOLO;
+        this.firstHeartbeat = new CountDownLatch(enabled ? 1 : 0);
+
+        Gauge.builder("breathego.cluster.members", this, c -> c.membership.count())
+                .description("Live instances sharing background work")
+                .register(meterRegistry);
+        Gauge.builder("breathego.cluster.leader", this, c -> c.isLeader() ? 1 : 0)
+                .description("1 on the instance that runs leader-only jobs")
+                .register(meterRegistry);
+
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "cluster-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            heartbeat.scheduleWithFixedDelay(this::heartbeat,
+                    0, heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        // Separate from the heartbeat, so a slow job can't delay it
+        this.jobs = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "cluster-jobs");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs {@code job} every {@code interval} on whichever instance leads at
+     * the time. Jobs share one thread; a failure is logged and the job runs
+     * again at its next turn.
+     */
+    public void scheduleOnLeader(String name, Duration interval, Runnable job) {
+        jobs.scheduleWithFixedDelay(() -> {
+            if (!isLeader()) {
+                return;
+            }
+            try {
+                job.run();
+            } catch (RuntimeException e) {
+                log.warn("Leader job {} failed: {}", name, e.getMessage());
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether this instance should run jobs that need to run once across the
+     * cluster.
+     */
+    public boolean isLeader() {
+        return membership.leader();
+    }
+
+    /**
+     * Whether this instance should do per-location background work for
+     * {@code locationId}. Exactly one live member owns each location.
+     */
+    public boolean owns(Long locationId) {
+        Membership current = membership;
+        return current.count() > 0 && partitionOf(locationId, current.count()) == current.index();
+    }
+
+    public Membership membership() {
+        return membership;
+    }
+
+    /**
+     * Waits up to {@code timeout} for the first heartbeat to settle this
+     * instance's membership; until then a clustered instance owns nothing.
+     *
+     * @return whether this instance is a live member (or running alone)
+     */
+    public boolean awaitMembership(Duration timeout) throws InterruptedException {
+        firstHeartbeat.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        return membership.count() > 0;
+    }
+
+    /**
+     * The hash range {@code locationId} falls in, out of {@code partitions}
+     * equal ranges of the 32-bit hash space.
+     */
+    static int partitionOf(Long locationId, int partitions) {
+        long hash = mix(locationId) >>> 32;
+        return (int) ((hash * partitions) >>> 32);
+    }
+
+    /**
+     * A 64-bit finalizer (SplitMix64), so sequential ids spread evenly
+     * across the ranges.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    void heartbeat() {
+        try {
+            if (connection == null || !connection.isValid(2)) {
+                connect();
+            }
+            if (connection == null) {
+                return;
+            }
+            membership = Membership.of(slot, liveSlots());
+        } catch (SQLException e) {
+            if (membership.count() > 0) {
+                log.warn("Lost the cluster session, stepping back until it reconnects: {}", e.getMessage());
+            }
+            membership = Membership.NONE;
+            closeConnection();
+        } finally {
+            firstHeartbeat.countDown();
+        }
+    }
+
+    private void connect() throws SQLException {
+        closeConnection();
+        Connection candidate = dataSource.getConnection();
+        if (!candidate.isWrapperFor(PGConnection.class)) {
+            candidate.close();
+            log.info("Cluster coordination needs PostgreSQL advisory locks; running as the only instance");
+            membership = Membership.SOLO;
+            heartbeat.shutdown();
+            return;
+        }
+        connection = candidate;
+        for (int i = 0; i < maxNodes; i++) {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?, ?)")) {
+                statement.setInt(1, LOCK_CLASS);
+                statement.setInt(2, i);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        slot = i;
+                        log.info("Joined the cluster in slot {}", slot);
+                        return;
+                    }
+                }
+            }
+        }
+        throw new SQLException("All " + maxNodes + " cluster slots are taken");
+    }
+
+    private List<Integer> liveSlots() throws SQLException {
+        List<Integer> slots = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT objid::int FROM pg_locks WHERE locktype = 'advisory' AND granted "
+                        + "AND classid::int = ? AND objsubid = 2 "
+                        + "AND database = (SELECT oid FROM pg_database WHERE datname = current_database()) "
+                        + "ORDER BY objid")) {
+            statement.setInt(1, LOCK_CLASS);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    slots.add(rs.getInt(1));
+                }
+            }
+        }
+        return slots;
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try (Connection pooled = connection; Statement statement = pooled.createStatement()) {
+                // The pool keeps the session open, so release the slot first;
+                // a dead session has released it already
+                statement.execute("SELECT pg_advisory_unlock_all()");
+            } catch (SQLException e) {
+                log.debug("Closing the cluster connection failed: {}", e.getMessage());
+            }
+            connection = null;
+            slot = -1;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobs.shutdownNow();
+        heartbeat.shutdownNow();
+        try {
+            heartbeat.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeConnection();
+    }
+
+    /**
+     * This instance's place among the live members: it owns hash range
+     * {@code index} of {@code count}.
+     */
+    public record Membership(int index, int count, boolean leader) {
+
+        static final Membership SOLO = new Membership(0, 1, true);
+        static final Membership NONE = new Membership(0, 0, false);
+
+        /**
+         * @param live slots holding a lock, in ascending order
+         */
+        static Membership of(int slot, List<Integer> live) {
+            int index = live.indexOf(slot);
+            if (index < 0) {
+                // Our own lock must be there; treat anything else as lost
+                return NONE;
+            }
+            return new Membership(index, live.size(), index == 0);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.breathego.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(FlywayConfig.class);
+
+    public enum OnStartup {
+        /** Apply pending migrations (validating applied ones first). */
+        MIGRATE,
+        /** Fail startup if the schema doesn't match the migrations, but change nothing. */
+        VALIDATE,
+        /** Skip Flyway; migrations are run by the deploy pipeline instead. */
+        NONE
+    }
+
+    /**
+     * What Flyway does at boot, from {@code flyway.on-startup}. Chosen at
+     * runtime rather than through {@code spring.flyway.enabled}, which an
+     * AOT-processed build fixes at build time.
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${flyway.on-startup:migrate}") OnStartup onStartup
+    ) {
+        return flyway -> {
+            switch (onStartup) {
+                case MIGRATE -> flyway.migrate();
+                case VALIDATE -> flyway.validate();
+                case NONE -> log.info("Skipping Flyway at startup (flyway.on-startup=none)");
+            }
+        };
+    }
+}
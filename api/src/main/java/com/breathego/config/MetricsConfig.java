@@ -0,0 +1,27 @@
+package com.breathego.config;
+
+import com.breathego.service.ScoringService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Scoring counts are kept by ScoringService itself and read on scrape, so
+     * the scoring path never touches the meter registry.
+     */
+    @Bean
+    public MeterBinder scoringMetrics(ScoringService scoringService) {
+        return registry -> {
+            FunctionCounter.builder("breathego.scoring.days", scoringService, ScoringService::getScoredDays)
+                    .description("Days scored, counting each profile separately")
+                    .register(registry);
+            FunctionCounter.builder("breathego.scoring.hours", scoringService, ScoringService::getScoredHours)
+                    .description("Hours scored for best-window searches")
+                    .register(registry);
+        };
+    }
+}
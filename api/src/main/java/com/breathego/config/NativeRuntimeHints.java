@@ -0,0 +1,71 @@
+package com.breathego.config;
+
+import com.breathego.controller.GlobalExceptionHandler;
+import com.breathego.diagnostics.FlightRecorderEndpoint;
+import com.breathego.domain.DailyMetrics;
+import com.breathego.domain.DailyMetricsClock;
+import com.breathego.domain.Location;
+import com.breathego.dto.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Reflection hints for the native image. Spring's AOT processing infers most
+ * of these from controller signatures and the JPA scan; listing them here
+ * keeps types that are only reached indirectly (nested records, error bodies,
+ * actuator results, client-side DTOs) from silently losing fields.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    /** Serialized to or from JSON with Jackson. */
+    static final List<Class<?>> JSON_TYPES = List.of(
+            AqiData.class,
+            ColumnarTrendsResponse.class,
+            DashboardResponse.class,
+            ForecastBatchRequest.class,
+            ForecastBatchResponse.class,
+            ForecastResponse.class,
+            GeocodingResult.class,
+            LocationRequest.class,
+            LocationResponse.class,
+            Score.class,
+            TrendsResponse.class,
+            WeatherData.class,
+            GlobalExceptionHandler.ErrorResponse.class,
+            GlobalExceptionHandler.ValidationErrorResponse.class,
+            FlightRecorderEndpoint.RecordingStatus.class
+    );
+
+    /** Hibernate reads and writes entity fields reflectively and instantiates through the no-arg constructor. */
+    static final List<Class<?>> ENTITIES = List.of(Location.class, DailyMetrics.class, DailyMetricsClock.class);
+
+    /** Jackson introspects the target type before handing JsonNode reads to its tree deserializer. */
+    static final List<Class<?>> JSON_TREE_TYPES = List.of(JsonNode.class, ObjectNode.class, ArrayNode.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Walks record components and nested records such as ForecastResponse.DailyForecast
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                JSON_TYPES.toArray(new Class<?>[0]));
+
+        for (Class<?> entity : ENTITIES) {
+            hints.reflection().registerType(entity,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+
+        for (Class<?> type : JSON_TREE_TYPES) {
+            hints.reflection().registerType(type,
+                    MemberCategory.INTROSPECT_PUBLIC_METHODS,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.breathego.config;
+
+import com.breathego.ratelimit.RateLimitInterceptor;
+import com.breathego.ratelimit.RateLimits;
+import com.breathego.ratelimit.TokenBuckets;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-client rate limits on {@code /api/**} (see {@link RateLimitInterceptor}).
+ * Idle buckets are swept every {@code rate-limit.sweep-interval}.
+ */
+@Configuration
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final boolean enabled;
+    private final TokenBuckets requests;
+    private final TokenBuckets upstream;
+    private final Set<String> apiKeys;
+    private final ScheduledExecutorService sweeper;
+
+    public RateLimitConfig(
+            @Value("${rate-limit.enabled:true}") boolean enabled,
+            @Value("${rate-limit.requests.per-minute:300}") int requestsPerMinute,
+            @Value("${rate-limit.requests.burst:60}") int requestsBurst,
+            @Value("${rate-limit.upstream.per-minute:20}") int upstreamPerMinute,
+            @Value("${rate-limit.upstream.burst:10}") int upstreamBurst,
+            @Value("${rate-limit.max-clients:100000}") int maxClients,
+            @Value("${rate-limit.sweep-interval:1m}") Duration sweepInterval,
+            @Value("${rate-limit.api-keys:}") String apiKeys
+    ) {
+        this.enabled = enabled;
+        this.requests = new TokenBuckets(requestsPerMinute, requestsBurst, maxClients);
+        this.upstream = new TokenBuckets(upstreamPerMinute, upstreamBurst, maxClients);
+        this.apiKeys = Arrays.stream(apiKeys.split(","))
+                .map(String::trim)
+                .filter(key -> !key.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "rate-limit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            sweeper.scheduleWithFixedDelay(() -> {
+                requests.evictIdle();
+                upstream.evictIdle();
+            }, sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (enabled) {
+            registry.addInterceptor(new RateLimitInterceptor(requests, upstream, apiKeys))
+                    .addPathPatterns("/api/**");
+        }
+    }
+
+    /**
+     * Read on scrape, like the scoring counters, so rejections don't touch
+     * the meter registry.
+     */
+    @Bean
+    public MeterBinder rateLimitMetrics() {
+        return registry -> {
+            bindMetrics(registry, RateLimits.REQUESTS, requests);
+            bindMetrics(registry, RateLimits.UPSTREAM, upstream);
+        };
+    }
+
+    private static void bindMetrics(MeterRegistry registry, String tier, TokenBuckets buckets) {
+        FunctionCounter.builder("breathego.ratelimit.rejected", buckets, TokenBuckets::rejected)
+                .description("Requests rejected by the per-client rate limit")
+                .tag("tier", tier)
+                .register(registry);
+        Gauge.builder("breathego.ratelimit.clients", buckets, TokenBuckets::clients)
+                .description("Clients with a partly used bucket")
+                .tag("tier", tier)
+                .register(registry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sweeper.shutdownNow();
+    }
+}
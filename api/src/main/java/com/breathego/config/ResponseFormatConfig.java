@@ -0,0 +1,32 @@
+package com.breathego.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * CBOR and Smile alongside JSON, picked by the request's {@code Accept}
+ * header. Spring MVC would register both converters on its own once the
+ * dataformats are on the class path, but with a plain mapper that writes
+ * dates as arrays; these are copies of Boot's JSON mapper on a binary
+ * factory, so every format shares its settings (date format, modules,
+ * {@code spring.jackson.*}). Boot puts them in place of the defaults, after
+ * JSON, so clients that don't ask for a binary format still get JSON.
+ */
+@Configuration
+public class ResponseFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory()));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapper.copyWith(new SmileFactory()));
+    }
+}
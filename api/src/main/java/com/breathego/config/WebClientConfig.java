@@ -1,5 +1,7 @@
 package com.breathego.config;
 
+import com.breathego.client.UpstreamMetricsFilter;
+import com.breathego.client.UpstreamRecorder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -8,8 +10,11 @@ import org.springframework.web.reactive.function.client.WebClient;
 public class WebClientConfig {
 
     @Bean
-    public WebClient webClient() {
+    public WebClient webClient(UpstreamMetricsFilter upstreamMetricsFilter, UpstreamRecorder upstreamRecorder) {
         return WebClient.builder()
+                .filter(upstreamMetricsFilter)
+                // Inside the metrics filter, so replayed calls are measured too
+                .filter(upstreamRecorder)
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(2 * 1024 * 1024))
                 .build();
     }
@@ -0,0 +1,38 @@
+package com.breathego.controller;
+
+import com.breathego.dto.ForecastBatchRequest;
+import com.breathego.dto.ForecastBatchResponse;
+import com.breathego.service.BestWindowService;
+import com.breathego.service.ForecastService;
+import com.breathego.service.ScoringProfile;
+import com.breathego.service.ScoringService;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Forecasts for many locations in one call, e.g. for a map or a saved list.
+ * Failures are reported per location, so the response is 200 whenever the
+ * request itself is valid.
+ */
+@RestController
+@RequestMapping("/api/forecasts")
+public class ForecastBatchController {
+
+    private final ForecastService forecastService;
+    private final ScoringService scoringService;
+
+    public ForecastBatchController(ForecastService forecastService, ScoringService scoringService) {
+        this.forecastService = forecastService;
+        this.scoringService = scoringService;
+    }
+
+    @PostMapping
+    public ForecastBatchResponse getForecasts(
+            @Valid @RequestBody ForecastBatchRequest request,
+            @RequestParam(defaultValue = ScoringProfile.DEFAULT_ID) String profile,
+            @RequestParam(defaultValue = "" + BestWindowService.DEFAULT_WINDOW_HOURS) int windowHours
+    ) {
+        int hours = Math.min(Math.max(windowHours, 1), BestWindowService.MAX_WINDOW_HOURS);
+        return forecastService.getForecasts(request.locationIds(), scoringService.getProfile(profile), hours);
+    }
+}
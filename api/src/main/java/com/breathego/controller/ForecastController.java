@@ -1,32 +1,140 @@
 package com.breathego.controller;
 
+import com.breathego.dto.ColumnarTrendsResponse;
+import com.breathego.dto.DashboardResponse;
 import com.breathego.dto.ForecastResponse;
 import com.breathego.dto.TrendsResponse;
+import com.breathego.service.BestWindowService;
 import com.breathego.service.ForecastService;
+import com.breathego.service.RenderedBody;
+import com.breathego.service.ResponseEncoder;
+import com.breathego.service.ScoringProfile;
+import com.breathego.service.ScoringService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+
+/**
+ * Forecast and trends are written from bytes rendered by
+ * {@link RenderedResponses}, which the service keeps with its cached data.
+ */
 @RestController
 @RequestMapping("/api/locations/{id}")
 public class ForecastController {
 
     private final ForecastService forecastService;
+    private final ScoringService scoringService;
+    private final RenderedResponses renderedResponses;
+    private final ForecastStreams forecastStreams;
 
-    public ForecastController(ForecastService forecastService) {
+    public ForecastController(ForecastService forecastService, ScoringService scoringService,
+                              RenderedResponses renderedResponses, ForecastStreams forecastStreams) {
         this.forecastService = forecastService;
+        this.scoringService = scoringService;
+        this.renderedResponses = renderedResponses;
+        this.forecastStreams = forecastStreams;
     }
 
     @GetMapping("/forecast")
-    public ForecastResponse getForecast(@PathVariable Long id) {
-        return forecastService.getForecast(id);
+    public ResponseEntity<byte[]> getForecast(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = ScoringProfile.DEFAULT_ID) String profile,
+            @RequestParam(defaultValue = "" + BestWindowService.DEFAULT_WINDOW_HOURS) int windowHours,
+            NativeWebRequest request
+    ) throws HttpMediaTypeNotAcceptableException {
+        // Limit best-window length to the searchable part of the day
+        int hours = Math.min(Math.max(windowHours, 1), BestWindowService.MAX_WINDOW_HOURS);
+        ScoringProfile scoringProfile = scoringService.getProfile(profile);
+        ResponseEncoder<ForecastResponse> encoder = renderedResponses.negotiate(request);
+        return renderedResponses.toEntity(
+                forecastService.renderForecast(id, scoringProfile, hours, encoder), request);
+    }
+
+    /**
+     * Forecast and 7-day trends together, for the web dashboard: one
+     * upstream fetch serves both where separate calls would make two.
+     */
+    @GetMapping("/dashboard")
+    public ResponseEntity<byte[]> getDashboard(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = ScoringProfile.DEFAULT_ID) String profile,
+            @RequestParam(defaultValue = "" + BestWindowService.DEFAULT_WINDOW_HOURS) int windowHours,
+            NativeWebRequest request
+    ) throws HttpMediaTypeNotAcceptableException {
+        int hours = Math.min(Math.max(windowHours, 1), BestWindowService.MAX_WINDOW_HOURS);
+        ScoringProfile scoringProfile = scoringService.getProfile(profile);
+        ResponseEncoder<DashboardResponse> encoder = renderedResponses.negotiate(request);
+        return renderedResponses.toEntity(
+                forecastService.renderDashboard(id, scoringProfile, hours, encoder), request);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamForecast(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = ScoringProfile.DEFAULT_ID) String profile,
+            @RequestParam(defaultValue = "" + BestWindowService.DEFAULT_WINDOW_HOURS) int windowHours
+    ) {
+        int hours = Math.min(Math.max(windowHours, 1), BestWindowService.MAX_WINDOW_HOURS);
+        return forecastStreams.subscribe(id, scoringService.getProfile(profile), hours);
     }
 
     @GetMapping("/trends")
-    public TrendsResponse getTrends(
+    public ResponseEntity<byte[]> getTrends(
             @PathVariable Long id,
-            @RequestParam(defaultValue = "14") int period
+            @RequestParam(defaultValue = "14") int period,
+            @RequestParam(defaultValue = ScoringProfile.DEFAULT_ID) String profile,
+            @RequestParam(required = false) String since,
+            NativeWebRequest request
+    ) throws HttpMediaTypeNotAcceptableException {
+        return trends(id, period, profile, since, renderedResponses.negotiate(request), request);
+    }
+
+    @GetMapping(value = "/trends", produces = ColumnarTrendsResponse.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getTrendsColumnar(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "14") int period,
+            @RequestParam(defaultValue = ScoringProfile.DEFAULT_ID) String profile,
+            @RequestParam(required = false) String since,
+            NativeWebRequest request
     ) {
+        ResponseEncoder<TrendsResponse> encoder = renderedResponses.json(
+                MediaType.parseMediaType(ColumnarTrendsResponse.MEDIA_TYPE), ColumnarTrendsResponse::from);
+        return trends(id, period, profile, since, encoder, request);
+    }
+
+    private ResponseEntity<byte[]> trends(Long id, int period, String profile, String since,
+                                          ResponseEncoder<TrendsResponse> encoder, NativeWebRequest request) {
         // Limit period to max 30 days
         int days = Math.min(Math.max(period, 7), 30);
-        return forecastService.getTrends(id, days);
+        ScoringProfile scoringProfile = scoringService.getProfile(profile);
+        RenderedBody body = since == null
+                ? forecastService.renderTrends(id, days, scoringProfile, encoder)
+                : forecastService.renderTrendsSince(id, days, scoringProfile, parseSince(since), encoder);
+        return renderedResponses.toEntity(body, request);
+    }
+
+    /**
+     * A trends version from an earlier response. Versions are assigned by
+     * the database in commit order, so a point in time can't stand in for one.
+     */
+    static long parseSince(String since) {
+        try {
+            if (!since.isEmpty() && since.chars().allMatch(Character::isDigit)) {
+                return Long.parseLong(since);
+            }
+        } catch (NumberFormatException e) {
+            // Too long for a version
+        }
+        throw new InvalidSinceException(since);
+    }
+
+    public static class InvalidSinceException extends RuntimeException {
+        public InvalidSinceException(String since) {
+            super("since must be a trends version, not '" + since + "'");
+        }
     }
 }
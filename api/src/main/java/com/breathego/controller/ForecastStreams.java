@@ -0,0 +1,393 @@
+package com.breathego.controller;
+
+import com.breathego.dto.ForecastResponse;
+import com.breathego.service.ForecastCache;
+import com.breathego.service.ForecastRefreshQueue;
+import com.breathego.service.ForecastService;
+import com.breathego.service.RenderedBody;
+import com.breathego.service.ResponseEncoder;
+import com.breathego.service.ScoringProfile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Server-Sent Event subscribers to forecast updates, grouped by location.
+ *
+ * Connections are async requests, so an idle one holds a socket but no
+ * thread. Every {@code forecast.stream.refresh-interval} each subscribed
+ * location gets one refresh through the {@link ForecastRefreshQueue},
+ * however many subscribers it has. Whenever new days reach the
+ * {@link ForecastCache}, by that refresh or any request, the forecast is
+ * rendered once per profile and window in use and offered to their
+ * subscribers. A subscriber only gets it when its bytes differ from the last
+ * ones it was sent.
+ *
+ * Each subscriber buffers one pending update: a newer one replaces it, since
+ * only the latest forecast matters. A slow client therefore costs one
+ * forecast of memory, not a queue. Writes run on a small sender pool, and
+ * updates are rendered there only from days already in memory, so a sender
+ * never waits on Open-Meteo.
+ *
+ * A write blocks while the client's socket is full, so a client that stops
+ * reading would hold a sender until the container gives up on it. A write
+ * still running after {@code forecast.stream.send-timeout} closes its
+ * subscriber instead: the sender is interrupted, and the pool gets an extra
+ * thread until it returns, so stalled clients never take the senders the
+ * others need.
+ */
+@Component
+public class ForecastStreams {
+
+    private static final Logger log = LoggerFactory.getLogger(ForecastStreams.class);
+
+    private final ForecastService forecastService;
+    private final ForecastRefreshQueue refreshQueue;
+    private final ResponseEncoder<ForecastResponse> encoder;
+    private final Duration timeout;
+    private final int maxSubscribers;
+    private final long heartbeatNanos;
+    private final long sendTimeoutNanos;
+
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // Subscribers with a write in progress, for the stall check
+    private final Set<Subscription> sending = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor sender;
+
+    private final Counter sent;
+    private final Counter dropped;
+    private final Counter unchanged;
+    private final Counter stalled;
+
+    public ForecastStreams(
+            ForecastService forecastService,
+            ForecastRefreshQueue refreshQueue,
+            ForecastCache forecastCache,
+            RenderedResponses renderedResponses,
+            @Value("${forecast.stream.timeout:30m}") Duration timeout,
+            @Value("${forecast.stream.max-subscribers:20000}") int maxSubscribers,
+            @Value("${forecast.stream.refresh-interval:15m}") Duration refreshInterval,
+            @Value("${forecast.stream.heartbeat:30s}") Duration heartbeat,
+            @Value("${forecast.stream.send-threads:2}") int sendThreads,
+            @Value("${forecast.stream.send-timeout:10s}") Duration sendTimeout,
+            MeterRegistry meterRegistry
+    ) {
+        this.forecastService = forecastService;
+        this.refreshQueue = refreshQueue;
+        // Same variant name as GET .../forecast in JSON, so both share bytes
+        this.encoder = renderedResponses.json(MediaType.APPLICATION_JSON, Function.identity());
+        this.timeout = timeout;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+
+        AtomicInteger threads = new AtomicInteger();
+        int senders = Math.max(sendThreads, 1);
+        this.sender = new ThreadPoolExecutor(senders, senders, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                task -> {
+                    Thread thread = new Thread(task, "forecast-stream-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "forecast-stream-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshSubscribed,
+                refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeat,
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        long stallCheck = Math.max(sendTimeout.toMillis() / 4, 10);
+        scheduler.scheduleWithFixedDelay(this::closeStalled, stallCheck, stallCheck, TimeUnit.MILLISECONDS);
+        forecastCache.addUpdateListener(this::onUpdate);
+
+        this.sent = updateCounter(meterRegistry, "sent");
+        this.dropped = updateCounter(meterRegistry, "dropped");
+        this.unchanged = updateCounter(meterRegistry, "unchanged");
+        this.stalled = Counter.builder("breathego.stream.stalled")
+                .description("Streams closed because a write to the client stalled")
+                .register(meterRegistry);
+        Gauge.builder("breathego.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open forecast streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream whose first event is the current forecast. Throws
+     * before anything is opened when the location doesn't exist, its
+     * forecast is unavailable or the server is at its subscriber limit.
+     */
+    public SseEmitter subscribe(Long locationId, ScoringProfile profile, int windowHours) {
+        RenderedBody current = forecastService.renderForecast(locationId, profile, windowHours, encoder);
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new TooManySubscribersException(maxSubscribers);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(locationId, profile, windowHours, emitter);
+        subscriptions.compute(locationId, (id, subscribers) -> {
+            Set<Subscription> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscription);
+            return set;
+        });
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(e -> remove(subscription));
+        // Registered first, so an update racing with this one replaces it
+        subscription.offer(current);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void onUpdate(Long locationId) {
+        Set<Subscription> subscribers = subscriptions.get(locationId);
+        if (subscribers != null && !subscribers.isEmpty()) {
+            sender.execute(() -> publish(locationId));
+        }
+    }
+
+    void publish(Long locationId) {
+        Set<Subscription> subscribers = subscriptions.get(locationId);
+        if (subscribers == null) {
+            return;
+        }
+        Map<String, List<Subscription>> byVariant = subscribers.stream()
+                .collect(Collectors.groupingBy(Subscription::variant));
+        for (List<Subscription> variant : byVariant.values()) {
+            Subscription first = variant.get(0);
+            try {
+                RenderedBody body = forecastService.renderCachedForecast(
+                        locationId, first.profile, first.windowHours, encoder);
+                if (body == null) {
+                    // Evicted since the update; the next refresh brings it back
+                    continue;
+                }
+                variant.forEach(subscription -> subscription.offer(body));
+            } catch (RuntimeException e) {
+                log.warn("Forecast stream update failed for location {}: {}", locationId, e.getMessage());
+            }
+        }
+    }
+
+    void refreshSubscribed() {
+        subscriptions.forEach((locationId, subscribers) -> {
+            if (!subscribers.isEmpty()) {
+                refreshQueue.enqueue(locationId);
+            }
+        });
+    }
+
+    /**
+     * Queues a keep-alive for streams that have been quiet for half the
+     * interval, so a busy stream costs no extra writes and an idle one never
+     * goes two intervals without one.
+     */
+    void heartbeat() {
+        long quietSince = System.nanoTime() - heartbeatNanos / 2;
+        subscriptions.values().forEach(subscribers -> subscribers.forEach(subscription -> {
+            if (subscription.lastWrite - quietSince <= 0) {
+                subscription.heartbeat();
+            }
+        }));
+    }
+
+    void closeStalled() {
+        long now = System.nanoTime();
+        for (Subscription subscription : sending) {
+            // Removing it claims the write, so the sender knows to give the
+            // extra thread back once it returns
+            if (now - subscription.writeStarted > sendTimeoutNanos && sending.remove(subscription)) {
+                subscription.abandon();
+            }
+        }
+    }
+
+    /** Stands in for a sender stuck on a stalled client. */
+    private synchronized void addSender() {
+        sender.setMaximumPoolSize(sender.getMaximumPoolSize() + 1);
+        sender.setCorePoolSize(sender.getCorePoolSize() + 1);
+    }
+
+    private synchronized void releaseSender() {
+        sender.setCorePoolSize(sender.getCorePoolSize() - 1);
+        sender.setMaximumPoolSize(sender.getMaximumPoolSize() - 1);
+    }
+
+    private void remove(Subscription subscription) {
+        // Atomic per location with subscribe(), so an empty set isn't dropped
+        // while another subscriber is being added to it
+        subscriptions.computeIfPresent(subscription.locationId, (id, subscribers) -> {
+            if (subscribers.remove(subscription)) {
+                subscriberCount.decrementAndGet();
+            }
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        sender.shutdownNow();
+        subscriptions.values().forEach(subscribers -> subscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    private static Counter updateCounter(MeterRegistry registry, String result) {
+        return Counter.builder("breathego.stream.updates")
+                .description("Forecast updates offered to stream subscribers")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private final class Subscription {
+
+        private final Long locationId;
+        private final ScoringProfile profile;
+        private final int windowHours;
+        private final SseEmitter emitter;
+
+        // The conflating buffer: at most one update waits to be written
+        private final AtomicReference<RenderedBody> pending = new AtomicReference<>();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean abandoned;
+        private volatile Thread writer;
+        private volatile long writeStarted;
+        private volatile long lastWrite = System.nanoTime();
+        // Only touched by the draining thread
+        private String lastEtag;
+
+        Subscription(Long locationId, ScoringProfile profile, int windowHours, SseEmitter emitter) {
+            this.locationId = locationId;
+            this.profile = profile;
+            this.windowHours = windowHours;
+            this.emitter = emitter;
+        }
+
+        String variant() {
+            return profile.id() + ":" + windowHours;
+        }
+
+        void offer(RenderedBody body) {
+            if (pending.getAndSet(body) != null) {
+                dropped.increment();
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeatDue.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!abandoned && scheduled.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                RenderedBody body;
+                boolean wrote = false;
+                while (!abandoned && (body = pending.getAndSet(null)) != null) {
+                    if (body.etag().equals(lastEtag)) {
+                        unchanged.increment();
+                        continue;
+                    }
+                    send(SseEmitter.event()
+                            .name("forecast")
+                            .id(body.etag())
+                            .data(body.body(), MediaType.APPLICATION_JSON));
+                    lastEtag = body.etag();
+                    sent.increment();
+                    wrote = true;
+                }
+                if (!abandoned && heartbeatDue.getAndSet(false) && !wrote) {
+                    // Keeps proxies from closing idle streams and finds dead clients
+                    send(SseEmitter.event().comment("keep-alive"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone; the container also reports it to onError
+                remove(this);
+            } finally {
+                scheduled.set(false);
+                if ((pending.get() != null || heartbeatDue.get()) && scheduled.compareAndSet(false, true)) {
+                    sender.execute(this::drain);
+                }
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            writer = Thread.currentThread();
+            writeStarted = System.nanoTime();
+            sending.add(this);
+            try {
+                emitter.send(event);
+                lastWrite = System.nanoTime();
+            } finally {
+                synchronized (this) {
+                    writer = null;
+                }
+                if (!sending.remove(this)) {
+                    // Taken over by closeStalled, which added a sender for it
+                    // and may have interrupted this one. The response is ended
+                    // here: the emitter stays locked while a write blocks.
+                    Thread.interrupted();
+                    releaseSender();
+                    emitter.complete();
+                }
+            }
+        }
+
+        /** Closes a stream whose write stalled; called by {@link #closeStalled} only. */
+        private void abandon() {
+            abandoned = true;
+            stalled.increment();
+            remove(this);
+            addSender();
+            synchronized (this) {
+                // Only while it is still in the write
+                if (writer != null) {
+                    writer.interrupt();
+                }
+            }
+        }
+    }
+
+    public static class TooManySubscribersException extends RuntimeException {
+        public TooManySubscribersException(int limit) {
+            super("Forecast streams are at their limit of " + limit + "; poll GET .../forecast instead");
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.breathego.controller;
 
 import com.breathego.client.GeocodingClient;
 import com.breathego.dto.GeocodingResult;
+import com.breathego.ratelimit.RateLimits;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -24,6 +25,7 @@ public class GeocodingController {
         if (query == null || query.trim().length() < 2) {
             return List.of();
         }
+        RateLimits.chargeUpstream();
         return geocodingClient.search(query.trim(), Math.min(limit, 10));
     }
 }
@@ -1,9 +1,12 @@
 package com.breathego.controller;
 
+import com.breathego.ratelimit.RateLimits;
 import com.breathego.service.ForecastService;
 import com.breathego.service.LocationService;
+import com.breathego.service.ScoringService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -32,6 +35,31 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse("SERVICE_UNAVAILABLE", ex.getMessage()));
     }
 
+    @ExceptionHandler(ForecastStreams.TooManySubscribersException.class)
+    public ResponseEntity<ErrorResponse> handleTooManySubscribers(ForecastStreams.TooManySubscribersException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponse("TOO_MANY_STREAMS", ex.getMessage()));
+    }
+
+    @ExceptionHandler(RateLimits.RateLimitedException.class)
+    public ResponseEntity<ErrorResponse> handleRateLimited(RateLimits.RateLimitedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ErrorResponse("RATE_LIMITED", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ScoringService.UnknownProfileException.class)
+    public ResponseEntity<ErrorResponse> handleUnknownProfile(ScoringService.UnknownProfileException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("INVALID_PROFILE", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ForecastController.InvalidSinceException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidSince(ForecastController.InvalidSinceException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("INVALID_SINCE", ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ValidationErrorResponse> handleValidationErrors(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
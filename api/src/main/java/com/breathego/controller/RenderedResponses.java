@@ -0,0 +1,151 @@
+package com.breathego.controller;
+
+import com.breathego.service.RenderedBody;
+import com.breathego.service.ResponseEncoder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes responses whose bytes were encoded ahead of time ({@link RenderedBody})
+ * instead of going through the message converters on every request.
+ *
+ * It picks the representation from {@code Accept} the way the converters
+ * would, with the same mappers: JSON first, then CBOR and Smile (see
+ * {@link com.breathego.config.ResponseFormatConfig}). Bodies are gzipped once
+ * when they reach {@code server.compression.min-response-size}, and served
+ * compressed to clients that accept it; Tomcat doesn't compress a response
+ * that already has a {@code Content-Encoding}. Every response carries a weak
+ * ETag, so a matching {@code If-None-Match} gets 304 Not Modified.
+ */
+@Component
+public class RenderedResponses {
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    // In order of preference when the client accepts several equally
+    private final Map<MediaType, ObjectMapper> formats = new LinkedHashMap<>();
+    private final ObjectMapper jsonMapper;
+    private final int gzipMinSize;
+
+    public RenderedResponses(
+            ObjectMapper objectMapper,
+            MappingJackson2CborHttpMessageConverter cborConverter,
+            MappingJackson2SmileHttpMessageConverter smileConverter,
+            @Value("${server.compression.enabled:false}") boolean compression,
+            @Value("${server.compression.min-response-size:2KB}") DataSize compressionMinSize
+    ) {
+        this.jsonMapper = objectMapper;
+        this.formats.put(MediaType.APPLICATION_JSON, objectMapper);
+        this.formats.put(MediaType.APPLICATION_CBOR, cborConverter.getObjectMapper());
+        this.formats.put(SMILE, smileConverter.getObjectMapper());
+        this.gzipMinSize = compression ? (int) compressionMinSize.toBytes() : -1;
+    }
+
+    /**
+     * The JSON, CBOR or Smile encoder the request's {@code Accept} header
+     * asks for.
+     */
+    public <T> ResponseEncoder<T> negotiate(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> accepted = accepted(request);
+        // Highest quality first, then exact types before wildcards; stable, so
+        // header order breaks the remaining ties
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+                .thenComparing(MediaType::isWildcardType)
+                .thenComparing(MediaType::isWildcardSubtype));
+        for (MediaType acceptable : accepted) {
+            if (acceptable.getQualityValue() == 0) {
+                continue;
+            }
+            for (Map.Entry<MediaType, ObjectMapper> format : formats.entrySet()) {
+                if (acceptable.isCompatibleWith(format.getKey())) {
+                    return encoder(format.getKey(), format.getValue(), Function.identity());
+                }
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(List.copyOf(formats.keySet()));
+    }
+
+    /**
+     * A JSON encoder for a media type of its own, writing {@code view} of the
+     * response.
+     */
+    public <T> ResponseEncoder<T> json(MediaType type, Function<T, ?> view) {
+        return encoder(type, jsonMapper, view);
+    }
+
+    public ResponseEntity<byte[]> toEntity(RenderedBody body, NativeWebRequest request) {
+        boolean gzip = body.gzipped() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(body.contentType()))
+                .eTag(body.etag())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? body.gzipped() : body.body());
+    }
+
+    private static List<MediaType> accepted(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        String[] headers = request.getHeaderValues(HttpHeaders.ACCEPT);
+        if (headers == null) {
+            return new ArrayList<>(List.of(MediaType.ALL));
+        }
+        try {
+            return new ArrayList<>(MediaType.parseMediaTypes(List.of(headers)));
+        } catch (InvalidMediaTypeException e) {
+            throw new HttpMediaTypeNotAcceptableException("Could not parse 'Accept' header: " + e.getMessage());
+        }
+    }
+
+    private <T> ResponseEncoder<T> encoder(MediaType type, ObjectMapper mapper, Function<T, ?> view) {
+        String contentType = type.toString();
+        return new ResponseEncoder<>() {
+            @Override
+            public String name() {
+                return contentType;
+            }
+
+            @Override
+            public RenderedBody encode(T response) {
+                try {
+                    return RenderedBody.of(contentType, mapper.writeValueAsBytes(view.apply(response)), gzipMinSize);
+                } catch (JsonProcessingException e) {
+                    throw new HttpMessageNotWritableException("Could not write " + contentType + ": "
+                            + e.getOriginalMessage(), e);
+                }
+            }
+        };
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
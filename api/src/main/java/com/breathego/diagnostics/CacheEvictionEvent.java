@@ -0,0 +1,22 @@
+package com.breathego.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.breathego.CacheEviction")
+@Label("Cache Eviction")
+@Category({"Breathe & Go", "Cache"})
+@StackTrace(false)
+public class CacheEvictionEvent extends jdk.jfr.Event {
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Location Id")
+    public long locationId;
+
+    @Label("Reason")
+    public String reason;
+}
@@ -0,0 +1,28 @@
+package com.breathego.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.breathego.CacheLookup")
+@Label("Cache Lookup")
+@Category({"Breathe & Go", "Cache"})
+@StackTrace(false)
+public class CacheLookupEvent extends jdk.jfr.Event {
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Location Id")
+    public long locationId;
+
+    @Label("Requested Days")
+    public int requested;
+
+    @Label("Found Days")
+    public int found;
+
+    @Label("Hit")
+    public boolean hit;
+}
@@ -0,0 +1,25 @@
+package com.breathego.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.breathego.DailyMetricsWrite")
+@Label("Daily Metrics Write")
+@Category({"Breathe & Go", "Cache"})
+@StackTrace(false)
+public class DailyMetricsWriteEvent extends jdk.jfr.Event {
+
+    @Label("Location Id")
+    public long locationId;
+
+    @Label("Rows Written")
+    public int written;
+
+    @Label("Rows Updated")
+    public int updated;
+
+    @Label("Rows Skipped")
+    public int skipped;
+}
@@ -0,0 +1,203 @@
+package com.breathego.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Starts, stops and downloads a Java Flight Recorder recording at
+ * {@code /actuator/flightrecorder}, so the application's own events land in
+ * the same timeline as GC, locks and I/O.
+ *
+ * Only one recording exists at a time and it is always bounded: it stops by
+ * itself after {@code flightrecorder.max-duration} and keeps at most
+ * {@code flightrecorder.max-size} on disk.
+ *
+ * Anyone who reaches it can record the process, so it isn't exposed by
+ * default, and startup fails if it is exposed without
+ * {@code management.server.port} set apart from the API port. (Checked at
+ * startup rather than with a bean condition, which AOT would fix at build
+ * time.) Events that
+ * would capture the environment, system properties or command lines, and
+ * with them the database credentials, are left out of every recording.
+ */
+@Component
+@WebEndpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+    // Hold environment variables, system properties and JVM or process
+    // command lines
+    private static final List<String> SECRET_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation", "jdk.SystemProcess");
+
+    private final Duration maxDuration;
+    private final DataSize maxSize;
+    private Recording recording;
+    private String recordingSettings;
+
+    public FlightRecorderEndpoint(
+            @Value("${flightrecorder.max-duration:5m}") Duration maxDuration,
+            @Value("${flightrecorder.max-size:50MB}") DataSize maxSize,
+            Environment environment
+    ) {
+        Set<String> exposed = Set.of(environment.getProperty(
+                "management.endpoints.web.exposure.include", String[].class, new String[0]));
+        if ((exposed.contains("flightrecorder") || exposed.contains("*"))
+                && ManagementPortType.get(environment) != ManagementPortType.DIFFERENT) {
+            throw new IllegalStateException("/actuator/flightrecorder can record the whole process; "
+                    + "expose it only with management.server.port set apart from server.port");
+        }
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+    }
+
+    @ReadOperation
+    public synchronized RecordingStatus status() {
+        return RecordingStatus.of(recording, recordingSettings);
+    }
+
+    /**
+     * Start a new recording, discarding the previous one.
+     *
+     * @param seconds  how long to record, capped at the configured maximum
+     * @param settings JFR settings, {@code default} (about 1% overhead) or
+     *                 {@code profile} (adds allocation and lock profiling)
+     */
+    @WriteOperation
+    public synchronized RecordingStatus start(@Nullable Integer seconds, @Nullable String settings) {
+        String settingsName = settings != null ? settings : "profile";
+        if (!SETTINGS.contains(settingsName)) {
+            throw new InvalidEndpointRequestException("Unknown settings: " + settingsName,
+                    "settings must be one of " + SETTINGS);
+        }
+        Duration duration = seconds != null && seconds > 0
+                ? Duration.ofSeconds(Math.min(seconds, maxDuration.toSeconds()))
+                : maxDuration;
+
+        Map<String, String> eventSettings;
+        try {
+            eventSettings = new HashMap<>(Configuration.getConfiguration(settingsName).getSettings());
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Unable to load JFR settings " + settingsName, e);
+        }
+        for (String event : SECRET_EVENTS) {
+            eventSettings.put(event + "#enabled", "false");
+        }
+        Recording next = new Recording(eventSettings);
+        next.setName("breathego");
+        next.setToDisk(true);
+        next.setDuration(duration);
+        next.setMaxSize(maxSize.toBytes());
+
+        close();
+        recording = next;
+        recordingSettings = settingsName;
+        recording.start();
+        return RecordingStatus.of(recording, recordingSettings);
+    }
+
+    @DeleteOperation
+    public synchronized RecordingStatus stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        return RecordingStatus.of(recording, recordingSettings);
+    }
+
+    /**
+     * Download the recording as a {@code .jfr} file. A running recording is
+     * snapshotted and keeps running. The snapshot is deleted once it has been
+     * streamed.
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> download(@Selector long id) {
+        if (recording == null || recording.getId() != id || recording.getState() == RecordingState.NEW) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            Path file = Files.createTempFile("breathego-" + id + "-", ".jfr");
+            file.toFile().deleteOnExit();
+            recording.dump(file);
+            return new WebEndpointResponse<>(new Snapshot(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * A dumped recording, deleted when the stream that sends it is closed.
+     * {@code deleteOnExit} only covers a download that is never sent.
+     */
+    static class Snapshot extends FileSystemResource {
+
+        Snapshot(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(getFile().toPath(), StandardOpenOption.DELETE_ON_CLOSE);
+        }
+    }
+
+    public record RecordingStatus(
+            Long id,
+            String state,
+            String settings,
+            Instant startTime,
+            Long durationSeconds,
+            Long size
+    ) {
+        static RecordingStatus of(@Nullable Recording recording, String settings) {
+            if (recording == null) {
+                return new RecordingStatus(null, "NONE", null, null, null, null);
+            }
+            Duration duration = recording.getDuration();
+            return new RecordingStatus(
+                    recording.getId(),
+                    recording.getState().name(),
+                    settings,
+                    recording.getStartTime(),
+                    duration != null ? duration.toSeconds() : null,
+                    recording.getSize()
+            );
+        }
+    }
+}
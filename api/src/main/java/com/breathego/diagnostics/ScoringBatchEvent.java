@@ -0,0 +1,25 @@
+package com.breathego.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.breathego.ScoringBatch")
+@Label("Scoring Batch")
+@Category({"Breathe & Go", "Scoring"})
+@StackTrace(false)
+public class ScoringBatchEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Location Id")
+    public long locationId;
+
+    @Label("Days")
+    public int days;
+
+    @Label("Profiles")
+    public int profiles;
+}
@@ -0,0 +1,40 @@
+package com.breathego.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One Open-Meteo call, from sending the request until its body has been read.
+ * Committed on the HTTP client's I/O thread, not the request thread.
+ */
+@Name("com.breathego.UpstreamRequest")
+@Label("Upstream Request")
+@Category({"Breathe & Go", "Upstream"})
+@Description("Open-Meteo request including reading the response body")
+@StackTrace(false)
+public class UpstreamRequestEvent extends jdk.jfr.Event {
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Latitude")
+    public double latitude = Double.NaN;
+
+    @Label("Longitude")
+    public double longitude = Double.NaN;
+
+    @Label("Status")
+    @Description("HTTP status, or -1 when no response arrived")
+    public int status = -1;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Response Size")
+    @DataAmount
+    public long bytes = -1;
+}
@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
 
 @Entity
 @Table(name = "daily_metrics")
@@ -53,11 +56,49 @@ public class DailyMetrics {
     @Column(name = "created_at")
     private OffsetDateTime createdAt;
 
+    // When the stored values were fetched, so an older fetch written late
+    // never replaces a newer one
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    // The daily_metrics_clock value of the write that last changed the stored
+    // values; the version of incremental trends. Null until written.
+    @Column
+    private Long version;
+
+    // Scores for non-default scoring profiles; the default profile's score is
+    // the score column above.
+    @ElementCollection
+    @CollectionTable(name = "daily_metrics_profile_scores",
+            joinColumns = @JoinColumn(name = "daily_metrics_id"))
+    @MapKeyColumn(name = "profile")
+    @Column(name = "score", nullable = false)
+    private Map<String, Integer> profileScores = new HashMap<>();
+
     public DailyMetrics() {}
 
     @PrePersist
     protected void onCreate() {
         createdAt = OffsetDateTime.now();
+        if (updatedAt == null) {
+            updatedAt = createdAt.truncatedTo(ChronoUnit.MILLIS);
+        }
+    }
+
+    /**
+     * Records that the stored values changed. Set explicitly rather than on
+     * {@code @PreUpdate}, which doesn't run when only profile scores change.
+     */
+    public void markUpdated() {
+        markUpdated(OffsetDateTime.now());
+    }
+
+    /**
+     * Records that the stored values changed at {@code at}: when they were
+     * fetched, for rows written some time after.
+     */
+    public void markUpdated(OffsetDateTime at) {
+        updatedAt = at.truncatedTo(ChronoUnit.MILLIS);
     }
 
     public Long getId() {
@@ -164,7 +205,27 @@ public class DailyMetrics {
         this.uvIndex = uvIndex;
     }
 
+    public Map<String, Integer> getProfileScores() {
+        return profileScores;
+    }
+
+    public void setProfileScores(Map<String, Integer> profileScores) {
+        this.profileScores = profileScores;
+    }
+
     public OffsetDateTime getCreatedAt() {
         return createdAt;
     }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
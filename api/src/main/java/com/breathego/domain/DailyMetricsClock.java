@@ -0,0 +1,28 @@
+package com.breathego.domain;
+
+import jakarta.persistence.*;
+
+/**
+ * The single row handing out trends versions. Writers to daily_metrics
+ * increment it first, so the row lock orders their commits.
+ */
+@Entity
+@Table(name = "daily_metrics_clock")
+public class DailyMetricsClock {
+
+    @Id
+    private Short id;
+
+    @Column(nullable = false)
+    private Long version;
+
+    public DailyMetricsClock() {}
+
+    public Short getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
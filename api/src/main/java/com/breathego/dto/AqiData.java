@@ -2,10 +2,61 @@ package com.breathego.dto;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
 
 public record AqiData(
         LocalDate date,
         Integer usAqi,
         BigDecimal pm25,
-        BigDecimal ozone
-) {}
+        BigDecimal ozone,
+        int[] hourlyUsAqi  // Indexed by local hour (0-23), MISSING_HOUR where absent
+) {
+    public static final int MISSING_HOUR = -1;
+
+    public AqiData {
+        hourlyUsAqi = hourlyUsAqi != null ? hourlyUsAqi.clone() : null;
+    }
+
+    public AqiData(LocalDate date, Integer usAqi, BigDecimal pm25, BigDecimal ozone) {
+        this(date, usAqi, pm25, ozone, null);
+    }
+
+    /**
+     * A copy of the hourly series; use {@link #usAqiAt(int)} to read single
+     * hours without copying.
+     */
+    @Override
+    public int[] hourlyUsAqi() {
+        return hourlyUsAqi != null ? hourlyUsAqi.clone() : null;
+    }
+
+    /**
+     * US AQI for a local hour, or {@link #MISSING_HOUR} when the hour (or the
+     * whole hourly series) is absent.
+     */
+    public int usAqiAt(int hour) {
+        return hourlyUsAqi != null ? hourlyUsAqi[hour] : MISSING_HOUR;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AqiData other
+                && Objects.equals(date, other.date)
+                && Objects.equals(usAqi, other.usAqi)
+                && Objects.equals(pm25, other.pm25)
+                && Objects.equals(ozone, other.ozone)
+                && Arrays.equals(hourlyUsAqi, other.hourlyUsAqi);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(date, usAqi, pm25, ozone) + Arrays.hashCode(hourlyUsAqi);
+    }
+
+    @Override
+    public String toString() {
+        return "AqiData[date=" + date + ", usAqi=" + usAqi + ", pm25=" + pm25 + ", ozone=" + ozone
+                + ", hourlyUsAqi=" + Arrays.toString(hourlyUsAqi) + "]";
+    }
+}
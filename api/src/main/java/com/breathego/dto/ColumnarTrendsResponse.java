@@ -0,0 +1,53 @@
+package com.breathego.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link TrendsResponse} as parallel arrays indexed by day, served for
+ * {@code Accept: application/vnd.breathego.trends.columnar+json}. Field names
+ * appear once per response instead of once per day.
+ */
+public record ColumnarTrendsResponse(
+        Long locationId,
+        String locationName,
+        String profile,
+        int period,
+        List<LocalDate> dates,
+        List<Integer> aqi,
+        List<BigDecimal> temperatureMin,
+        List<BigDecimal> temperatureMax,
+        List<Integer> score,
+        List<String> recommendation,
+        Long version
+) {
+    public static final String MEDIA_TYPE = "application/vnd.breathego.trends.columnar+json";
+
+    /**
+     * The three series of a {@link TrendsResponse} are built together, one
+     * entry per day, so they share their dates.
+     */
+    public static ColumnarTrendsResponse from(TrendsResponse trends) {
+        int days = trends.scores().size();
+        List<LocalDate> dates = new ArrayList<>(days);
+        List<Integer> aqi = new ArrayList<>(days);
+        List<BigDecimal> temperatureMin = new ArrayList<>(days);
+        List<BigDecimal> temperatureMax = new ArrayList<>(days);
+        List<Integer> score = new ArrayList<>(days);
+        List<String> recommendation = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            TrendsResponse.ScoreTrend day = trends.scores().get(i);
+            dates.add(day.date());
+            score.add(day.score());
+            recommendation.add(day.recommendation());
+            aqi.add(trends.aqi().get(i).value());
+            temperatureMin.add(trends.temperature().get(i).min());
+            temperatureMax.add(trends.temperature().get(i).max());
+        }
+        return new ColumnarTrendsResponse(trends.locationId(), trends.locationName(), trends.profile(),
+                trends.period(), dates, aqi, temperatureMin, temperatureMax, score, recommendation,
+                trends.version());
+    }
+}
@@ -0,0 +1,9 @@
+package com.breathego.dto;
+
+/**
+ * The forecast and 7-day trends of one location, built from the same days.
+ */
+public record DashboardResponse(
+        ForecastResponse forecast,
+        TrendsResponse trends
+) {}
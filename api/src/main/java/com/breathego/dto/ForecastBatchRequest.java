@@ -0,0 +1,15 @@
+package com.breathego.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record ForecastBatchRequest(
+        @NotEmpty(message = "At least one location is required")
+        @Size(max = ForecastBatchRequest.MAX_LOCATIONS,
+                message = "At most " + ForecastBatchRequest.MAX_LOCATIONS + " locations per request")
+        List<@NotNull(message = "Location ids must not be null") Long> locationIds
+) {
+    public static final int MAX_LOCATIONS = 50;
+}
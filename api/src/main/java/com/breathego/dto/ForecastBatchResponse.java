@@ -0,0 +1,34 @@
+package com.breathego.dto;
+
+import java.util.List;
+
+/**
+ * One item per requested location, in request order. Each has either a
+ * forecast or an error, so one failing location doesn't fail the rest.
+ */
+public record ForecastBatchResponse(
+        List<Item> forecasts
+) {
+    public record Item(
+            Long locationId,
+            ForecastResponse forecast,
+            Failure error
+    ) {
+        public static Item of(ForecastResponse forecast) {
+            return new Item(forecast.locationId(), forecast, null);
+        }
+
+        public static Item failed(Long locationId, String code, String message) {
+            return new Item(locationId, null, new Failure(code, message));
+        }
+    }
+
+    /**
+     * The code and message the single-location endpoint would have answered
+     * with, e.g. NOT_FOUND or SERVICE_UNAVAILABLE.
+     */
+    public record Failure(
+            String code,
+            String message
+    ) {}
+}
@@ -2,11 +2,13 @@ package com.breathego.dto;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 public record ForecastResponse(
         Long locationId,
         String locationName,
+        String profile,
         int score,
         String recommendation,
         List<String> reasons,
@@ -35,6 +37,18 @@ public record ForecastResponse(
             String recommendation,
             BigDecimal temperatureMax,
             BigDecimal temperatureMin,
-            Integer aqi
+            Integer aqi,
+            BestWindow bestWindow
+    ) {}
+
+    /**
+     * Best contiguous outdoor window of the day: the one whose worst hour
+     * scores highest. Null when the day has too few hours of data.
+     */
+    public record BestWindow(
+            LocalTime start,
+            LocalTime end,
+            int score,
+            Integer maxAqi
     ) {}
 }
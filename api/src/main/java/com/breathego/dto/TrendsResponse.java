@@ -7,10 +7,14 @@ import java.util.List;
 public record TrendsResponse(
         Long locationId,
         String locationName,
+        String profile,
         int period,
         List<AqiTrend> aqi,
         List<TemperatureTrend> temperature,
-        List<ScoreTrend> scores
+        List<ScoreTrend> scores,
+        // Epoch millis of the latest stored change included; pass as ?since=
+        // to get only the days changed after it. Null when nothing is stored.
+        Long version
 ) {
     public record AqiTrend(
             LocalDate date,
@@ -2,6 +2,7 @@ package com.breathego.dto;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
 
 public record WeatherData(
         LocalDate date,
@@ -10,5 +11,96 @@ public record WeatherData(
         BigDecimal precipitation,
         BigDecimal windSpeed,
         Integer windDirection,
-        BigDecimal uvIndex
-) {}
+        BigDecimal uvIndex,
+        Hourly hourly
+) {
+    public WeatherData(LocalDate date, BigDecimal temperatureMax, BigDecimal temperatureMin,
+                       BigDecimal precipitation, BigDecimal windSpeed, Integer windDirection,
+                       BigDecimal uvIndex) {
+        this(date, temperatureMax, temperatureMin, precipitation, windSpeed, windDirection, uvIndex, null);
+    }
+
+    /**
+     * Hourly values for the day, indexed by local hour (0-23). Missing hours
+     * are {@link Double#NaN}. Precipitation is mm in the hour, not a daily sum.
+     *
+     * <p>The arrays are copied on the way in and out, so an instance never
+     * changes after construction; the {@code ...At(hour)} accessors read a
+     * single hour without copying.
+     */
+    public record Hourly(
+            double[] temperature,
+            double[] precipitation,
+            double[] windSpeed
+    ) {
+        public static final int HOURS = 24;
+
+        public Hourly {
+            temperature = copyOf(temperature);
+            precipitation = copyOf(precipitation);
+            windSpeed = copyOf(windSpeed);
+        }
+
+        public static Hourly empty() {
+            double[] missing = new double[HOURS];
+            Arrays.fill(missing, Double.NaN);
+            return new Hourly(missing, missing, missing);
+        }
+
+        @Override
+        public double[] temperature() {
+            return temperature.clone();
+        }
+
+        @Override
+        public double[] precipitation() {
+            return precipitation.clone();
+        }
+
+        @Override
+        public double[] windSpeed() {
+            return windSpeed.clone();
+        }
+
+        public double temperatureAt(int hour) {
+            return temperature[hour];
+        }
+
+        public double precipitationAt(int hour) {
+            return precipitation[hour];
+        }
+
+        public double windSpeedAt(int hour) {
+            return windSpeed[hour];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Hourly other
+                    && Arrays.equals(temperature, other.temperature)
+                    && Arrays.equals(precipitation, other.precipitation)
+                    && Arrays.equals(windSpeed, other.windSpeed);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Arrays.hashCode(temperature);
+            result = 31 * result + Arrays.hashCode(precipitation);
+            return 31 * result + Arrays.hashCode(windSpeed);
+        }
+
+        @Override
+        public String toString() {
+            return "Hourly[temperature=" + Arrays.toString(temperature)
+                    + ", precipitation=" + Arrays.toString(precipitation)
+                    + ", windSpeed=" + Arrays.toString(windSpeed) + "]";
+        }
+
+        private static double[] copyOf(double[] values) {
+            if (values == null || values.length != HOURS) {
+                throw new IllegalArgumentException("Hourly series must have " + HOURS + " values");
+            }
+            return values.clone();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.breathego.ratelimit;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Set;
+
+/**
+ * Per-client limits for API requests, in two tiers:
+ * <ul>
+ *   <li>requests: every request takes a token here before it is handled;</li>
+ *   <li>upstream: requests that have to call Open-Meteo also take one here,
+ *       via {@link RateLimits#chargeUpstream()}, so a client can't drain the
+ *       upstream quota with requests for data that isn't cached.</li>
+ * </ul>
+ * A client is its remote address, or its API key when it sends one of the
+ * configured keys in {@code X-Api-Key}. Unknown keys are ignored, so they
+ * can't be rotated to get fresh buckets.
+ *
+ * Rejections throw {@link RateLimits.RateLimitedException}, which
+ * GlobalExceptionHandler turns into 429 with {@code Retry-After}. Running as
+ * an MVC interceptor keeps CORS headers on those responses, so browsers can
+ * read them.
+ */
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    static final String API_KEY_HEADER = "X-Api-Key";
+
+    private final TokenBuckets requests;
+    private final TokenBuckets upstream;
+    private final Set<String> apiKeys;
+
+    public RateLimitInterceptor(TokenBuckets requests, TokenBuckets upstream, Set<String> apiKeys) {
+        this.requests = requests;
+        this.upstream = upstream;
+        this.apiKeys = apiKeys;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async dispatches of a stream were charged when it opened
+        if (request.getDispatcherType() != DispatcherType.REQUEST || CorsUtils.isPreFlightRequest(request)) {
+            return true;
+        }
+        String client = clientOf(request);
+        long wait = requests.tryAcquire(client);
+        if (wait > 0) {
+            throw new RateLimits.RateLimitedException(RateLimits.REQUESTS, wait);
+        }
+        RateLimits.begin(upstream, client);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        RateLimits.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RateLimits.end();
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String key = request.getHeader(API_KEY_HEADER);
+        if (key != null && apiKeys.contains(key)) {
+            return "key:" + key;
+        }
+        return request.getRemoteAddr();
+    }
+}
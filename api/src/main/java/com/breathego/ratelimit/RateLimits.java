@@ -0,0 +1,94 @@
+package com.breathego.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The upstream limit of the client making the current request.
+ *
+ * {@link RateLimitInterceptor} sets it for each API request, so services
+ * charge it with {@link #chargeUpstream()} just before a call to Open-Meteo
+ * without passing the client around. Requests served from memory or
+ * daily_metrics never charge it. Outside a request (background refreshes,
+ * tests, benchmarks) charging is a no-op.
+ */
+public final class RateLimits {
+
+    public static final String REQUESTS = "requests";
+    public static final String UPSTREAM = "upstream";
+    public static final String UPSTREAM_LIMITED = "Too many requests for data that isn't cached yet; retry later";
+
+    // One per thread, reused across requests
+    private static final ThreadLocal<RateLimits> CURRENT = ThreadLocal.withInitial(RateLimits::new);
+
+    private TokenBuckets upstream;
+    private String client;
+    private int charged;
+
+    private RateLimits() {
+    }
+
+    static void begin(TokenBuckets upstream, String client) {
+        RateLimits limits = CURRENT.get();
+        limits.upstream = upstream;
+        limits.client = client;
+        limits.charged = 0;
+    }
+
+    static void end() {
+        RateLimits limits = CURRENT.get();
+        limits.upstream = null;
+        limits.client = null;
+    }
+
+    /**
+     * Takes an upstream token for the current client, once per request
+     * however many upstream calls it makes.
+     *
+     * @throws RateLimitedException when the client has none left
+     */
+    public static void chargeUpstream() {
+        chargeUpstream(1);
+    }
+
+    /**
+     * Takes an upstream token per location the current request fetches,
+     * counting the ones it has already taken. A client with fewer tokens left
+     * gets as many as it has, so a batch larger than the burst still makes
+     * progress.
+     *
+     * @return how many of the {@code locations} may be fetched
+     * @throws RateLimitedException when the client has none left
+     */
+    public static int chargeUpstream(int locations) {
+        RateLimits limits = CURRENT.get();
+        if (limits.upstream == null) {
+            return locations;
+        }
+        while (limits.charged < locations) {
+            long wait = limits.upstream.tryAcquire(limits.client);
+            if (wait > 0) {
+                if (limits.charged == 0) {
+                    throw new RateLimitedException(UPSTREAM, wait);
+                }
+                break;
+            }
+            limits.charged++;
+        }
+        return Math.min(limits.charged, locations);
+    }
+
+    public static class RateLimitedException extends RuntimeException {
+
+        private final long retryAfterSeconds;
+
+        public RateLimitedException(String tier, long waitNanos) {
+            super(UPSTREAM.equals(tier) ? UPSTREAM_LIMITED : "Too many requests; retry later");
+            this.retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                    / TimeUnit.SECONDS.toNanos(1));
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.breathego.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * One token bucket per client key, refilled at {@code perMinute} tokens a
+ * minute up to {@code burst}.
+ *
+ * Each bucket is a single {@code long}: the time at which it would be full
+ * again (the generic cell rate algorithm). Taking a token pushes that time
+ * forward by one refill interval with a compare-and-set, so there are no
+ * locks and nothing to refill on a timer. Buckets live in a
+ * {@link ConcurrentHashMap}, whose reads don't lock and whose writes lock a
+ * single bin, so clients contend only on their own bucket.
+ *
+ * A bucket that has refilled is the same as no bucket, so
+ * {@link #evictIdle()} simply drops full ones. Once {@code maxClients} keys
+ * are held, a new client makes room by dropping, of a few sampled buckets,
+ * the one that will be full soonest. That is usually one that already is,
+ * and at worst gives a light user its tokens back early. A client churning
+ * through addresses only ever evicts buckets like its own, and never pushes
+ * newcomers into a shared one.
+ */
+public final class TokenBuckets {
+
+    // Buckets looked at to make room for a new client
+    private static final int EVICTION_SAMPLE = 16;
+
+    private final long interval;
+    private final long capacity;
+    private final int maxClients;
+    private final LongSupplier clock;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public TokenBuckets(int perMinute, int burst, int maxClients) {
+        this(perMinute, burst, maxClients, System::nanoTime);
+    }
+
+    TokenBuckets(int perMinute, int burst, int maxClients, LongSupplier clock) {
+        if (perMinute < 1 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.interval = TimeUnit.MINUTES.toNanos(1) / perMinute;
+        this.capacity = interval * burst;
+        this.maxClients = maxClients;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token from {@code client}'s bucket.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until one
+     *         will be available
+     */
+    public long tryAcquire(String client) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = bucketFor(client);
+        }
+        long now = clock.getAsLong();
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + interval;
+            long wait = next - now - capacity;
+            if (wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong bucketFor(String client) {
+        if (buckets.size() >= maxClients) {
+            evictSoonestFull();
+        }
+        return buckets.computeIfAbsent(client, k -> new AtomicLong(clock.getAsLong()));
+    }
+
+    /**
+     * Drops the sampled bucket that will be full first. Racing clients may
+     * each drop one, leaving the map a little under {@code maxClients}, or add
+     * theirs together, leaving it a little over.
+     */
+    private void evictSoonestFull() {
+        Map.Entry<String, AtomicLong> soonest = null;
+        int sampled = 0;
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            if (soonest == null || entry.getValue().get() < soonest.getValue().get()) {
+                soonest = entry;
+            }
+            if (++sampled == EVICTION_SAMPLE) {
+                break;
+            }
+        }
+        if (soonest != null) {
+            buckets.remove(soonest.getKey(), soonest.getValue());
+        }
+    }
+
+    /**
+     * Drops the buckets that have refilled. A client racing with this may
+     * take its token from a bucket that was just dropped, which at worst
+     * gives it one token back.
+     */
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        buckets.values().removeIf(bucket -> bucket.get() <= now);
+    }
+
+    public int clients() {
+        return buckets.size();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+}
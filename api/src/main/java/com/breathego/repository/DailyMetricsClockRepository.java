@@ -0,0 +1,22 @@
+package com.breathego.repository;
+
+import com.breathego.domain.DailyMetricsClock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DailyMetricsClockRepository extends JpaRepository<DailyMetricsClock, Short> {
+
+    /**
+     * Moves the clock on and locks it until the calling transaction ends;
+     * the number of rows changed, 1 once the clock is seeded.
+     */
+    @Modifying
+    @Query("UPDATE DailyMetricsClock c SET c.version = c.version + 1")
+    int tick();
+
+    @Query("SELECT c.version FROM DailyMetricsClock c")
+    Long current();
+}
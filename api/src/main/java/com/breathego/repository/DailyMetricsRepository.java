@@ -1,13 +1,17 @@
 package com.breathego.repository;
 
 import com.breathego.domain.DailyMetrics;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface DailyMetricsRepository extends JpaRepository<DailyMetrics, Long> {
@@ -22,5 +26,33 @@ public interface DailyMetricsRepository extends JpaRepository<DailyMetrics, Long
             @Param("endDate") LocalDate endDate
     );
 
-    boolean existsByLocationIdAndDate(Long locationId, LocalDate date);
+    @Query("SELECT DISTINCT dm FROM DailyMetrics dm LEFT JOIN FETCH dm.profileScores WHERE dm.location.id = :locationId AND dm.date BETWEEN :startDate AND :endDate ORDER BY dm.date ASC")
+    List<DailyMetrics> findWithProfileScoresByLocationIdAndDateBetween(
+            @Param("locationId") Long locationId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Query("SELECT MAX(dm.version) FROM DailyMetrics dm WHERE dm.location.id = :locationId AND dm.date BETWEEN :startDate AND :endDate")
+    Long findMaxVersionByLocationIdAndDateBetween(
+            @Param("locationId") Long locationId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    /**
+     * Rows for a range of location ids, ordered by location then date, read
+     * through a server-side cursor. Must be consumed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT dm FROM DailyMetrics dm WHERE dm.location.id BETWEEN :firstLocationId AND :lastLocationId AND dm.date BETWEEN :startDate AND :endDate ORDER BY dm.location.id ASC, dm.date ASC")
+    Stream<DailyMetrics> streamByLocationIdBetweenAndDateBetween(
+            @Param("firstLocationId") Long firstLocationId,
+            @Param("lastLocationId") Long lastLocationId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
 }
@@ -5,9 +5,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
     Optional<Location> findByLatitudeAndLongitude(BigDecimal latitude, BigDecimal longitude);
+
+    List<Location> findByLatitudeBetweenAndLongitudeBetween(
+            BigDecimal minLatitude, BigDecimal maxLatitude, BigDecimal minLongitude, BigDecimal maxLongitude);
 }
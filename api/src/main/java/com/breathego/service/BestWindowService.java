@@ -0,0 +1,111 @@
+package com.breathego.service;
+
+import com.breathego.dto.AqiData;
+import com.breathego.dto.ForecastResponse;
+import com.breathego.dto.WeatherData;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalTime;
+
+/**
+ * Finds the best contiguous N-hour outdoor window in a day from the hourly
+ * series kept by {@link com.breathego.client.OpenMeteoClient}.
+ *
+ * Each hour is scored with the {@link ScoringService} rules. The best window
+ * is the one whose worst hour scores highest (ties go to the higher total,
+ * then the earlier start). A monotonic deque tracks the window minimum and a
+ * second one the window's peak AQI, so a day is a single O(hours) pass over
+ * primitive arrays.
+ */
+@Service
+public class BestWindowService {
+
+    // Windows are only searched within waking hours
+    static final int FIRST_HOUR = 6;
+    static final int LAST_HOUR = 22; // exclusive
+    public static final int MAX_WINDOW_HOURS = LAST_HOUR - FIRST_HOUR;
+    public static final int DEFAULT_WINDOW_HOURS = 2;
+
+    private static final int INVALID = -1;
+
+    private final ScoringService scoringService;
+
+    public BestWindowService(ScoringService scoringService) {
+        this.scoringService = scoringService;
+    }
+
+    public ForecastResponse.BestWindow findBestWindow(WeatherData weather, AqiData aqi,
+                                                      ScoringProfile profile, int windowHours) {
+        if (windowHours < 1 || windowHours > MAX_WINDOW_HOURS) {
+            throw new IllegalArgumentException("Window must be 1-" + MAX_WINDOW_HOURS + " hours");
+        }
+        if (weather == null || weather.hourly() == null) {
+            return null;
+        }
+
+        WeatherData.Hourly hourly = weather.hourly();
+
+        int span = MAX_WINDOW_HOURS;
+        int[] scores = new int[span];
+        int[] aqiAt = new int[span];
+        for (int i = 0; i < span; i++) {
+            int hour = FIRST_HOUR + i;
+            aqiAt[i] = aqi != null ? aqi.usAqiAt(hour) : AqiData.MISSING_HOUR;
+            double temperature = hourly.temperatureAt(hour);
+            // An hour without a temperature reading has no usable weather
+            scores[i] = Double.isNaN(temperature) ? INVALID : scoringService.scoreHour(
+                    profile, aqiAt[i], temperature, hourly.precipitationAt(hour), hourly.windSpeedAt(hour));
+        }
+
+        // Deques hold indices; minDeque keeps scores increasing, maxDeque keeps AQI decreasing
+        int[] minDeque = new int[span];
+        int[] maxDeque = new int[span];
+        int minHead = 0, minTail = 0, maxHead = 0, maxTail = 0;
+        int windowSum = 0;
+        int invalidHours = 0;
+
+        int bestStart = -1;
+        int bestWorst = INVALID;
+        int bestSum = Integer.MIN_VALUE;
+        int bestMaxAqi = AqiData.MISSING_HOUR;
+
+        for (int i = 0; i < span; i++) {
+            while (minTail > minHead && scores[minDeque[minTail - 1]] >= scores[i]) minTail--;
+            minDeque[minTail++] = i;
+            while (maxTail > maxHead && aqiAt[maxDeque[maxTail - 1]] <= aqiAt[i]) maxTail--;
+            maxDeque[maxTail++] = i;
+            windowSum += scores[i];
+            if (scores[i] == INVALID) invalidHours++;
+
+            int start = i - windowHours + 1;
+            if (start < 0) {
+                continue;
+            }
+            while (minDeque[minHead] < start) minHead++;
+            while (maxDeque[maxHead] < start) maxHead++;
+
+            if (invalidHours == 0) {
+                int worst = scores[minDeque[minHead]];
+                if (worst > bestWorst || (worst == bestWorst && windowSum > bestSum)) {
+                    bestStart = start;
+                    bestWorst = worst;
+                    bestSum = windowSum;
+                    bestMaxAqi = aqiAt[maxDeque[maxHead]];
+                }
+            }
+
+            windowSum -= scores[start];
+            if (scores[start] == INVALID) invalidHours--;
+        }
+
+        if (bestStart < 0) {
+            return null;
+        }
+        return new ForecastResponse.BestWindow(
+                LocalTime.of(FIRST_HOUR + bestStart, 0),
+                LocalTime.of(FIRST_HOUR + bestStart + windowHours, 0),
+                bestWorst,
+                bestMaxAqi == AqiData.MISSING_HOUR ? null : bestMaxAqi
+        );
+    }
+}
@@ -0,0 +1,467 @@
+package com.breathego.service;
+
+import com.breathego.diagnostics.DailyMetricsWriteEvent;
+import com.breathego.domain.DailyMetrics;
+import com.breathego.repository.DailyMetricsClockRepository;
+import com.breathego.repository.DailyMetricsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes fetched days to daily_metrics behind the request that fetched them.
+ * Days wait in a bounded queue and a single writer thread stores them in
+ * batches, once {@code batch-size} days are queued or the oldest has waited
+ * {@code flush-interval}. A day queued again before it is written is stored
+ * once, with its latest values.
+ *
+ * Requests never write: reads of daily_metrics merge in the location's
+ * queued days ({@link #pending}), so a day is visible as soon as it is
+ * queued. A caller that finds the queue full waits until the writer has
+ * committed a batch, so a slow database slows fetches down instead of losing
+ * days, and the wait covers the write rather than just the time in the queue.
+ * Whatever is queued at shutdown is written before the context closes.
+ *
+ * Each day carries the time it was fetched as its {@code updated_at}, so an
+ * older write that lands late never replaces a newer one. The trends version
+ * of a row is assigned when it is written: every write transaction first
+ * moves daily_metrics_clock on and keeps it locked until commit, so versions
+ * become visible in increasing order across instances, whatever their
+ * clocks say.
+ */
+@Component
+public class DailyMetricsWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyMetricsWriter.class);
+
+    private final DailyMetricsRepository dailyMetricsRepository;
+    private final DailyMetricsClockRepository clock;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<QueuedDay> queue;
+    // The latest queued values of each day not yet written, per location
+    private final Map<Long, NavigableMap<LocalDate, DailyMetrics>> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock writing = new ReentrantLock();
+    // Signalled after each batch commits; callers waiting for room wait on it
+    private final Condition committed = writing.newCondition();
+    private long batches;
+    private final Thread writer;
+    private volatile boolean running;
+
+    private final Counter inserted;
+    private final Counter updated;
+    private final Counter skipped;
+    private final Counter failed;
+    private final Counter backpressure;
+
+    public DailyMetricsWriter(
+            DailyMetricsRepository dailyMetricsRepository,
+            DailyMetricsClockRepository clock,
+            PlatformTransactionManager transactionManager,
+            @Value("${daily-metrics.write-behind.enabled:true}") boolean enabled,
+            @Value("${daily-metrics.write-behind.queue-size:10000}") int queueSize,
+            @Value("${daily-metrics.write-behind.batch-size:500}") int batchSize,
+            @Value("${daily-metrics.write-behind.flush-interval:200ms}") Duration flushInterval,
+            MeterRegistry meterRegistry
+    ) {
+        this.dailyMetricsRepository = dailyMetricsRepository;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+
+        this.inserted = writeCounter(meterRegistry, "inserted");
+        this.updated = writeCounter(meterRegistry, "updated");
+        this.skipped = writeCounter(meterRegistry, "skipped");
+        this.failed = writeCounter(meterRegistry, "failed");
+        this.backpressure = Counter.builder("breathego.daily-metrics.backpressure")
+                .description("Requests that found the write-behind queue full and waited for room")
+                .register(meterRegistry);
+        Gauge.builder("breathego.daily-metrics.queued", queue, BlockingQueue::size)
+                .description("Days waiting to be written to daily_metrics")
+                .register(meterRegistry);
+
+        if (enabled) {
+            // Only ever used by the writer thread, shutdown and tests, never
+            // inside a request transaction
+            this.transaction = new TransactionTemplate(transactionManager);
+            this.running = true;
+            this.writer = new Thread(this::run, "daily-metrics-writer");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.transaction = null;
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Writes in the caller's transaction, with no queue or thread, as with
+     * {@code daily-metrics.write-behind.enabled=false}.
+     */
+    static DailyMetricsWriter synchronous(DailyMetricsRepository dailyMetricsRepository,
+                                          DailyMetricsClockRepository clock) {
+        return new DailyMetricsWriter(dailyMetricsRepository, clock, null, false, 1, 1, Duration.ZERO,
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * Queues the days fetched for a location, all of the same location. The
+     * fetch time becomes the {@code updated_at} of every row the days insert
+     * or change; their version is only known once written, so queued days
+     * have none. {@code days} are templates and are never persisted
+     * themselves.
+     */
+    public void write(Long locationId, List<DailyMetrics> days) {
+        OffsetDateTime fetchedAt = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MILLIS);
+        for (DailyMetrics day : days) {
+            day.markUpdated(fetchedAt);
+        }
+        if (!enabled) {
+            writeLocation(locationId, coalesce(days), nextVersion());
+            return;
+        }
+        pending.compute(locationId, (id, queued) -> {
+            NavigableMap<LocalDate, DailyMetrics> merged = queued != null ? queued : new ConcurrentSkipListMap<>();
+            for (DailyMetrics day : days) {
+                merged.merge(day.getDate(), day, DailyMetricsWriter::later);
+            }
+            return merged;
+        });
+        boolean waited = false;
+        for (DailyMetrics day : days) {
+            QueuedDay queued = new QueuedDay(locationId, day, System.nanoTime());
+            if (!queue.offer(queued)) {
+                if (!waited) {
+                    backpressure.increment();
+                    waited = true;
+                }
+                LockSupport.unpark(writer);
+                if (!put(queued)) {
+                    failed.increment();
+                    written(List.of(queued));
+                }
+            }
+        }
+        if (queue.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * The location's days between {@code from} and {@code to} that are queued
+     * and not yet written, with their latest values, in date order. Reads of
+     * daily_metrics merge these in; a queued day is newer than its stored row
+     * unless its {@code updated_at} says otherwise.
+     */
+    public List<DailyMetrics> pending(Long locationId, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, DailyMetrics> queued = pending.get(locationId);
+        if (queued == null) {
+            return List.of();
+        }
+        return List.copyOf(queued.subMap(from, true, to, true).values());
+    }
+
+    /**
+     * Writes every queued day now, for shutdown and tests; requests read
+     * queued days through {@link #pending} instead.
+     */
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        writing.lock();
+        try {
+            List<QueuedDay> batch = new ArrayList<>(queue.size());
+            queue.drainTo(batch);
+            write(batch);
+        } finally {
+            batches++;
+            committed.signalAll();
+            writing.unlock();
+        }
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Waits for room while the writer runs. The queue empties as soon as a
+     * batch is drained, so waiting on it alone would let callers run ahead of
+     * the database; instead the offer is made holding the lock the writer
+     * holds from drain to commit, and retried each time a batch commits.
+     * False when the writer has stopped, or the caller was interrupted.
+     */
+    private boolean put(QueuedDay day) {
+        writing.lock();
+        try {
+            while (!queue.offer(day)) {
+                if (!running) {
+                    return false;
+                }
+                long seen = batches;
+                while (running && batches == seen) {
+                    LockSupport.unpark(writer);
+                    committed.awaitNanos(flushIntervalNanos);
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            writing.unlock();
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            QueuedDay oldest = queue.peek();
+            long waited = oldest != null ? System.nanoTime() - oldest.queuedAt() : 0;
+            // Callers wait on a full queue, so it's written whatever its age
+            boolean due = queue.size() >= batchSize || queue.remainingCapacity() == 0 || waited >= flushIntervalNanos;
+            if (oldest == null || (running && !due)) {
+                LockSupport.parkNanos(this, oldest == null ? flushIntervalNanos : flushIntervalNanos - waited);
+                continue;
+            }
+            writing.lock();
+            try {
+                List<QueuedDay> batch = new ArrayList<>(batchSize);
+                queue.drainTo(batch, batchSize);
+                write(batch);
+            } catch (RuntimeException e) {
+                log.error("daily_metrics writer failed", e);
+            } finally {
+                batches++;
+                committed.signalAll();
+                writing.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction. If that fails, e.g. because one of
+     * the locations was deleted meanwhile, each location is retried alone and
+     * only the ones that fail again are dropped; they are refetched on their
+     * next request.
+     */
+    private void write(List<QueuedDay> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Long, List<DailyMetrics>> byLocation = new LinkedHashMap<>();
+        for (QueuedDay day : batch) {
+            byLocation.computeIfAbsent(day.locationId(), id -> new ArrayList<>()).add(day.day());
+        }
+        Map<Long, NavigableMap<LocalDate, DailyMetrics>> coalesced = new LinkedHashMap<>();
+        byLocation.forEach((locationId, days) -> coalesced.put(locationId, coalesce(days)));
+        try {
+            transaction.executeWithoutResult(status -> {
+                long version = nextVersion();
+                coalesced.forEach((locationId, days) -> writeLocation(locationId, days, version));
+            });
+        } catch (RuntimeException e) {
+            coalesced.forEach((locationId, days) -> {
+                try {
+                    transaction.executeWithoutResult(status -> writeLocation(locationId, days, nextVersion()));
+                } catch (RuntimeException retry) {
+                    log.warn("Dropping {} queued days of location {}: {}", days.size(), locationId,
+                            retry.getMessage());
+                    failed.increment(days.size());
+                }
+            });
+        } finally {
+            written(batch);
+        }
+    }
+
+    /**
+     * The version of everything the current transaction writes. Taken before
+     * any row, so the clock stays locked from here to commit and a writer
+     * that commits later always gets a higher version.
+     */
+    private long nextVersion() {
+        if (clock.tick() != 1) {
+            throw new IllegalStateException("daily_metrics_clock must hold exactly one row");
+        }
+        return clock.current();
+    }
+
+    /** The latest queued values of each day, in date order. */
+    private static NavigableMap<LocalDate, DailyMetrics> coalesce(List<DailyMetrics> days) {
+        NavigableMap<LocalDate, DailyMetrics> latest = new TreeMap<>();
+        for (DailyMetrics day : days) {
+            latest.merge(day.getDate(), day, DailyMetricsWriter::later);
+        }
+        return latest;
+    }
+
+    /** The later of two fetches of a day. */
+    private static DailyMetrics later(DailyMetrics kept, DailyMetrics next) {
+        return next.getUpdatedAt().isBefore(kept.getUpdatedAt()) ? kept : next;
+    }
+
+    /**
+     * Stops serving the days from {@link #pending}, once their rows are
+     * committed (or dropped). A day queued again since stays pending.
+     */
+    private void written(List<QueuedDay> batch) {
+        for (QueuedDay day : batch) {
+            pending.computeIfPresent(day.locationId(), (id, queued) -> {
+                queued.remove(day.day().getDate(), day.day());
+                return queued.isEmpty() ? null : queued;
+            });
+        }
+    }
+
+    private void writeLocation(Long locationId, NavigableMap<LocalDate, DailyMetrics> days, long version) {
+        if (days.isEmpty()) {
+            return;
+        }
+        DailyMetricsWriteEvent event = new DailyMetricsWriteEvent();
+        event.begin();
+        // Load the days that already exist to avoid unique constraint violations.
+        // A caught constraint violation in PostgreSQL still marks the transaction
+        // as aborted, causing all subsequent operations to fail. One range query
+        // covers the whole batch.
+        Map<LocalDate, DailyMetrics> existing = new HashMap<>();
+        for (DailyMetrics dm : dailyMetricsRepository.findWithProfileScoresByLocationIdAndDateBetween(
+                locationId, days.firstKey(), days.lastKey())) {
+            existing.put(dm.getDate(), dm);
+        }
+        for (DailyMetrics fetched : days.values()) {
+            DailyMetrics stored = existing.get(fetched.getDate());
+            if (stored == null) {
+                DailyMetrics metrics = copyOf(fetched);
+                metrics.setVersion(version);
+                dailyMetricsRepository.save(metrics);
+                inserted.increment();
+                event.written++;
+            } else if (stored.getUpdatedAt().isAfter(fetched.getUpdatedAt()) || sameValues(stored, fetched)) {
+                // Unchanged, or a later fetch of the day was written first
+                log.debug("Metrics unchanged for location {} on {}, skipping save", locationId, fetched.getDate());
+                skipped.increment();
+                event.skipped++;
+            } else {
+                // Incremental trends send the day again
+                copyValues(fetched, stored);
+                stored.markUpdated(fetched.getUpdatedAt());
+                stored.setVersion(version);
+                dailyMetricsRepository.save(stored);
+                updated.increment();
+                event.updated++;
+            }
+        }
+        event.locationId = locationId;
+        event.commit();
+    }
+
+    /**
+     * A new entity with the template's values; a template is never persisted,
+     * so a failed batch can be written again.
+     */
+    private static DailyMetrics copyOf(DailyMetrics template) {
+        DailyMetrics metrics = new DailyMetrics();
+        metrics.setLocation(template.getLocation());
+        metrics.setDate(template.getDate());
+        copyValues(template, metrics);
+        metrics.markUpdated(template.getUpdatedAt());
+        return metrics;
+    }
+
+    private static boolean sameValues(DailyMetrics a, DailyMetrics b) {
+        return Objects.equals(a.getScore(), b.getScore())
+                && Objects.equals(a.getRecommendation(), b.getRecommendation())
+                && Objects.equals(a.getProfileScores(), b.getProfileScores())
+                && Objects.equals(a.getAqiValue(), b.getAqiValue())
+                && sameNumber(a.getPm25(), b.getPm25())
+                && sameNumber(a.getOzone(), b.getOzone())
+                && sameNumber(a.getTemperatureMax(), b.getTemperatureMax())
+                && sameNumber(a.getTemperatureMin(), b.getTemperatureMin())
+                && sameNumber(a.getPrecipitation(), b.getPrecipitation())
+                && sameNumber(a.getWindSpeed(), b.getWindSpeed())
+                && sameNumber(a.getUvIndex(), b.getUvIndex());
+    }
+
+    /** Stored numbers carry the column's scale; upstream ones don't. */
+    private static boolean sameNumber(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static void copyValues(DailyMetrics from, DailyMetrics to) {
+        to.setScore(from.getScore());
+        to.setRecommendation(from.getRecommendation());
+        // Changed in place: the stored map is the entity's persistent collection
+        to.getProfileScores().clear();
+        to.getProfileScores().putAll(from.getProfileScores());
+        to.setAqiValue(from.getAqiValue());
+        to.setPm25(from.getPm25());
+        to.setOzone(from.getOzone());
+        to.setTemperatureMax(from.getTemperatureMax());
+        to.setTemperatureMin(from.getTemperatureMin());
+        to.setPrecipitation(from.getPrecipitation());
+        to.setWindSpeed(from.getWindSpeed());
+        to.setUvIndex(from.getUvIndex());
+    }
+
+    /**
+     * Stops taking days and writes the ones queued; the repositories are
+     * closed after this bean, so the last batch still reaches the database.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        // Anything queued by a caller that raced the shutdown
+        flush();
+    }
+
+    private static Counter writeCounter(MeterRegistry registry, String result) {
+        return Counter.builder("breathego.daily-metrics.writes")
+                .description("Days written to daily_metrics")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record QueuedDay(Long locationId, DailyMetrics day, long queuedAt) {
+    }
+}
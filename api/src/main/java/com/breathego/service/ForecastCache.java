@@ -0,0 +1,225 @@
+package com.breathego.service;
+
+import com.breathego.diagnostics.CacheEvictionEvent;
+import com.breathego.diagnostics.CacheLookupEvent;
+import com.breathego.dto.AqiData;
+import com.breathego.dto.WeatherData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory cache of upstream daily data per location, in front of both the
+ * forecast (3 days) and trends (up to 7 days) paths. Any request or refresh
+ * that goes upstream replaces the location's entry; a lookup is served from
+ * it when the entry is younger than {@code forecast.cache.ttl} and covers the
+ * requested days.
+ *
+ * Each entry also keeps the responses rendered from it ({@link #render}), so
+ * repeat requests for a hot location are written without scoring or
+ * serializing anything. They go when the entry is replaced.
+ *
+ * Entries loaded by {@link ForecastCacheWarmer} come from daily_metrics,
+ * which keeps no hourly series, so forecasts served from them have no best
+ * window until the location is next fetched.
+ */
+@Component
+public class ForecastCache {
+
+    static final String NAME = "forecast-memory";
+    // Variants kept per entry: profiles x windows x formats, bounded so odd
+    // parameter mixes can't grow an entry without limit
+    static final int MAX_RENDERED = 32;
+
+    private final Duration ttl;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Consumer<Long>> updateListeners = new CopyOnWriteArrayList<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter renderedHits;
+    private final Counter renderedMisses;
+
+    public ForecastCache(@Value("${forecast.cache.ttl:30m}") Duration ttl, MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.hits = Counter.builder("breathego.forecast.cache")
+                .description("Forecast and trend lookups in the in-memory cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("breathego.forecast.cache")
+                .description("Forecast and trend lookups in the in-memory cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.renderedHits = Counter.builder("breathego.forecast.cache.rendered")
+                .description("Responses written from bytes kept with a cache entry")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.renderedMisses = Counter.builder("breathego.forecast.cache.rendered")
+                .description("Responses written from bytes kept with a cache entry")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("breathego.forecast.cache.size", entries, Map::size)
+                .description("Locations held in the in-memory cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The fresh cached days from {@code start}, or null when the entry is
+     * missing, expired or doesn't cover {@code days} days from there.
+     */
+    public CachedDays get(Long locationId, LocalDate start, int days) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        event.begin();
+        Entry entry = entries.get(locationId);
+        CachedDays found = entry != null && isFresh(entry.fetchedAt()) ? entry.slice(start, days) : null;
+        (found != null ? hits : misses).increment();
+
+        event.cache = NAME;
+        event.locationId = locationId;
+        event.requested = days;
+        event.found = found != null ? found.weather().size() : 0;
+        event.hit = found != null;
+        event.commit();
+        return found;
+    }
+
+    /**
+     * Stores days just fetched from upstream. {@code aqi} is aligned with
+     * {@code weather} by index and may be shorter. Returns all the stored
+     * days, so responses built from them can be kept with the new entry.
+     */
+    public CachedDays put(Long locationId, List<WeatherData> weather, List<AqiData> aqi) {
+        return put(locationId, weather, aqi, Instant.now(), null);
+    }
+
+    /**
+     * As {@link #put(Long, List, List)}, for days also written to
+     * daily_metrics: {@code version} is the trends version of those rows.
+     */
+    public CachedDays put(Long locationId, List<WeatherData> weather, List<AqiData> aqi, Long version) {
+        return put(locationId, weather, aqi, Instant.now(), version);
+    }
+
+    CachedDays put(Long locationId, List<WeatherData> weather, List<AqiData> aqi, Instant fetchedAt) {
+        return put(locationId, weather, aqi, fetchedAt, null);
+    }
+
+    CachedDays put(Long locationId, List<WeatherData> weather, List<AqiData> aqi, Instant fetchedAt,
+                   Long version) {
+        if (weather.isEmpty()) {
+            // Not stored; a throwaway map keeps render() working
+            return new CachedDays(weather, aqi, new ConcurrentHashMap<>(), version);
+        }
+        Entry entry = new Entry(List.copyOf(weather), List.copyOf(aqi), fetchedAt, new ConcurrentHashMap<>(),
+                version);
+        entries.put(locationId, entry);
+        updateListeners.forEach(listener -> listener.accept(locationId));
+        return new CachedDays(entry.weather(), entry.aqi(), entry.rendered(), version);
+    }
+
+    /**
+     * Calls {@code listener} with the location id whenever new days are
+     * stored for it, on the thread that stored them; it should hand any real
+     * work to another thread.
+     */
+    public void addUpdateListener(Consumer<Long> listener) {
+        updateListeners.add(listener);
+    }
+
+    /**
+     * The response {@code variant} built from {@code days}: the bytes kept
+     * from an earlier request when there are some, otherwise {@code encode}'s
+     * result, kept for the next one. {@code variant} must name everything
+     * besides the days that the response depends on.
+     */
+    public RenderedBody render(CachedDays days, String variant, Supplier<RenderedBody> encode) {
+        // Slices of one entry start on different days after midnight
+        String key = days.weather().isEmpty() ? variant : days.weather().get(0).date() + ":" + variant;
+        RenderedBody body = days.rendered().get(key);
+        if (body != null) {
+            renderedHits.increment();
+            return body;
+        }
+        renderedMisses.increment();
+        body = encode.get();
+        if (days.rendered().size() < MAX_RENDERED) {
+            days.rendered().putIfAbsent(key, body);
+        }
+        return body;
+    }
+
+    public void evict(Long locationId, String reason) {
+        if (entries.remove(locationId) != null) {
+            CacheEvictionEvent event = new CacheEvictionEvent();
+            event.cache = NAME;
+            event.locationId = locationId;
+            event.reason = reason;
+            event.commit();
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    boolean isFresh(Instant fetchedAt) {
+        return fetchedAt.plus(ttl).isAfter(Instant.now());
+    }
+
+    /**
+     * @param rendered responses built from the entry these days came from;
+     *                 use {@link #render} rather than this map directly
+     * @param version  the trends version of the days' daily_metrics rows, or
+     *                 null for days that weren't stored
+     */
+    public record CachedDays(List<WeatherData> weather, List<AqiData> aqi, Map<String, RenderedBody> rendered,
+                             Long version) {
+
+        /**
+         * The first {@code days} of these days. Responses rendered from
+         * either are kept in the same map, so variants must name the days
+         * they cover.
+         */
+        public CachedDays first(int days) {
+            if (weather.size() <= days) {
+                return this;
+            }
+            return new CachedDays(weather.subList(0, days), aqi.subList(0, Math.min(days, aqi.size())),
+                    rendered, version);
+        }
+    }
+
+    private record Entry(List<WeatherData> weather, List<AqiData> aqi, Instant fetchedAt,
+                         Map<String, RenderedBody> rendered, Long version) {
+
+        CachedDays slice(LocalDate start, int days) {
+            // Entries start on the day they were fetched; after midnight the
+            // leading day is skipped rather than treated as a miss
+            long offset = ChronoUnit.DAYS.between(weather.get(0).date(), start);
+            if (offset < 0 || offset + days > weather.size()) {
+                return null;
+            }
+            int from = (int) offset;
+            int to = from + days;
+            return new CachedDays(weather.subList(from, to),
+                    aqi.subList(Math.min(from, aqi.size()), Math.min(to, aqi.size())), rendered, version);
+        }
+    }
+}
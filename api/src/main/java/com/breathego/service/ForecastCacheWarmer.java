@@ -0,0 +1,243 @@
+package com.breathego.service;
+
+import com.breathego.cluster.ClusterCoordinator;
+import com.breathego.domain.DailyMetrics;
+import com.breathego.domain.Location;
+import com.breathego.dto.AqiData;
+import com.breathego.dto.WeatherData;
+import com.breathego.repository.DailyMetricsRepository;
+import com.breathego.repository.LocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads each location's current daily_metrics window into the
+ * {@link ForecastCache} at startup. Application runners finish before the
+ * readiness state turns to accepting traffic, so a new instance doesn't send
+ * every location's first request to Open-Meteo at once.
+ *
+ * Locations are split into contiguous id ranges, each streamed by its own
+ * thread. Windows whose rows are all within the cache TTL are served at once;
+ * missing or stale ones go to the {@link ForecastRefreshQueue}, on the
+ * instance that owns them when several run ({@link ClusterCoordinator}), so
+ * a rolling restart doesn't refresh every location once per replica. The
+ * warmer waits up to half its budget for the first cluster heartbeat; if
+ * membership is still unknown after that, it queues every location itself
+ * rather than none.
+ * Whatever is left when {@code forecast.cache.warmup.budget} runs out is
+ * abandoned and fetches on demand.
+ */
+@Component
+public class ForecastCacheWarmer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ForecastCacheWarmer.class);
+
+    private final LocationRepository locationRepository;
+    private final DailyMetricsRepository dailyMetricsRepository;
+    private final ForecastCache forecastCache;
+    private final ForecastRefreshQueue refreshQueue;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Duration budget;
+    private final int parallelism;
+
+    public ForecastCacheWarmer(
+            LocationRepository locationRepository,
+            DailyMetricsRepository dailyMetricsRepository,
+            ForecastCache forecastCache,
+            ForecastRefreshQueue refreshQueue,
+            ClusterCoordinator clusterCoordinator,
+            PlatformTransactionManager transactionManager,
+            @Value("${forecast.cache.warmup.enabled:true}") boolean enabled,
+            @Value("${forecast.cache.warmup.budget:10s}") Duration budget,
+            @Value("${forecast.cache.warmup.parallelism:4}") int parallelism
+    ) {
+        this.locationRepository = locationRepository;
+        this.dailyMetricsRepository = dailyMetricsRepository;
+        this.forecastCache = forecastCache;
+        this.refreshQueue = refreshQueue;
+        this.clusterCoordinator = clusterCoordinator;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.budget = budget;
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (enabled) {
+            warmUp();
+        }
+    }
+
+    Result warmUp() throws InterruptedException {
+        long started = System.nanoTime();
+        long deadline = started + budget.toNanos();
+        Map<Long, ZoneId> zones = locationRepository.findAll().stream()
+                .collect(Collectors.toMap(Location::getId,
+                        location -> ForecastService.resolveZone(location.getTimezone())));
+        if (zones.isEmpty()) {
+            return new Result(0, 0, true);
+        }
+
+        LongPredicate owned = ownership(budget.dividedBy(2));
+
+        List<Long> ids = zones.keySet().stream().sorted().toList();
+        int rangeSize = (ids.size() + parallelism - 1) / parallelism;
+        List<List<Long>> ranges = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += rangeSize) {
+            ranges.add(ids.subList(from, Math.min(from + rangeSize, ids.size())));
+        }
+
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger queued = new AtomicInteger();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(ranges.size(), task -> {
+            Thread thread = new Thread(task, "cache-warmup-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (List<Long> range : ranges) {
+            executor.execute(() -> {
+                try {
+                    warmRange(range, zones, owned, deadline, loaded, queued);
+                } catch (RuntimeException e) {
+                    log.warn("Forecast cache warm-up failed for locations {}-{}: {}",
+                            range.get(0), range.get(range.size() - 1), e.getMessage());
+                }
+            });
+        }
+        executor.shutdown();
+        boolean complete = executor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        if (!complete) {
+            executor.shutdownNow();
+        }
+
+        Result result = new Result(loaded.get(), queued.get(), complete);
+        log.info("Forecast cache warm-up {} in {} ms: {} of {} locations loaded, {} queued for refresh",
+                complete ? "finished" : "stopped at budget",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                result.loaded(), ids.size(), result.queued());
+        return result;
+    }
+
+    private LongPredicate ownership(Duration timeout) throws InterruptedException {
+        if (clusterCoordinator.awaitMembership(timeout)) {
+            return clusterCoordinator::owns;
+        }
+        // Duplicate refreshes across replicas cost less than a cold start everywhere
+        log.warn("Cluster membership unknown after {} ms; queueing refreshes for every location",
+                timeout.toMillis());
+        return locationId -> true;
+    }
+
+    private void warmRange(List<Long> range, Map<Long, ZoneId> zones, LongPredicate owned, long deadline,
+                           AtomicInteger loaded, AtomicInteger queued) {
+        // Covers "today" in every zone; each location trims to its own today
+        LocalDate utcToday = LocalDate.now(ZoneOffset.UTC);
+        Set<Long> seen = new HashSet<>();
+        boolean finished = Boolean.TRUE.equals(readOnlyTransaction.execute(status -> {
+            try (Stream<DailyMetrics> rows = dailyMetricsRepository.streamByLocationIdBetweenAndDateBetween(
+                    range.get(0), range.get(range.size() - 1),
+                    utcToday.minusDays(1), utcToday.plusDays(ForecastService.MAX_TREND_DAYS))) {
+                Iterator<DailyMetrics> iterator = rows.iterator();
+                List<DailyMetrics> window = new ArrayList<>();
+                Long current = null;
+                while (iterator.hasNext()) {
+                    if (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()) {
+                        return false;
+                    }
+                    DailyMetrics row = iterator.next();
+                    Long locationId = row.getLocation().getId();
+                    if (!locationId.equals(current) && current != null) {
+                        warm(current, zones.get(current), window, owned, loaded, queued);
+                        window.clear();
+                    }
+                    current = locationId;
+                    seen.add(locationId);
+                    window.add(row);
+                }
+                if (current != null) {
+                    warm(current, zones.get(current), window, owned, loaded, queued);
+                }
+                return true;
+            }
+        }));
+        if (finished) {
+            // Locations without any rows in the window
+            for (Long locationId : range) {
+                if (!seen.contains(locationId) && owned.test(locationId)
+                        && refreshQueue.enqueue(locationId)) {
+                    queued.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void warm(Long locationId, ZoneId zone, List<DailyMetrics> rows, LongPredicate owned,
+                      AtomicInteger loaded, AtomicInteger queued) {
+        if (zone == null) {
+            // Created after the location list was read
+            return;
+        }
+        LocalDate expected = LocalDate.now(zone);
+        List<WeatherData> weather = new ArrayList<>();
+        List<AqiData> aqi = new ArrayList<>();
+        Instant fetchedAt = null;
+        Long version = null;
+        for (DailyMetrics row : rows) {
+            if (row.getDate().isBefore(expected)) {
+                continue;
+            }
+            if (row.getDate().isAfter(expected)) {
+                break; // Only the contiguous run from today is usable
+            }
+            weather.add(ForecastService.weatherOf(row));
+            aqi.add(ForecastService.aqiOf(row));
+            // The window is as old as its oldest row
+            Instant created = row.getCreatedAt() != null ? row.getCreatedAt().toInstant() : Instant.EPOCH;
+            fetchedAt = fetchedAt == null || created.isBefore(fetchedAt) ? created : fetchedAt;
+            if (row.getVersion() != null && (version == null || row.getVersion() > version)) {
+                version = row.getVersion();
+            }
+            expected = expected.plusDays(1);
+        }
+
+        if (fetchedAt != null && forecastCache.isFresh(fetchedAt)) {
+            forecastCache.put(locationId, weather, aqi, fetchedAt, version);
+            loaded.incrementAndGet();
+        } else if (owned.test(locationId) && refreshQueue.enqueue(locationId)) {
+            queued.incrementAndGet();
+        }
+    }
+
+    record Result(int loaded, int queued, boolean complete) {
+    }
+}
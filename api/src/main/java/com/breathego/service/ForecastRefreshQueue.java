@@ -0,0 +1,108 @@
+package com.breathego.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background refreshes of stale locations, run on a small fixed pool so a
+ * burst of them (e.g. after startup) reaches Open-Meteo at a bounded rate
+ * instead of all at once. A location is queued at most once at a time; when
+ * the queue is full further locations are dropped and simply fetch on their
+ * next request.
+ */
+@Component
+public class ForecastRefreshQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ForecastRefreshQueue.class);
+
+    private final ForecastService forecastService;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter dropped;
+
+    public ForecastRefreshQueue(
+            ForecastService forecastService,
+            @Value("${forecast.cache.refresh.concurrency:2}") int concurrency,
+            @Value("${forecast.cache.refresh.queue-size:1000}") int queueSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.forecastService = forecastService;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueSize), task -> {
+                    Thread thread = new Thread(task, "forecast-refresh-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.completed = refreshCounter(meterRegistry, "completed");
+        this.failed = refreshCounter(meterRegistry, "failed");
+        this.dropped = refreshCounter(meterRegistry, "dropped");
+        Gauge.builder("breathego.forecast.refresh.pending", pending, Set::size)
+                .description("Locations queued or being refreshed in the background")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a refresh of the location's forecast window. Returns false when
+     * it is already queued or the queue is full.
+     */
+    public boolean enqueue(Long locationId) {
+        if (!pending.add(locationId)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> refresh(locationId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(locationId);
+            dropped.increment();
+            return false;
+        }
+    }
+
+    public int pending() {
+        return pending.size();
+    }
+
+    private void refresh(Long locationId) {
+        try {
+            forecastService.refresh(locationId);
+            completed.increment();
+        } catch (Exception e) {
+            log.warn("Background refresh of location {} failed: {}", locationId, e.getMessage());
+            failed.increment();
+        } finally {
+            pending.remove(locationId);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static Counter refreshCounter(MeterRegistry registry, String result) {
+        return Counter.builder("breathego.forecast.refresh")
+                .description("Background refreshes of stale locations")
+                .tag("result", result)
+                .register(registry);
+    }
+}
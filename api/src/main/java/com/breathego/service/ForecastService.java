@@ -1,10 +1,16 @@
 package com.breathego.service;
 
 import com.breathego.client.OpenMeteoClient;
+import com.breathego.diagnostics.CacheLookupEvent;
+import com.breathego.diagnostics.ScoringBatchEvent;
 import com.breathego.domain.DailyMetrics;
 import com.breathego.domain.Location;
 import com.breathego.dto.*;
+import com.breathego.ratelimit.RateLimits;
 import com.breathego.repository.DailyMetricsRepository;
+import com.breathego.timing.RequestTimings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -13,7 +19,12 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -21,63 +32,240 @@ public class ForecastService {
 
     private static final Logger log = LoggerFactory.getLogger(ForecastService.class);
 
+    static final int FORECAST_DAYS = 3;
+    // Open-Meteo forecasts used for trends; longer periods are capped to this
+    static final int MAX_TREND_DAYS = 7;
+
     private final LocationService locationService;
     private final OpenMeteoClient openMeteoClient;
     private final ScoringService scoringService;
     private final DailyMetricsRepository dailyMetricsRepository;
+    private final DailyMetricsWriter dailyMetricsWriter;
+    private final BestWindowService bestWindowService;
+    private final ForecastCache forecastCache;
+
+    private final Counter trendsCacheHits;
+    private final Counter trendsCacheMisses;
+    private final Counter forecastFetches;
+    private final Counter trendsFetches;
+    private final Counter trendsFetchFailures;
+    private final Counter refreshFetches;
+    private final Counter dashboardFetches;
 
     public ForecastService(
             LocationService locationService,
             OpenMeteoClient openMeteoClient,
             ScoringService scoringService,
-            DailyMetricsRepository dailyMetricsRepository
+            DailyMetricsRepository dailyMetricsRepository,
+            DailyMetricsWriter dailyMetricsWriter,
+            BestWindowService bestWindowService,
+            ForecastCache forecastCache,
+            MeterRegistry meterRegistry
     ) {
         this.locationService = locationService;
         this.openMeteoClient = openMeteoClient;
         this.scoringService = scoringService;
         this.dailyMetricsRepository = dailyMetricsRepository;
+        this.dailyMetricsWriter = dailyMetricsWriter;
+        this.bestWindowService = bestWindowService;
+        this.forecastCache = forecastCache;
+
+        this.trendsCacheHits = Counter.builder("breathego.trends.cache")
+                .description("Trend requests served from daily_metrics")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.trendsCacheMisses = Counter.builder("breathego.trends.cache")
+                .description("Trend requests served from daily_metrics")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.forecastFetches = fetchCounter(meterRegistry, "forecast", "attempt");
+        this.trendsFetches = fetchCounter(meterRegistry, "trends", "attempt");
+        this.trendsFetchFailures = fetchCounter(meterRegistry, "trends", "failure");
+        this.refreshFetches = fetchCounter(meterRegistry, "refresh", "attempt");
+        this.dashboardFetches = fetchCounter(meterRegistry, "dashboard", "attempt");
     }
 
     public ForecastResponse getForecast(Long locationId) {
+        return getForecast(locationId, ScoringProfile.DEFAULT, BestWindowService.DEFAULT_WINDOW_HOURS);
+    }
+
+    public ForecastResponse getForecast(Long locationId, ScoringProfile profile, int windowHours) {
+        Location location = locationService.getLocationEntity(locationId);
+        return forecast(location, forecastDays(location), profile, windowHours);
+    }
+
+    /**
+     * {@link #getForecast} encoded by {@code encoder}. The bytes are kept with
+     * the cached days they were built from, so repeat requests for the same
+     * variant skip scoring and serialization until the days are replaced.
+     */
+    public RenderedBody renderForecast(Long locationId, ScoringProfile profile, int windowHours,
+                                       ResponseEncoder<ForecastResponse> encoder) {
+        Location location = locationService.getLocationEntity(locationId);
+        return render(location, forecastDays(location), profile, windowHours, encoder);
+    }
+
+    /**
+     * {@link #renderForecast} from the days in memory only, or null when they
+     * aren't there, for callers that must not wait on Open-Meteo.
+     */
+    public RenderedBody renderCachedForecast(Long locationId, ScoringProfile profile, int windowHours,
+                                             ResponseEncoder<ForecastResponse> encoder) {
         Location location = locationService.getLocationEntity(locationId);
+        ForecastCache.CachedDays days = forecastCache.get(
+                location.getId(), LocalDate.now(resolveZone(location.getTimezone())), FORECAST_DAYS);
+        return days != null ? render(location, days, profile, windowHours, encoder) : null;
+    }
+
+    private RenderedBody render(Location location, ForecastCache.CachedDays days, ScoringProfile profile,
+                                int windowHours, ResponseEncoder<ForecastResponse> encoder) {
+        return forecastCache.render(days, "forecast:" + profile.id() + ":" + windowHours + ":" + encoder.name(),
+                () -> encoder.encode(forecast(location, days, profile, windowHours)));
+    }
 
-        // Fetch weather and AQI data for next 3 days
+    /**
+     * {@link #getForecast} for many locations at once. The locations are read
+     * in one query and the ones not in memory are fetched together, with
+     * multi-coordinate upstream requests, charging the upstream limit once per
+     * location fetched. A location that doesn't exist, can't be fetched or is
+     * over the client's upstream limit gets an error item instead of failing
+     * the whole batch.
+     */
+    public ForecastBatchResponse getForecasts(List<Long> locationIds, ScoringProfile profile, int windowHours) {
+        List<Location> found = locationService.getLocationEntities(new LinkedHashSet<>(locationIds));
+        Map<Long, Location> locations = new HashMap<>();
+        Map<Long, ForecastCache.CachedDays> days = new HashMap<>();
+        List<Location> missing = new ArrayList<>();
+        for (Location location : found) {
+            locations.put(location.getId(), location);
+            ForecastCache.CachedDays cached = forecastCache.get(
+                    location.getId(), LocalDate.now(resolveZone(location.getTimezone())), FORECAST_DAYS);
+            if (cached != null) {
+                days.put(location.getId(), cached);
+            } else {
+                missing.add(location);
+            }
+        }
+        List<Location> limited = List.of();
+        if (!missing.isEmpty()) {
+            int allowed = RateLimits.chargeUpstream(missing.size());
+            limited = missing.subList(allowed, missing.size());
+            missing = missing.subList(0, allowed);
+            forecastFetches.increment(missing.size());
+            List<OpenMeteoClient.Coordinates> coordinates = missing.stream()
+                    .map(location -> new OpenMeteoClient.Coordinates(location.getLatitude(), location.getLongitude()))
+                    .toList();
+            List<List<WeatherData>> weather = openMeteoClient.getWeatherForecasts(coordinates, FORECAST_DAYS);
+            List<List<AqiData>> aqi = openMeteoClient.getAirQualities(coordinates, FORECAST_DAYS);
+            for (int i = 0; i < missing.size(); i++) {
+                // Half a forecast isn't cached; the location is retried next time
+                if (weather.get(i) != null && aqi.get(i) != null) {
+                    days.put(missing.get(i).getId(),
+                            forecastCache.put(missing.get(i).getId(), weather.get(i), aqi.get(i)));
+                }
+            }
+        }
+
+        List<ForecastBatchResponse.Item> items = new ArrayList<>(locationIds.size());
+        for (Long id : locationIds) {
+            Location location = locations.get(id);
+            if (location == null) {
+                items.add(ForecastBatchResponse.Item.failed(id, "NOT_FOUND",
+                        new LocationService.LocationNotFoundException(id).getMessage()));
+                continue;
+            }
+            ForecastCache.CachedDays locationDays = days.get(id);
+            if (locationDays == null && limited.contains(location)) {
+                items.add(ForecastBatchResponse.Item.failed(id, "RATE_LIMITED", RateLimits.UPSTREAM_LIMITED));
+                continue;
+            }
+            if (locationDays == null) {
+                items.add(ForecastBatchResponse.Item.failed(id, "SERVICE_UNAVAILABLE", "Unable to fetch forecast data"));
+                continue;
+            }
+            try {
+                items.add(ForecastBatchResponse.Item.of(forecast(location, locationDays, profile, windowHours)));
+            } catch (ForecastUnavailableException e) {
+                items.add(ForecastBatchResponse.Item.failed(id, "SERVICE_UNAVAILABLE", e.getMessage()));
+            }
+        }
+        return new ForecastBatchResponse(items);
+    }
+
+    /**
+     * Weather and AQI data for the next 3 days, from memory while fresh.
+     */
+    private ForecastCache.CachedDays forecastDays(Location location) {
+        ForecastCache.CachedDays cached = forecastCache.get(
+                location.getId(), LocalDate.now(resolveZone(location.getTimezone())), FORECAST_DAYS);
+        if (cached != null) {
+            return cached;
+        }
+        RateLimits.chargeUpstream();
+        forecastFetches.increment();
         List<WeatherData> weatherList = openMeteoClient.getWeatherForecast(
-                location.getLatitude(), location.getLongitude(), 3
+                location.getLatitude(), location.getLongitude(), FORECAST_DAYS
         );
         List<AqiData> aqiList = openMeteoClient.getAirQuality(
-                location.getLatitude(), location.getLongitude(), 3
+                location.getLatitude(), location.getLongitude(), FORECAST_DAYS
         );
+        return forecastCache.put(location.getId(), weatherList, aqiList);
+    }
+
+    private ForecastResponse forecast(Location location, ForecastCache.CachedDays days,
+                                      ScoringProfile profile, int windowHours) {
+        return forecast(location, days, profile, windowHours, null);
+    }
 
+    /**
+     * @param scores the days' scores under {@code profile} when they are
+     *               already known, or null to score them here
+     */
+    private ForecastResponse forecast(Location location, ForecastCache.CachedDays days,
+                                      ScoringProfile profile, int windowHours, List<Score> scores) {
+        List<WeatherData> weatherList = days.weather();
+        List<AqiData> aqiList = days.aqi();
         if (weatherList.isEmpty()) {
             throw new ForecastUnavailableException("Unable to fetch weather data");
         }
 
         // Today's data
+        ScoringBatchEvent scoringEvent = new ScoringBatchEvent();
+        scoringEvent.begin();
         WeatherData todayWeather = weatherList.get(0);
         AqiData todayAqi = !aqiList.isEmpty() ? aqiList.get(0) : null;
-        Score todayScore = scoringService.calculate(todayWeather, todayAqi);
+        Score todayScore = scores != null ? scores.get(0) : RequestTimings.time(RequestTimings.SCORING,
+                () -> scoringService.calculate(todayWeather, todayAqi, profile));
 
         // Build forecast for next 3 days
         List<ForecastResponse.DailyForecast> forecast = new ArrayList<>();
         for (int i = 0; i < weatherList.size(); i++) {
             WeatherData wd = weatherList.get(i);
             AqiData ad = i < aqiList.size() ? aqiList.get(i) : null;
-            Score score = scoringService.calculate(wd, ad);
-
-            forecast.add(new ForecastResponse.DailyForecast(
-                    wd.date(),
-                    score.value(),
-                    score.recommendation(),
-                    wd.temperatureMax(),
-                    wd.temperatureMin(),
-                    ad != null ? ad.usAqi() : null
-            ));
+            Score known = scores != null ? scores.get(i) : null;
+            forecast.add(RequestTimings.time(RequestTimings.SCORING, () -> {
+                Score score = known != null ? known : scoringService.calculate(wd, ad, profile);
+                return new ForecastResponse.DailyForecast(
+                        wd.date(),
+                        score.value(),
+                        score.recommendation(),
+                        wd.temperatureMax(),
+                        wd.temperatureMin(),
+                        ad != null ? ad.usAqi() : null,
+                        bestWindowService.findBestWindow(wd, ad, profile, windowHours)
+                );
+            }));
         }
+        scoringEvent.operation = "forecast";
+        scoringEvent.locationId = location.getId();
+        scoringEvent.days = weatherList.size();
+        scoringEvent.profiles = 1;
+        scoringEvent.commit();
 
         return new ForecastResponse(
                 location.getId(),
                 location.getName(),
+                profile.id(),
                 todayScore.value(),
                 todayScore.recommendation(),
                 todayScore.reasons(),
@@ -99,8 +287,159 @@ public class ForecastService {
     }
 
     public TrendsResponse getTrends(Long locationId, int days) {
+        return getTrends(locationId, days, ScoringProfile.DEFAULT);
+    }
+
+    public TrendsResponse getTrends(Long locationId, int days, ScoringProfile profile) {
+        Location location = locationService.getLocationEntity(locationId);
+        ForecastCache.CachedDays cached = trendDays(location, days);
+        if (cached != null) {
+            return trendsFromMemory(location, days, profile, cached);
+        }
+        return trendsFromStore(location, days, profile);
+    }
+
+    /**
+     * {@link #getTrends} encoded by {@code encoder}. Trends served from memory
+     * keep their bytes with the cached days, like {@link #renderForecast};
+     * ones read from daily_metrics or fetched are encoded every time.
+     */
+    public RenderedBody renderTrends(Long locationId, int days, ScoringProfile profile,
+                                     ResponseEncoder<TrendsResponse> encoder) {
+        Location location = locationService.getLocationEntity(locationId);
+        ForecastCache.CachedDays cached = trendDays(location, days);
+        if (cached != null) {
+            return forecastCache.render(cached, "trends:" + profile.id() + ":" + days + ":" + encoder.name(),
+                    () -> encoder.encode(trendsFromMemory(location, days, profile, cached)));
+        }
+        return encoder.encode(trendsFromStore(location, days, profile));
+    }
+
+    /**
+     * The days of {@link #getTrends} written after version {@code since},
+     * and the days still queued for daily_metrics, with the latest version
+     * read as the new version, or {@code since} itself when nothing changed.
+     * Always read from daily_metrics and its queue; a window missing days is
+     * fetched and stored first, so the new days come back as changes.
+     */
+    public TrendsResponse getTrendsSince(Long locationId, int days, ScoringProfile profile, long since) {
+        Location location = locationService.getLocationEntity(locationId);
+        int forecastDays = Math.min(days, MAX_TREND_DAYS);
+        LocalDate startDate = LocalDate.now(resolveZone(location.getTimezone()));
+        LocalDate endDate = startDate.plusDays(forecastDays - 1);
+
+        // Queued days are taken before reading, so a day written meanwhile is
+        // in one or the other. The whole window is read, not just the changed
+        // rows, so a queued day older than its row is never sent as a change.
+        List<DailyMetrics> queued = dailyMetricsWriter.pending(locationId, startDate, endDate);
+        List<DailyMetrics> stored = RequestTimings.time(RequestTimings.CACHE_READ, () -> profile.isDefault()
+                ? dailyMetricsRepository.findByLocationIdAndDateBetween(locationId, startDate, endDate)
+                : dailyMetricsRepository.findWithProfileScoresByLocationIdAndDateBetween(
+                        locationId, startDate, endDate));
+        Long storedVersion = storedVersion(stored);
+        List<DailyMetrics> rows = withPending(stored, queued);
+        if (rows.size() < forecastDays) {
+            trendsCacheMisses.increment();
+            RateLimits.chargeUpstream();
+            trendsFetches.increment();
+            try {
+                fetchAndStore(location, forecastDays, storedVersion);
+                rows = withPending(stored, dailyMetricsWriter.pending(locationId, startDate, endDate));
+            } catch (Exception e) {
+                log.warn("Unable to fetch trend data from API: {}", e.getMessage());
+                trendsFetchFailures.increment();
+            }
+        } else {
+            trendsCacheHits.increment();
+        }
+
+        List<TrendsResponse.AqiTrend> aqiTrends = new ArrayList<>();
+        List<TrendsResponse.TemperatureTrend> tempTrends = new ArrayList<>();
+        List<TrendsResponse.ScoreTrend> scoreTrends = new ArrayList<>();
+        for (DailyMetrics dm : rows) {
+            // Queued days have no version yet, and always count as changed
+            if (dm.getVersion() != null && dm.getVersion() <= since) {
+                continue;
+            }
+            aqiTrends.add(new TrendsResponse.AqiTrend(dm.getDate(), dm.getAqiValue()));
+            tempTrends.add(new TrendsResponse.TemperatureTrend(
+                    dm.getDate(), dm.getTemperatureMin(), dm.getTemperatureMax()
+            ));
+            scoreTrends.add(cachedScoreTrend(dm, profile));
+        }
+        long version = storedVersion != null ? Math.max(since, storedVersion) : since;
+        return new TrendsResponse(location.getId(), location.getName(), profile.id(), days,
+                aqiTrends, tempTrends, scoreTrends, version);
+    }
+
+    /**
+     * {@link #getTrendsSince} encoded by {@code encoder}. Never kept, since
+     * the answer depends on the client's version.
+     */
+    public RenderedBody renderTrendsSince(Long locationId, int days, ScoringProfile profile, long since,
+                                          ResponseEncoder<TrendsResponse> encoder) {
+        return encoder.encode(getTrendsSince(locationId, days, profile, since));
+    }
+
+    /**
+     * The forecast and the trends of a location from one set of days: the
+     * trends window from memory, or a single upstream fetch of it, scored
+     * once and stored like a trends fetch. The forecast is the first 3 of
+     * those days, so it doesn't need a fetch of its own.
+     */
+    public DashboardResponse getDashboard(Long locationId, ScoringProfile profile, int windowHours) {
+        Location location = locationService.getLocationEntity(locationId);
+        ForecastCache.CachedDays cached = trendDays(location, MAX_TREND_DAYS);
+        if (cached != null) {
+            return dashboard(location, cached, score(cached, profile), profile, windowHours);
+        }
+        StoredDays stored = fetchDashboardDays(location);
+        return dashboard(location, stored.cached(), stored.scores(profile), profile, windowHours);
+    }
+
+    /**
+     * {@link #getDashboard} encoded by {@code encoder}, kept with the cached
+     * days like {@link #renderForecast}.
+     */
+    public RenderedBody renderDashboard(Long locationId, ScoringProfile profile, int windowHours,
+                                        ResponseEncoder<DashboardResponse> encoder) {
         Location location = locationService.getLocationEntity(locationId);
-        int forecastDays = Math.min(days, 7);
+        String variant = "dashboard:" + profile.id() + ":" + windowHours + ":" + encoder.name();
+        ForecastCache.CachedDays cached = trendDays(location, MAX_TREND_DAYS);
+        if (cached != null) {
+            return forecastCache.render(cached, variant, () -> encoder.encode(
+                    dashboard(location, cached, score(cached, profile), profile, windowHours)));
+        }
+        StoredDays stored = fetchDashboardDays(location);
+        return forecastCache.render(stored.cached(), variant, () -> encoder.encode(
+                dashboard(location, stored.cached(), stored.scores(profile), profile, windowHours)));
+    }
+
+    private StoredDays fetchDashboardDays(Location location) {
+        RateLimits.chargeUpstream();
+        dashboardFetches.increment();
+        // Nothing was read, so the days have no version until read back
+        return fetchAndStore(location, MAX_TREND_DAYS, null);
+    }
+
+    private DashboardResponse dashboard(Location location, ForecastCache.CachedDays days, List<Score> scores,
+                                        ScoringProfile profile, int windowHours) {
+        ForecastResponse forecast = forecast(location, days.first(FORECAST_DAYS), profile, windowHours,
+                scores.subList(0, Math.min(FORECAST_DAYS, scores.size())));
+        return new DashboardResponse(forecast, trends(location, MAX_TREND_DAYS, profile, days, scores));
+    }
+
+    /**
+     * Days fetched recently by any request or refresh, or loaded at startup.
+     */
+    private ForecastCache.CachedDays trendDays(Location location, int days) {
+        LocalDate startDate = LocalDate.now(resolveZone(location.getTimezone()));
+        return forecastCache.get(location.getId(), startDate, Math.min(days, MAX_TREND_DAYS));
+    }
+
+    private TrendsResponse trendsFromStore(Location location, int days, ScoringProfile profile) {
+        Long locationId = location.getId();
+        int forecastDays = Math.min(days, MAX_TREND_DAYS);
 
         // Use the location's timezone to determine "today" so the cache
         // date range matches what the Open-Meteo API returns.
@@ -108,63 +447,67 @@ public class ForecastService {
         LocalDate startDate = LocalDate.now(locationZone);
         LocalDate endDate = startDate.plusDays(forecastDays - 1);
 
-        // Check if we have complete cached data for the requested range
-        List<DailyMetrics> cachedMetrics = dailyMetricsRepository.findByLocationIdAndDateBetween(
-                locationId, startDate, endDate
-        );
+        // Check if we have complete cached data for the requested range. Other
+        // profiles' scores live in a side table, fetched in the same query.
+        CacheLookupEvent lookupEvent = new CacheLookupEvent();
+        lookupEvent.begin();
+        List<DailyMetrics> queued = dailyMetricsWriter.pending(locationId, startDate, endDate);
+        List<DailyMetrics> stored = RequestTimings.time(RequestTimings.CACHE_READ, () -> profile.isDefault()
+                ? dailyMetricsRepository.findByLocationIdAndDateBetween(locationId, startDate, endDate)
+                : dailyMetricsRepository.findWithProfileScoresByLocationIdAndDateBetween(
+                        locationId, startDate, endDate));
+        List<DailyMetrics> cachedMetrics = withPending(stored, queued);
+        boolean cacheHit = cachedMetrics.size() >= forecastDays;
+        lookupEvent.cache = "daily_metrics";
+        lookupEvent.locationId = locationId;
+        lookupEvent.requested = forecastDays;
+        lookupEvent.found = cachedMetrics.size();
+        lookupEvent.hit = cacheHit;
+        lookupEvent.commit();
 
         List<TrendsResponse.AqiTrend> aqiTrends = new ArrayList<>();
         List<TrendsResponse.TemperatureTrend> tempTrends = new ArrayList<>();
         List<TrendsResponse.ScoreTrend> scoreTrends = new ArrayList<>();
+        Long version = storedVersion(stored);
 
-        if (cachedMetrics.size() >= forecastDays) {
+        if (cacheHit) {
             // Complete cache hit — use cached data
+            trendsCacheHits.increment();
             for (DailyMetrics dm : cachedMetrics) {
                 aqiTrends.add(new TrendsResponse.AqiTrend(dm.getDate(), dm.getAqiValue()));
                 tempTrends.add(new TrendsResponse.TemperatureTrend(
                         dm.getDate(), dm.getTemperatureMin(), dm.getTemperatureMax()
                 ));
-                scoreTrends.add(new TrendsResponse.ScoreTrend(
-                        dm.getDate(), dm.getScore(), dm.getRecommendation()
-                ));
+                scoreTrends.add(cachedScoreTrend(dm, profile));
             }
         } else {
             // Incomplete or no cache — fetch fresh forecast from API
+            trendsCacheMisses.increment();
+            RateLimits.chargeUpstream();
+            trendsFetches.increment();
             try {
-                List<AqiData> aqiList = openMeteoClient.getAirQuality(
-                        location.getLatitude(), location.getLongitude(), forecastDays
-                );
-                List<WeatherData> weatherList = openMeteoClient.getWeatherForecast(
-                        location.getLatitude(), location.getLongitude(), forecastDays
-                );
-
-                for (int i = 0; i < weatherList.size(); i++) {
-                    WeatherData wd = weatherList.get(i);
-                    AqiData ad = i < aqiList.size() ? aqiList.get(i) : null;
-                    Score score = scoringService.calculate(wd, ad);
-
-                    aqiTrends.add(new TrendsResponse.AqiTrend(wd.date(), ad != null ? ad.usAqi() : null));
+                StoredDays fetched = fetchAndStore(location, forecastDays, version);
+                for (PendingMetrics day : fetched.days()) {
+                    WeatherData wd = day.weather();
+                    Score score = day.scores().get(profile);
+                    aqiTrends.add(new TrendsResponse.AqiTrend(wd.date(), day.aqi() != null ? day.aqi().usAqi() : null));
                     tempTrends.add(new TrendsResponse.TemperatureTrend(
                             wd.date(), wd.temperatureMin(), wd.temperatureMax()
                     ));
                     scoreTrends.add(new TrendsResponse.ScoreTrend(
                             wd.date(), score.value(), score.recommendation()
                     ));
-
-                    // Cache the metrics
-                    saveDailyMetrics(location, wd, ad, score);
                 }
             } catch (Exception e) {
                 log.warn("Unable to fetch trend data from API: {}", e.getMessage());
+                trendsFetchFailures.increment();
                 // Fall back to whatever partial cache exists
                 for (DailyMetrics dm : cachedMetrics) {
                     aqiTrends.add(new TrendsResponse.AqiTrend(dm.getDate(), dm.getAqiValue()));
                     tempTrends.add(new TrendsResponse.TemperatureTrend(
                             dm.getDate(), dm.getTemperatureMin(), dm.getTemperatureMax()
                     ));
-                    scoreTrends.add(new TrendsResponse.ScoreTrend(
-                            dm.getDate(), dm.getScore(), dm.getRecommendation()
-                    ));
+                    scoreTrends.add(cachedScoreTrend(dm, profile));
                 }
             }
         }
@@ -172,30 +515,177 @@ public class ForecastService {
         return new TrendsResponse(
                 location.getId(),
                 location.getName(),
+                profile.id(),
                 days,
                 aqiTrends,
                 tempTrends,
-                scoreTrends
+                scoreTrends,
+                version
         );
     }
 
-    private void saveDailyMetrics(Location location, WeatherData weather, AqiData aqi, Score score) {
-        // Check if metrics already exist to avoid unique constraint violations.
-        // A caught constraint violation in PostgreSQL still marks the transaction
-        // as aborted, causing all subsequent operations to fail.
-        boolean exists = dailyMetricsRepository.existsByLocationIdAndDate(
-                location.getId(), weather.date());
-        if (exists) {
-            log.debug("Metrics already exist for location {} on {}, skipping save",
-                    location.getId(), weather.date());
+    /**
+     * Refetches the full trends window for a location outside any request,
+     * for {@link ForecastRefreshQueue}.
+     */
+    public void refresh(Long locationId) {
+        Location location = locationService.getLocationEntity(locationId);
+        LocalDate startDate = LocalDate.now(resolveZone(location.getTimezone()));
+        refreshFetches.increment();
+        fetchAndStore(location, MAX_TREND_DAYS, dailyMetricsRepository.findMaxVersionByLocationIdAndDateBetween(
+                locationId, startDate, startDate.plusDays(MAX_TREND_DAYS - 1)));
+    }
+
+    /**
+     * Fetches {@code days} days from upstream and scores each one under every
+     * profile, so the stored row serves later requests for any of them. The
+     * days go into the in-memory cache and are queued for daily_metrics.
+     *
+     * The cached days get {@code storedVersion}, the latest version of the
+     * window read before fetching (null if unknown): they replace everything
+     * written up to then, and their own rows get a later version once
+     * written, so a client sending it back as {@code since} gets them again
+     * rather than missing anything.
+     */
+    private StoredDays fetchAndStore(Location location, int days, Long storedVersion) {
+        List<AqiData> aqiList = openMeteoClient.getAirQuality(
+                location.getLatitude(), location.getLongitude(), days
+        );
+        List<WeatherData> weatherList = openMeteoClient.getWeatherForecast(
+                location.getLatitude(), location.getLongitude(), days
+        );
+
+        ScoringBatchEvent scoringEvent = new ScoringBatchEvent();
+        scoringEvent.begin();
+        List<PendingMetrics> pending = new ArrayList<>(weatherList.size());
+        for (int i = 0; i < weatherList.size(); i++) {
+            WeatherData wd = weatherList.get(i);
+            AqiData ad = i < aqiList.size() ? aqiList.get(i) : null;
+            ProfileScores scores = RequestTimings.time(RequestTimings.SCORING,
+                    () -> scoringService.calculateAll(wd, ad));
+            pending.add(new PendingMetrics(wd, ad, scores));
+        }
+        scoringEvent.operation = "trends";
+        scoringEvent.locationId = location.getId();
+        scoringEvent.days = weatherList.size();
+        scoringEvent.profiles = scoringService.getProfiles().size();
+        scoringEvent.commit();
+
+        RequestTimings.time(RequestTimings.CACHE_WRITE, () -> saveDailyMetrics(location, pending));
+        return new StoredDays(pending, forecastCache.put(location.getId(), weatherList, aqiList, storedVersion));
+    }
+
+    private TrendsResponse trendsFromMemory(Location location, int days, ScoringProfile profile,
+                                            ForecastCache.CachedDays cached) {
+        return trends(location, days, profile, cached, score(cached, profile));
+    }
+
+    private TrendsResponse trends(Location location, int days, ScoringProfile profile,
+                                  ForecastCache.CachedDays cached, List<Score> scores) {
+        List<TrendsResponse.AqiTrend> aqiTrends = new ArrayList<>();
+        List<TrendsResponse.TemperatureTrend> tempTrends = new ArrayList<>();
+        List<TrendsResponse.ScoreTrend> scoreTrends = new ArrayList<>();
+        for (int i = 0; i < cached.weather().size(); i++) {
+            WeatherData wd = cached.weather().get(i);
+            AqiData ad = i < cached.aqi().size() ? cached.aqi().get(i) : null;
+            Score score = scores.get(i);
+            aqiTrends.add(new TrendsResponse.AqiTrend(wd.date(), ad != null ? ad.usAqi() : null));
+            tempTrends.add(new TrendsResponse.TemperatureTrend(wd.date(), wd.temperatureMin(), wd.temperatureMax()));
+            scoreTrends.add(new TrendsResponse.ScoreTrend(wd.date(), score.value(), score.recommendation()));
+        }
+        return new TrendsResponse(location.getId(), location.getName(), profile.id(), days,
+                aqiTrends, tempTrends, scoreTrends, cached.version());
+    }
+
+    private List<Score> score(ForecastCache.CachedDays days, ScoringProfile profile) {
+        List<Score> scores = new ArrayList<>(days.weather().size());
+        for (int i = 0; i < days.weather().size(); i++) {
+            WeatherData wd = days.weather().get(i);
+            AqiData ad = i < days.aqi().size() ? days.aqi().get(i) : null;
+            scores.add(RequestTimings.time(RequestTimings.SCORING, () -> scoringService.calculate(wd, ad, profile)));
+        }
+        return scores;
+    }
+
+    /**
+     * Stored rows with the days still queued for daily_metrics laid over
+     * them, in date order. A queued day replaces its row unless the row is
+     * from a later fetch.
+     */
+    private static List<DailyMetrics> withPending(List<DailyMetrics> stored, List<DailyMetrics> queued) {
+        if (queued.isEmpty()) {
+            return stored;
+        }
+        Map<LocalDate, DailyMetrics> days = new TreeMap<>();
+        for (DailyMetrics dm : stored) {
+            days.put(dm.getDate(), dm);
+        }
+        for (DailyMetrics dm : queued) {
+            days.merge(dm.getDate(), dm,
+                    (row, day) -> day.getUpdatedAt().isBefore(row.getUpdatedAt()) ? row : day);
+        }
+        return new ArrayList<>(days.values());
+    }
+
+    /**
+     * The latest version among rows read from daily_metrics, before queued
+     * days are laid over them: the client has everything up to it.
+     */
+    private static Long storedVersion(List<DailyMetrics> rows) {
+        Long version = null;
+        for (DailyMetrics dm : rows) {
+            if (dm.getVersion() != null && (version == null || dm.getVersion() > version)) {
+                version = dm.getVersion();
+            }
+        }
+        return version;
+    }
+
+    private TrendsResponse.ScoreTrend cachedScoreTrend(DailyMetrics dm, ScoringProfile profile) {
+        if (profile.isDefault()) {
+            return new TrendsResponse.ScoreTrend(dm.getDate(), dm.getScore(), dm.getRecommendation());
+        }
+        Integer stored = dm.getProfileScores().get(profile.id());
+        if (stored != null) {
+            return new TrendsResponse.ScoreTrend(dm.getDate(), stored, scoringService.getRecommendation(stored));
+        }
+        // Rows written before this profile existed: every scoring input is
+        // stored, so rescore locally instead of going upstream
+        Score score = scoringService.calculate(weatherOf(dm), aqiOf(dm), profile);
+        return new TrendsResponse.ScoreTrend(dm.getDate(), score.value(), score.recommendation());
+    }
+
+    /** The daily weather a stored row was scored from; daily_metrics keeps no hourly series. */
+    static WeatherData weatherOf(DailyMetrics dm) {
+        return new WeatherData(dm.getDate(), dm.getTemperatureMax(), dm.getTemperatureMin(),
+                dm.getPrecipitation(), dm.getWindSpeed(), null, dm.getUvIndex());
+    }
+
+    static AqiData aqiOf(DailyMetrics dm) {
+        return new AqiData(dm.getDate(), dm.getAqiValue(), dm.getPm25(), dm.getOzone());
+    }
+
+    /** Queues the fetched days for daily_metrics. */
+    private void saveDailyMetrics(Location location, List<PendingMetrics> pending) {
+        if (pending.isEmpty()) {
             return;
         }
+        List<DailyMetrics> days = new ArrayList<>(pending.size());
+        for (PendingMetrics day : pending) {
+            days.add(toDailyMetrics(location, day.weather(), day.aqi(), day.scores()));
+        }
+        dailyMetricsWriter.write(location.getId(), days);
+    }
 
+    private static DailyMetrics toDailyMetrics(Location location, WeatherData weather, AqiData aqi,
+                                               ProfileScores scores) {
         DailyMetrics metrics = new DailyMetrics();
         metrics.setLocation(location);
         metrics.setDate(weather.date());
+        Score score = scores.getDefault();
         metrics.setScore(score.value());
         metrics.setRecommendation(score.recommendation());
+        metrics.setProfileScores(scores.nonDefaultValues());
         metrics.setTemperatureMax(weather.temperatureMax());
         metrics.setTemperatureMin(weather.temperatureMin());
         metrics.setPrecipitation(weather.precipitation());
@@ -207,11 +697,18 @@ public class ForecastService {
             metrics.setPm25(aqi.pm25());
             metrics.setOzone(aqi.ozone());
         }
+        return metrics;
+    }
 
-        dailyMetricsRepository.save(metrics);
+    private static Counter fetchCounter(MeterRegistry registry, String operation, String result) {
+        return Counter.builder("breathego.forecast.fetches")
+                .description("Upstream fetches started by the forecast and trends endpoints")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(registry);
     }
 
-    private static ZoneId resolveZone(String timezone) {
+    static ZoneId resolveZone(String timezone) {
         if (timezone == null || timezone.isBlank() || "auto".equals(timezone)) {
             return ZoneId.systemDefault();
         }
@@ -222,6 +719,17 @@ public class ForecastService {
         }
     }
 
+    /** A freshly scored day waiting to be written to daily_metrics. */
+    private record PendingMetrics(WeatherData weather, AqiData aqi, ProfileScores scores) {
+    }
+
+    private record StoredDays(List<PendingMetrics> days, ForecastCache.CachedDays cached) {
+
+        List<Score> scores(ScoringProfile profile) {
+            return days.stream().map(day -> day.scores().get(profile)).toList();
+        }
+    }
+
     public static class ForecastUnavailableException extends RuntimeException {
         public ForecastUnavailableException(String message) {
             super(message);
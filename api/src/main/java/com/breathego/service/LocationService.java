@@ -1,12 +1,15 @@
 package com.breathego.service;
 
+import com.breathego.diagnostics.CacheEvictionEvent;
 import com.breathego.domain.Location;
 import com.breathego.dto.LocationRequest;
 import com.breathego.dto.LocationResponse;
 import com.breathego.repository.LocationRepository;
+import com.breathego.timing.RequestTimings;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -14,28 +17,36 @@ import java.util.List;
 public class LocationService {
 
     private final LocationRepository locationRepository;
+    private final ForecastCache forecastCache;
 
-    public LocationService(LocationRepository locationRepository) {
+    public LocationService(LocationRepository locationRepository, ForecastCache forecastCache) {
         this.locationRepository = locationRepository;
+        this.forecastCache = forecastCache;
     }
 
     public List<LocationResponse> getAllLocations() {
-        return locationRepository.findAll().stream()
+        return RequestTimings.time(RequestTimings.LOCATION, () -> locationRepository.findAll().stream()
                 .map(LocationResponse::from)
-                .toList();
+                .toList());
     }
 
     public LocationResponse getLocation(Long id) {
-        return locationRepository.findById(id)
-                .map(LocationResponse::from)
-                .orElseThrow(() -> new LocationNotFoundException(id));
+        return LocationResponse.from(getLocationEntity(id));
     }
 
     public Location getLocationEntity(Long id) {
-        return locationRepository.findById(id)
+        return RequestTimings.time(RequestTimings.LOCATION, () -> locationRepository.findById(id))
                 .orElseThrow(() -> new LocationNotFoundException(id));
     }
 
+    /**
+     * The locations with the given ids, in one query; ids that don't exist
+     * are left out.
+     */
+    public List<Location> getLocationEntities(Collection<Long> ids) {
+        return RequestTimings.time(RequestTimings.LOCATION, () -> locationRepository.findAllById(ids));
+    }
+
     public LocationResponse createLocation(LocationRequest request) {
         Location location = new Location(
                 request.name(),
@@ -47,15 +58,20 @@ public class LocationService {
             location.setTimezone(request.timezone());
         }
 
-        Location saved = locationRepository.save(location);
+        Location saved = RequestTimings.time(RequestTimings.LOCATION, () -> locationRepository.save(location));
         return LocationResponse.from(saved);
     }
 
     public void deleteLocation(Long id) {
-        if (!locationRepository.existsById(id)) {
-            throw new LocationNotFoundException(id);
-        }
-        locationRepository.deleteById(id);
+        RequestTimings.time(RequestTimings.LOCATION, () -> locationRepository.delete(
+                locationRepository.findById(id).orElseThrow(() -> new LocationNotFoundException(id))));
+        // The location's daily_metrics rows go with it (ON DELETE CASCADE)
+        CacheEvictionEvent event = new CacheEvictionEvent();
+        event.cache = "daily_metrics";
+        event.locationId = id;
+        event.reason = "location-deleted";
+        event.commit();
+        forecastCache.evict(id, "location-deleted");
     }
 
     public static class LocationNotFoundException extends RuntimeException {
@@ -0,0 +1,48 @@
+package com.breathego.service;
+
+import com.breathego.dto.Score;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores for one day under every registered {@link ScoringProfile}, in
+ * registration order.
+ */
+public final class ProfileScores {
+
+    private final List<ScoringProfile> profiles;
+    private final Score[] scores;
+
+    ProfileScores(List<ScoringProfile> profiles, Score[] scores) {
+        this.profiles = profiles;
+        this.scores = scores;
+    }
+
+    public Score get(ScoringProfile profile) {
+        int index = profiles.indexOf(profile);
+        if (index < 0) {
+            throw new ScoringService.UnknownProfileException(profile.id());
+        }
+        return scores[index];
+    }
+
+    public Score getDefault() {
+        return get(ScoringProfile.DEFAULT);
+    }
+
+    /**
+     * Score values keyed by profile id, excluding the default profile whose
+     * score is stored in {@code daily_metrics.score} itself.
+     */
+    public Map<String, Integer> nonDefaultValues() {
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for (int i = 0; i < scores.length; i++) {
+            if (!profiles.get(i).isDefault()) {
+                values.put(profiles.get(i).id(), scores[i].value());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,40 @@
+package com.breathego.service;
+
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One representation of a response, encoded once and written to every
+ * request for it as-is. The arrays are shared between requests and must not
+ * be modified.
+ *
+ * @param contentType media type of {@code body}
+ * @param gzipped     {@code body} gzip-compressed, or null when it was too
+ *                    small to be worth compressing
+ * @param etag        weak ETag of {@code body}, shared by both encodings
+ */
+public record RenderedBody(String contentType, byte[] body, byte[] gzipped, String etag) {
+
+    /**
+     * Compresses {@code body} when it is at least {@code gzipMinSize} bytes;
+     * a negative size turns compression off.
+     */
+    public static RenderedBody of(String contentType, byte[] body, int gzipMinSize) {
+        byte[] gzipped = gzipMinSize >= 0 && body.length >= gzipMinSize ? gzip(body) : null;
+        return new RenderedBody(contentType, body, gzipped, "W/\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
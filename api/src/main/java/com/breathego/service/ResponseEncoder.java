@@ -0,0 +1,17 @@
+package com.breathego.service;
+
+/**
+ * Encodes a response into one representation, such as JSON or CBOR. Passed
+ * to the {@code render} methods of {@link ForecastService}, which keep the
+ * result next to the cached data it was built from.
+ */
+public interface ResponseEncoder<T> {
+
+    /**
+     * Tells this representation's bytes apart from others of the same
+     * response in the cache, e.g. its media type.
+     */
+    String name();
+
+    RenderedBody encode(T response);
+}
@@ -0,0 +1,55 @@
+package com.breathego.service;
+
+import java.util.List;
+
+/**
+ * Weights and thresholds for one audience. Weights must total 100 so every
+ * profile produces a score on the same 0-100 scale and recommendation bands.
+ */
+public record ScoringProfile(
+        String id,
+        int aqiWeight,
+        int precipWeight,
+        int tempWeight,
+        int windWeight,
+        int optimalTempMin,      // Celsius
+        int optimalTempMax,
+        double highWindThreshold,  // km/h
+        double heavyRainThreshold, // mm
+        double aqiSensitivity      // multiplier applied to AQI before scoring
+) {
+    public static final String DEFAULT_ID = "default";
+
+    public static final ScoringProfile DEFAULT =
+            new ScoringProfile(DEFAULT_ID, 60, 15, 15, 10, 15, 25, 40.0, 10.0, 1.0);
+
+    // Air quality dominates and penalties start earlier: AQI 80 scores like 120
+    public static final ScoringProfile SENSITIVE =
+            new ScoringProfile("sensitive", 75, 10, 10, 5, 15, 25, 40.0, 10.0, 1.5);
+
+    // Runners prefer it cooler and care more about temperature
+    public static final ScoringProfile RUNNER =
+            new ScoringProfile("runner", 60, 10, 20, 10, 8, 18, 40.0, 10.0, 1.0);
+
+    // Cyclists are hit hardest by wind and wet roads
+    public static final ScoringProfile CYCLIST =
+            new ScoringProfile("cyclist", 50, 20, 10, 20, 15, 25, 30.0, 5.0, 1.0);
+
+    public static final List<ScoringProfile> BUILT_IN = List.of(DEFAULT, SENSITIVE, RUNNER, CYCLIST);
+
+    public ScoringProfile {
+        if (aqiWeight + precipWeight + tempWeight + windWeight != 100) {
+            throw new IllegalArgumentException("Profile weights must total 100: " + id);
+        }
+        if (optimalTempMin > optimalTempMax) {
+            throw new IllegalArgumentException("Optimal temperature range is inverted: " + id);
+        }
+        if (aqiSensitivity <= 0) {
+            throw new IllegalArgumentException("AQI sensitivity must be positive: " + id);
+        }
+    }
+
+    public boolean isDefault() {
+        return DEFAULT_ID.equals(id);
+    }
+}
@@ -6,34 +6,102 @@ import com.breathego.dto.WeatherData;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class ScoringService {
 
-    // Weights (total = 100)
-    private static final int AQI_WEIGHT = 60;
-    private static final int PRECIP_WEIGHT = 15;
-    private static final int TEMP_WEIGHT = 15;
-    private static final int WIND_WEIGHT = 10;
+    private final List<ScoringProfile> profiles;
+    private final ScoringTables[] tables;
+    private final ScoringTables defaultTables;
+    // Read by the metrics binder; LongAdder keeps the hot path lock- and allocation-free
+    private final LongAdder scoredDays = new LongAdder();
+    private final LongAdder scoredHours = new LongAdder();
 
-    // Thresholds
-    private static final int OPTIMAL_TEMP_MIN = 15; // Celsius
-    private static final int OPTIMAL_TEMP_MAX = 25;
-    private static final double HIGH_WIND_THRESHOLD = 40.0; // km/h
-    private static final double HEAVY_RAIN_THRESHOLD = 10.0; // mm
+    public ScoringService() {
+        this(ScoringProfile.BUILT_IN);
+    }
+
+    ScoringService(List<ScoringProfile> profiles) {
+        if (!profiles.contains(ScoringProfile.DEFAULT)) {
+            throw new IllegalArgumentException("The default scoring profile must be registered");
+        }
+        this.profiles = List.copyOf(profiles);
+        this.tables = new ScoringTables[this.profiles.size()];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = new ScoringTables(this.profiles.get(i));
+        }
+        this.defaultTables = tables[this.profiles.indexOf(ScoringProfile.DEFAULT)];
+    }
+
+    public List<ScoringProfile> getProfiles() {
+        return profiles;
+    }
+
+    public ScoringProfile getProfile(String id) {
+        for (ScoringProfile profile : profiles) {
+            if (profile.id().equals(id)) {
+                return profile;
+            }
+        }
+        throw new UnknownProfileException(id);
+    }
 
+    /**
+     * Score a single day with the default profile. Component scores and reasons
+     * come from precomputed tables, so the only allocation on this path is the
+     * returned Score.
+     */
     public Score calculate(WeatherData weather, AqiData aqi) {
-        int aqiScore = calculateAqiScore(aqi != null ? aqi.usAqi() : null);
-        int precipScore = calculatePrecipScore(weather);
-        int tempScore = calculateTempScore(weather);
-        int windScore = calculateWindScore(weather);
+        return calculate(weather, aqi, defaultTables);
+    }
+
+    public Score calculate(WeatherData weather, AqiData aqi, ScoringProfile profile) {
+        return calculate(weather, aqi, tablesFor(profile));
+    }
 
-        int total = aqiScore + precipScore + tempScore + windScore;
-        List<String> reasons = generateReasons(weather, aqi, aqiScore, precipScore, tempScore, windScore);
+    /**
+     * Score a single day under every registered profile. The day's inputs are
+     * unpacked once and each profile then costs only its table lookups.
+     */
+    public ProfileScores calculateAll(WeatherData weather, AqiData aqi) {
+        Integer aqiValue = aqi != null ? aqi.usAqi() : null;
+        double precip = weather != null ? toDouble(weather.precipitation()) : Double.NaN;
+        double tempMax = weather != null ? toDouble(weather.temperatureMax()) : Double.NaN;
+        double tempMin = weather != null ? toDouble(weather.temperatureMin()) : Double.NaN;
+        double wind = weather != null ? toDouble(weather.windSpeed()) : Double.NaN;
+        double uv = weather != null ? toDouble(weather.uvIndex()) : Double.NaN;
+
+        Score[] scores = new Score[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            scores[i] = score(tables[i], aqiValue, precip, tempMax, tempMin, wind, uv);
+        }
+        return new ProfileScores(profiles, scores);
+    }
 
-        return new Score(total, getRecommendation(total), reasons);
+    /**
+     * Score one hour with the same rules as a day, treating the hour's
+     * temperature as the day's average and its precipitation against hourly
+     * rather than daily bands. Pass {@link Double#NaN} for missing
+     * weather inputs and a negative AQI when it is unknown.
+     */
+    public int scoreHour(ScoringProfile profile, int usAqi, double temperature,
+                         double precipitation, double windSpeed) {
+        ScoringTables t = tablesFor(profile);
+        scoredHours.increment();
+        return (usAqi < 0 ? t.aqiScore((Integer) null) : t.aqiScore(usAqi))
+                + t.hourlyPrecipScore(precipitation)
+                + t.tempScore(temperature, temperature)
+                + t.windScore(windSpeed);
+    }
+
+    public long getScoredDays() {
+        return scoredDays.sum();
+    }
+
+    public long getScoredHours() {
+        return scoredHours.sum();
     }
 
     public String getRecommendation(int score) {
@@ -44,175 +112,56 @@ public class ScoringService {
     }
 
     int calculateAqiScore(Integer aqiValue) {
-        if (aqiValue == null) {
-            return AQI_WEIGHT / 2; // Unknown AQI, give neutral score
-        }
-
-        // US AQI Scale:
-        // 0-50: Good
-        // 51-100: Moderate
-        // 101-150: Unhealthy for Sensitive Groups
-        // 151-200: Unhealthy
-        // 201-300: Very Unhealthy
-        // 301+: Hazardous
-
-        if (aqiValue <= 50) {
-            return AQI_WEIGHT; // Full points for good AQI
-        } else if (aqiValue <= 100) {
-            // Linear decrease from 60 to 45 (75% of max)
-            return (int) (AQI_WEIGHT * (1 - (aqiValue - 50) * 0.005));
-        } else if (aqiValue <= 150) {
-            // Linear decrease from 45 to 30 (50% of max)
-            return (int) (AQI_WEIGHT * (0.75 - (aqiValue - 100) * 0.005));
-        } else if (aqiValue <= 200) {
-            // Linear decrease from 30 to 15 (25% of max)
-            return (int) (AQI_WEIGHT * (0.5 - (aqiValue - 150) * 0.005));
-        } else if (aqiValue <= 300) {
-            // Linear decrease from 15 to 0
-            return (int) (AQI_WEIGHT * (0.25 - (aqiValue - 200) * 0.0025));
-        } else {
-            return 0;
-        }
+        return defaultTables.aqiScore(aqiValue);
     }
 
     int calculatePrecipScore(WeatherData weather) {
-        if (weather == null || weather.precipitation() == null) {
-            return PRECIP_WEIGHT;
-        }
-
-        double precip = weather.precipitation().doubleValue();
-
-        if (precip == 0) {
-            return PRECIP_WEIGHT; // Full points for no rain
-        } else if (precip < 2) {
-            return (int) (PRECIP_WEIGHT * 0.8); // Light drizzle
-        } else if (precip < 5) {
-            return (int) (PRECIP_WEIGHT * 0.5); // Light rain
-        } else if (precip < HEAVY_RAIN_THRESHOLD) {
-            return (int) (PRECIP_WEIGHT * 0.3); // Moderate rain
-        } else {
-            return 0; // Heavy rain
-        }
+        return defaultTables.precipScore(weather != null ? toDouble(weather.precipitation()) : Double.NaN);
     }
 
     int calculateTempScore(WeatherData weather) {
-        if (weather == null || weather.temperatureMax() == null) {
-            return TEMP_WEIGHT / 2;
-        }
-
-        double tempMax = weather.temperatureMax().doubleValue();
-        double tempMin = weather.temperatureMin() != null ? weather.temperatureMin().doubleValue() : tempMax - 10;
-
-        // Use average temperature for scoring
-        double avgTemp = (tempMax + tempMin) / 2;
-
-        if (avgTemp >= OPTIMAL_TEMP_MIN && avgTemp <= OPTIMAL_TEMP_MAX) {
-            return TEMP_WEIGHT; // Optimal temperature range
-        } else if (avgTemp < OPTIMAL_TEMP_MIN) {
-            // Cold: reduce score based on how far from optimal
-            double diff = OPTIMAL_TEMP_MIN - avgTemp;
-            if (diff <= 5) return (int) (TEMP_WEIGHT * 0.8);
-            if (diff <= 10) return (int) (TEMP_WEIGHT * 0.5);
-            if (diff <= 20) return (int) (TEMP_WEIGHT * 0.3);
-            return 0;
-        } else {
-            // Hot: reduce score based on how far from optimal
-            double diff = avgTemp - OPTIMAL_TEMP_MAX;
-            if (diff <= 5) return (int) (TEMP_WEIGHT * 0.8);
-            if (diff <= 10) return (int) (TEMP_WEIGHT * 0.5);
-            if (diff <= 15) return (int) (TEMP_WEIGHT * 0.3);
-            return 0;
+        if (weather == null) {
+            return defaultTables.tempScore(Double.NaN, Double.NaN);
         }
+        return defaultTables.tempScore(toDouble(weather.temperatureMax()), toDouble(weather.temperatureMin()));
     }
 
     int calculateWindScore(WeatherData weather) {
-        if (weather == null || weather.windSpeed() == null) {
-            return WIND_WEIGHT;
-        }
-
-        double wind = weather.windSpeed().doubleValue();
-
-        if (wind < 15) {
-            return WIND_WEIGHT; // Calm
-        } else if (wind < 25) {
-            return (int) (WIND_WEIGHT * 0.8); // Light breeze
-        } else if (wind < 35) {
-            return (int) (WIND_WEIGHT * 0.5); // Moderate wind
-        } else if (wind < HIGH_WIND_THRESHOLD) {
-            return (int) (WIND_WEIGHT * 0.3); // Strong wind
-        } else {
-            return 0; // Very windy
-        }
+        return defaultTables.windScore(weather != null ? toDouble(weather.windSpeed()) : Double.NaN);
     }
 
-    private List<String> generateReasons(WeatherData weather, AqiData aqi,
-                                          int aqiScore, int precipScore, int tempScore, int windScore) {
-        List<String> reasons = new ArrayList<>();
-
-        // AQI reasons
-        if (aqi != null && aqi.usAqi() != null) {
-            int aqiValue = aqi.usAqi();
-            if (aqiValue <= 50) {
-                reasons.add("Air quality is good");
-            } else if (aqiValue <= 100) {
-                reasons.add("Air quality is moderate");
-            } else if (aqiValue <= 150) {
-                reasons.add("Air quality is unhealthy for sensitive groups");
-            } else if (aqiValue <= 200) {
-                reasons.add("Air quality is unhealthy");
-            } else {
-                reasons.add("Air quality is very unhealthy - avoid outdoor activities");
-            }
-        }
+    private Score calculate(WeatherData weather, AqiData aqi, ScoringTables t) {
+        return score(t,
+                aqi != null ? aqi.usAqi() : null,
+                weather != null ? toDouble(weather.precipitation()) : Double.NaN,
+                weather != null ? toDouble(weather.temperatureMax()) : Double.NaN,
+                weather != null ? toDouble(weather.temperatureMin()) : Double.NaN,
+                weather != null ? toDouble(weather.windSpeed()) : Double.NaN,
+                weather != null ? toDouble(weather.uvIndex()) : Double.NaN);
+    }
 
-        // Precipitation reasons
-        if (weather != null && weather.precipitation() != null) {
-            double precip = weather.precipitation().doubleValue();
-            if (precip == 0) {
-                reasons.add("No precipitation expected");
-            } else if (precip < 2) {
-                reasons.add("Light drizzle possible");
-            } else if (precip < 5) {
-                reasons.add("Light rain expected");
-            } else if (precip < 10) {
-                reasons.add("Moderate rain expected");
-            } else {
-                reasons.add("Heavy rain expected - bring an umbrella");
-            }
-        }
+    private Score score(ScoringTables t, Integer aqiValue, double precip,
+                        double tempMax, double tempMin, double wind, double uv) {
+        int total = t.score(aqiValue, precip, tempMax, tempMin, wind);
+        scoredDays.increment();
+        return new Score(total, getRecommendation(total), t.reasons(aqiValue, precip, tempMax, wind, uv));
+    }
 
-        // Temperature reasons
-        if (weather != null && weather.temperatureMax() != null) {
-            double tempMax = weather.temperatureMax().doubleValue();
-            if (tempMax >= OPTIMAL_TEMP_MIN && tempMax <= OPTIMAL_TEMP_MAX + 5) {
-                reasons.add("Temperature is pleasant");
-            } else if (tempMax < OPTIMAL_TEMP_MIN) {
-                reasons.add("Temperature is cool - dress warmly");
-            } else {
-                reasons.add("Temperature is hot - stay hydrated");
-            }
+    private ScoringTables tablesFor(ScoringProfile profile) {
+        int index = profiles.indexOf(profile);
+        if (index < 0) {
+            throw new UnknownProfileException(profile.id());
         }
+        return tables[index];
+    }
 
-        // Wind reasons
-        if (weather != null && weather.windSpeed() != null) {
-            double wind = weather.windSpeed().doubleValue();
-            if (wind >= HIGH_WIND_THRESHOLD) {
-                reasons.add("Strong winds - be cautious outdoors");
-            } else if (wind >= 25) {
-                reasons.add("Moderate winds expected");
-            }
-        }
+    private static double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
 
-        // UV reasons
-        if (weather != null && weather.uvIndex() != null) {
-            double uv = weather.uvIndex().doubleValue();
-            if (uv >= 8) {
-                reasons.add("Very high UV - use sunscreen and seek shade");
-            } else if (uv >= 6) {
-                reasons.add("High UV - sunscreen recommended");
-            }
+    public static class UnknownProfileException extends RuntimeException {
+        public UnknownProfileException(String id) {
+            super("Unknown scoring profile: " + id);
         }
-
-        return reasons;
     }
 }
@@ -0,0 +1,338 @@
+package com.breathego.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precomputed lookup tables for one {@link ScoringProfile}.
+ *
+ * The piecewise-linear AQI formula is evaluated once for every AQI value in
+ * 0..500 (after the profile's sensitivity multiplier), and precipitation, temperature and wind are quantized into the same
+ * bands the scoring rules use, each band mapping to a precomputed point value.
+ * Reasons are shared immutable lists, one per combination of reason buckets, so
+ * scoring a day is a handful of comparisons and array reads.
+ */
+final class ScoringTables {
+
+    static final int MAX_AQI = 500;
+
+    // A profile's heavy-rain threshold is a daily total; 40% of it in a single
+    // hour (4 mm/h for the default profile) is heavy rain by the usual
+    // hourly-intensity classes.
+    private static final double HOURLY_HEAVY_RAIN_FRACTION = 0.4;
+
+    // Reason bucket counts (bucket 0 means "no reason for this component")
+    private static final int AQI_REASON_BUCKETS = 6;
+    private static final int PRECIP_REASON_BUCKETS = 6;
+    private static final int TEMP_REASON_BUCKETS = 4;
+    private static final int WIND_REASON_BUCKETS = 3;
+    private static final int UV_REASON_BUCKETS = 3;
+
+    private static final String[] AQI_REASONS = {
+            null,
+            "Air quality is good",
+            "Air quality is moderate",
+            "Air quality is unhealthy for sensitive groups",
+            "Air quality is unhealthy",
+            "Air quality is very unhealthy - avoid outdoor activities"
+    };
+    private static final String[] PRECIP_REASONS = {
+            null,
+            "No precipitation expected",
+            "Light drizzle possible",
+            "Light rain expected",
+            "Moderate rain expected",
+            "Heavy rain expected - bring an umbrella"
+    };
+    private static final String[] TEMP_REASONS = {
+            null,
+            "Temperature is pleasant",
+            "Temperature is cool - dress warmly",
+            "Temperature is hot - stay hydrated"
+    };
+    private static final String[] WIND_REASONS = {
+            null,
+            "Moderate winds expected",
+            "Strong winds - be cautious outdoors"
+    };
+    private static final String[] UV_REASONS = {
+            null,
+            "High UV - sunscreen recommended",
+            "Very high UV - use sunscreen and seek shade"
+    };
+
+    private final int aqiWeight;
+    private final int precipWeight;
+    private final int tempWeight;
+    private final int windWeight;
+    private final double optimalTempMin;
+    private final double optimalTempMax;
+    private final double highWindThreshold;
+    private final double heavyRainThreshold;
+    private final double hourlyHeavyRainThreshold;
+
+    private final int[] aqiScores = new int[MAX_AQI + 1];
+    private final byte[] aqiReasonBuckets = new byte[MAX_AQI + 1];
+
+    // Precipitation bands: none, < 2, < 5, < heavy, heavy (daily mm);
+    // the same bands for an hour are none, < 0.5, < 2, < hourly heavy, hourly heavy
+    private final int[] precipScores;
+    // Temperature bands by distance from the optimal range:
+    // optimal, cold <= 5/10/20/beyond, hot <= 5/10/15/beyond
+    private final int[] tempScores;
+    // Wind bands: < 15, < 25, < 35, < high, high
+    private final int[] windScores;
+
+    private final List<List<String>> reasonSets;
+
+    ScoringTables(ScoringProfile profile) {
+        this.aqiWeight = profile.aqiWeight();
+        this.precipWeight = profile.precipWeight();
+        this.tempWeight = profile.tempWeight();
+        this.windWeight = profile.windWeight();
+        this.optimalTempMin = profile.optimalTempMin();
+        this.optimalTempMax = profile.optimalTempMax();
+        this.highWindThreshold = profile.highWindThreshold();
+        this.heavyRainThreshold = profile.heavyRainThreshold();
+        this.hourlyHeavyRainThreshold = profile.heavyRainThreshold() * HOURLY_HEAVY_RAIN_FRACTION;
+
+        for (int aqi = 0; aqi <= MAX_AQI; aqi++) {
+            int effectiveAqi = (int) Math.min(MAX_AQI, Math.round(aqi * profile.aqiSensitivity()));
+            aqiScores[aqi] = aqiFormula(effectiveAqi);
+            aqiReasonBuckets[aqi] = (byte) aqiReasonFormula(aqi);
+        }
+
+        precipScores = new int[] {
+                precipWeight,
+                (int) (precipWeight * 0.8),
+                (int) (precipWeight * 0.5),
+                (int) (precipWeight * 0.3),
+                0
+        };
+        tempScores = new int[] {
+                tempWeight,
+                (int) (tempWeight * 0.8),
+                (int) (tempWeight * 0.5),
+                (int) (tempWeight * 0.3),
+                0,
+                (int) (tempWeight * 0.8),
+                (int) (tempWeight * 0.5),
+                (int) (tempWeight * 0.3),
+                0
+        };
+        windScores = new int[] {
+                windWeight,
+                (int) (windWeight * 0.8),
+                (int) (windWeight * 0.5),
+                (int) (windWeight * 0.3),
+                0
+        };
+
+        reasonSets = buildReasonSets();
+    }
+
+    /**
+     * Total score for a day. Pass {@link Double#NaN} for any missing weather
+     * input and {@code null} for a missing AQI.
+     */
+    int score(Integer aqiValue, double precip, double tempMax, double tempMin, double wind) {
+        return aqiScore(aqiValue) + precipScore(precip) + tempScore(tempMax, tempMin) + windScore(wind);
+    }
+
+    int aqiScore(Integer aqiValue) {
+        if (aqiValue == null) {
+            return aqiWeight / 2; // Unknown AQI, give neutral score
+        }
+        return aqiScore(aqiValue.intValue());
+    }
+
+    int aqiScore(int aqiValue) {
+        return aqiScores[clampAqi(aqiValue)];
+    }
+
+    int precipScore(double precip) {
+        if (Double.isNaN(precip)) {
+            return precipWeight;
+        }
+        return precipScores[precipBand(precip)];
+    }
+
+    /**
+     * Precipitation score for the rain that falls in one hour. The daily
+     * bands are sums over 24 hours, so an hourly amount scored against them
+     * would almost always look like drizzle.
+     */
+    int hourlyPrecipScore(double precip) {
+        if (Double.isNaN(precip)) {
+            return precipWeight;
+        }
+        return precipScores[hourlyPrecipBand(precip)];
+    }
+
+    int tempScore(double tempMax, double tempMin) {
+        if (Double.isNaN(tempMax)) {
+            return tempWeight / 2;
+        }
+        // Use average temperature for scoring
+        double min = Double.isNaN(tempMin) ? tempMax - 10 : tempMin;
+        return tempScores[tempBand((tempMax + min) / 2)];
+    }
+
+    int windScore(double wind) {
+        if (Double.isNaN(wind)) {
+            return windWeight;
+        }
+        return windScores[windBand(wind)];
+    }
+
+    /**
+     * Look up the shared reason list for a day. Pass {@link Double#NaN} for any
+     * missing weather input and {@code null} for a missing AQI.
+     */
+    List<String> reasons(Integer aqiValue, double precip, double tempMax, double wind, double uv) {
+        int aqiBucket = aqiValue == null ? 0 : aqiReasonBuckets[clampAqi(aqiValue)];
+        int precipBucket = Double.isNaN(precip) ? 0 : precipBand(precip) + 1;
+        int tempBucket = Double.isNaN(tempMax) ? 0 : tempReasonBucket(tempMax);
+        int windBucket = Double.isNaN(wind) ? 0 : windReasonBucket(wind);
+        int uvBucket = Double.isNaN(uv) ? 0 : uvReasonBucket(uv);
+        return reasonSets.get(reasonIndex(aqiBucket, precipBucket, tempBucket, windBucket, uvBucket));
+    }
+
+    private static int clampAqi(int aqiValue) {
+        if (aqiValue < 0) return 0;
+        return Math.min(aqiValue, MAX_AQI);
+    }
+
+    private int precipBand(double precip) {
+        if (precip == 0) return 0;                   // No rain
+        if (precip >= heavyRainThreshold) return 4;  // Heavy rain
+        if (precip < 2) return 1;                    // Light drizzle
+        if (precip < 5) return 2;                    // Light rain
+        return 3;                                    // Moderate rain
+    }
+
+    private int hourlyPrecipBand(double precip) {
+        if (precip == 0) return 0;                         // No rain
+        if (precip >= hourlyHeavyRainThreshold) return 4;  // Heavy rain
+        if (precip < 0.5) return 1;                        // Light drizzle
+        if (precip < 2) return 2;                          // Light rain
+        return 3;                                          // Moderate rain
+    }
+
+    private int tempBand(double avgTemp) {
+        if (avgTemp >= optimalTempMin && avgTemp <= optimalTempMax) {
+            return 0;
+        } else if (avgTemp < optimalTempMin) {
+            double diff = optimalTempMin - avgTemp;
+            if (diff <= 5) return 1;
+            if (diff <= 10) return 2;
+            if (diff <= 20) return 3;
+            return 4;
+        } else {
+            double diff = avgTemp - optimalTempMax;
+            if (diff <= 5) return 5;
+            if (diff <= 10) return 6;
+            if (diff <= 15) return 7;
+            return 8;
+        }
+    }
+
+    private int windBand(double wind) {
+        if (wind >= highWindThreshold) return 4;     // Very windy
+        if (wind < 15) return 0;                     // Calm
+        if (wind < 25) return 1;                     // Light breeze
+        if (wind < 35) return 2;                     // Moderate wind
+        return 3;                                    // Strong wind
+    }
+
+    private int tempReasonBucket(double tempMax) {
+        if (tempMax >= optimalTempMin && tempMax <= optimalTempMax + 5) return 1;
+        if (tempMax < optimalTempMin) return 2;
+        return 3;
+    }
+
+    private int windReasonBucket(double wind) {
+        if (wind >= highWindThreshold) return 2;
+        if (wind >= 25) return 1;
+        return 0;
+    }
+
+    private static int uvReasonBucket(double uv) {
+        if (uv >= 8) return 2;
+        if (uv >= 6) return 1;
+        return 0;
+    }
+
+    // US AQI Scale:
+    // 0-50: Good
+    // 51-100: Moderate
+    // 101-150: Unhealthy for Sensitive Groups
+    // 151-200: Unhealthy
+    // 201-300: Very Unhealthy
+    // 301+: Hazardous
+    private int aqiFormula(int aqiValue) {
+        if (aqiValue <= 50) {
+            return aqiWeight; // Full points for good AQI
+        } else if (aqiValue <= 100) {
+            // Linear decrease from 60 to 45 (75% of max)
+            return (int) (aqiWeight * (1 - (aqiValue - 50) * 0.005));
+        } else if (aqiValue <= 150) {
+            // Linear decrease from 45 to 30 (50% of max)
+            return (int) (aqiWeight * (0.75 - (aqiValue - 100) * 0.005));
+        } else if (aqiValue <= 200) {
+            // Linear decrease from 30 to 15 (25% of max)
+            return (int) (aqiWeight * (0.5 - (aqiValue - 150) * 0.005));
+        } else if (aqiValue <= 300) {
+            // Linear decrease from 15 to 0
+            return (int) (aqiWeight * (0.25 - (aqiValue - 200) * 0.0025));
+        } else {
+            return 0;
+        }
+    }
+
+    private static int aqiReasonFormula(int aqiValue) {
+        if (aqiValue <= 50) return 1;
+        if (aqiValue <= 100) return 2;
+        if (aqiValue <= 150) return 3;
+        if (aqiValue <= 200) return 4;
+        return 5;
+    }
+
+    private static int reasonIndex(int aqi, int precip, int temp, int wind, int uv) {
+        return (((aqi * PRECIP_REASON_BUCKETS + precip) * TEMP_REASON_BUCKETS + temp)
+                * WIND_REASON_BUCKETS + wind) * UV_REASON_BUCKETS + uv;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<List<String>> buildReasonSets() {
+        int size = AQI_REASON_BUCKETS * PRECIP_REASON_BUCKETS * TEMP_REASON_BUCKETS
+                * WIND_REASON_BUCKETS * UV_REASON_BUCKETS;
+        List<String>[] sets = new List[size];
+
+        for (int a = 0; a < AQI_REASON_BUCKETS; a++) {
+            for (int p = 0; p < PRECIP_REASON_BUCKETS; p++) {
+                for (int t = 0; t < TEMP_REASON_BUCKETS; t++) {
+                    for (int w = 0; w < WIND_REASON_BUCKETS; w++) {
+                        for (int u = 0; u < UV_REASON_BUCKETS; u++) {
+                            List<String> reasons = new ArrayList<>(5);
+                            addIfPresent(reasons, AQI_REASONS[a]);
+                            addIfPresent(reasons, PRECIP_REASONS[p]);
+                            addIfPresent(reasons, TEMP_REASONS[t]);
+                            addIfPresent(reasons, WIND_REASONS[w]);
+                            addIfPresent(reasons, UV_REASONS[u]);
+                            sets[reasonIndex(a, p, t, w, u)] = List.copyOf(reasons);
+                        }
+                    }
+                }
+            }
+        }
+
+        return List.of(sets);
+    }
+
+    private static void addIfPresent(List<String> reasons, String reason) {
+        if (reason != null) {
+            reasons.add(reason);
+        }
+    }
+}
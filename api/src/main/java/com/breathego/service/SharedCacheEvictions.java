@@ -0,0 +1,43 @@
+package com.breathego.service;
+
+import com.breathego.client.SharedUpstreamCache;
+import com.breathego.client.UpstreamResponseStore;
+import com.breathego.domain.Location;
+import com.breathego.repository.LocationRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops this instance's {@link ForecastCache} entries for locations in a
+ * grid cell another instance has just fetched, and the
+ * {@link UpstreamResponseStore}'s responses for the cell, so their next
+ * request reads the new shared response instead of serving older days until
+ * the TTL. Every instance then serves the same data, and the same ETags, for
+ * a location.
+ */
+@Component
+public class SharedCacheEvictions {
+
+    private final LocationRepository locationRepository;
+    private final ForecastCache forecastCache;
+    private final UpstreamResponseStore localStore;
+
+    public SharedCacheEvictions(
+            SharedUpstreamCache sharedCache,
+            LocationRepository locationRepository,
+            ForecastCache forecastCache,
+            UpstreamResponseStore localStore
+    ) {
+        this.locationRepository = locationRepository;
+        this.forecastCache = forecastCache;
+        this.localStore = localStore;
+        sharedCache.addUpdateListener(this::evict);
+    }
+
+    void evict(SharedUpstreamCache.Cell cell) {
+        localStore.evict(cell);
+        for (Location location : locationRepository.findByLatitudeBetweenAndLongitudeBetween(
+                cell.minLatitude(), cell.maxLatitude(), cell.minLongitude(), cell.maxLongitude())) {
+            forecastCache.evict(location.getId(), "shared-update");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.breathego.timing;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Per-request phase durations, reported in the {@code Server-Timing} header by
+ * {@link ServerTimingFilter}.
+ *
+ * The collector lives in a thread local for the duration of the request, so
+ * services and clients record phases without passing it around. Requests are
+ * served on one thread and upstream calls block on it, which keeps every
+ * phase on the thread that owns the collector. Outside a request (tests,
+ * benchmarks, startup) recording is a no-op.
+ */
+public final class RequestTimings {
+
+    public static final String LOCATION = "location";
+    public static final String UPSTREAM = "upstream";
+    public static final String CACHE_READ = "cache-read";
+    public static final String CACHE_WRITE = "cache-write";
+    public static final String LOCAL_STORE = "local-store";
+    public static final String SHARED_CACHE = "shared-cache";
+    public static final String SCORING = "scoring";
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+    private RequestTimings() {
+    }
+
+    static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static <T> T time(String phase, Supplier<T> work) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return work.get();
+        }
+        long started = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            timings.add(phase, System.nanoTime() - started);
+        }
+    }
+
+    public static void time(String phase, Runnable work) {
+        time(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void add(String phase, long nanos) {
+        phases.computeIfAbsent(phase, k -> new Phase()).add(nanos);
+    }
+
+    /**
+     * Header value, e.g. {@code upstream;dur=312.4;desc="2 calls", total;dur=318.0}.
+     */
+    String toHeader() {
+        StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, Phase> entry : phases.entrySet()) {
+            Phase phase = entry.getValue();
+            header.append(entry.getKey()).append(";dur=").append(millis(phase.nanos));
+            if (phase.count > 1) {
+                header.append(";desc=\"").append(phase.count).append(" calls\"");
+            }
+            header.append(", ");
+        }
+        return header.append("total;dur=").append(millis(System.nanoTime() - start)).toString();
+    }
+
+    String toJson() {
+        StringBuilder json = new StringBuilder("{\"totalMs\":").append(millis(System.nanoTime() - start))
+                .append(",\"phases\":[");
+        boolean first = true;
+        for (Map.Entry<String, Phase> entry : phases.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"name\":\"").append(entry.getKey())
+                    .append("\",\"ms\":").append(millis(entry.getValue().nanos))
+                    .append(",\"count\":").append(entry.getValue().count).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+
+    private static final class Phase {
+        private long nanos;
+        private int count;
+
+        private void add(long elapsed) {
+            nanos += elapsed;
+            count++;
+        }
+    }
+}
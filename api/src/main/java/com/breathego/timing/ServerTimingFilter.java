@@ -0,0 +1,123 @@
+package com.breathego.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * Adds a {@code Server-Timing} header to every API response. The header is
+ * written just before the response body starts, so it covers everything up to
+ * serialization.
+ *
+ * With {@code server-timing.debug-trailer=true}, clients that send
+ * {@code TE: trailers} also get a {@code Server-Timing-Debug} JSON trailer
+ * computed after the body, which includes serialization time.
+ */
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Server-Timing";
+    static final String DEBUG_TRAILER = "Server-Timing-Debug";
+
+    private final boolean enabled;
+    private final boolean debugTrailer;
+
+    public ServerTimingFilter(
+            @Value("${server-timing.enabled:true}") boolean enabled,
+            @Value("${server-timing.debug-trailer:false}") boolean debugTrailer
+    ) {
+        this.enabled = enabled;
+        this.debugTrailer = debugTrailer;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.begin();
+        TimingResponse wrapped = new TimingResponse(response, timings);
+        if (debugTrailer && acceptsTrailers(request)) {
+            response.setTrailerFields(() -> Map.of(DEBUG_TRAILER, timings.toJson()));
+        }
+        try {
+            chain.doFilter(request, wrapped);
+        } finally {
+            // Bodiless responses (204, empty 200) never opened the stream
+            wrapped.writeHeader();
+            RequestTimings.end();
+        }
+    }
+
+    private static boolean acceptsTrailers(HttpServletRequest request) {
+        String te = request.getHeader("TE");
+        return te != null && te.toLowerCase().contains("trailers");
+    }
+
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTimings timings;
+        private boolean written;
+
+        private TimingResponse(HttpServletResponse response, RequestTimings timings) {
+            super(response);
+            this.timings = timings;
+        }
+
+        private void writeHeader() {
+            if (!written && !isCommitted()) {
+                written = true;
+                setHeader(HEADER, timings.toHeader());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+-- Per-profile scores for each stored day. The default profile's score stays
+-- in daily_metrics.score; this table holds the additional profiles.
+CREATE TABLE daily_metrics_profile_scores (
+    daily_metrics_id BIGINT NOT NULL REFERENCES daily_metrics(id) ON DELETE CASCADE,
+    profile VARCHAR(50) NOT NULL,
+    score INTEGER NOT NULL CHECK (score >= 0 AND score <= 100),
+    PRIMARY KEY (daily_metrics_id, profile)
+);
@@ -0,0 +1,12 @@
+-- Raw Open-Meteo responses shared by every API instance, keyed by grid cell
+-- and endpoint (forecast.shared-cache.*). Unlogged: writes skip the WAL and
+-- aren't replicated, and the table is emptied after a crash, which only
+-- costs refetches.
+CREATE UNLOGGED TABLE upstream_cache (
+    cell VARCHAR(40) NOT NULL,
+    endpoint VARCHAR(20) NOT NULL,
+    days INTEGER NOT NULL,
+    body BYTEA NOT NULL,
+    fetched_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (cell, endpoint)
+);
@@ -0,0 +1,7 @@
+-- When each stored day last changed, for incremental trends
+-- (GET .../trends?since=). Existing rows count as changed when created.
+ALTER TABLE daily_metrics ADD COLUMN updated_at TIMESTAMP WITH TIME ZONE;
+UPDATE daily_metrics SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP);
+ALTER TABLE daily_metrics ALTER COLUMN updated_at SET NOT NULL;
+
+CREATE INDEX idx_daily_metrics_location_updated ON daily_metrics(location_id, updated_at);
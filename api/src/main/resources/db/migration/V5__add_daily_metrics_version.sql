@@ -0,0 +1,20 @@
+-- Trends versions, assigned by the database. Each write to daily_metrics
+-- takes the next value of the single clock row first and holds its lock
+-- until commit, so versions become visible in increasing order on every
+-- instance. Versions continue from the epoch milliseconds previously handed
+-- out, so a version a client already holds still works as ?since=.
+CREATE TABLE daily_metrics_clock (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    version BIGINT NOT NULL
+);
+
+ALTER TABLE daily_metrics ADD COLUMN version BIGINT;
+UPDATE daily_metrics SET version = CAST(EXTRACT(EPOCH FROM updated_at) * 1000 AS BIGINT);
+ALTER TABLE daily_metrics ALTER COLUMN version SET NOT NULL;
+
+INSERT INTO daily_metrics_clock (id, version)
+SELECT 1, GREATEST(COALESCE(MAX(version), 0), CAST(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP) * 1000 AS BIGINT))
+FROM daily_metrics;
+
+-- Incremental trends now read the window and compare versions in memory
+DROP INDEX idx_daily_metrics_location_updated;
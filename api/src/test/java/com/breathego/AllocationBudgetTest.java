@@ -0,0 +1,187 @@
+package com.breathego;
+
+import com.breathego.client.OpenMeteoClient;
+import com.breathego.controller.RenderedResponses;
+import com.breathego.domain.Location;
+import com.breathego.dto.AqiData;
+import com.breathego.dto.ForecastResponse;
+import com.breathego.dto.WeatherData;
+import com.breathego.repository.DailyMetricsRepository;
+import com.breathego.repository.LocationRepository;
+import com.breathego.service.BestWindowService;
+import com.breathego.service.DailyMetricsWriter;
+import com.breathego.service.ForecastCache;
+import com.breathego.service.ForecastService;
+import com.breathego.service.ResponseEncoder;
+import com.breathego.service.ScoringProfile;
+import com.breathego.service.ScoringService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.breathego.AllocationMeter.assertWithinBudget;
+import static com.breathego.AllocationMeter.bytesPerCall;
+
+/**
+ * Allocation budgets for the request paths, measured against recorded
+ * Open-Meteo payloads ({@link RecordedUpstreamConfig}) with H2 behind the
+ * repositories.
+ *
+ * Budgets sit roughly 25% above the measured allocation on JDK 17, so noise
+ * (about 1% run to run) doesn't fail the build but a real regression does.
+ * When a change raises or lowers a path's allocation on purpose, update its
+ * budget in the same change.
+ */
+@Tag("allocation")
+@SpringBootTest(properties = "logging.level.com.breathego=INFO")
+@Import(RecordedUpstreamConfig.class)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AllocationBudgetTest {
+
+    // Bytes per call; measured values in the comments
+    static final long PARSE_FORECAST_7D_BUDGET = 285_000;      // 228 KB
+    static final long PARSE_AIR_QUALITY_7D_BUDGET = 230_000;   // 183 KB
+    static final long SCORE_ALL_PROFILES_BUDGET = 200;         // 152 B
+    static final long FORECAST_BUDGET = 280_000;               // 224 KB
+    static final long FORECAST_CACHED_BUDGET = 16_500;         // 13 KB
+    static final long FORECAST_RENDERED_BUDGET = 15_500;       // 12 KB
+    static final long TRENDS_CACHED_BUDGET = 16_500;           // 13 KB
+    static final long TRENDS_DAILY_METRICS_BUDGET = 82_000;    // 65 KB
+    static final long TRENDS_UNCACHED_BUDGET = 945_000;        // 760 KB
+
+    private static final BigDecimal LATITUDE = new BigDecimal("51.5");
+    private static final BigDecimal LONGITUDE = new BigDecimal("-0.12");
+
+    @Autowired
+    private OpenMeteoClient openMeteoClient;
+
+    @Autowired
+    private ScoringService scoringService;
+
+    @Autowired
+    private ForecastService forecastService;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private DailyMetricsWriter dailyMetricsWriter;
+
+    @Autowired
+    private ForecastCache forecastCache;
+
+    @Autowired
+    private RenderedResponses renderedResponses;
+
+    private Long locationId;
+    private Object sink;
+
+    @BeforeAll
+    void createLocation() {
+        Location location = new Location("London", LATITUDE, LONGITUDE);
+        location.setTimezone(RecordedUpstreamConfig.ZONE.getId());
+        locationId = locationRepository.save(location).getId();
+    }
+
+    @Test
+    @DisplayName("Decoding and parsing a 7-day forecast stays within budget")
+    void parseForecast() {
+        long measured = bytesPerCall(2_000, 200,
+                () -> sink = openMeteoClient.getWeatherForecast(LATITUDE, LONGITUDE, 7));
+        assertWithinBudget("parse forecast (7 days)", PARSE_FORECAST_7D_BUDGET, measured);
+    }
+
+    @Test
+    @DisplayName("Decoding and parsing a 7-day air-quality forecast stays within budget")
+    void parseAirQuality() {
+        long measured = bytesPerCall(2_000, 200,
+                () -> sink = openMeteoClient.getAirQuality(LATITUDE, LONGITUDE, 7));
+        assertWithinBudget("parse air quality (7 days)", PARSE_AIR_QUALITY_7D_BUDGET, measured);
+    }
+
+    @Test
+    @DisplayName("Scoring a day under every profile stays within budget")
+    void scoreAllProfiles() {
+        List<WeatherData> weather = openMeteoClient.getWeatherForecast(LATITUDE, LONGITUDE, 7);
+        List<AqiData> aqi = openMeteoClient.getAirQuality(LATITUDE, LONGITUDE, 7);
+        int[] day = {0};
+        long measured = bytesPerCall(20_000, 2_000, () -> {
+            int i = day[0]++ % weather.size();
+            sink = scoringService.calculateAll(weather.get(i), aqi.get(i));
+        });
+        assertWithinBudget("score all profiles (1 day)", SCORE_ALL_PROFILES_BUDGET, measured);
+    }
+
+    @Test
+    @DisplayName("A forecast request that fetches upstream stays within budget")
+    void forecast() {
+        long measured = bytesPerCall(2_000, 200,
+                forecastCache::clear,
+                () -> sink = forecastService.getForecast(locationId));
+        assertWithinBudget("forecast", FORECAST_BUDGET, measured);
+    }
+
+    @Test
+    @DisplayName("A forecast request served from memory stays within budget")
+    void forecastCached() {
+        forecastService.getForecast(locationId);
+        long measured = bytesPerCall(2_000, 200, () -> sink = forecastService.getForecast(locationId));
+        assertWithinBudget("forecast (cached)", FORECAST_CACHED_BUDGET, measured);
+    }
+
+    @Test
+    @DisplayName("A forecast request served from rendered bytes stays within budget")
+    void forecastRendered() {
+        ResponseEncoder<ForecastResponse> encoder = renderedResponses.json(MediaType.APPLICATION_JSON, Function.identity());
+        forecastService.renderForecast(locationId, ScoringProfile.DEFAULT, BestWindowService.DEFAULT_WINDOW_HOURS, encoder);
+        long measured = bytesPerCall(2_000, 200, () -> sink = forecastService.renderForecast(
+                locationId, ScoringProfile.DEFAULT, BestWindowService.DEFAULT_WINDOW_HOURS, encoder));
+        assertWithinBudget("forecast (rendered)", FORECAST_RENDERED_BUDGET, measured);
+    }
+
+    @Test
+    @DisplayName("A trends request served from memory stays within budget")
+    void trendsCached() {
+        forecastService.getTrends(locationId, 7);
+        long measured = bytesPerCall(2_000, 200, () -> sink = forecastService.getTrends(locationId, 7));
+        assertWithinBudget("trends (cached)", TRENDS_CACHED_BUDGET, measured);
+    }
+
+    @Test
+    @DisplayName("A trends request served from daily_metrics stays within budget")
+    void trendsFromDailyMetrics() {
+        forecastService.getTrends(locationId, 7);
+        long measured = bytesPerCall(2_000, 200,
+                forecastCache::clear,
+                () -> sink = forecastService.getTrends(locationId, 7));
+        assertWithinBudget("trends (daily_metrics)", TRENDS_DAILY_METRICS_BUDGET, measured);
+    }
+
+    @Test
+    @DisplayName("A trends request that fetches, scores and stores stays within budget")
+    void trendsUncached() {
+        long measured = bytesPerCall(500, 100,
+                () -> {
+                    dailyMetricsWriter.flush();
+                    dailyMetricsRepository.deleteAll();
+                    forecastCache.clear();
+                },
+                () -> sink = forecastService.getTrends(locationId, 7));
+        assertWithinBudget("trends (uncached)", TRENDS_UNCACHED_BUDGET, measured);
+    }
+}
@@ -0,0 +1,70 @@
+package com.breathego;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures how many bytes a call allocates on the calling thread, using
+ * {@code com.sun.management.ThreadMXBean}. Only the calling thread is counted,
+ * so the code under test must not hand work to other threads.
+ *
+ * Tests using this belong in the {@code allocation} group, which runs in its
+ * own JVM.
+ */
+public final class AllocationMeter {
+
+    private static final Logger log = LoggerFactory.getLogger(AllocationMeter.class);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final int ROUNDS = 5;
+
+    private AllocationMeter() {
+    }
+
+    public static long bytesPerCall(int warmup, int iterations, Runnable call) {
+        return bytesPerCall(warmup, iterations, () -> { }, call);
+    }
+
+    /**
+     * Average bytes allocated per call, after {@code warmup} calls to let the
+     * JIT settle. Each round averages {@code iterations} calls and the median
+     * round is returned. {@code setup} runs before every call but isn't
+     * counted.
+     */
+    public static long bytesPerCall(int warmup, int iterations, Runnable setup, Runnable call) {
+        for (int i = 0; i < warmup; i++) {
+            setup.run();
+            call.run();
+        }
+        long[] rounds = new long[ROUNDS];
+        for (int r = 0; r < ROUNDS; r++) {
+            long total = 0;
+            for (int i = 0; i < iterations; i++) {
+                setup.run();
+                long before = THREADS.getCurrentThreadAllocatedBytes();
+                call.run();
+                total += THREADS.getCurrentThreadAllocatedBytes() - before;
+            }
+            rounds[r] = total / iterations;
+        }
+        Arrays.sort(rounds);
+        return rounds[ROUNDS / 2];
+    }
+
+    /**
+     * Fails when {@code measured} exceeds {@code budget}. The measurement is
+     * logged at debug either way, so budgets can be re-baselined from it.
+     */
+    public static void assertWithinBudget(String path, long budget, long measured) {
+        log.debug("allocation {} {} bytes/call (budget {})", path, measured, budget);
+        assertTrue(measured <= budget,
+                path + " allocated " + measured + " bytes per call, budget is " + budget
+                        + ". If the increase is intended, raise the budget in the same change.");
+    }
+}
@@ -0,0 +1,278 @@
+package com.breathego;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the packaged application as a separate process, by default the native
+ * executable built by {@code mvn -Pnative verify}, and exercises every
+ * endpoint once. Reflection or resource hints missing from the native image
+ * show up here as empty JSON fields or 500s rather than in the JVM tests.
+ *
+ * Open-Meteo is replaced by a MockWebServer serving the recorded payloads;
+ * the database comes from {@code it.datasource.*}, defaulting to the local
+ * Postgres from docker-compose. Skipped unless {@code it.app.command} is set.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class NativeBinaryIT {
+
+    private static final Logger log = LoggerFactory.getLogger(NativeBinaryIT.class);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    private MockWebServer openMeteo;
+    private Process app;
+    private Path output;
+    private String baseUrl;
+    private String managementUrl;
+    private long locationId;
+
+    @BeforeAll
+    void startApplication() throws Exception {
+        String command = System.getProperty("it.app.command", "");
+        assumeTrue(!command.isBlank(), "it.app.command not set");
+
+        openMeteo = new MockWebServer();
+        openMeteo.setDispatcher(new RecordedDispatcher());
+        openMeteo.start();
+
+        int port = freePort();
+        int managementPort = freePort();
+        baseUrl = "http://localhost:" + port;
+        managementUrl = "http://localhost:" + managementPort;
+
+        List<String> args = new ArrayList<>(List.of(command.trim().split("\\s+")));
+        args.add("--server.port=" + port);
+        // The flight recorder endpoint may only be exposed on a separate management port
+        args.add("--management.server.port=" + managementPort);
+        args.add("--management.endpoints.web.exposure.include=health,prometheus,flightrecorder");
+        args.add("--openmeteo.weather.url=" + openMeteo.url("/v1/forecast"));
+        args.add("--openmeteo.airquality.url=" + openMeteo.url("/v1/air-quality"));
+        args.add("--openmeteo.archive.url=" + openMeteo.url("/v1/archive"));
+        args.add("--openmeteo.geocoding.url=" + openMeteo.url("/geocoding/v1/search"));
+        args.add("--spring.datasource.url="
+                + System.getProperty("it.datasource.url", "jdbc:postgresql://localhost:5432/breathego"));
+        args.add("--spring.datasource.username=" + System.getProperty("it.datasource.username", "breathego"));
+        args.add("--spring.datasource.password=" + System.getProperty("it.datasource.password", "breathego123"));
+        // A fresh store, so nothing from another run is served instead of the recordings
+        args.add("--upstream-store.dir=" + Files.createTempDirectory("breathego-it-store"));
+        String extra = System.getProperty("it.app.args", "");
+        if (!extra.isBlank()) {
+            args.addAll(List.of(extra.trim().split("\\s+")));
+        }
+
+        output = Files.createTempFile("breathego-it", ".log");
+        long started = System.nanoTime();
+        app = new ProcessBuilder(args).redirectErrorStream(true).redirectOutput(output.toFile()).start();
+        awaitReady(started);
+
+        JsonNode created = json(send("POST", "/api/locations",
+                "{\"name\":\"Native IT\",\"latitude\":51.5072,\"longitude\":-0.1276,\"timezone\":\"Europe/London\"}"), 201);
+        locationId = created.get("id").asLong();
+    }
+
+    @AfterAll
+    void stopApplication() throws Exception {
+        if (app != null) {
+            if (locationId != 0) {
+                send("DELETE", "/api/locations/" + locationId, null);
+            }
+            app.destroy();
+            if (!app.waitFor(10, TimeUnit.SECONDS)) {
+                app.destroyForcibly();
+            }
+        }
+        if (openMeteo != null) {
+            openMeteo.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should return the location with all fields")
+    void getsLocation() throws Exception {
+        JsonNode location = json(send("GET", "/api/locations/" + locationId, null), 200);
+
+        assertEquals("Native IT", location.get("name").asText());
+        assertEquals("Europe/London", location.get("timezone").asText());
+        assertTrue(location.has("latitude"));
+    }
+
+    @Test
+    @DisplayName("Should serialize nested forecast records")
+    void getsForecast() throws Exception {
+        JsonNode forecast = json(send("GET", "/api/locations/" + locationId + "/forecast", null), 200);
+
+        assertEquals(locationId, forecast.get("locationId").asLong());
+        assertTrue(forecast.get("weather").has("temperatureMax"));
+        assertTrue(forecast.get("aqi").has("value"));
+        assertFalse(forecast.get("forecast").isEmpty());
+        assertTrue(forecast.get("forecast").get(0).has("bestWindow"));
+    }
+
+    @Test
+    @DisplayName("Should compute and then reuse daily metrics for trends")
+    void getsTrends() throws Exception {
+        String path = "/api/locations/" + locationId + "/trends?period=7";
+        JsonNode computed = json(send("GET", path, null), 200);
+        JsonNode cached = json(send("GET", path, null), 200);
+
+        assertFalse(computed.get("aqi").isEmpty());
+        assertEquals(computed.get("score"), cached.get("score"));
+    }
+
+    @Test
+    @DisplayName("Should map geocoding results")
+    void searchesLocations() throws Exception {
+        JsonNode results = json(send("GET", "/api/geocoding/search?query=London", null), 200);
+
+        assertEquals(5, results.size());
+        assertEquals("London", results.get(0).get("name").asText());
+        assertEquals("Europe/London", results.get(0).get("timezone").asText());
+    }
+
+    @Test
+    @DisplayName("Should return error bodies for unknown and invalid locations")
+    void returnsErrors() throws Exception {
+        JsonNode notFound = json(send("GET", "/api/locations/999999999", null), 404);
+        JsonNode invalid = json(send("POST", "/api/locations", "{\"latitude\":91,\"longitude\":0}"), 400);
+
+        assertEquals("NOT_FOUND", notFound.get("code").asText());
+        assertTrue(invalid.get("errors").has("name"));
+        assertTrue(invalid.get("errors").has("latitude"));
+    }
+
+    @Test
+    @DisplayName("Should expose metrics and flight recorder status")
+    void exposesActuator() throws Exception {
+        HttpResponse<String> prometheus = send(managementUrl, "GET", "/actuator/prometheus", null);
+        JsonNode recorder = json(send(managementUrl, "GET", "/actuator/flightrecorder", null), 200);
+        HttpResponse<String> onApiPort = send("GET", "/actuator/flightrecorder", null);
+
+        assertEquals(200, prometheus.statusCode());
+        assertTrue(prometheus.body().contains("http_server_requests_seconds"));
+        assertTrue(recorder.has("state"));
+        assertEquals(404, onApiPort.statusCode());
+    }
+
+    private void awaitReady(long started) throws Exception {
+        long deadline = started + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!app.isAlive()) {
+                fail("Application exited with " + app.exitValue() + "\n" + Files.readString(output));
+            }
+            try {
+                if (send(managementUrl, "GET", "/actuator/health/readiness", null).statusCode() == 200) {
+                    log.debug("native-it startup {} ms, rss {}",
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), residentSetSize());
+                    return;
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            Thread.sleep(100);
+        }
+        fail("Application not ready after " + STARTUP_TIMEOUT + "\n" + Files.readString(output));
+    }
+
+    /**
+     * VmRSS of the application process, where /proc is available.
+     */
+    private String residentSetSize() {
+        try {
+            return Files.readAllLines(Path.of("/proc", String.valueOf(app.pid()), "status")).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> line.substring("VmRSS:".length()).trim())
+                    .findFirst()
+                    .orElse("unknown");
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        return send(baseUrl, method, path, body);
+    }
+
+    private HttpResponse<String> send(String url, String method, String path, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(Duration.ofSeconds(10));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        request.method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body));
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private JsonNode json(HttpResponse<String> response, int expectedStatus) throws IOException {
+        assertEquals(expectedStatus, response.statusCode(), response.body());
+        return mapper.readTree(response.body());
+    }
+
+    private static final class RecordedDispatcher extends Dispatcher {
+
+        private final Map<String, byte[]> payloads = Map.of(
+                "forecast-3d.json", RecordedUpstreamConfig.payload("forecast-3d.json"),
+                "forecast-7d.json", RecordedUpstreamConfig.payload("forecast-7d.json"),
+                "air-quality-3d.json", RecordedUpstreamConfig.payload("air-quality-3d.json"),
+                "air-quality-7d.json", RecordedUpstreamConfig.payload("air-quality-7d.json"),
+                "geocoding.json", RecordedUpstreamConfig.payload("geocoding.json")
+        );
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            String path = request.getPath();
+            String days = path.contains("forecast_days=7") ? "7d" : "3d";
+            String name;
+            if (path.startsWith("/geocoding")) {
+                name = "geocoding.json";
+            } else if (path.startsWith("/v1/air-quality")) {
+                name = "air-quality-" + days + ".json";
+            } else {
+                name = "forecast-" + days + ".json";
+            }
+            return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody(new Buffer().write(payloads.get(name)));
+        }
+    }
+}
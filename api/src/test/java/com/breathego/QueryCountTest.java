@@ -0,0 +1,199 @@
+package com.breathego;
+
+import com.breathego.domain.Location;
+import com.breathego.repository.DailyMetricsRepository;
+import com.breathego.repository.LocationRepository;
+import com.breathego.service.DailyMetricsWriter;
+import com.breathego.service.ForecastCache;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statements per endpoint, counted with Hibernate statistics while the
+ * request runs through the full stack against H2 and recorded upstream
+ * payloads. A JDBC batch counts as one statement. A budget that is exceeded
+ * usually means an N+1 or a lazy load has crept in; when a change needs more
+ * queries on purpose, raise the budget in the same change.
+ *
+ * Fetched days are written to daily_metrics behind the request, so the
+ * writer only flushes when a test asks it to; its writes would otherwise
+ * land in whichever request the statistics happen to be counting.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "daily-metrics.write-behind.flush-interval=1h",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureMockMvc
+@Import(RecordedUpstreamConfig.class)
+@ActiveProfiles("test")
+class QueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private DailyMetricsWriter dailyMetricsWriter;
+
+    @Autowired
+    private ForecastCache forecastCache;
+
+    private Statistics statistics;
+    private Long locationId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        dailyMetricsWriter.flush();
+        dailyMetricsRepository.deleteAll();
+        locationRepository.deleteAll();
+        Location location = new Location("London", new BigDecimal("51.5"), new BigDecimal("-0.12"));
+        location.setTimezone(RecordedUpstreamConfig.ZONE.getId());
+        locationId = locationRepository.save(location).getId();
+    }
+
+    @Test
+    @DisplayName("GET /api/locations")
+    void listLocations() throws Exception {
+        assertQueries(1, get("/api/locations"));
+    }
+
+    @Test
+    @DisplayName("GET /api/locations/{id}")
+    void getLocation() throws Exception {
+        assertQueries(1, get("/api/locations/{id}", locationId));
+    }
+
+    @Test
+    @DisplayName("POST /api/locations")
+    void createLocation() throws Exception {
+        assertQueries(1, post("/api/locations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Paris\",\"latitude\":48.85,\"longitude\":2.35}"));
+    }
+
+    @Test
+    @DisplayName("DELETE /api/locations/{id}")
+    void deleteLocation() throws Exception {
+        assertQueries(2, delete("/api/locations/{id}", locationId));
+    }
+
+    @Test
+    @DisplayName("GET /api/locations/{id}/forecast")
+    void forecast() throws Exception {
+        assertQueries(1, get("/api/locations/{id}/forecast", locationId));
+    }
+
+    @Test
+    @DisplayName("POST /api/forecasts")
+    void forecasts() throws Exception {
+        Location paris = new Location("Paris", new BigDecimal("48.85"), new BigDecimal("2.35"));
+        Long parisId = locationRepository.save(paris).getId();
+        assertQueries(1, post("/api/forecasts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"locationIds\":[" + locationId + "," + parisId + ",-1]}"));
+    }
+
+    @Test
+    @DisplayName("GET /api/locations/{id}/dashboard, nothing cached")
+    void dashboardUncached() throws Exception {
+        assertQueries(1, get("/api/locations/{id}/dashboard", locationId));
+    }
+
+    @Test
+    @DisplayName("GET /api/locations/{id}/dashboard, in the memory cache")
+    void dashboardCached() throws Exception {
+        mockMvc.perform(get("/api/locations/{id}/dashboard", locationId));
+        assertQueries(1, get("/api/locations/{id}/dashboard", locationId));
+    }
+
+    @Test
+    @DisplayName("GET /api/locations/{id}/trends, nothing cached")
+    void trendsUncached() throws Exception {
+        assertQueries(2, get("/api/locations/{id}/trends?period=7", locationId));
+    }
+
+    @Test
+    @DisplayName("GET /api/locations/{id}/trends, in the memory cache")
+    void trendsCached() throws Exception {
+        mockMvc.perform(get("/api/locations/{id}/trends?period=7", locationId));
+        assertQueries(1, get("/api/locations/{id}/trends?period=7", locationId));
+    }
+
+    @Test
+    @DisplayName("GET /api/locations/{id}/trends, stored in daily_metrics")
+    void trendsFromDailyMetrics() throws Exception {
+        mockMvc.perform(get("/api/locations/{id}/trends?period=7", locationId));
+        dailyMetricsWriter.flush();
+        forecastCache.clear();
+        assertQueries(2, get("/api/locations/{id}/trends?period=7", locationId));
+    }
+
+    @Test
+    @DisplayName("GET /api/locations/{id}/trends with a non-default profile, stored in daily_metrics")
+    void trendsFromDailyMetricsProfile() throws Exception {
+        mockMvc.perform(get("/api/locations/{id}/trends?period=7", locationId));
+        dailyMetricsWriter.flush();
+        forecastCache.clear();
+        assertQueries(2, get("/api/locations/{id}/trends?period=7&profile=runner", locationId));
+    }
+
+    @Test
+    @DisplayName("GET /api/locations/{id}/trends?since=, with nothing changed")
+    void trendsSince() throws Exception {
+        mockMvc.perform(get("/api/locations/{id}/trends?period=7", locationId));
+        dailyMetricsWriter.flush();
+        forecastCache.clear();
+        // Versions are assigned as the days are written
+        Number version = JsonPath.read(mockMvc.perform(get("/api/locations/{id}/trends?period=7", locationId))
+                .andReturn().getResponse().getContentAsString(), "$.version");
+        assertQueries(2, get("/api/locations/{id}/trends?period=7&since={version}", locationId, version));
+    }
+
+    @Test
+    @DisplayName("GET /api/geocoding/search")
+    void geocoding() throws Exception {
+        assertQueries(0, get("/api/geocoding/search?query=London"));
+    }
+
+    private void assertQueries(long budget, RequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+        long statements = statistics.getPrepareStatementCount();
+        MockHttpServletRequest sent = request.buildRequest(new MockServletContext());
+        assertTrue(statements <= budget, sent.getMethod() + " " + sent.getRequestURI() + " ran "
+                + statements + " SQL statements, budget is " + budget);
+    }
+}
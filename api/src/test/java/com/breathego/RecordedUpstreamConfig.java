@@ -0,0 +1,101 @@
+package com.breathego;
+
+import com.breathego.client.UpstreamMetricsFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Serves the recorded Open-Meteo payloads in {@code src/test/resources/openmeteo}
+ * in place of the real APIs. The exchange completes on the calling thread, so
+ * decoding happens inside the call under test.
+ *
+ * Payload dates are moved to start today in {@link #ZONE}, so locations in
+ * that zone get cache hits on the next trends request.
+ */
+@TestConfiguration
+public class RecordedUpstreamConfig {
+
+    public static final ZoneId ZONE = ZoneId.of("Europe/London");
+
+    @Bean
+    @Primary
+    WebClient recordedWebClient(UpstreamMetricsFilter upstreamMetricsFilter) {
+        byte[] forecast3 = payload("forecast-3d.json");
+        byte[] forecast7 = payload("forecast-7d.json");
+        byte[] airQuality3 = payload("air-quality-3d.json");
+        byte[] airQuality7 = payload("air-quality-7d.json");
+        byte[] geocoding = payload("geocoding.json");
+
+        return WebClient.builder()
+                .filter(upstreamMetricsFilter)
+                .exchangeFunction(request -> {
+                    String url = request.url().toString();
+                    boolean week = url.contains("forecast_days=7");
+                    byte[] body;
+                    if (url.contains("geocoding")) {
+                        body = geocoding;
+                    } else if (url.contains("air-quality")) {
+                        body = week ? airQuality7 : airQuality3;
+                    } else {
+                        body = week ? forecast7 : forecast3;
+                    }
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body))))
+                            .build());
+                })
+                .build();
+    }
+
+    /**
+     * A recorded payload with its dates moved to start today in {@link #ZONE}.
+     */
+    public static byte[] payload(String name) {
+        ObjectMapper mapper = new ObjectMapper();
+        try {
+            JsonNode payload = mapper.readTree(new ClassPathResource("openmeteo/" + name).getInputStream());
+            JsonNode hourly = payload.path("hourly").path("time");
+            if (hourly.size() > 0) {
+                LocalDate recorded = LocalDate.parse(hourly.get(0).asText().substring(0, 10));
+                shiftDates(payload, ChronoUnit.DAYS.between(recorded, LocalDate.now(ZONE)));
+            }
+            return mapper.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void shiftDates(JsonNode payload, long days) {
+        for (String section : List.of("daily", "hourly")) {
+            if (payload.path(section).path("time") instanceof ArrayNode times) {
+                for (int i = 0; i < times.size(); i++) {
+                    String value = times.get(i).asText();
+                    times.set(i, value.length() == 10
+                            ? LocalDate.parse(value).plusDays(days).toString()
+                            : LocalDateTime.parse(value).plusDays(days).toString());
+                }
+            }
+        }
+    }
+}
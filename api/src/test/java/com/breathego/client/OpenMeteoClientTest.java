@@ -37,7 +37,8 @@ class OpenMeteoClientTest {
         openMeteoClient = new OpenMeteoClient(
                 webClient,
                 baseUrl + "v1/forecast",
-                baseUrl + "v1/air-quality"
+                baseUrl + "v1/air-quality",
+                baseUrl + "v1/archive"
         );
     }
 
@@ -126,6 +127,46 @@ class OpenMeteoClientTest {
             assertEquals(0, new BigDecimal("3.5").compareTo(day1.uvIndex()));
         }
 
+        @Test
+        @DisplayName("Should request and keep hourly weather from the same call")
+        void shouldKeepHourlyWeather() throws InterruptedException {
+            String response = """
+                {
+                    "daily": {
+                        "time": ["2026-02-10"],
+                        "temperature_2m_max": [12.0],
+                        "temperature_2m_min": [3.0],
+                        "precipitation_sum": [0.4],
+                        "wind_speed_10m_max": [18.0]
+                    },
+                    "hourly": {
+                        "time": ["2026-02-10T08:00", "2026-02-10T09:00"],
+                        "temperature_2m": [6.5, null],
+                        "precipitation": [0.0, 0.4],
+                        "wind_speed_10m": [9.0, 11.5]
+                    }
+                }
+                """;
+            mockWebServer.enqueue(new MockResponse()
+                    .setBody(response)
+                    .addHeader("Content-Type", "application/json"));
+
+            List<WeatherData> result = openMeteoClient.getWeatherForecast(
+                    new BigDecimal("40.7128"), new BigDecimal("-74.006"), 1);
+
+            String requestUrl = mockWebServer.takeRequest().getPath();
+            assertTrue(requestUrl.contains("hourly=temperature_2m,precipitation,wind_speed_10m"),
+                    "Should request hourly weather in the forecast call");
+
+            WeatherData.Hourly hourly = result.get(0).hourly();
+            assertNotNull(hourly);
+            assertEquals(6.5, hourly.temperature()[8]);
+            assertTrue(Double.isNaN(hourly.temperature()[9]));
+            assertEquals(0.4, hourly.precipitation()[9]);
+            assertEquals(11.5, hourly.windSpeed()[9]);
+            assertTrue(Double.isNaN(hourly.windSpeed()[10]));
+        }
+
         @Test
         @DisplayName("Should handle null values in weather response")
         void shouldHandleNullValuesInWeatherResponse() {
@@ -267,6 +308,35 @@ class OpenMeteoClientTest {
             assertEquals(55, day2.usAqi());
         }
 
+        @Test
+        @DisplayName("Should keep the hourly AQI series on each day")
+        void shouldKeepHourlyAqiSeries() {
+            String response = """
+                {
+                    "hourly": {
+                        "time": ["2026-02-10T00:00", "2026-02-10T13:00", "2026-02-11T07:00"],
+                        "us_aqi": [40, 85, null],
+                        "pm2_5": [10.0, 25.0, 12.0],
+                        "ozone": [20.0, 35.0, 22.0]
+                    }
+                }
+                """;
+            mockWebServer.enqueue(new MockResponse()
+                    .setBody(response)
+                    .addHeader("Content-Type", "application/json"));
+
+            List<AqiData> result = openMeteoClient.getAirQuality(
+                    new BigDecimal("40.7128"), new BigDecimal("-74.006"), 2);
+
+            int[] day1 = result.get(0).hourlyUsAqi();
+            assertEquals(24, day1.length);
+            assertEquals(40, day1[0]);
+            assertEquals(85, day1[13]);
+            assertEquals(AqiData.MISSING_HOUR, day1[12]);
+            assertEquals(AqiData.MISSING_HOUR, result.get(1).hourlyUsAqi()[7]);
+            assertNull(result.get(1).usAqi());
+        }
+
         @Test
         @DisplayName("Should handle null values in hourly AQI response")
         void shouldHandleNullValuesInAqiResponse() {
@@ -320,6 +390,82 @@ class OpenMeteoClientTest {
         }
     }
 
+    @Nested
+    @DisplayName("Batch Forecast Tests")
+    class BatchForecastTests {
+
+        @Test
+        @DisplayName("Should fetch many coordinates per request and fail only the failed request's coordinates")
+        void shouldBatchCoordinates() throws InterruptedException {
+            // Given - two coordinates per request, one request at a time
+            OpenMeteoClient batching = new OpenMeteoClient(
+                    WebClient.builder().build(),
+                    mockWebServer.url("/v1/forecast").toString(), "", "",
+                    UpstreamResponseStore.disabled(), SharedUpstreamCache.disabled(), 2, 1);
+            String location = """
+                {
+                    "latitude": %s,
+                    "daily": {
+                        "time": ["2026-02-10"],
+                        "temperature_2m_max": [%s],
+                        "temperature_2m_min": [0.0],
+                        "precipitation_sum": [0.0],
+                        "wind_speed_10m_max": [10.0],
+                        "uv_index_max": [2.0]
+                    }
+                }
+                """;
+            mockWebServer.enqueue(new MockResponse()
+                    .setBody("[" + location.formatted("1.5", "11.0") + "," + location.formatted("2.5", "12.0") + "]")
+                    .addHeader("Content-Type", "application/json"));
+            mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+
+            // When
+            List<List<WeatherData>> result = batching.getWeatherForecasts(List.of(
+                    new OpenMeteoClient.Coordinates(new BigDecimal("1.5"), new BigDecimal("10.0")),
+                    new OpenMeteoClient.Coordinates(new BigDecimal("2.5"), new BigDecimal("20.0")),
+                    new OpenMeteoClient.Coordinates(new BigDecimal("3.5"), new BigDecimal("30.0"))), 1);
+
+            // Then
+            assertEquals(3, result.size());
+            assertEquals(0, new BigDecimal("11.0").compareTo(result.get(0).get(0).temperatureMax()));
+            assertEquals(0, new BigDecimal("12.0").compareTo(result.get(1).get(0).temperatureMax()));
+            assertNull(result.get(2));
+
+            assertEquals(2, mockWebServer.getRequestCount());
+            String first = mockWebServer.takeRequest().getPath();
+            assertTrue(first.contains("latitude=1.5,2.5&longitude=10.0,20.0"), first);
+            String second = mockWebServer.takeRequest().getPath();
+            assertTrue(second.contains("latitude=3.5&longitude=30.0"), second);
+        }
+
+        @Test
+        @DisplayName("Should read a single-coordinate response as an object")
+        void shouldAcceptSingleObject() {
+            // Given
+            mockWebServer.enqueue(new MockResponse()
+                    .setBody("""
+                        {
+                            "hourly": {
+                                "time": ["2026-02-10T00:00", "2026-02-10T01:00"],
+                                "us_aqi": [40, 45],
+                                "pm2_5": [10.0, 11.0],
+                                "ozone": [50.0, 52.0]
+                            }
+                        }
+                        """)
+                    .addHeader("Content-Type", "application/json"));
+
+            // When
+            List<List<AqiData>> result = openMeteoClient.getAirQualities(List.of(
+                    new OpenMeteoClient.Coordinates(new BigDecimal("40.7128"), new BigDecimal("-74.006"))), 1);
+
+            // Then
+            assertEquals(1, result.size());
+            assertEquals(45, result.get(0).get(0).usAqi());
+        }
+    }
+
     @Nested
     @DisplayName("Historical Data API Tests")
     class HistoricalDataTests {
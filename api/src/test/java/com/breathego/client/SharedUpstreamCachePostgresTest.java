@@ -0,0 +1,127 @@
+package com.breathego.client;
+
+import com.breathego.cluster.ClusterCoordinator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Conflicting writes on PostgreSQL, where a unique violation would abort the
+ * caller's transaction. Runs against {@code -Dit.datasource.url=} (with
+ * {@code it.datasource.username} and {@code .password}, as for
+ * NativeBinaryIT), and is skipped without one.
+ */
+class SharedUpstreamCachePostgresTest {
+
+    private static final String ENDPOINT = "it-forecast";
+    private static final BigDecimal LATITUDE = new BigDecimal("51.5074");
+    private static final BigDecimal LONGITUDE = new BigDecimal("-0.1278");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ClusterCoordinator coordinator;
+    private SharedUpstreamCache first;
+    private SharedUpstreamCache second;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getProperty("it.datasource.url", "");
+        assumeTrue(url.startsWith("jdbc:postgresql:"), "Set -Dit.datasource.url to a PostgreSQL database");
+        dataSource = new DriverManagerDataSource(url,
+                System.getProperty("it.datasource.username", "breathego"),
+                System.getProperty("it.datasource.password", "breathego123"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE IF NOT EXISTS upstream_cache (cell VARCHAR(40) NOT NULL, "
+                + "endpoint VARCHAR(20) NOT NULL, days INTEGER NOT NULL, body BYTEA NOT NULL, "
+                + "fetched_at TIMESTAMP WITH TIME ZONE NOT NULL, PRIMARY KEY (cell, endpoint))");
+        jdbcTemplate.update("DELETE FROM upstream_cache WHERE endpoint = ?", ENDPOINT);
+        coordinator = new ClusterCoordinator(dataSource, false, Duration.ofSeconds(10), 64, meterRegistry);
+        // Two instances sharing the table
+        first = cache();
+        second = cache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dataSource == null) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM upstream_cache WHERE endpoint = ?", ENDPOINT);
+        first.shutdown();
+        second.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should keep the caller's transaction usable when a fresh longer row is already stored")
+    void keepsTransactionOnConflict() {
+        first.put(ENDPOINT, LATITUDE, LONGITUDE, 7, response(7));
+
+        Integer after = new TransactionTemplate(new DataSourceTransactionManager(dataSource)).execute(status -> {
+            second.put(ENDPOINT, LATITUDE, LONGITUDE, 3, response(3));
+            return jdbcTemplate.queryForObject("SELECT days FROM upstream_cache WHERE endpoint = ?",
+                    Integer.class, ENDPOINT);
+        });
+
+        assertEquals(7, after);
+        assertEquals(7, first.get(ENDPOINT, LATITUDE, LONGITUDE, 3).get("days").asInt());
+    }
+
+    @Test
+    @DisplayName("Should store one row when instances insert the same cell at once, without failing either")
+    void concurrentInserts() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = List.of(
+                    executor.submit(() -> putInTransaction(first, start, 7)),
+                    executor.submit(() -> putInTransaction(second, start, 7)));
+            start.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM upstream_cache WHERE endpoint = ?",
+                Integer.class, ENDPOINT));
+    }
+
+    /** Puts, then runs one more statement in the same transaction. */
+    private Integer putInTransaction(SharedUpstreamCache cache, CountDownLatch start, int days) throws Exception {
+        start.await();
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource)).execute(status -> {
+            cache.put(ENDPOINT, LATITUDE, LONGITUDE, days, response(days));
+            return jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+        });
+    }
+
+    private SharedUpstreamCache cache() {
+        return new SharedUpstreamCache(dataSource, objectMapper, true, 0.01, Duration.ofMinutes(30),
+                coordinator, meterRegistry);
+    }
+
+    private JsonNode response(int days) {
+        return objectMapper.createObjectNode().put("days", days);
+    }
+}
@@ -0,0 +1,143 @@
+package com.breathego.client;
+
+import com.breathego.cluster.ClusterCoordinator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The shared cache on H2, which stands in for PostgreSQL apart from
+ * LISTEN/NOTIFY; notifications are fed to the listener side directly.
+ */
+class SharedUpstreamCacheTest {
+
+    private static final BigDecimal LATITUDE = new BigDecimal("51.5074");
+    private static final BigDecimal LONGITUDE = new BigDecimal("-0.1278");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ClusterCoordinator coordinator;
+    private SharedUpstreamCache cache;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:shared-cache;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // V3 migration without UNLOGGED, which H2 doesn't know
+        jdbcTemplate.execute("DROP TABLE IF EXISTS upstream_cache");
+        jdbcTemplate.execute("CREATE TABLE upstream_cache (cell VARCHAR(40) NOT NULL, endpoint VARCHAR(20) NOT NULL, "
+                + "days INTEGER NOT NULL, body BYTEA NOT NULL, fetched_at TIMESTAMP WITH TIME ZONE NOT NULL, "
+                + "PRIMARY KEY (cell, endpoint))");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Not enabled: the only instance, so it leads
+        coordinator = new ClusterCoordinator(dataSource, false, Duration.ofSeconds(10), 64,
+                meterRegistry);
+        cache = new SharedUpstreamCache(dataSource, objectMapper, true, 0.01, Duration.ofMinutes(30),
+                coordinator, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should serve a stored response to nearby coordinates for as many days or fewer")
+    void servesCellForFewerDays() {
+        cache.put("forecast", LATITUDE, LONGITUDE, 7, response(7));
+
+        JsonNode nearby = cache.get("forecast", new BigDecimal("51.5091"), new BigDecimal("-0.1301"), 3);
+        assertEquals(7, nearby.get("days").asInt());
+        assertNull(cache.get("forecast", LATITUDE, LONGITUDE, 16));
+        assertNull(cache.get("air-quality", LATITUDE, LONGITUDE, 3));
+        assertNull(cache.get("forecast", new BigDecimal("51.52"), LONGITUDE, 3));
+    }
+
+    @Test
+    @DisplayName("Should keep a fresh longer response over a shorter one, but replace a stale one")
+    void keepsLongestFreshResponse() {
+        cache.put("forecast", LATITUDE, LONGITUDE, 7, response(7));
+        cache.put("forecast", LATITUDE, LONGITUDE, 3, response(3));
+        assertEquals(7, cache.get("forecast", LATITUDE, LONGITUDE, 3).get("days").asInt());
+
+        jdbcTemplate.update("UPDATE upstream_cache SET fetched_at = ?", Timestamp.from(Instant.now().minusSeconds(3600)));
+        assertNull(cache.get("forecast", LATITUDE, LONGITUDE, 3));
+        cache.put("forecast", LATITUDE, LONGITUDE, 3, response(3));
+        assertEquals(3, cache.get("forecast", LATITUDE, LONGITUDE, 3).get("days").asInt());
+    }
+
+    @Test
+    @DisplayName("Should purge only expired rows")
+    void purgesExpiredRows() {
+        cache.put("forecast", LATITUDE, LONGITUDE, 7, response(7));
+        cache.put("air-quality", LATITUDE, LONGITUDE, 7, response(7));
+        jdbcTemplate.update("UPDATE upstream_cache SET fetched_at = ? WHERE endpoint = 'forecast'",
+                Timestamp.from(Instant.now().minusSeconds(3600)));
+
+        assertEquals(1, cache.purgeExpired());
+        assertNotNull(cache.get("air-quality", LATITUDE, LONGITUDE, 7));
+    }
+
+    @Test
+    @DisplayName("Should tell update listeners about other instances' cells only")
+    void notifiesOtherInstancesCells() {
+        List<SharedUpstreamCache.Cell> updated = new ArrayList<>();
+        cache.addUpdateListener(updated::add);
+
+        cache.onNotification("another-node 5151:-13 forecast");
+        assertEquals(1, updated.size());
+        SharedUpstreamCache.Cell cell = updated.get(0);
+        assertEquals(cache.cellOf(LATITUDE, LONGITUDE), cell);
+        assertTrue(cell.minLatitude().compareTo(LATITUDE) <= 0 && cell.maxLatitude().compareTo(LATITUDE) >= 0);
+        assertTrue(cell.minLongitude().compareTo(LONGITUDE) <= 0 && cell.maxLongitude().compareTo(LONGITUDE) >= 0);
+    }
+
+    @Test
+    @DisplayName("Should not take the database for PostgreSQL when it can't be reached at startup")
+    void startsWithoutPostgresWhenUnreachable() {
+        AtomicBoolean reachable = new AtomicBoolean();
+        DataSource flaky = new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (!reachable.getAndSet(true)) {
+                    throw new SQLException("Connection refused");
+                }
+                return super.getConnection();
+            }
+        };
+        SharedUpstreamCache started = new SharedUpstreamCache(flaky, objectMapper, true, 0.01,
+                Duration.ofMinutes(30), coordinator, new SimpleMeterRegistry());
+
+        // H2 would reject PostgreSQL's upsert and pg_notify
+        started.put("forecast", LATITUDE, LONGITUDE, 7, response(7));
+        assertEquals(7, started.get("forecast", LATITUDE, LONGITUDE, 7).get("days").asInt());
+    }
+
+    @Test
+    @DisplayName("Should do nothing when disabled")
+    void disabledIsEmpty() {
+        SharedUpstreamCache disabled = SharedUpstreamCache.disabled();
+        disabled.put("forecast", LATITUDE, LONGITUDE, 7, response(7));
+        assertNull(disabled.get("forecast", LATITUDE, LONGITUDE, 7));
+    }
+
+    private JsonNode response(int days) {
+        return objectMapper.createObjectNode().put("days", days);
+    }
+}
@@ -0,0 +1,132 @@
+package com.breathego.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamMetricsFilterTest {
+
+    private MockWebServer mockWebServer;
+    private SimpleMeterRegistry registry;
+    private UpstreamMetricsFilter filter;
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        registry = new SimpleMeterRegistry();
+        filter = new UpstreamMetricsFilter(registry);
+        webClient = WebClient.builder().filter(filter).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should time calls by endpoint and status and record payload size")
+    void recordsTimerAndPayloadSize() {
+        String body = "{\"daily\":{\"time\":[\"2026-02-10\"]}}";
+        mockWebServer.enqueue(new MockResponse().setBody(body).addHeader("Content-Type", "application/json"));
+
+        call("forecast");
+
+        Timer timer = registry.get("breathego.upstream.requests")
+                .tags("endpoint", "forecast", "status", "200", "outcome", "SUCCESS").timer();
+        assertEquals(1, timer.count());
+        DistributionSummary size = registry.get("breathego.upstream.response.size")
+                .tag("endpoint", "forecast").summary();
+        assertEquals(body.length(), size.totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should report upstream DOWN after repeated failures, and probe only then until a call succeeds")
+    void healthFollowsConsecutiveFailures() {
+        AtomicInteger probes = new AtomicInteger();
+        OpenMeteoHealthIndicator health = new OpenMeteoHealthIndicator(filter, () -> {
+            probes.incrementAndGet();
+            call("probe");
+        }, Duration.ofHours(1));
+        health.probeWhileDown();
+        assertEquals(0, probes.get());
+        for (int i = 0; i < OpenMeteoHealthIndicator.FAILURE_THRESHOLD; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(503).setBody("{}"));
+            assertThrows(WebClientResponseException.class, () -> call("air-quality"));
+        }
+
+        assertEquals(Status.DOWN, health.health().getStatus());
+        assertEquals(OpenMeteoHealthIndicator.FAILURE_THRESHOLD, registry.get("breathego.upstream.requests")
+                .tags("endpoint", "air-quality", "outcome", "SERVER_ERROR").timer().count());
+
+        // Out of rotation, no traffic: the probe brings it back
+        mockWebServer.enqueue(new MockResponse().setBody("{}").addHeader("Content-Type", "application/json"));
+        health.probeWhileDown();
+
+        assertEquals(1, probes.get());
+        assertEquals(Status.UP, health.health().getStatus());
+        health.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should emit a JFR event with the endpoint, coordinates and payload size")
+    void emitsFlightRecorderEvent() throws IOException {
+        String body = "{\"hourly\":{}}";
+        mockWebServer.enqueue(new MockResponse().setBody(body).addHeader("Content-Type", "application/json"));
+
+        Path file = Files.createTempFile("upstream", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.breathego.UpstreamRequest");
+            recording.start();
+            call("forecast", "/v1/forecast?latitude=52.52&longitude=13.41&forecast_days=3");
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("forecast", event.getString("endpoint"));
+        assertEquals(52.52, event.getDouble("latitude"));
+        assertEquals(13.41, event.getDouble("longitude"));
+        assertEquals(200, event.getInt("status"));
+        assertEquals(body.length(), event.getLong("bytes"));
+    }
+
+    private JsonNode call(String endpoint) {
+        return call(endpoint, "/v1/test");
+    }
+
+    private JsonNode call(String endpoint, String path) {
+        return webClient.get()
+                .uri(mockWebServer.url(path).toString())
+                .attribute(UpstreamMetricsFilter.ENDPOINT_ATTRIBUTE, endpoint)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .block();
+    }
+}
@@ -0,0 +1,146 @@
+package com.breathego.client;
+
+import com.breathego.dto.GeocodingResult;
+import com.breathego.dto.WeatherData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamRecorderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Should replay recorded responses against other base URLs without going upstream")
+    void replaysRecording() throws Exception {
+        Path file = dir.resolve("recording.jsonl");
+        byte[] forecast = new ClassPathResource("openmeteo/forecast-3d.json").getContentAsByteArray();
+        byte[] geocoding = new ClassPathResource("openmeteo/geocoding.json").getContentAsByteArray();
+        AtomicInteger calls = new AtomicInteger();
+        UpstreamRecorder recorder = new UpstreamRecorder(objectMapper, UpstreamRecorder.Mode.RECORD, file, false);
+        WebClient live = WebClient.builder()
+                .filter(recorder)
+                .exchangeFunction(request -> {
+                    calls.incrementAndGet();
+                    return Mono.just(json(request.url().getPath().contains("search") ? geocoding : forecast));
+                })
+                .build();
+        List<WeatherData> recorded = new OpenMeteoClient(live, "http://live/v1/forecast", "", "")
+                .getWeatherForecast(new BigDecimal("51.5074000"), new BigDecimal("-0.1278000"), 3);
+        List<GeocodingResult> searched = new GeocodingClient(live, "http://live/v1/search").search("london", 5);
+        recorder.close();
+        assertEquals(2, calls.get());
+
+        WebClient offline = WebClient.builder()
+                .filter(new UpstreamRecorder(objectMapper, UpstreamRecorder.Mode.REPLAY, file, false))
+                .exchangeFunction(request -> Mono.error(new AssertionError("Went upstream: " + request.url())))
+                .build();
+        List<WeatherData> replayed = new OpenMeteoClient(offline, "http://local/forecast", "", "")
+                .getWeatherForecast(new BigDecimal("51.5074"), new BigDecimal("-0.1278"), 3);
+        assertEquals(recorded.size(), replayed.size());
+        for (int i = 0; i < recorded.size(); i++) {
+            assertEquals(recorded.get(i).date(), replayed.get(i).date());
+            assertEquals(recorded.get(i).temperatureMax(), replayed.get(i).temperatureMax());
+            assertArrayEquals(recorded.get(i).hourly().temperature(), replayed.get(i).hourly().temperature());
+        }
+        assertEquals(searched, new GeocodingClient(offline, "http://local/search").search("london", 5));
+    }
+
+    @Test
+    @DisplayName("Should move recorded forecast dates to today and answer 404 for unrecorded calls")
+    void shiftsDatesAndRejectsUnrecorded() throws Exception {
+        Path file = dir.resolve("recording.jsonl");
+        LocalDate recordedAt = LocalDate.now(ZoneOffset.UTC).minusDays(3);
+        String body = "{\"daily\":{\"time\":[\"" + recordedAt + "\"]},\"hourly\":{\"time\":[\"" + recordedAt
+                + "T06:00\"]}}";
+        Files.writeString(file, objectMapper.createObjectNode()
+                .put("endpoint", "forecast")
+                .put("key", UpstreamRecorder.key("forecast", "latitude=1.50&longitude=2&forecast_days=1"))
+                .put("recordedAt", recordedAt.toString())
+                .put("status", 200)
+                .put("contentType", MediaType.APPLICATION_JSON_VALUE)
+                .put("latencyMillis", 120.5)
+                .put("body", body)
+                .toString() + "\n");
+        WebClient offline = WebClient.builder()
+                .filter(new UpstreamRecorder(objectMapper, UpstreamRecorder.Mode.REPLAY, file, false))
+                .exchangeFunction(request -> Mono.error(new AssertionError("Went upstream: " + request.url())))
+                .build();
+
+        JsonNode replayed = offline.get().uri("http://local/forecast?latitude=1.5&longitude=2.000&forecast_days=1")
+                .attribute(UpstreamMetricsFilter.ENDPOINT_ATTRIBUTE, "forecast")
+                .retrieve().bodyToMono(JsonNode.class).block();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        assertEquals(today.toString(), replayed.at("/daily/time/0").asText());
+        assertEquals(today + "T06:00", replayed.at("/hourly/time/0").asText());
+
+        HttpStatus missing = offline.get().uri("http://local/forecast?latitude=9&longitude=9&forecast_days=1")
+                .attribute(UpstreamMetricsFilter.ENDPOINT_ATTRIBUTE, "forecast")
+                .exchangeToMono(response -> Mono.just(HttpStatus.valueOf(response.statusCode().value())))
+                .block();
+        assertEquals(HttpStatus.NOT_FOUND, missing);
+    }
+
+    @Test
+    @DisplayName("Should normalize each coordinate of a multi-location request and shift every location's dates")
+    void replaysMultiLocationRecording() throws Exception {
+        assertEquals("forecast latitude=1.5,2.3&longitude=-0.12,10&forecast_days=1",
+                UpstreamRecorder.key("forecast", "latitude=1.50,2.30&longitude=-0.1200%2C10.0&forecast_days=1"));
+
+        Path file = dir.resolve("recording.jsonl");
+        LocalDate recordedAt = LocalDate.now(ZoneOffset.UTC).minusDays(2);
+        String location = "{\"daily\":{\"time\":[\"" + recordedAt + "\"]}}";
+        Files.writeString(file, objectMapper.createObjectNode()
+                .put("endpoint", "forecast")
+                .put("key", UpstreamRecorder.key("forecast", "latitude=1.50,2.30&longitude=2,4&forecast_days=1"))
+                .put("recordedAt", recordedAt.toString())
+                .put("status", 200)
+                .put("contentType", MediaType.APPLICATION_JSON_VALUE)
+                .put("latencyMillis", 80.0)
+                .put("body", "[" + location + "," + location + "]")
+                .toString() + "\n");
+        WebClient offline = WebClient.builder()
+                .filter(new UpstreamRecorder(objectMapper, UpstreamRecorder.Mode.REPLAY, file, false))
+                .exchangeFunction(request -> Mono.error(new AssertionError("Went upstream: " + request.url())))
+                .build();
+
+        JsonNode replayed = offline.get()
+                .uri("http://local/forecast?latitude=1.5,2.300&longitude=2.0,4&forecast_days=1")
+                .attribute(UpstreamMetricsFilter.ENDPOINT_ATTRIBUTE, "forecast")
+                .retrieve().bodyToMono(JsonNode.class).block();
+        String today = LocalDate.now(ZoneOffset.UTC).toString();
+        assertEquals(today, replayed.at("/0/daily/time/0").asText());
+        assertEquals(today, replayed.at("/1/daily/time/0").asText());
+    }
+
+    private static ClientResponse json(byte[] body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body))))
+                .build();
+    }
+}
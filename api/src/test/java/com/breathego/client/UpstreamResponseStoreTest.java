@@ -0,0 +1,168 @@
+package com.breathego.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamResponseStoreTest {
+
+    private static final BigDecimal LATITUDE = new BigDecimal("51.5074");
+    private static final BigDecimal LONGITUDE = new BigDecimal("-0.1278");
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    private UpstreamResponseStore store;
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should serve a stored range for as many days or fewer, and again after a restart")
+    void survivesRestart() {
+        store = open(1 << 20, 1 << 24);
+        store.put("forecast", LATITUDE, LONGITUDE, today, today.plusDays(6), response(7));
+
+        assertEquals(7, store.get("forecast", new BigDecimal("51.5091"), LONGITUDE, today, today.plusDays(2))
+                .get("days").asInt());
+        assertNull(store.get("forecast", LATITUDE, LONGITUDE, today, today.plusDays(15)));
+        assertNull(store.get("air-quality", LATITUDE, LONGITUDE, today, today.plusDays(2)));
+
+        store.shutdown();
+        store = open(1 << 20, 1 << 24);
+        assertEquals(7, store.get("forecast", LATITUDE, LONGITUDE, today, today.plusDays(6)).get("days").asInt());
+    }
+
+    @Test
+    @DisplayName("Should expire forecasts after the cache TTL and past ranges after the history TTL")
+    void expiresByRange() throws Exception {
+        store = open(8 << 10, 1 << 24);
+        LocalDate lastWeek = today.minusDays(7);
+        store.put("archive", LATITUDE, LONGITUDE, lastWeek, lastWeek.plusDays(6), response(7));
+        for (int i = 0; i < 20; i++) {
+            store.put("forecast", new BigDecimal(i), LONGITUDE, today, today.plusDays(6), response(7));
+        }
+        long segments = segmentFiles();
+        assertTrue(segments > 2, "segments " + segments);
+
+        now.addAndGet(TTL.plusMinutes(1).toMillis());
+        store.compact();
+
+        assertNull(store.get("forecast", BigDecimal.ZERO, LONGITUDE, today, today));
+        assertNotNull(store.get("archive", LATITUDE, LONGITUDE, lastWeek, lastWeek.plusDays(6)));
+        assertTrue(segmentFiles() < segments);
+    }
+
+    @Test
+    @DisplayName("Should delete the least recently read segment past the size cap")
+    void evictsLeastRecentlyRead() {
+        store = open(8 << 10, 24 << 10);
+        store.put("forecast", BigDecimal.ZERO, LONGITUDE, today, today, response(1));
+        for (int i = 1; i < 40; i++) {
+            now.incrementAndGet();
+            // Keeps the first segment the most recently read
+            assertNotNull(store.get("forecast", BigDecimal.ZERO, LONGITUDE, today, today));
+            store.put("forecast", new BigDecimal(i), LONGITUDE, today, today, response(1));
+        }
+
+        assertNotNull(store.get("forecast", BigDecimal.ZERO, LONGITUDE, today, today));
+        assertNull(store.get("forecast", new BigDecimal(20), LONGITUDE, today, today));
+        assertNotNull(store.get("forecast", new BigDecimal(39), LONGITUDE, today, today));
+    }
+
+    @Test
+    @DisplayName("Should keep the records before a corrupt one after a restart")
+    void stopsAtCorruptRecord() throws Exception {
+        store = open(1 << 20, 1 << 24);
+        store.put("forecast", BigDecimal.ZERO, LONGITUDE, today, today, response(1));
+        store.put("forecast", BigDecimal.ONE, LONGITUDE, today, today, response(1));
+        store.shutdown();
+
+        // Flip the last written byte, which ends the second record's body
+        Path segment = segmentFile();
+        byte[] bytes = Files.readAllBytes(segment);
+        int last = bytes.length - 1;
+        while (bytes[last] == 0) {
+            last--;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(last);
+            file.write(bytes[last] ^ 0xff);
+        }
+
+        store = open(1 << 20, 1 << 24);
+        assertNotNull(store.get("forecast", BigDecimal.ZERO, LONGITUDE, today, today));
+        assertNull(store.get("forecast", BigDecimal.ONE, LONGITUDE, today, today));
+    }
+
+    @Test
+    @DisplayName("Should forget a cell another instance refetched")
+    void evictsCell() {
+        store = open(1 << 20, 1 << 24);
+        store.put("forecast", LATITUDE, LONGITUDE, today, today, response(1));
+        store.put("forecast", BigDecimal.ZERO, LONGITUDE, today, today, response(1));
+
+        store.evict(SharedUpstreamCache.Cell.of(LATITUDE, LONGITUDE, 0.01));
+
+        assertNull(store.get("forecast", LATITUDE, LONGITUDE, today, today));
+        assertNotNull(store.get("forecast", BigDecimal.ZERO, LONGITUDE, today, today));
+    }
+
+    private UpstreamResponseStore open(long segmentSize, long maxSize) {
+        return new UpstreamResponseStore(objectMapper, true, dir, segmentSize, maxSize, TTL, Duration.ofDays(7),
+                0.01, now::get, new SimpleMeterRegistry());
+    }
+
+    /**
+     * About 2 KB once compressed, so a few fill a small segment.
+     */
+    private JsonNode response(int days) {
+        ObjectNode response = objectMapper.createObjectNode().put("days", days);
+        ArrayNode values = response.putArray("values");
+        Random random = new Random(days);
+        for (int i = 0; i < 256; i++) {
+            values.add(random.nextLong());
+        }
+        return response;
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    private Path segmentFile() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.filter(path -> path.getFileName().toString().startsWith("segment-")).toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+}
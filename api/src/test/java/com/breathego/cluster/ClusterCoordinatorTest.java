@@ -0,0 +1,91 @@
+package com.breathego.cluster;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Membership is worked out from the live slots, so failover is tested on
+ * lists of slots; the advisory locks themselves need PostgreSQL.
+ */
+class ClusterCoordinatorTest {
+
+    @Test
+    @DisplayName("Should lead, own every location and run leader jobs when coordination is off")
+    void soloWhenDisabled() throws Exception {
+        ClusterCoordinator coordinator = new ClusterCoordinator(
+                new DriverManagerDataSource("jdbc:h2:mem:cluster", "sa", ""),
+                false, Duration.ofSeconds(10), 64, new SimpleMeterRegistry());
+        try {
+            assertTrue(coordinator.isLeader());
+            for (long id = 1; id <= 100; id++) {
+                assertTrue(coordinator.owns(id));
+            }
+
+            CountDownLatch ran = new CountDownLatch(2);
+            coordinator.scheduleOnLeader("test", Duration.ofMillis(10), ran::countDown);
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+        } finally {
+            coordinator.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should settle membership at the first heartbeat, running alone without advisory locks")
+    void awaitsFirstHeartbeat() throws Exception {
+        ClusterCoordinator coordinator = new ClusterCoordinator(
+                new DriverManagerDataSource("jdbc:h2:mem:cluster", "sa", ""),
+                true, Duration.ofSeconds(10), 64, new SimpleMeterRegistry());
+        try {
+            assertTrue(coordinator.awaitMembership(Duration.ofSeconds(5)));
+            assertEquals(ClusterCoordinator.Membership.SOLO, coordinator.membership());
+            assertTrue(coordinator.owns(1L));
+        } finally {
+            coordinator.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should put each location in exactly one of roughly even partitions")
+    void partitionsEvenly() {
+        int partitions = 5;
+        int[] sizes = new int[partitions];
+        for (long id = 1; id <= 10_000; id++) {
+            int partition = ClusterCoordinator.partitionOf(id, partitions);
+            assertEquals(partition, ClusterCoordinator.partitionOf(id, partitions));
+            sizes[partition]++;
+        }
+        for (int size : sizes) {
+            assertTrue(size > 1_800 && size < 2_200, "partition size " + size);
+        }
+    }
+
+    @Test
+    @DisplayName("Should hand leadership to the next-lowest slot when the leader's lock goes")
+    void failsOverToNextSlot() {
+        ClusterCoordinator.Membership first = ClusterCoordinator.Membership.of(0, List.of(0, 2, 5));
+        ClusterCoordinator.Membership second = ClusterCoordinator.Membership.of(2, List.of(0, 2, 5));
+        assertEquals(new ClusterCoordinator.Membership(0, 3, true), first);
+        assertEquals(new ClusterCoordinator.Membership(1, 3, false), second);
+
+        assertEquals(new ClusterCoordinator.Membership(0, 2, true),
+                ClusterCoordinator.Membership.of(2, List.of(2, 5)));
+        assertEquals(new ClusterCoordinator.Membership(1, 2, false),
+                ClusterCoordinator.Membership.of(5, List.of(2, 5)));
+    }
+
+    @Test
+    @DisplayName("Should neither lead nor own anything once its own lock is gone")
+    void stepsBackWithoutOwnLock() {
+        assertEquals(ClusterCoordinator.Membership.NONE, ClusterCoordinator.Membership.of(3, List.of(0, 2)));
+        assertEquals(ClusterCoordinator.Membership.NONE, ClusterCoordinator.Membership.of(-1, List.of()));
+    }
+}
@@ -0,0 +1,39 @@
+package com.breathego.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.*;
+
+class FlywayConfigTest {
+
+    private final FlywayConfig config = new FlywayConfig();
+    private final Flyway flyway = mock(Flyway.class);
+
+    @Test
+    @DisplayName("migrate should apply pending migrations")
+    void migrate() {
+        config.flywayMigrationStrategy(FlywayConfig.OnStartup.MIGRATE).migrate(flyway);
+
+        verify(flyway).migrate();
+        verifyNoMoreInteractions(flyway);
+    }
+
+    @Test
+    @DisplayName("validate should check the schema without migrating")
+    void validate() {
+        config.flywayMigrationStrategy(FlywayConfig.OnStartup.VALIDATE).migrate(flyway);
+
+        verify(flyway).validate();
+        verifyNoMoreInteractions(flyway);
+    }
+
+    @Test
+    @DisplayName("none should not touch the database")
+    void none() {
+        config.flywayMigrationStrategy(FlywayConfig.OnStartup.NONE).migrate(flyway);
+
+        verifyNoInteractions(flyway);
+    }
+}
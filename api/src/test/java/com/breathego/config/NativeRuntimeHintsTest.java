@@ -0,0 +1,51 @@
+package com.breathego.config;
+
+import com.breathego.domain.Location;
+import com.breathego.dto.ForecastResponse;
+import com.breathego.dto.TrendsResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    NativeRuntimeHintsTest() {
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    @DisplayName("Should register record accessors, including nested records")
+    void registersDtoRecords() throws Exception {
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(ForecastResponse.class.getMethod("forecast")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(ForecastResponse.DailyForecast.class.getMethod("bestWindow")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(TrendsResponse.ScoreTrend.class.getMethod("score")).test(hints));
+    }
+
+    @Test
+    @DisplayName("Should register entity fields and constructors for Hibernate")
+    void registersEntities() {
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onType(Location.class)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)
+                .test(hints));
+    }
+
+    @Test
+    @DisplayName("Should register the JsonNode types the clients decode into")
+    void registersJsonTree() {
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onType(JsonNode.class)
+                .withMemberCategory(MemberCategory.INTROSPECT_PUBLIC_METHODS)
+                .test(hints));
+    }
+}
@@ -0,0 +1,192 @@
+package com.breathego.controller;
+
+import com.breathego.config.ResponseFormatConfig;
+import com.breathego.dto.ColumnarTrendsResponse;
+import com.breathego.dto.TrendsResponse;
+import com.breathego.ratelimit.RateLimits;
+import com.breathego.service.ForecastService;
+import com.breathego.service.RenderedBody;
+import com.breathego.service.ResponseEncoder;
+import com.breathego.service.ScoringProfile;
+import com.breathego.service.ScoringService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ForecastController.class)
+@Import({ResponseFormatConfig.class, RenderedResponses.class})
+class ForecastControllerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 2, 10);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ForecastService forecastService;
+
+    @MockBean
+    private ScoringService scoringService;
+
+    @MockBean
+    private ForecastStreams forecastStreams;
+
+    @BeforeEach
+    void setUp() {
+        TrendsResponse trends = new TrendsResponse(1L, "Denver", "default", 7,
+                List.of(new TrendsResponse.AqiTrend(DAY, 42), new TrendsResponse.AqiTrend(DAY.plusDays(1), null)),
+                List.of(new TrendsResponse.TemperatureTrend(DAY, new BigDecimal("3.5"), new BigDecimal("12.0")),
+                        new TrendsResponse.TemperatureTrend(DAY.plusDays(1), new BigDecimal("4.1"), new BigDecimal("14.2"))),
+                List.of(new TrendsResponse.ScoreTrend(DAY, 81, "Great"),
+                        new TrendsResponse.ScoreTrend(DAY.plusDays(1), 64, "Good")),
+                1_770_681_600_000L);
+        when(scoringService.getProfile(anyString())).thenReturn(ScoringProfile.DEFAULT);
+        // Encodes on every call, as for trends that aren't in memory
+        when(forecastService.renderTrends(eq(1L), anyInt(), any(), any()))
+                .thenAnswer(invocation -> invocation.<ResponseEncoder<TrendsResponse>>getArgument(3).encode(trends));
+    }
+
+    @Test
+    @DisplayName("GET /trends should return JSON objects per day by default")
+    void trendsDefaultJson() throws Exception {
+        mockMvc.perform(get("/api/locations/1/trends").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.aqi[0].date").value("2026-02-10"))
+                .andExpect(jsonPath("$.scores[1].score").value(64));
+    }
+
+    @Test
+    @DisplayName("GET /trends should return parallel arrays for the columnar media type")
+    void trendsColumnar() throws Exception {
+        mockMvc.perform(get("/api/locations/1/trends").accept(ColumnarTrendsResponse.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ColumnarTrendsResponse.MEDIA_TYPE))
+                .andExpect(jsonPath("$.dates[1]").value("2026-02-11"))
+                .andExpect(jsonPath("$.aqi[0]").value(42))
+                .andExpect(jsonPath("$.aqi[1]").doesNotExist())
+                .andExpect(jsonPath("$.temperatureMax[1]").value(14.2))
+                .andExpect(jsonPath("$.recommendation[0]").value("Great"));
+    }
+
+    @Test
+    @DisplayName("GET /trends should return CBOR or Smile with the same fields as JSON")
+    void trendsBinaryFormats() throws Exception {
+        byte[] cbor = mockMvc.perform(get("/api/locations/1/trends").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smile = mockMvc.perform(get("/api/locations/1/trends").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        for (JsonNode trends : List.of(new CBORMapper().readTree(cbor), new SmileMapper().readTree(smile))) {
+            // Dates use the JSON settings rather than the dataformat's default timestamps
+            assertEquals("2026-02-10", trends.get("aqi").get(0).get("date").asText());
+            assertEquals(new BigDecimal("14.2"), trends.get("temperature").get(1).get("max").decimalValue());
+            assertEquals("Denver", trends.get("locationName").asText());
+        }
+    }
+
+    @Test
+    @DisplayName("GET /trends should answer a matching If-None-Match with 304")
+    void trendsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/locations/1/trends"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem("Accept, Accept-Encoding")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/locations/1/trends").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @DisplayName("GET /trends should send the pre-compressed body only to clients that accept gzip")
+    void trendsPreCompressed() throws Exception {
+        when(forecastService.renderTrends(eq(1L), anyInt(), any(), any())).thenReturn(
+                RenderedBody.of("application/json", "{\"period\":7}".getBytes(StandardCharsets.UTF_8), 0));
+
+        byte[] gzipped = mockMvc.perform(get("/api/locations/1/trends").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertEquals("{\"period\":7}", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        mockMvc.perform(get("/api/locations/1/trends").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().json("{\"period\":7}"));
+    }
+
+    @Test
+    @DisplayName("GET /trends?since= should take a version, and reject anything else with 400")
+    void trendsSince() throws Exception {
+        TrendsResponse changed = new TrendsResponse(1L, "Denver", "default", 7,
+                List.of(new TrendsResponse.AqiTrend(DAY, 45)),
+                List.of(new TrendsResponse.TemperatureTrend(DAY, new BigDecimal("3.5"), new BigDecimal("12.5"))),
+                List.of(new TrendsResponse.ScoreTrend(DAY, 79, "Good")),
+                1_770_685_200_000L);
+        when(forecastService.renderTrendsSince(eq(1L), anyInt(), any(), anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<ResponseEncoder<TrendsResponse>>getArgument(4).encode(changed));
+
+        mockMvc.perform(get("/api/locations/1/trends").param("since", "1770681600000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scores.length()").value(1))
+                .andExpect(jsonPath("$.version").value(1_770_685_200_000L));
+        mockMvc.perform(get("/api/locations/1/trends").param("since", "1770681600000")
+                        .accept(ColumnarTrendsResponse.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dates.length()").value(1))
+                .andExpect(jsonPath("$.version").value(1_770_685_200_000L));
+        verify(forecastService, times(2)).renderTrendsSince(eq(1L), anyInt(), any(), eq(1_770_681_600_000L), any());
+
+        for (String since : List.of("yesterday", "2026-02-10T06:00:00+01:00", "99999999999999999999")) {
+            mockMvc.perform(get("/api/locations/1/trends").param("since", since))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.code").value("INVALID_SINCE"));
+        }
+    }
+
+    @Test
+    @DisplayName("GET /trends should answer a client over its upstream limit with 429 and Retry-After")
+    void trendsRateLimited() throws Exception {
+        when(forecastService.renderTrends(eq(1L), anyInt(), any(), any()))
+                .thenThrow(new RateLimits.RateLimitedException(RateLimits.UPSTREAM, 2_500_000_000L));
+
+        mockMvc.perform(get("/api/locations/1/trends").header(HttpHeaders.ORIGIN, "http://localhost:3000"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "http://localhost:3000"))
+                .andExpect(jsonPath("$.code").value("RATE_LIMITED"));
+    }
+}
@@ -0,0 +1,287 @@
+package com.breathego.controller;
+
+import com.breathego.config.ResponseFormatConfig;
+import com.breathego.service.ForecastCache;
+import com.breathego.service.ForecastRefreshQueue;
+import com.breathego.service.ForecastService;
+import com.breathego.service.LocationService;
+import com.breathego.service.RenderedBody;
+import com.breathego.service.ScoringProfile;
+import com.breathego.service.ScoringService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ForecastController.class,
+        properties = {"forecast.stream.send-threads=1", "forecast.stream.send-timeout=200ms"})
+@Import({ResponseFormatConfig.class, RenderedResponses.class, ForecastStreams.class, SimpleMeterRegistry.class})
+// Subscriptions and the update listener live in the context; each test starts clean
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ForecastStreamsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ForecastStreams forecastStreams;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @MockBean
+    private ForecastService forecastService;
+
+    @MockBean
+    private ScoringService scoringService;
+
+    @MockBean
+    private ForecastRefreshQueue refreshQueue;
+
+    @MockBean
+    private ForecastCache forecastCache;
+
+    private Consumer<Long> updateListener;
+
+    @BeforeEach
+    void setUp() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<Long>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(forecastCache).addUpdateListener(listener.capture());
+        updateListener = listener.getValue();
+        when(scoringService.getProfile(anyString())).thenReturn(ScoringProfile.DEFAULT);
+    }
+
+    @Test
+    @DisplayName("GET /stream should send the current forecast, then only forecasts that changed")
+    void sendsChangedForecasts() throws Exception {
+        when(forecastService.renderForecast(eq(1L), any(), anyInt(), any())).thenReturn(body("{\"score\":80}"));
+        when(forecastService.renderCachedForecast(eq(1L), any(), anyInt(), any()))
+                .thenReturn(body("{\"score\":80}"), body("{\"score\":64}"));
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/locations/1/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        awaitContaining(response, "data:{\"score\":80}");
+
+        updateListener.accept(1L);
+        Counter unchanged = meterRegistry.get("breathego.stream.updates").tag("result", "unchanged").counter();
+        awaitTrue(() -> unchanged.count() == 1);
+        updateListener.accept(1L);
+        awaitContaining(response, "data:{\"score\":64}");
+
+        String content = response.getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(2, content.split("event:forecast").length - 1);
+        assertEquals(1, forecastStreams.subscriberCount());
+    }
+
+    @Test
+    @DisplayName("A subscriber behind on writes should only get the latest forecast")
+    void conflatesPendingUpdates() throws Exception {
+        when(forecastService.renderForecast(eq(1L), any(), anyInt(), any())).thenReturn(body("{\"score\":80}"));
+        when(forecastService.renderCachedForecast(eq(1L), any(), anyInt(), any()))
+                .thenReturn(body("{\"score\":70}"), body("{\"score\":60}"));
+        MockHttpServletResponse response = mockMvc.perform(get("/api/locations/1/stream"))
+                .andReturn().getResponse();
+        awaitContaining(response, "data:{\"score\":80}");
+
+        // Holds the single sender thread, so both updates are published
+        // before the subscriber's write runs
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(forecastService.renderForecast(eq(2L), any(), anyInt(), any())).thenReturn(body("{}"));
+        when(forecastService.renderCachedForecast(eq(2L), any(), anyInt(), any())).thenAnswer(invocation -> {
+            blocked.countDown();
+            release.await();
+            return body("{}");
+        });
+        mockMvc.perform(get("/api/locations/2/stream"));
+        updateListener.accept(2L);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        updateListener.accept(1L);
+        updateListener.accept(1L);
+        release.countDown();
+
+        awaitContaining(response, "data:{\"score\":60}");
+        assertFalse(response.getContentAsString(StandardCharsets.UTF_8).contains("data:{\"score\":70}"));
+        assertEquals(1, meterRegistry.get("breathego.stream.updates").tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    @DisplayName("A subscriber whose write stalls should be closed without holding up the others")
+    void closesStalledSubscribers() throws Exception {
+        // Writes to the client marked X-Stall block once stall is set, like a
+        // socket nobody reads; only an interrupt gets them out
+        AtomicBoolean stall = new AtomicBoolean();
+        CountDownLatch stalledWrite = new CountDownLatch(1);
+        MockMvc stallingMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters((request, response, chain) -> chain.doFilter(request,
+                        ((HttpServletRequest) request).getHeader("X-Stall") == null ? response
+                                : new StallingResponse((HttpServletResponse) response, stall, stalledWrite)))
+                .build();
+        when(forecastService.renderForecast(anyLong(), any(), anyInt(), any())).thenReturn(body("{\"score\":80}"));
+        when(forecastService.renderCachedForecast(eq(1L), any(), anyInt(), any())).thenReturn(body("{\"score\":64}"));
+        MockHttpServletResponse stalled = stallingMvc.perform(get("/api/locations/1/stream").header("X-Stall", "1"))
+                .andReturn().getResponse();
+        awaitContaining(stalled, "data:{\"score\":80}");
+
+        stall.set(true);
+        updateListener.accept(1L);
+        assertTrue(stalledWrite.await(5, TimeUnit.SECONDS));
+        // The only sender is stuck in that write
+        MockHttpServletResponse healthy = stallingMvc.perform(get("/api/locations/2/stream"))
+                .andReturn().getResponse();
+
+        awaitContaining(healthy, "data:{\"score\":80}");
+        assertEquals(1, meterRegistry.get("breathego.stream.stalled").counter().count());
+        assertEquals(1, forecastStreams.subscriberCount());
+        assertFalse(stalled.getContentAsString(StandardCharsets.UTF_8).contains("data:{\"score\":64}"));
+    }
+
+    @Test
+    @DisplayName("Updates should be rendered from memory only, skipping days evicted since")
+    void rendersUpdatesFromMemory() throws Exception {
+        when(forecastService.renderForecast(eq(1L), any(), anyInt(), any())).thenReturn(body("{\"score\":80}"));
+        when(forecastService.renderCachedForecast(eq(1L), any(), anyInt(), any()))
+                .thenReturn(null, body("{\"score\":64}"));
+        MockHttpServletResponse response = mockMvc.perform(get("/api/locations/1/stream"))
+                .andReturn().getResponse();
+        awaitContaining(response, "data:{\"score\":80}");
+
+        updateListener.accept(1L);
+        updateListener.accept(1L);
+
+        awaitContaining(response, "data:{\"score\":64}");
+        // Only the subscription itself may go upstream
+        verify(forecastService, times(1)).renderForecast(anyLong(), any(), anyInt(), any());
+        verify(forecastService, times(2)).renderCachedForecast(eq(1L), any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Each subscribed location should be refreshed once, however many subscribers it has")
+    void refreshesEachLocationOnce() throws Exception {
+        when(forecastService.renderForecast(anyLong(), any(), anyInt(), any())).thenReturn(body("{}"));
+        mockMvc.perform(get("/api/locations/1/stream"));
+        mockMvc.perform(get("/api/locations/1/stream").param("profile", "runner"));
+        mockMvc.perform(get("/api/locations/3/stream"));
+
+        forecastStreams.refreshSubscribed();
+
+        verify(refreshQueue, times(1)).enqueue(1L);
+        verify(refreshQueue, times(1)).enqueue(3L);
+    }
+
+    @Test
+    @DisplayName("GET /stream should return 404 for an unknown location without opening a stream")
+    void unknownLocation() throws Exception {
+        when(forecastService.renderForecast(eq(99L), any(), anyInt(), any()))
+                .thenThrow(new LocationService.LocationNotFoundException(99L));
+
+        mockMvc.perform(get("/api/locations/99/stream"))
+                .andExpect(status().isNotFound());
+        assertEquals(0, forecastStreams.subscriberCount());
+    }
+
+    /** A response whose writes block while {@code stall} is set, until interrupted. */
+    private static final class StallingResponse extends HttpServletResponseWrapper {
+
+        private final ServletOutputStream out;
+
+        StallingResponse(HttpServletResponse response, AtomicBoolean stall, CountDownLatch stalledWrite)
+                throws IOException {
+            super(response);
+            ServletOutputStream target = response.getOutputStream();
+            this.out = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (stall.get()) {
+                        stalledWrite.countDown();
+                        try {
+                            new CountDownLatch(1).await();
+                        } catch (InterruptedException e) {
+                            throw new InterruptedIOException();
+                        }
+                    }
+                    target.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    target.flush();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return target.isReady();
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    target.setWriteListener(listener);
+                }
+            };
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+    }
+
+    private static RenderedBody body(String json) {
+        return RenderedBody.of("application/json", json.getBytes(StandardCharsets.UTF_8), -1);
+    }
+
+    private static void awaitContaining(MockHttpServletResponse response, String text) throws Exception {
+        awaitTrue(() -> response.getContentAsString(StandardCharsets.UTF_8).contains(text));
+    }
+
+    private static void awaitTrue(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.call()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the stream");
+            Thread.sleep(10);
+        }
+    }
+}
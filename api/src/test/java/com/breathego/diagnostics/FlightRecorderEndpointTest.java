@@ -0,0 +1,98 @@
+package com.breathego.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEndpointTest {
+
+    private final FlightRecorderEndpoint endpoint =
+            new FlightRecorderEndpoint(Duration.ofMinutes(1), DataSize.ofMegabytes(10), new MockEnvironment());
+
+    @AfterEach
+    void tearDown() {
+        endpoint.stop();
+    }
+
+    @Test
+    @DisplayName("Should record application events and serve them as a .jfr download")
+    void recordsApplicationEvents() throws Exception {
+        FlightRecorderEndpoint.RecordingStatus started = endpoint.start(600, "default");
+        assertEquals("RUNNING", started.state());
+        assertEquals(60, started.durationSeconds(), "duration is capped at the configured maximum");
+
+        ScoringBatchEvent event = new ScoringBatchEvent();
+        event.operation = "trends";
+        event.locationId = 7;
+        event.days = 5;
+        event.profiles = 3;
+        event.commit();
+
+        // A running recording is snapshotted
+        WebEndpointResponse<Resource> download = endpoint.download(started.id());
+        assertEquals(WebEndpointResponse.STATUS_OK, download.getStatus());
+        List<RecordedEvent> events = RecordingFile.readAllEvents(download.getBody().getFile().toPath());
+        RecordedEvent recorded = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.breathego.ScoringBatch"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("trends", recorded.getString("operation"));
+        assertEquals(5, recorded.getInt("days"));
+        // The environment and system properties hold the database credentials
+        assertTrue(events.stream().map(e -> e.getEventType().getName())
+                .noneMatch(name -> name.equals("jdk.InitialEnvironmentVariable")
+                        || name.equals("jdk.InitialSystemProperty") || name.equals("jdk.JVMInformation")));
+
+        assertEquals("STOPPED", endpoint.stop().state());
+    }
+
+    @Test
+    @DisplayName("Should delete a downloaded snapshot once it has been streamed")
+    void deletesStreamedSnapshot() throws Exception {
+        FlightRecorderEndpoint.RecordingStatus started = endpoint.start(10, "default");
+
+        Resource download = endpoint.download(started.id()).getBody();
+        Path file = download.getFile().toPath();
+        assertTrue(Files.exists(file));
+        try (InputStream in = download.getInputStream()) {
+            assertTrue(in.readAllBytes().length > 0);
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    @DisplayName("Should refuse to be exposed on the API port")
+    void refusesApiPort() {
+        MockEnvironment exposed = new MockEnvironment()
+                .withProperty("management.endpoints.web.exposure.include", "health,flightrecorder");
+        assertThrows(IllegalStateException.class,
+                () -> new FlightRecorderEndpoint(Duration.ofMinutes(1), DataSize.ofMegabytes(10), exposed));
+
+        exposed.setProperty("management.server.port", "9090");
+        assertEquals("NONE", new FlightRecorderEndpoint(Duration.ofMinutes(1), DataSize.ofMegabytes(10), exposed)
+                .status().state());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown settings and unknown recordings")
+    void rejectsUnknownSettingsAndRecordings() {
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.start(10, "everything"));
+        assertEquals("NONE", endpoint.status().state());
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.download(42).getStatus());
+    }
+}
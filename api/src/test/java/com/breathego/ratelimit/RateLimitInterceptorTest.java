@@ -0,0 +1,135 @@
+package com.breathego.ratelimit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+
+    private final AtomicLong now = new AtomicLong();
+    // 60 a minute: one token a second, up to 3
+    private final TokenBuckets requests = new TokenBuckets(60, 3, 100, now::get);
+    private final TokenBuckets upstream = new TokenBuckets(60, 1, 100, now::get);
+    private final RateLimitInterceptor interceptor = new RateLimitInterceptor(requests, upstream, Set.of("partner"));
+
+    @AfterEach
+    void endRequest() {
+        RateLimits.end();
+    }
+
+    @Test
+    @DisplayName("Should allow a burst, then reject until a token refills")
+    void rejectsBeyondBurst() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(handle(request("10.0.0.1")));
+        }
+        RateLimits.RateLimitedException rejected =
+                assertThrows(RateLimits.RateLimitedException.class, () -> handle(request("10.0.0.1")));
+        assertEquals(1, rejected.getRetryAfterSeconds());
+        assertEquals(1, requests.rejected());
+
+        // Other clients have their own buckets
+        assertTrue(handle(request("10.0.0.2")));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(handle(request("10.0.0.1")));
+    }
+
+    @Test
+    @DisplayName("Should key configured API keys separately from their address and ignore unknown keys")
+    void keysByApiKey() {
+        for (int i = 0; i < 3; i++) {
+            handle(request("10.0.0.1"));
+        }
+        MockHttpServletRequest partner = request("10.0.0.1");
+        partner.addHeader(RateLimitInterceptor.API_KEY_HEADER, "partner");
+        assertTrue(handle(partner));
+
+        MockHttpServletRequest unknown = request("10.0.0.1");
+        unknown.addHeader(RateLimitInterceptor.API_KEY_HEADER, "made-up");
+        assertThrows(RateLimits.RateLimitedException.class, () -> handle(unknown));
+    }
+
+    @Test
+    @DisplayName("Should charge the upstream tier once per request and only inside one")
+    void chargesUpstreamOncePerRequest() {
+        RateLimits.chargeUpstream(); // No request: no-op
+
+        handle(request("10.0.0.1"));
+        RateLimits.chargeUpstream();
+        RateLimits.chargeUpstream();
+        RateLimits.end();
+
+        handle(request("10.0.0.1"));
+        RateLimits.RateLimitedException rejected =
+                assertThrows(RateLimits.RateLimitedException.class, RateLimits::chargeUpstream);
+        assertEquals(1, rejected.getRetryAfterSeconds());
+        assertEquals(1, upstream.rejected());
+    }
+
+    @Test
+    @DisplayName("Should charge a token per location fetched, granting what is left of the burst")
+    void chargesUpstreamPerLocation() {
+        TokenBuckets upstream = new TokenBuckets(60, 5, 100, now::get);
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(requests, upstream, Set.of());
+
+        interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), new Object());
+        assertEquals(3, RateLimits.chargeUpstream(3));
+        RateLimits.chargeUpstream(); // Already covered
+        assertEquals(5, RateLimits.chargeUpstream(8));
+        RateLimits.end();
+
+        interceptor.preHandle(request("10.0.0.2"), new MockHttpServletResponse(), new Object());
+        RateLimits.chargeUpstream();
+        assertEquals(4, RateLimits.chargeUpstream(4));
+        assertEquals(1, upstream.rejected()); // The last of the eight
+    }
+
+    @Test
+    @DisplayName("Should evict only buckets that have refilled")
+    void evictsIdleBuckets() {
+        handle(request("10.0.0.1"));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        handle(request("10.0.0.2"));
+        assertEquals(2, requests.clients());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        requests.evictIdle();
+        assertEquals(1, requests.clients());
+    }
+
+    @Test
+    @DisplayName("Should make room for a new client by evicting the bucket that refills soonest")
+    void evictsToMakeRoom() {
+        TokenBuckets buckets = new TokenBuckets(60, 3, 2, now::get);
+        for (int i = 0; i < 3; i++) {
+            buckets.tryAcquire("10.0.0.1");
+        }
+        buckets.tryAcquire("10.0.0.2");
+
+        assertEquals(0, buckets.tryAcquire("10.0.0.3"));
+        assertEquals(2, buckets.clients());
+        // The busy client keeps its bucket, and the new one has its own
+        assertTrue(buckets.tryAcquire("10.0.0.1") > 0);
+        assertEquals(0, buckets.tryAcquire("10.0.0.3"));
+        assertEquals(0, buckets.tryAcquire("10.0.0.3"));
+    }
+
+    private boolean handle(MockHttpServletRequest request) {
+        return interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+    }
+
+    private static MockHttpServletRequest request(String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/locations/1/forecast");
+        request.setRemoteAddr(address);
+        return request;
+    }
+}
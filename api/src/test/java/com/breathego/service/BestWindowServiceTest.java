@@ -0,0 +1,206 @@
+package com.breathego.service;
+
+import com.breathego.dto.AqiData;
+import com.breathego.dto.ForecastResponse;
+import com.breathego.dto.WeatherData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BestWindowServiceTest {
+
+    private ScoringService scoringService;
+    private BestWindowService bestWindowService;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        scoringService = new ScoringService();
+        bestWindowService = new BestWindowService(scoringService);
+    }
+
+    @Test
+    @DisplayName("Should pick the window whose worst hour is best")
+    void picksWindowWithBestWorstHour() {
+        double[] temperature = filled(20);
+        int[] aqi = uniformAqi(30);
+        // Pollution spike mid-morning, clean afternoon
+        aqi[9] = 180;
+        aqi[10] = 160;
+        // A single very hot hour in the afternoon window
+        temperature[16] = 38;
+        WeatherData.Hourly hourly = new WeatherData.Hourly(temperature, filled(0), filled(8));
+
+        ForecastResponse.BestWindow window = bestWindowService.findBestWindow(
+                weather(hourly), aqiData(aqi), ScoringProfile.DEFAULT, 3);
+
+        assertNotNull(window);
+        assertEquals(100, window.score());
+        assertEquals(30, window.maxAqi());
+        assertFalse(window.start().getHour() <= 10 && window.end().getHour() > 9,
+                "Window should avoid the AQI spike");
+        assertFalse(window.start().getHour() <= 16 && window.end().getHour() > 16,
+                "Window should avoid the hot hour");
+    }
+
+    @Test
+    @DisplayName("Ties should go to the earliest window")
+    void tiesGoToEarliestWindow() {
+        ForecastResponse.BestWindow window = bestWindowService.findBestWindow(
+                weather(pleasantDay()), aqiData(uniformAqi(20)), ScoringProfile.DEFAULT, 2);
+
+        assertEquals(LocalTime.of(BestWindowService.FIRST_HOUR, 0), window.start());
+        assertEquals(LocalTime.of(BestWindowService.FIRST_HOUR + 2, 0), window.end());
+    }
+
+    @Test
+    @DisplayName("Windows should not span hours without weather data")
+    void skipsMissingHours() {
+        double[] temperature = filled(Double.NaN);
+        double[] precipitation = filled(Double.NaN);
+        double[] windSpeed = filled(Double.NaN);
+        for (int hour = 18; hour < 21; hour++) {
+            temperature[hour] = 20;
+            precipitation[hour] = 0;
+            windSpeed[hour] = 5;
+        }
+        WeatherData.Hourly hourly = new WeatherData.Hourly(temperature, precipitation, windSpeed);
+
+        ForecastResponse.BestWindow window = bestWindowService.findBestWindow(
+                weather(hourly), null, ScoringProfile.DEFAULT, 3);
+
+        assertEquals(LocalTime.of(18, 0), window.start());
+        assertNull(window.maxAqi(), "No hourly AQI means no peak AQI");
+        assertNull(bestWindowService.findBestWindow(weather(hourly), null, ScoringProfile.DEFAULT, 4));
+    }
+
+    @Test
+    @DisplayName("Days without hourly data should have no window")
+    void noHourlyData() {
+        WeatherData daily = new WeatherData(today, new BigDecimal("20"), new BigDecimal("10"),
+                BigDecimal.ZERO, new BigDecimal("5"), null, null);
+
+        assertNull(bestWindowService.findBestWindow(daily, null, ScoringProfile.DEFAULT, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> bestWindowService.findBestWindow(daily, null, ScoringProfile.DEFAULT, 0));
+    }
+
+    @Test
+    @DisplayName("Deque result should match a brute-force search on random days")
+    void matchesBruteForce() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 500; trial++) {
+            double[] temperature = filled(Double.NaN);
+            double[] precipitation = filled(Double.NaN);
+            double[] windSpeed = filled(Double.NaN);
+            int[] aqi = uniformAqi(AqiData.MISSING_HOUR);
+            for (int hour = 0; hour < WeatherData.Hourly.HOURS; hour++) {
+                if (random.nextInt(20) > 0) {
+                    temperature[hour] = -5 + random.nextInt(45);
+                    precipitation[hour] = random.nextInt(4) == 0 ? random.nextInt(12) / 2.0 : 0;
+                    windSpeed[hour] = random.nextInt(50);
+                }
+                if (random.nextInt(10) > 0) {
+                    aqi[hour] = random.nextInt(250);
+                }
+            }
+            WeatherData.Hourly hourly = new WeatherData.Hourly(temperature, precipitation, windSpeed);
+            int windowHours = 1 + random.nextInt(6);
+            ScoringProfile profile = ScoringProfile.BUILT_IN.get(random.nextInt(ScoringProfile.BUILT_IN.size()));
+
+            ForecastResponse.BestWindow expected = bruteForce(hourly, aqi, profile, windowHours);
+            ForecastResponse.BestWindow actual = bestWindowService.findBestWindow(
+                    weather(hourly), aqiData(aqi), profile, windowHours);
+
+            assertEquals(expected, actual, "Trial " + trial);
+        }
+    }
+
+    @Test
+    @DisplayName("Hourly inputs should be copied, not shared")
+    void hourlyInputsAreCopied() {
+        double[] temperature = filled(20);
+        int[] aqi = uniformAqi(30);
+        WeatherData.Hourly hourly = new WeatherData.Hourly(temperature, filled(0), filled(8));
+        AqiData aqiData = aqiData(aqi);
+        ForecastResponse.BestWindow before = bestWindowService.findBestWindow(
+                weather(hourly), aqiData, ScoringProfile.DEFAULT, 3);
+
+        temperature[BestWindowService.FIRST_HOUR] = 45;
+        aqi[BestWindowService.FIRST_HOUR] = 300;
+        hourly.temperature()[BestWindowService.FIRST_HOUR + 1] = 45;
+        aqiData.hourlyUsAqi()[BestWindowService.FIRST_HOUR + 1] = 300;
+
+        assertEquals(before, bestWindowService.findBestWindow(
+                weather(hourly), aqiData, ScoringProfile.DEFAULT, 3));
+        assertEquals(new WeatherData.Hourly(filled(20), filled(0), filled(8)), hourly);
+        assertEquals(aqiData(uniformAqi(30)), aqiData);
+        assertEquals(aqiData(uniformAqi(30)).hashCode(), aqiData.hashCode());
+    }
+
+    private ForecastResponse.BestWindow bruteForce(WeatherData.Hourly hourly, int[] aqi,
+                                                   ScoringProfile profile, int windowHours) {
+        ForecastResponse.BestWindow best = null;
+        int bestWorst = -1;
+        int bestSum = Integer.MIN_VALUE;
+        for (int start = BestWindowService.FIRST_HOUR;
+             start + windowHours <= BestWindowService.LAST_HOUR; start++) {
+            int worst = Integer.MAX_VALUE;
+            int sum = 0;
+            int maxAqi = AqiData.MISSING_HOUR;
+            boolean valid = true;
+            for (int hour = start; hour < start + windowHours; hour++) {
+                if (Double.isNaN(hourly.temperatureAt(hour))) {
+                    valid = false;
+                    break;
+                }
+                int score = scoringService.scoreHour(profile, aqi[hour], hourly.temperatureAt(hour),
+                        hourly.precipitationAt(hour), hourly.windSpeedAt(hour));
+                worst = Math.min(worst, score);
+                sum += score;
+                maxAqi = Math.max(maxAqi, aqi[hour]);
+            }
+            if (valid && (worst > bestWorst || (worst == bestWorst && sum > bestSum))) {
+                bestWorst = worst;
+                bestSum = sum;
+                best = new ForecastResponse.BestWindow(LocalTime.of(start, 0),
+                        LocalTime.of(start + windowHours, 0), worst,
+                        maxAqi == AqiData.MISSING_HOUR ? null : maxAqi);
+            }
+        }
+        return best;
+    }
+
+    private WeatherData.Hourly pleasantDay() {
+        return new WeatherData.Hourly(filled(20), filled(0), filled(8));
+    }
+
+    private double[] filled(double value) {
+        double[] values = new double[WeatherData.Hourly.HOURS];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    private int[] uniformAqi(int value) {
+        int[] aqi = new int[WeatherData.Hourly.HOURS];
+        Arrays.fill(aqi, value);
+        return aqi;
+    }
+
+    private WeatherData weather(WeatherData.Hourly hourly) {
+        return new WeatherData(today, new BigDecimal("22"), new BigDecimal("15"),
+                BigDecimal.ZERO, new BigDecimal("10"), null, null, hourly);
+    }
+
+    private AqiData aqiData(int[] hourly) {
+        return new AqiData(today, Arrays.stream(hourly).max().orElse(0), null, null, hourly);
+    }
+}
@@ -0,0 +1,163 @@
+package com.breathego.service;
+
+import com.breathego.domain.DailyMetrics;
+import com.breathego.domain.Location;
+import com.breathego.repository.DailyMetricsClockRepository;
+import com.breathego.repository.DailyMetricsRepository;
+import com.breathego.repository.LocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DailyMetricsWriterTest {
+
+    @Autowired
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private DailyMetricsClockRepository dailyMetricsClock;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DailyMetricsWriter dailyMetricsWriter;
+
+    private final List<DailyMetricsWriter> writers = new ArrayList<>();
+    private final LocalDate today = LocalDate.now();
+    private Location location;
+
+    @BeforeEach
+    void setUp() {
+        dailyMetricsWriter.flush();
+        dailyMetricsRepository.deleteAll();
+        locationRepository.deleteAll();
+        location = locationRepository.save(new Location("Oslo", new BigDecimal("59.91"), new BigDecimal("10.75")));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (DailyMetricsWriter writer : writers) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should store only the latest values of a day queued twice")
+    void coalescesDays() {
+        DailyMetricsWriter writer = writer(100, 100, Duration.ofHours(1));
+        writer.write(location.getId(), days(40, 7));
+        writer.write(location.getId(), days(60, 7));
+        assertEquals(14, writer.queued());
+        assertTrue(stored().isEmpty());
+        List<DailyMetrics> pending = writer.pending(location.getId(), today, today.plusDays(6));
+        assertEquals(7, pending.size());
+        assertEquals(List.of(60), pending.stream().map(DailyMetrics::getScore).distinct().toList());
+
+        long before = dailyMetricsClock.current();
+        writer.flush();
+
+        List<DailyMetrics> stored = stored();
+        assertEquals(7, stored.size());
+        for (DailyMetrics day : stored) {
+            assertEquals(60, day.getScore());
+            assertEquals(before + 1, day.getVersion());
+        }
+        assertEquals(0, writer.queued());
+        assertTrue(writer.pending(location.getId(), today, today.plusDays(6)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should write a full batch without waiting for the flush interval")
+    void flushesFullBatch() throws Exception {
+        DailyMetricsWriter writer = writer(100, 7, Duration.ofHours(1));
+        writer.write(location.getId(), days(50, 7));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (stored().size() < 7 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(7, stored().size());
+    }
+
+    @Test
+    @DisplayName("Should keep a later fetch that was written before an earlier one")
+    void skipsStaleDays() throws Exception {
+        DailyMetricsWriter slow = writer(100, 100, Duration.ofHours(1));
+        DailyMetricsWriter fast = writer(100, 100, Duration.ofHours(1));
+        slow.write(location.getId(), days(40, 3));
+        Thread.sleep(5);
+        fast.write(location.getId(), days(60, 3));
+
+        fast.flush();
+        long version = dailyMetricsClock.current();
+        slow.flush();
+
+        assertEquals(List.of(60, 60, 60), stored().stream().map(DailyMetrics::getScore).toList());
+        assertEquals(List.of(version), stored().stream().map(DailyMetrics::getVersion).distinct().toList());
+    }
+
+    @Test
+    @DisplayName("Should make a caller wait for room when the queue is full, and write what is left on shutdown")
+    void waitsWhenFull() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DailyMetricsWriter writer = new DailyMetricsWriter(dailyMetricsRepository, dailyMetricsClock, transactionManager, true,
+                4, 100, Duration.ofHours(1), registry);
+        writers.add(writer);
+
+        writer.write(location.getId(), days(50, 7));
+
+        // The caller waited for the full queue to be committed; the rest is still queued
+        assertEquals(4, stored().size());
+        assertEquals(3, writer.queued());
+        assertEquals(1.0, registry.get("breathego.daily-metrics.backpressure").counter().count());
+
+        writer.shutdown();
+        assertEquals(7, stored().size());
+        assertTrue(writer.pending(location.getId(), today, today.plusDays(6)).isEmpty());
+    }
+
+    private DailyMetricsWriter writer(int queueSize, int batchSize, Duration flushInterval) {
+        DailyMetricsWriter writer = new DailyMetricsWriter(dailyMetricsRepository, dailyMetricsClock, transactionManager, true,
+                queueSize, batchSize, flushInterval, new SimpleMeterRegistry());
+        writers.add(writer);
+        return writer;
+    }
+
+    private List<DailyMetrics> days(int score, int count) {
+        List<DailyMetrics> days = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DailyMetrics day = new DailyMetrics();
+            day.setLocation(location);
+            day.setDate(today.plusDays(i));
+            day.setScore(score);
+            day.setRecommendation("Good");
+            day.setAqiValue(20);
+            days.add(day);
+        }
+        return days;
+    }
+
+    private List<DailyMetrics> stored() {
+        return dailyMetricsRepository.findByLocationIdAndDateBetween(location.getId(), today, today.plusDays(6));
+    }
+}
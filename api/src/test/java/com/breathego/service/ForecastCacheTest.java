@@ -0,0 +1,103 @@
+package com.breathego.service;
+
+import com.breathego.dto.AqiData;
+import com.breathego.dto.WeatherData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastCacheTest {
+
+    private final LocalDate today = LocalDate.now();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ForecastCache cache = new ForecastCache(Duration.ofMinutes(30), meterRegistry);
+
+    @Test
+    @DisplayName("Should serve the requested days from a fresh entry")
+    void servesFreshEntry() {
+        cache.put(1L, weather(today, 7), aqi(today, 5));
+
+        ForecastCache.CachedDays days = cache.get(1L, today, 3);
+
+        assertEquals(3, days.weather().size());
+        assertEquals(3, days.aqi().size());
+        assertNull(cache.get(2L, today, 3));
+        assertEquals(1, meterRegistry.get("breathego.forecast.cache").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("breathego.forecast.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should skip days before the requested start and miss when the range isn't covered")
+    void slicesFromStart() {
+        cache.put(1L, weather(today.minusDays(1), 4), aqi(today.minusDays(1), 2));
+
+        ForecastCache.CachedDays days = cache.get(1L, today, 3);
+
+        assertEquals(today, days.weather().get(0).date());
+        assertEquals(1, days.aqi().size());
+        assertNull(cache.get(1L, today, 4));
+        assertNull(cache.get(1L, today.minusDays(2), 1));
+    }
+
+    @Test
+    @DisplayName("Should not serve entries older than the TTL")
+    void expiresEntries() {
+        cache.put(1L, weather(today, 3), aqi(today, 3), Instant.now().minus(Duration.ofMinutes(31)));
+
+        assertNull(cache.get(1L, today, 3));
+        assertFalse(cache.isFresh(Instant.now().minus(Duration.ofMinutes(31))));
+        assertTrue(cache.isFresh(Instant.now().minus(Duration.ofMinutes(29))));
+    }
+
+    @Test
+    @DisplayName("Should drop evicted locations and ignore empty fetches")
+    void evicts() {
+        cache.put(1L, weather(today, 3), aqi(today, 3));
+        cache.put(2L, List.of(), List.of());
+
+        cache.evict(1L, "location-deleted");
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should keep rendered responses with their entry until it is replaced")
+    void keepsRenderedResponses() {
+        ForecastCache.CachedDays fetched = cache.put(1L, weather(today, 3), aqi(today, 3));
+        RenderedBody first = RenderedBody.of("application/json", new byte[]{1}, -1);
+
+        assertSame(first, cache.render(fetched, "forecast:json", () -> first));
+        assertSame(first, cache.render(cache.get(1L, today, 3), "forecast:json", () -> fail("rendered twice")));
+
+        cache.put(1L, weather(today, 3), aqi(today, 3));
+        RenderedBody second = RenderedBody.of("application/json", new byte[]{2}, -1);
+        assertSame(second, cache.render(cache.get(1L, today, 3), "forecast:json", () -> second));
+        assertEquals(1, meterRegistry.get("breathego.forecast.cache.rendered").tag("result", "hit").counter().count());
+    }
+
+    private static List<WeatherData> weather(LocalDate start, int days) {
+        List<WeatherData> list = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            list.add(new WeatherData(start.plusDays(i), BigDecimal.TEN, BigDecimal.ONE,
+                    BigDecimal.ZERO, BigDecimal.ONE, 180, BigDecimal.ONE));
+        }
+        return list;
+    }
+
+    private static List<AqiData> aqi(LocalDate start, int days) {
+        List<AqiData> list = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            list.add(new AqiData(start.plusDays(i), 40, BigDecimal.ONE, BigDecimal.ONE));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,148 @@
+package com.breathego.service;
+
+import com.breathego.cluster.ClusterCoordinator;
+import com.breathego.domain.DailyMetrics;
+import com.breathego.domain.Location;
+import com.breathego.repository.DailyMetricsRepository;
+import com.breathego.repository.LocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ForecastCacheWarmerTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Tokyo");
+
+    @Autowired
+    private ForecastCacheWarmer warmer;
+
+    @Autowired
+    private ForecastCache forecastCache;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private ForecastRefreshQueue refreshQueue;
+
+    @SpyBean
+    private ClusterCoordinator clusterCoordinator;
+
+    private final LocalDate today = LocalDate.now(ZONE);
+
+    @BeforeEach
+    void setUp() {
+        dailyMetricsRepository.deleteAll();
+        locationRepository.deleteAll();
+        forecastCache.clear();
+        when(refreshQueue.enqueue(anyLong())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Should load fresh windows and queue stale or missing ones for refresh")
+    void loadsFreshAndQueuesStale() throws Exception {
+        Long fresh = location("Fresh", 0, 1, 2, 3, 4, 5, 6);
+        Long stale = location("Stale", 0, 1, 2, 3, 4, 5, 6);
+        Long empty = location("Empty");
+        jdbcTemplate.update("UPDATE daily_metrics SET created_at = ? WHERE location_id = ?",
+                OffsetDateTime.now().minusHours(2), stale);
+
+        ForecastCacheWarmer.Result result = warmer.warmUp();
+
+        assertEquals(new ForecastCacheWarmer.Result(1, 2, true), result);
+        assertNotNull(forecastCache.get(fresh, today, 7));
+        assertNull(forecastCache.get(stale, today, 1));
+        verify(refreshQueue).enqueue(stale);
+        verify(refreshQueue).enqueue(empty);
+        verify(refreshQueue, never()).enqueue(fresh);
+    }
+
+    @Test
+    @DisplayName("Should load every fresh window but queue only the locations this instance owns")
+    void queuesOwnedLocationsOnly() throws Exception {
+        Long fresh = location("Fresh", 0, 1, 2);
+        Long owned = location("Owned");
+        Long other = location("Other");
+        doAnswer(invocation -> owned.equals(invocation.getArgument(0)))
+                .when(clusterCoordinator).owns(anyLong());
+
+        ForecastCacheWarmer.Result result = warmer.warmUp();
+
+        assertEquals(new ForecastCacheWarmer.Result(1, 1, true), result);
+        assertNotNull(forecastCache.get(fresh, today, 3));
+        verify(refreshQueue).enqueue(owned);
+        verify(refreshQueue, never()).enqueue(other);
+    }
+
+    @Test
+    @DisplayName("Should queue every location while cluster membership is unknown")
+    void queuesEverythingWithoutMembership() throws Exception {
+        Long fresh = location("Fresh", 0, 1, 2);
+        Long first = location("First");
+        Long second = location("Second");
+        doReturn(false).when(clusterCoordinator).awaitMembership(any());
+        doReturn(false).when(clusterCoordinator).owns(anyLong());
+
+        ForecastCacheWarmer.Result result = warmer.warmUp();
+
+        assertEquals(new ForecastCacheWarmer.Result(1, 2, true), result);
+        assertNotNull(forecastCache.get(fresh, today, 3));
+        verify(refreshQueue).enqueue(first);
+        verify(refreshQueue).enqueue(second);
+    }
+
+    @Test
+    @DisplayName("Should load only the run of days starting today in the location's zone")
+    void loadsContiguousRunFromToday() throws Exception {
+        Long id = location("Gap", -1, 0, 1, 3);
+
+        warmer.warmUp();
+
+        ForecastCache.CachedDays days = forecastCache.get(id, today, 2);
+        assertEquals(today, days.weather().get(0).date());
+        assertNull(forecastCache.get(id, today, 3));
+        assertNull(forecastCache.get(id, today.minusDays(1), 1));
+    }
+
+    private Long location(String name, int... dayOffsets) {
+        Location location = new Location(name, new BigDecimal("35.68"), new BigDecimal("139.69"));
+        location.setTimezone(ZONE.getId());
+        Location saved = locationRepository.save(location);
+        for (int offset : dayOffsets) {
+            DailyMetrics metrics = new DailyMetrics();
+            metrics.setLocation(saved);
+            metrics.setDate(today.plusDays(offset));
+            metrics.setScore(80);
+            metrics.setRecommendation("Great");
+            metrics.setAqiValue(40);
+            metrics.setTemperatureMax(new BigDecimal("22"));
+            metrics.setTemperatureMin(new BigDecimal("15"));
+            dailyMetricsRepository.save(metrics);
+        }
+        return saved.getId();
+    }
+}
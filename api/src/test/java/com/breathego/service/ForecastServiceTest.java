@@ -4,22 +4,35 @@ import com.breathego.client.OpenMeteoClient;
 import com.breathego.domain.DailyMetrics;
 import com.breathego.domain.Location;
 import com.breathego.dto.*;
+import com.breathego.ratelimit.RateLimitInterceptor;
+import com.breathego.ratelimit.TokenBuckets;
+import com.breathego.repository.DailyMetricsClockRepository;
 import com.breathego.repository.DailyMetricsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -40,7 +53,18 @@ class ForecastServiceTest {
     @Mock
     private DailyMetricsRepository dailyMetricsRepository;
 
-    @InjectMocks
+    @Mock
+    private BestWindowService bestWindowService;
+
+    @Mock
+    private DailyMetricsClockRepository dailyMetricsClock;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ForecastCache forecastCache = new ForecastCache(Duration.ofMinutes(30), new SimpleMeterRegistry());
+
     private ForecastService forecastService;
 
     private Location testLocation;
@@ -50,6 +74,10 @@ class ForecastServiceTest {
     void setUp() {
         testLocation = new Location("Denver, Colorado", new BigDecimal("39.7392"), new BigDecimal("-104.9903"));
         testLocation.setId(1L);
+        lenient().when(dailyMetricsClock.tick()).thenReturn(1);
+        forecastService = new ForecastService(locationService, openMeteoClient, scoringService, dailyMetricsRepository,
+                DailyMetricsWriter.synchronous(dailyMetricsRepository, dailyMetricsClock), bestWindowService,
+                forecastCache, meterRegistry);
     }
 
     @Nested
@@ -92,8 +120,8 @@ class ForecastServiceTest {
 
             when(openMeteoClient.getWeatherForecast(any(), any(), eq(7))).thenReturn(weatherList);
             when(openMeteoClient.getAirQuality(any(), any(), eq(7))).thenReturn(aqiList);
-            when(scoringService.calculate(any(), any()))
-                    .thenReturn(new Score(85, "Great", List.of("Air quality is good")));
+            when(scoringService.calculateAll(any(), any()))
+                    .thenReturn(allProfiles(new Score(85, "Great", List.of("Air quality is good"))));
 
             TrendsResponse result = forecastService.getTrends(1L, 7);
 
@@ -135,8 +163,8 @@ class ForecastServiceTest {
 
             when(openMeteoClient.getWeatherForecast(any(), any(), eq(7))).thenReturn(weatherList);
             when(openMeteoClient.getAirQuality(any(), any(), eq(7))).thenReturn(aqiList);
-            when(scoringService.calculate(any(), any()))
-                    .thenReturn(new Score(75, "Okay", List.of("Air quality is moderate")));
+            when(scoringService.calculateAll(any(), any()))
+                    .thenReturn(allProfiles(new Score(75, "Okay", List.of("Air quality is moderate"))));
 
             TrendsResponse result = forecastService.getTrends(1L, 7);
 
@@ -178,8 +206,8 @@ class ForecastServiceTest {
 
             when(openMeteoClient.getWeatherForecast(any(), any(), eq(7))).thenReturn(weatherList);
             when(openMeteoClient.getAirQuality(any(), any(), eq(7))).thenReturn(aqiList);
-            when(scoringService.calculate(any(), any()))
-                    .thenReturn(new Score(85, "Great", List.of("Good")));
+            when(scoringService.calculateAll(any(), any()))
+                    .thenReturn(allProfiles(new Score(85, "Great", List.of("Good"))));
 
             forecastService.getTrends(1L, 14);
 
@@ -200,14 +228,49 @@ class ForecastServiceTest {
 
             when(openMeteoClient.getWeatherForecast(any(), any(), anyInt())).thenReturn(weatherList);
             when(openMeteoClient.getAirQuality(any(), any(), anyInt())).thenReturn(aqiList);
-            when(scoringService.calculate(any(), any()))
-                    .thenReturn(new Score(85, "Great", List.of("Good")));
+            when(scoringService.calculateAll(any(), any()))
+                    .thenReturn(allProfiles(new Score(85, "Great", List.of("Good"))));
 
             forecastService.getTrends(1L, 3);
 
             verify(dailyMetricsRepository, times(3)).save(any(DailyMetrics.class));
         }
 
+        @Test
+        @DisplayName("Should load existing days with one query, skip unchanged ones and update changed ones")
+        void shouldSkipUnchangedAndUpdateChangedDays() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            when(dailyMetricsRepository.findByLocationIdAndDateBetween(anyLong(), any(), any()))
+                    .thenReturn(Collections.emptyList());
+            List<WeatherData> weatherList = createWeatherList(3);
+            when(openMeteoClient.getWeatherForecast(any(), any(), anyInt())).thenReturn(weatherList);
+            when(openMeteoClient.getAirQuality(any(), any(), anyInt())).thenReturn(createAqiList(3));
+            ProfileScores scores = allProfiles(new Score(85, "Great", List.of("Good")));
+            when(scoringService.calculateAll(any(), any())).thenReturn(scores);
+            // Day 1 as fetched, at the columns' scale; day 2 scored differently
+            List<DailyMetrics> stored = createCachedMetrics(3).subList(1, 3);
+            for (DailyMetrics dm : stored) {
+                dm.setScore(85);
+                dm.setProfileScores(new HashMap<>(scores.nonDefaultValues()));
+                dm.setPm25(new BigDecimal("12.50"));
+                dm.setOzone(new BigDecimal("30.00"));
+                dm.setTemperatureMax(new BigDecimal("22.00"));
+            }
+            stored.get(1).setScore(60);
+            when(dailyMetricsRepository.findWithProfileScoresByLocationIdAndDateBetween(
+                    1L, weatherList.get(0).date(), weatherList.get(2).date()))
+                    .thenReturn(stored);
+
+            forecastService.getTrends(1L, 3);
+
+            ArgumentCaptor<DailyMetrics> saved = ArgumentCaptor.forClass(DailyMetrics.class);
+            verify(dailyMetricsRepository, times(2)).save(saved.capture());
+            assertEquals(List.of(weatherList.get(0).date(), weatherList.get(2).date()),
+                    saved.getAllValues().stream().map(DailyMetrics::getDate).toList());
+            assertSame(stored.get(1), saved.getAllValues().get(1));
+            assertEquals(85, stored.get(1).getScore());
+        }
+
         @Test
         @DisplayName("AQI trend entries should contain correct values from API data")
         void aqiTrendsShouldContainCorrectValues() {
@@ -224,8 +287,8 @@ class ForecastServiceTest {
 
             when(openMeteoClient.getWeatherForecast(any(), any(), anyInt())).thenReturn(weatherList);
             when(openMeteoClient.getAirQuality(any(), any(), anyInt())).thenReturn(aqiList);
-            when(scoringService.calculate(any(), any()))
-                    .thenReturn(new Score(80, "Great", List.of("Good")));
+            when(scoringService.calculateAll(any(), any()))
+                    .thenReturn(allProfiles(new Score(80, "Great", List.of("Good"))));
 
             TrendsResponse result = forecastService.getTrends(1L, 3);
 
@@ -235,8 +298,415 @@ class ForecastServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("getTrends - Scoring Profiles")
+    class GetTrendsProfileTests {
+
+        @Test
+        @DisplayName("Fetched days should persist every profile's score and return the requested one")
+        void fetchedDaysStoreAllProfiles() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            when(dailyMetricsRepository.findWithProfileScoresByLocationIdAndDateBetween(anyLong(), any(), any()))
+                    .thenReturn(Collections.emptyList());
+            when(openMeteoClient.getWeatherForecast(any(), any(), anyInt())).thenReturn(createWeatherList(1));
+            when(openMeteoClient.getAirQuality(any(), any(), anyInt())).thenReturn(createAqiList(1));
+            when(scoringService.calculateAll(any(), any())).thenReturn(new ProfileScores(
+                    ScoringProfile.BUILT_IN,
+                    new Score[] {
+                            new Score(90, "Great", List.of()),
+                            new Score(70, "Okay", List.of()),
+                            new Score(50, "Caution", List.of()),
+                            new Score(30, "Avoid", List.of())
+                    }));
+
+            TrendsResponse result = forecastService.getTrends(1L, 1, ScoringProfile.RUNNER);
+
+            assertEquals("runner", result.profile());
+            assertEquals(50, result.scores().get(0).score());
+
+            ArgumentCaptor<DailyMetrics> saved = ArgumentCaptor.forClass(DailyMetrics.class);
+            verify(dailyMetricsRepository).save(saved.capture());
+            assertEquals(90, saved.getValue().getScore());
+            assertEquals(Map.of("sensitive", 70, "runner", 50, "cyclist", 30),
+                    saved.getValue().getProfileScores());
+            verify(scoringService, times(1)).calculateAll(any(), any());
+        }
+
+        @Test
+        @DisplayName("Cached days should serve stored profile scores without calling the API")
+        void cachedDaysServeStoredProfileScore() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            List<DailyMetrics> cached = createCachedMetrics(7);
+            cached.forEach(dm -> dm.getProfileScores().put("cyclist", 42));
+            when(dailyMetricsRepository.findWithProfileScoresByLocationIdAndDateBetween(anyLong(), any(), any()))
+                    .thenReturn(cached);
+            when(scoringService.getRecommendation(42)).thenReturn("Caution");
+
+            TrendsResponse result = forecastService.getTrends(1L, 7, ScoringProfile.CYCLIST);
+
+            assertEquals(7, result.scores().size());
+            assertTrue(result.scores().stream().allMatch(s -> s.score() == 42));
+            verifyNoInteractions(openMeteoClient);
+            verify(scoringService, never()).calculate(any(), any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("In-memory cache")
+    class MemoryCacheTests {
+
+        @Test
+        @DisplayName("A second forecast should be served from memory")
+        void forecastServedFromMemory() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            when(openMeteoClient.getWeatherForecast(any(), any(), eq(3))).thenReturn(createWeatherList(3));
+            when(openMeteoClient.getAirQuality(any(), any(), eq(3))).thenReturn(createAqiList(3));
+            when(scoringService.calculate(any(), any(), any()))
+                    .thenReturn(new Score(85, "Great", List.of("Air quality is good")));
+
+            forecastService.getForecast(1L);
+            ForecastResponse second = forecastService.getForecast(1L);
+
+            assertEquals(3, second.forecast().size());
+            verify(openMeteoClient, times(1)).getWeatherForecast(any(), any(), anyInt());
+            verify(openMeteoClient, times(1)).getAirQuality(any(), any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Trends should be served from memory after a fetch, without reading daily_metrics")
+        void trendsServedFromMemory() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            when(dailyMetricsRepository.findByLocationIdAndDateBetween(anyLong(), any(), any()))
+                    .thenReturn(Collections.emptyList());
+            when(openMeteoClient.getWeatherForecast(any(), any(), eq(7))).thenReturn(createWeatherList(7));
+            when(openMeteoClient.getAirQuality(any(), any(), eq(7))).thenReturn(createAqiList(7));
+            when(scoringService.calculateAll(any(), any()))
+                    .thenReturn(allProfiles(new Score(85, "Great", List.of("Air quality is good"))));
+            when(scoringService.calculate(any(), any(), eq(ScoringProfile.RUNNER)))
+                    .thenReturn(new Score(60, "Good", List.of()));
+
+            forecastService.getTrends(1L, 7);
+            TrendsResponse second = forecastService.getTrends(1L, 7, ScoringProfile.RUNNER);
+
+            assertEquals(7, second.scores().size());
+            assertTrue(second.scores().stream().allMatch(s -> s.score() == 60));
+            assertEquals(40, second.aqi().get(0).value());
+            verify(dailyMetricsRepository, times(1)).findByLocationIdAndDateBetween(anyLong(), any(), any());
+            // Once, by the first call, for the stored days it writes over
+            verify(dailyMetricsRepository, times(1)).findWithProfileScoresByLocationIdAndDateBetween(
+                    anyLong(), any(), any());
+        }
+
+        @Test
+        @DisplayName("A rendered forecast should be reused without scoring again")
+        void renderedForecastReused() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            when(openMeteoClient.getWeatherForecast(any(), any(), eq(3))).thenReturn(createWeatherList(3));
+            when(openMeteoClient.getAirQuality(any(), any(), eq(3))).thenReturn(createAqiList(3));
+            when(scoringService.calculate(any(), any(), any()))
+                    .thenReturn(new Score(85, "Great", List.of("Air quality is good")));
+            ResponseEncoder<ForecastResponse> encoder = new ResponseEncoder<>() {
+                @Override
+                public String name() {
+                    return "test";
+                }
+
+                @Override
+                public RenderedBody encode(ForecastResponse response) {
+                    return RenderedBody.of("text/plain", response.locationName().getBytes(), -1);
+                }
+            };
+
+            RenderedBody first = forecastService.renderForecast(1L, ScoringProfile.DEFAULT, 2, encoder);
+            RenderedBody second = forecastService.renderForecast(1L, ScoringProfile.DEFAULT, 2, encoder);
+            forecastService.renderForecast(1L, ScoringProfile.RUNNER, 2, encoder);
+
+            assertSame(first, second);
+            // Today plus 3 forecast days, for each of the two profiles
+            verify(scoringService, times(8)).calculate(any(), any(), any());
+            verify(openMeteoClient, times(1)).getWeatherForecast(any(), any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("A background refresh should store 7 days and fill the cache")
+        void refreshStoresAndCaches() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            when(openMeteoClient.getWeatherForecast(any(), any(), eq(7))).thenReturn(createWeatherList(7));
+            when(openMeteoClient.getAirQuality(any(), any(), eq(7))).thenReturn(createAqiList(7));
+            when(scoringService.calculateAll(any(), any()))
+                    .thenReturn(allProfiles(new Score(85, "Great", List.of())));
+            when(dailyMetricsRepository.findWithProfileScoresByLocationIdAndDateBetween(anyLong(), any(), any()))
+                    .thenReturn(Collections.emptyList());
+
+            forecastService.refresh(1L);
+
+            verify(dailyMetricsRepository, times(7)).save(any(DailyMetrics.class));
+            assertNotNull(forecastCache.get(1L, today, 7));
+        }
+    }
+
+    @Nested
+    @DisplayName("getForecasts")
+    class GetForecastsTests {
+
+        @Test
+        @DisplayName("Should fetch only uncached locations, together, and report failures per location")
+        void fetchesMissingTogether() {
+            Location second = new Location("Boulder, Colorado", new BigDecimal("40.0150"), new BigDecimal("-105.2705"));
+            second.setId(2L);
+            Location third = new Location("Aspen, Colorado", new BigDecimal("39.1911"), new BigDecimal("-106.8175"));
+            third.setId(3L);
+            when(locationService.getLocationEntities(any())).thenReturn(List.of(testLocation, second, third));
+            forecastCache.put(1L, createWeatherList(3), createAqiList(3));
+            when(openMeteoClient.getWeatherForecasts(any(), eq(3)))
+                    .thenReturn(Arrays.asList(createWeatherList(3), null));
+            when(openMeteoClient.getAirQualities(any(), eq(3)))
+                    .thenReturn(Arrays.asList(createAqiList(3), createAqiList(3)));
+            when(scoringService.calculate(any(), any(), any()))
+                    .thenReturn(new Score(85, "Great", List.of("Air quality is good")));
+
+            ForecastBatchResponse result = forecastService.getForecasts(
+                    List.of(3L, 99L, 1L, 2L), ScoringProfile.DEFAULT, 2);
+
+            assertEquals(List.of(3L, 99L, 1L, 2L),
+                    result.forecasts().stream().map(ForecastBatchResponse.Item::locationId).toList());
+            assertEquals("SERVICE_UNAVAILABLE", result.forecasts().get(0).error().code());
+            assertEquals("NOT_FOUND", result.forecasts().get(1).error().code());
+            assertEquals("Denver, Colorado", result.forecasts().get(2).forecast().locationName());
+            assertEquals("Boulder, Colorado", result.forecasts().get(3).forecast().locationName());
+            assertNull(result.forecasts().get(3).error());
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<OpenMeteoClient.Coordinates>> coordinates = ArgumentCaptor.forClass(List.class);
+            verify(openMeteoClient).getWeatherForecasts(coordinates.capture(), eq(3));
+            assertEquals(2, coordinates.getValue().size());
+            verify(openMeteoClient, never()).getWeatherForecast(any(), any(), anyInt());
+            assertNotNull(forecastCache.get(2L, today, 3));
+            assertNull(forecastCache.get(3L, today, 3));
+        }
+
+        @Test
+        @DisplayName("Should charge an upstream token per missing location and fail the ones over the limit")
+        void chargesPerMissingLocation() {
+            List<Location> locations = new ArrayList<>();
+            for (long id = 1; id <= 4; id++) {
+                Location location = new Location("Location " + id, new BigDecimal("39.7"), new BigDecimal("-104.9"));
+                location.setId(id);
+                locations.add(location);
+            }
+            when(locationService.getLocationEntities(any())).thenReturn(locations);
+            when(openMeteoClient.getWeatherForecasts(any(), eq(3)))
+                    .thenAnswer(call -> Collections.nCopies(call.<List<?>>getArgument(0).size(), createWeatherList(3)));
+            when(openMeteoClient.getAirQualities(any(), eq(3)))
+                    .thenAnswer(call -> Collections.nCopies(call.<List<?>>getArgument(0).size(), createAqiList(3)));
+            when(scoringService.calculate(any(), any(), any()))
+                    .thenReturn(new Score(85, "Great", List.of("Air quality is good")));
+            TokenBuckets upstream = new TokenBuckets(1, 3, 100);
+            RateLimitInterceptor interceptor = new RateLimitInterceptor(new TokenBuckets(60, 10, 100), upstream, Set.of());
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/forecasts");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            interceptor.preHandle(request, response, new Object());
+            ForecastBatchResponse result;
+            try {
+                result = forecastService.getForecasts(List.of(1L, 2L, 3L, 4L), ScoringProfile.DEFAULT, 2);
+            } finally {
+                interceptor.afterCompletion(request, response, new Object(), null);
+            }
+
+            // Three tokens for three fetched locations; the fourth is over the limit
+            assertEquals(List.of(false, false, false, true),
+                    result.forecasts().stream().map(item -> item.error() != null).toList());
+            assertEquals("RATE_LIMITED", result.forecasts().get(3).error().code());
+            assertEquals(1, upstream.rejected());
+            assertTrue(upstream.tryAcquire(request.getRemoteAddr()) > 0);
+        }
+    }
+
+    @Nested
+    @DisplayName("getDashboard")
+    class GetDashboardTests {
+
+        @Test
+        @DisplayName("Should build forecast and trends from one 7-day fetch, scoring and storing each day once")
+        void sharesOneFetch() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            when(openMeteoClient.getWeatherForecast(any(), any(), eq(7))).thenReturn(createWeatherList(7));
+            when(openMeteoClient.getAirQuality(any(), any(), eq(7))).thenReturn(createAqiList(7));
+            when(scoringService.calculateAll(any(), any()))
+                    .thenReturn(allProfiles(new Score(85, "Great", List.of("Air quality is good"))));
+            when(dailyMetricsRepository.findWithProfileScoresByLocationIdAndDateBetween(anyLong(), any(), any()))
+                    .thenReturn(Collections.emptyList());
+
+            DashboardResponse result = forecastService.getDashboard(1L, ScoringProfile.DEFAULT, 2);
+
+            assertEquals(3, result.forecast().forecast().size());
+            assertEquals(List.of("Air quality is good"), result.forecast().reasons());
+            assertEquals(7, result.trends().scores().size());
+            assertEquals(7, result.trends().period());
+            verify(openMeteoClient, times(1)).getWeatherForecast(any(), any(), anyInt());
+            verify(openMeteoClient, times(1)).getAirQuality(any(), any(), anyInt());
+            verify(scoringService, times(7)).calculateAll(any(), any());
+            verify(scoringService, never()).calculate(any(), any(), any());
+            verify(dailyMetricsRepository, times(7)).save(any(DailyMetrics.class));
+            // A later forecast is served from the same days
+            assertNotNull(forecastCache.get(1L, today, ForecastService.FORECAST_DAYS));
+        }
+
+        @Test
+        @DisplayName("Should score each cached day once for both sections")
+        void scoresCachedDaysOnce() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            forecastCache.put(1L, createWeatherList(7), createAqiList(7));
+            when(scoringService.calculate(any(), any(), eq(ScoringProfile.RUNNER)))
+                    .thenReturn(new Score(60, "Good", List.of()));
+
+            DashboardResponse result = forecastService.getDashboard(1L, ScoringProfile.RUNNER, 2);
+
+            assertEquals(60, result.forecast().score());
+            assertTrue(result.trends().scores().stream().allMatch(s -> s.score() == 60));
+            verify(scoringService, times(7)).calculate(any(), any(), any());
+            verifyNoInteractions(openMeteoClient, dailyMetricsRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("getTrendsSince")
+    class GetTrendsSinceTests {
+
+        @Test
+        @DisplayName("Should return only the days written after since, versioned by the latest write, without going upstream")
+        void returnsChangedDays() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            List<DailyMetrics> stored = createCachedMetrics(7);
+            stored.forEach(dm -> dm.setVersion(10L));
+            stored.get(0).setVersion(12L);
+            when(dailyMetricsRepository.findByLocationIdAndDateBetween(1L, today, today.plusDays(6)))
+                    .thenReturn(stored);
+
+            TrendsResponse result = forecastService.getTrendsSince(1L, 7, ScoringProfile.DEFAULT, 10L);
+
+            assertEquals(List.of(today), result.scores().stream().map(TrendsResponse.ScoreTrend::date).toList());
+            assertEquals(12L, result.version());
+            verifyNoInteractions(openMeteoClient);
+        }
+
+        @Test
+        @DisplayName("Should keep the client's version when nothing changed")
+        void keepsVersionWhenUnchanged() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            List<DailyMetrics> stored = createCachedMetrics(7);
+            stored.forEach(dm -> dm.setVersion(10L));
+            when(dailyMetricsRepository.findByLocationIdAndDateBetween(anyLong(), any(), any())).thenReturn(stored);
+
+            TrendsResponse result = forecastService.getTrendsSince(1L, 7, ScoringProfile.DEFAULT,
+                    1_770_681_600_000L);
+
+            assertTrue(result.scores().isEmpty());
+            assertEquals(1_770_681_600_000L, result.version());
+        }
+    }
+
+    @Nested
+    @DisplayName("Days queued for daily_metrics")
+    class QueuedDaysTests {
+
+        @Mock
+        private DailyMetricsWriter queuedWriter;
+
+        private ForecastService service() {
+            return new ForecastService(locationService, openMeteoClient, scoringService, dailyMetricsRepository,
+                    queuedWriter, bestWindowService, forecastCache, meterRegistry);
+        }
+
+        @Test
+        @DisplayName("Should serve trends from days not yet written, without writing or going upstream")
+        void servesQueuedDays() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            List<DailyMetrics> stored = createCachedMetrics(3);
+            stored.forEach(dm -> dm.setVersion(5L));
+            List<DailyMetrics> queued = createCachedMetrics(7);
+            // Fetched after the stored rows
+            queued.forEach(day -> day.markUpdated(day.getUpdatedAt().plusSeconds(1)));
+            when(queuedWriter.pending(1L, today, today.plusDays(6))).thenReturn(queued);
+            when(dailyMetricsRepository.findByLocationIdAndDateBetween(1L, today, today.plusDays(6)))
+                    .thenReturn(stored);
+
+            TrendsResponse result = service().getTrends(1L, 7);
+
+            assertEquals(7, result.scores().size());
+            // Queued days get their versions once written
+            assertEquals(5L, result.version());
+            verifyNoInteractions(openMeteoClient);
+            verify(queuedWriter, never()).flush();
+            verify(dailyMetricsRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should return queued days as changes, since they aren't written yet")
+        void returnsQueuedChanges() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            List<DailyMetrics> queued = createCachedMetrics(7);
+            when(queuedWriter.pending(1L, today, today.plusDays(6))).thenReturn(queued);
+
+            TrendsResponse result = service().getTrendsSince(1L, 7, ScoringProfile.DEFAULT, 10L);
+
+            assertEquals(7, result.scores().size());
+            assertEquals(10L, result.version());
+            verifyNoInteractions(openMeteoClient);
+            verify(queuedWriter, never()).flush();
+        }
+
+        @Test
+        @DisplayName("Should not return a queued day as a change when its stored row is from a later fetch")
+        void skipsQueuedDaysOlderThanStored() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            List<DailyMetrics> stored = createCachedMetrics(7);
+            stored.forEach(dm -> dm.setVersion(10L));
+            List<DailyMetrics> queued = createCachedMetrics(1);
+            queued.get(0).markUpdated(stored.get(0).getUpdatedAt().minusSeconds(1));
+            when(queuedWriter.pending(1L, today, today.plusDays(6))).thenReturn(queued);
+            when(dailyMetricsRepository.findByLocationIdAndDateBetween(1L, today, today.plusDays(6)))
+                    .thenReturn(stored);
+
+            TrendsResponse result = service().getTrendsSince(1L, 7, ScoringProfile.DEFAULT, 10L);
+
+            assertTrue(result.scores().isEmpty());
+            assertEquals(10L, result.version());
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics")
+    class MetricsTests {
+
+        @Test
+        @DisplayName("Should count trend cache hits, misses and failed fetches")
+        void countsTrendCacheResults() {
+            when(locationService.getLocationEntity(1L)).thenReturn(testLocation);
+            when(dailyMetricsRepository.findByLocationIdAndDateBetween(anyLong(), any(), any()))
+                    .thenReturn(createCachedMetrics(7))
+                    .thenReturn(Collections.emptyList());
+            when(openMeteoClient.getAirQuality(any(), any(), anyInt()))
+                    .thenThrow(new RuntimeException("upstream down"));
+
+            forecastService.getTrends(1L, 7);
+            forecastService.getTrends(1L, 7);
+
+            assertEquals(1, meterRegistry.get("breathego.trends.cache").tag("result", "hit").counter().count());
+            assertEquals(1, meterRegistry.get("breathego.trends.cache").tag("result", "miss").counter().count());
+            assertEquals(1, meterRegistry.get("breathego.forecast.fetches")
+                    .tags("operation", "trends", "result", "failure").counter().count());
+        }
+    }
+
     // --- Helper methods ---
 
+    private ProfileScores allProfiles(Score score) {
+        Score[] scores = new Score[ScoringProfile.BUILT_IN.size()];
+        Arrays.fill(scores, score);
+        return new ProfileScores(ScoringProfile.BUILT_IN, scores);
+    }
+
     private List<WeatherData> createWeatherList(int days) {
         List<WeatherData> list = new ArrayList<>();
         for (int i = 0; i < days; i++) {
@@ -280,6 +750,7 @@ class ForecastServiceTest {
             dm.setPrecipitation(BigDecimal.ZERO);
             dm.setWindSpeed(new BigDecimal("10"));
             dm.setUvIndex(new BigDecimal("5"));
+            dm.markUpdated();
             list.add(dm);
         }
         return list;
@@ -6,10 +6,13 @@ import com.breathego.dto.WeatherData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -118,6 +121,20 @@ class ScoringServiceTest {
             assertEquals(0, scoringService.calculatePrecipScore(weather));
         }
 
+        @Test
+        @DisplayName("Hourly precipitation should use hourly bands")
+        void hourlyBands() {
+            int dry = scoreHour(0);
+            assertEquals(3, dry - scoreHour(0.3), "Drizzle (<0.5mm/h)");
+            assertEquals(8, dry - scoreHour(1.0), "Light rain (0.5-2mm/h)");
+            assertEquals(11, dry - scoreHour(3.0), "Moderate rain (2-4mm/h)");
+            assertEquals(15, dry - scoreHour(5.0), "Heavy rain (4mm/h+)");
+        }
+
+        private int scoreHour(double precip) {
+            return scoringService.scoreHour(ScoringProfile.DEFAULT, 30, 20, precip, 5);
+        }
+
         private WeatherData createWeather(BigDecimal precip) {
             return new WeatherData(today, new BigDecimal("20"), new BigDecimal("15"),
                     precip, new BigDecimal("10"), null, new BigDecimal("5"));
@@ -271,4 +288,131 @@ class ScoringServiceTest {
             assertEquals("Avoid", scoringService.getRecommendation(0));
         }
     }
+
+    @Nested
+    @DisplayName("Scoring Profiles")
+    class ProfileTests {
+
+        private final WeatherData windyDay = new WeatherData(today, new BigDecimal("20"), new BigDecimal("14"),
+                new BigDecimal("1.0"), new BigDecimal("32"), null, new BigDecimal("4"));
+        private final AqiData moderateAqi = new AqiData(today, 80, new BigDecimal("20"), new BigDecimal("50"));
+
+        @Test
+        @DisplayName("Single-pass scores should match scoring each profile separately")
+        void calculateAllMatchesPerProfile() {
+            ProfileScores all = scoringService.calculateAll(windyDay, moderateAqi);
+
+            for (ScoringProfile profile : scoringService.getProfiles()) {
+                assertEquals(scoringService.calculate(windyDay, moderateAqi, profile), all.get(profile),
+                        "Mismatch for profile " + profile.id());
+            }
+            assertEquals(scoringService.calculate(windyDay, moderateAqi), all.getDefault());
+        }
+
+        @Test
+        @DisplayName("Profiles should weigh the same day differently")
+        void profilesDiffer() {
+            ProfileScores all = scoringService.calculateAll(windyDay, moderateAqi);
+
+            assertTrue(all.get(ScoringProfile.SENSITIVE).value() < all.getDefault().value(),
+                    "Moderate AQI should cost sensitive groups more");
+            assertTrue(all.get(ScoringProfile.CYCLIST).value() < all.getDefault().value(),
+                    "32 km/h wind should cost cyclists more");
+            assertFalse(all.nonDefaultValues().containsKey(ScoringProfile.DEFAULT_ID));
+        }
+
+        @Test
+        @DisplayName("Unknown profile ids should be rejected")
+        void unknownProfile() {
+            assertEquals(ScoringProfile.RUNNER, scoringService.getProfile("runner"));
+            assertThrows(ScoringService.UnknownProfileException.class,
+                    () -> scoringService.getProfile("skier"));
+        }
+
+        @Test
+        @DisplayName("Profile weights must total 100")
+        void weightsMustTotal100() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new ScoringProfile("broken", 60, 15, 15, 15, 15, 25, 40.0, 10.0, 1.0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Table-Driven Scoring Path")
+    class TableDrivenTests {
+
+        private static final int ITERATIONS = 100_000;
+        // One Score record (header + int + two references), rounded up for
+        // JVMs running without compressed oops
+        private static final long SCORE_BYTES = 40;
+        private static final long MEASUREMENT_SLACK_BYTES = 8 * 1024;
+
+        private Score sink;
+
+        @Test
+        @DisplayName("Days in the same buckets should share one immutable reason list")
+        void reasonsAreSharedAndImmutable() {
+            WeatherData weather = new WeatherData(today, new BigDecimal("22"), new BigDecimal("18"),
+                    BigDecimal.ZERO, new BigDecimal("10"), null, new BigDecimal("3"));
+            Score first = scoringService.calculate(weather, new AqiData(today, 20, null, null));
+            Score second = scoringService.calculate(weather, new AqiData(today, 45, null, null));
+
+            assertSame(first.reasons(), second.reasons());
+            assertThrows(UnsupportedOperationException.class, () -> first.reasons().add("extra"));
+        }
+
+        @Test
+        @DisplayName("Reasons should keep component order and thresholds")
+        void reasonsFollowComponentOrder() {
+            WeatherData weather = new WeatherData(today, new BigDecimal("35"), new BigDecimal("28"),
+                    new BigDecimal("12"), new BigDecimal("30"), null, new BigDecimal("8"));
+            Score score = scoringService.calculate(weather, new AqiData(today, 120, null, null));
+
+            assertEquals(List.of(
+                    "Air quality is unhealthy for sensitive groups",
+                    "Heavy rain expected - bring an umbrella",
+                    "Temperature is hot - stay hydrated",
+                    "Moderate winds expected",
+                    "Very high UV - use sunscreen and seek shade"
+            ), score.reasons());
+        }
+
+        @Test
+        @Tag("allocation")
+        @DisplayName("Scoring a day should allocate nothing beyond the returned Score")
+        void scoringAllocatesOnlyTheScore() {
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            WeatherData[] weather = {
+                    new WeatherData(today, new BigDecimal("22.4"), new BigDecimal("14.1"),
+                            BigDecimal.ZERO, new BigDecimal("12.3"), 180, new BigDecimal("4.5")),
+                    new WeatherData(today, new BigDecimal("33.0"), new BigDecimal("24.6"),
+                            new BigDecimal("6.2"), new BigDecimal("38.9"), 90, new BigDecimal("9.1")),
+                    new WeatherData(today, new BigDecimal("-3.5"), null,
+                            null, null, null, null)
+            };
+            AqiData[] aqi = {
+                    new AqiData(today, 35, new BigDecimal("8.10"), new BigDecimal("40.00")),
+                    new AqiData(today, 172, new BigDecimal("65.40"), new BigDecimal("120.00")),
+                    null
+            };
+
+            // Warm up so the JIT has compiled the scoring path
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink = scoringService.calculate(weather[i % 3], aqi[i % 3]);
+            }
+
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink = scoringService.calculate(weather[i % 3], aqi[i % 3]);
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+            assertNotNull(sink);
+            long budget = ITERATIONS * SCORE_BYTES + MEASUREMENT_SLACK_BYTES;
+            assertTrue(allocated <= budget,
+                    "Scoring allocated " + allocated + " bytes for " + ITERATIONS
+                            + " days, budget is " + budget);
+        }
+    }
 }
@@ -0,0 +1,92 @@
+package com.breathego.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingFilterTest {
+
+    @Test
+    @DisplayName("Should report recorded phases in the Server-Timing header")
+    void reportsPhasesInHeader() throws Exception {
+        MockHttpServletResponse response = run(new ServerTimingFilter(true, false), "/api/locations/1/forecast",
+                (req, res) -> {
+                    RequestTimings.time(RequestTimings.LOCATION, () -> sleep(2));
+                    RequestTimings.time(RequestTimings.UPSTREAM, () -> sleep(2));
+                    RequestTimings.time(RequestTimings.UPSTREAM, () -> sleep(2));
+                    res.getOutputStream().write("{}".getBytes());
+                    // Recorded after the body started: too late for the header
+                    RequestTimings.time(RequestTimings.SCORING, () -> { });
+                });
+
+        String header = response.getHeader(ServerTimingFilter.HEADER);
+        assertNotNull(header);
+        assertTrue(header.matches("location;dur=[0-9.]+, upstream;dur=[0-9.]+;desc=\"2 calls\", total;dur=[0-9.]+"),
+                header);
+    }
+
+    @Test
+    @DisplayName("Should still add the header to responses without a body")
+    void addsHeaderWithoutBody() throws Exception {
+        MockHttpServletResponse response = run(new ServerTimingFilter(true, false), "/api/locations/1",
+                (req, res) -> ((HttpServletResponse) res).setStatus(204));
+
+        assertTrue(response.getHeader(ServerTimingFilter.HEADER).startsWith("total;dur="));
+    }
+
+    @Test
+    @DisplayName("Should skip non-API paths and record nothing outside a request")
+    void skipsNonApiPaths() throws Exception {
+        MockHttpServletResponse response = run(new ServerTimingFilter(true, false), "/actuator/health",
+                (req, res) -> assertEquals("ok", RequestTimings.time(RequestTimings.SCORING, () -> "ok")));
+
+        assertNull(response.getHeader(ServerTimingFilter.HEADER));
+    }
+
+    @Test
+    @DisplayName("Should offer a JSON debug trailer when enabled and requested")
+    void offersDebugTrailer() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/locations");
+        request.addHeader("TE", "trailers");
+        TrailerCapturingResponse response = new TrailerCapturingResponse();
+
+        new ServerTimingFilter(true, true).doFilter(request, response,
+                (req, res) -> RequestTimings.time(RequestTimings.LOCATION, () -> { }));
+
+        String trailer = response.trailers.get().get(ServerTimingFilter.DEBUG_TRAILER);
+        assertTrue(trailer.matches("\\{\"totalMs\":[0-9.]+,\"phases\":\\[\\{\"name\":\"location\",\"ms\":[0-9.]+,\"count\":1}]}"),
+                trailer);
+    }
+
+    private MockHttpServletResponse run(ServerTimingFilter filter, String uri, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", uri), response, chain);
+        return response;
+    }
+
+    /** MockHttpServletResponse ignores trailers; keep the supplier for the assertion. */
+    private static final class TrailerCapturingResponse extends MockHttpServletResponse {
+        private Supplier<Map<String, String>> trailers;
+
+        @Override
+        public void setTrailerFields(Supplier<Map<String, String>> supplier) {
+            this.trailers = supplier;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
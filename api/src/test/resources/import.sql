@@ -0,0 +1,2 @@
+-- Seeded by V5 in real databases; Hibernate runs this after create-drop
+INSERT INTO daily_metrics_clock (id, version) VALUES (1, 0);
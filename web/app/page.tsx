@@ -1,6 +1,6 @@
 'use client';
 
-import { useState, useEffect, useCallback } from 'react';
+import { useState, useEffect, useCallback, useRef } from 'react';
 import { api } from '@/lib/api';
 import type { Location, ForecastResponse, TrendsResponse, GeocodingResult } from '@/types';
 import ScoreCard from '@/components/ScoreCard';
@@ -17,6 +17,8 @@ export default function Dashboard() {
   const [trends, setTrends] = useState<TrendsResponse | null>(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
+  // Trends already loaded per location, refreshed with only the changed days
+  const trendsByLocation = useRef(new Map<number, TrendsResponse>());
 
   const loadLocations = useCallback(async () => {
     try {
@@ -33,10 +35,12 @@ export default function Dashboard() {
     setLoading(true);
     setError(null);
     try {
-      const [forecastData, trendsData] = await Promise.all([
-        api.getForecast(locationId),
-        api.getTrends(locationId, 7),
-      ]);
+      const previousTrends = trendsByLocation.current.get(locationId);
+      // First visit: one request, so forecast and trends share one upstream fetch
+      const [forecastData, trendsData] = previousTrends
+        ? await Promise.all([api.getForecast(locationId), api.refreshTrends(previousTrends)])
+        : await api.getDashboard(locationId).then((d) => [d.forecast, d.trends] as const);
+      trendsByLocation.current.set(locationId, trendsData);
       setForecast(forecastData);
       setTrends(trendsData);
     } catch (err) {
@@ -78,6 +82,7 @@ export default function Dashboard() {
 
   const handleDeleteLocation = async (id: number) => {
     await api.deleteLocation(id);
+    trendsByLocation.current.delete(id);
     setLocations((prev) => prev.filter((l) => l.id !== id));
     if (selectedLocationId === id) {
       const remaining = locations.filter((l) => l.id !== id);
@@ -2,6 +2,8 @@ import type {
   Location,
   LocationRequest,
   ForecastResponse,
+  ForecastBatchResponse,
+  DashboardResponse,
   TrendsResponse,
   ApiError,
   GeocodingResult
@@ -66,12 +68,50 @@ class ApiClient {
     return this.request<ForecastResponse>(`/locations/${locationId}/forecast`);
   }
 
+  // Up to 50 locations in one request; a failing location doesn't fail the others
+  async getForecasts(locationIds: number[]): Promise<ForecastBatchResponse> {
+    return this.request<ForecastBatchResponse>('/forecasts', {
+      method: 'POST',
+      body: JSON.stringify({ locationIds }),
+    });
+  }
+
   async getTrends(locationId: number, period: number = 14): Promise<TrendsResponse> {
     return this.request<TrendsResponse>(
       `/locations/${locationId}/trends?period=${period}`
     );
   }
 
+  async getDashboard(locationId: number): Promise<DashboardResponse> {
+    return this.request<DashboardResponse>(`/locations/${locationId}/dashboard`);
+  }
+
+  // Brings `previous` up to date with only the days changed since its version
+  async refreshTrends(previous: TrendsResponse): Promise<TrendsResponse> {
+    if (previous.version === null) {
+      return this.getTrends(previous.locationId, previous.period);
+    }
+    const changed = await this.request<TrendsResponse>(
+      `/locations/${previous.locationId}/trends?period=${previous.period}&since=${previous.version}`
+    );
+    // The window moves a day at a time: a new last day comes back as a change,
+    // and the days before it that no longer fit are dropped
+    const days = Math.max(previous.scores.length, changed.scores.length);
+    const merge = <T extends { date: string }>(kept: T[], updates: T[]): T[] => {
+      const byDate = new Map(kept.map((day) => [day.date, day]));
+      updates.forEach((day) => byDate.set(day.date, day));
+      return Array.from(byDate.values())
+        .sort((a, b) => a.date.localeCompare(b.date))
+        .slice(-days);
+    };
+    return {
+      ...changed,
+      aqi: merge(previous.aqi, changed.aqi),
+      temperature: merge(previous.temperature, changed.temperature),
+      scores: merge(previous.scores, changed.scores),
+    };
+  }
+
   // Geocoding
   async searchLocations(query: string, limit: number = 5): Promise<GeocodingResult[]> {
     if (!query || query.trim().length < 2) {
@@ -29,6 +29,13 @@ export interface AqiInfo {
   ozone: number | null;
 }
 
+export interface BestWindow {
+  start: string;  // HH:mm:ss local time
+  end: string;
+  score: number;
+  maxAqi: number | null;
+}
+
 export interface DailyForecast {
   date: string;
   score: number;
@@ -36,13 +43,17 @@ export interface DailyForecast {
   temperatureMax: number | null;
   temperatureMin: number | null;
   aqi: number | null;
+  bestWindow: BestWindow | null;
 }
 
 export type Recommendation = 'Great' | 'Okay' | 'Caution' | 'Avoid';
 
+export type ScoringProfile = 'default' | 'sensitive' | 'runner' | 'cyclist';
+
 export interface ForecastResponse {
   locationId: number;
   locationName: string;
+  profile: ScoringProfile;
   score: number;
   recommendation: Recommendation;
   reasons: string[];
@@ -51,6 +62,17 @@ export interface ForecastResponse {
   forecast: DailyForecast[];
 }
 
+// One per requested location, in request order: a forecast or an error
+export interface ForecastBatchItem {
+  locationId: number;
+  forecast: ForecastResponse | null;
+  error: ApiError | null;
+}
+
+export interface ForecastBatchResponse {
+  forecasts: ForecastBatchItem[];
+}
+
 export interface AqiTrend {
   date: string;
   value: number | null;
@@ -71,10 +93,19 @@ export interface ScoreTrend {
 export interface TrendsResponse {
   locationId: number;
   locationName: string;
+  profile: ScoringProfile;
   period: number;
   aqi: AqiTrend[];
   temperature: TemperatureTrend[];
   scores: ScoreTrend[];
+  // Pass back as `since` to get only the days changed after this response
+  version: number | null;
+}
+
+// Forecast and 7-day trends of one location, from the same upstream fetch
+export interface DashboardResponse {
+  forecast: ForecastResponse;
+  trends: TrendsResponse;
 }
 
 export interface ApiError {